@@ -6,18 +6,31 @@ import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JToolBar;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.TableModel;
 
+import com.kenfogel.performance.loaders.FootprintTests;
 import com.kenfogel.performance.loaders.MapTests;
+import com.kenfogel.performance.loaders.ResultListener;
 import com.kenfogel.performance.loaders.SequenceTests;
+import com.kenfogel.performance.models.FootprintTableModel;
 import com.kenfogel.performance.models.MapSpeedTableModel;
 import com.kenfogel.performance.models.SequenceSpeedTableModel;
+import com.kenfogel.performance.panels.FootprintTablePanel;
 import com.kenfogel.performance.panels.MapSpeedTablePanel;
 import com.kenfogel.performance.panels.SequenceSpeedTablePanel;
 import java.io.IOException;
@@ -30,21 +43,44 @@ import java.io.IOException;
  * Corrected error where I was using the copy constructor of the ArrayList.
  * Needed to be replaced with a for loop. Updated to use Java 1.8 syntax
  *
+ * The tests run on a single worker thread so that the Event Dispatch
+ * Thread stays free to repaint and the measured code does not compete
+ * with it. Each result appears in the table as soon as it is measured.
+ * The tests and the buttons that start them are disabled until the batch
+ * finishes or is cancelled.
+ *
+ * The third table shows the heap each structure retains at the selected
+ * size, see FootprintTests.
+ *
  * @author Ken Fogel
  * @version 6.0
  *
  */
 public class CollectionPerformanceApp extends JFrame {
 
+    // The number of results from one batch of tests for the progress bar
+    private final static int SEQUENCE_RESULTS = 13;
+    private final static int MAP_RESULTS = 8;
+    private final static int FOOTPRINT_RESULTS = 5 * FootprintTests.STRUCTURES.length;
+
     private final SequenceSpeedTableModel sequenceSpeedTableModel;
     private final SequenceTests sequenceTests;
     private final MapSpeedTableModel mapSpeedTableModel;
     private final MapTests mapTests;
+    private final FootprintTableModel footprintTableModel;
+    private final FootprintTests footprintTests;
+    private final ExecutorService testExecutor;
 
     private JButton button[];
+    private JButton cancelButton;
+    private JComboBox<Integer> sizeComboBox;
+    private JProgressBar progressBar;
+    private TestBatchWorker worker;
     private final String[] buttonText = {"Array", "ArrayList", "Deque", "Linked List",
-        "Hash Map", "Tree Map", "Clear"};
-    private final String[] buttonAction = {"A", "B", "C", "D", "E", "F", "G"};
+        "Unrolled List", "Gap Buffer", "Ring Deque", "Hash Map", "Tree Map", "String->int", "long->long", "Footprint", "Clear"};
+    private final String[] buttonAction = {"A", "B", "C", "D", "K", "L", "M", "E", "F", "H", "I", "J", "G"};
+    private final Integer[] sizes = {10, 100, 1_000, 10_000, 100_000,
+        1_000_000, 10_000_000};
 
     /**
      * Constructor
@@ -55,6 +91,15 @@ public class CollectionPerformanceApp extends JFrame {
         sequenceTests = new SequenceTests(sequenceSpeedTableModel);
         mapSpeedTableModel = new MapSpeedTableModel();
         mapTests = new MapTests(mapSpeedTableModel);
+        footprintTableModel = new FootprintTableModel();
+        footprintTests = new FootprintTests(footprintTableModel);
+        // Every batch runs on the same thread, one after the other
+        testExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Test Batch Worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
     }
 
     /**
@@ -77,13 +122,15 @@ public class CollectionPerformanceApp extends JFrame {
         // Build the results panels
         SequenceSpeedTablePanel sequenceSpeedTablePanel = new SequenceSpeedTablePanel(sequenceSpeedTableModel);
         MapSpeedTablePanel mapSpeedTablePanel = new MapSpeedTablePanel(mapSpeedTableModel);
+        FootprintTablePanel footprintTablePanel = new FootprintTablePanel(footprintTableModel);
 
-        // Build a panel to contain the two results panels
+        // Build a panel to contain the three results panels
         JPanel testResultsPanel = new JPanel();
-        testResultsPanel.setLayout(new GridLayout(2, 1));
+        testResultsPanel.setLayout(new GridLayout(3, 1));
 
         testResultsPanel.add(sequenceSpeedTablePanel);
         testResultsPanel.add(mapSpeedTablePanel);
+        testResultsPanel.add(footprintTablePanel);
 
         add(testResultsPanel, BorderLayout.CENTER);
     }
@@ -116,11 +163,128 @@ public class CollectionPerformanceApp extends JFrame {
         button[button.length - 1].addActionListener(tbeh);
         toolBar.add(button[button.length - 1]);
 
+        toolBar.addSeparator();
+        toolBar.add(createSizeSelector());
+
         setButtonsWidthAndFont();
 
+        toolBar.addSeparator();
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        progressBar.setMaximumSize(progressBar.getPreferredSize());
+        toolBar.add(progressBar);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setFont(button[0].getFont());
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (worker != null) {
+                worker.cancel(false);
+            }
+        });
+        toolBar.add(cancelButton);
+
         return toolBar;
     }
 
+    /**
+     * Create the selector for the number of elements in each data structure.
+     * Changing the size reloads the data and clears the results because
+     * they belong to the previous size.
+     *
+     * @return the labelled selector
+     */
+    private JPanel createSizeSelector() {
+        sizeComboBox = new JComboBox<>(sizes);
+        sizeComboBox.setSelectedItem(SequenceTests.DEFAULT_SIZE);
+        sizeComboBox.setMaximumSize(sizeComboBox.getPreferredSize());
+        sizeComboBox.addActionListener(e -> {
+            int size = (Integer) sizeComboBox.getSelectedItem();
+            sequenceSpeedTableModel.clearResults();
+            mapSpeedTableModel.clearResults();
+            footprintTableModel.clearResults();
+            runBatch(results -> {
+                sequenceTests.setSize(size);
+                mapTests.setSize(size);
+                footprintTests.setSize(size);
+            }, null, 0);
+        });
+
+        JLabel sizeLabel = new JLabel("Size ");
+        sizeLabel.setFont(new Font(sizeLabel.getFont().getName(), Font.BOLD, 14));
+
+        JPanel sizePanel = new JPanel();
+        sizePanel.add(sizeLabel);
+        sizePanel.add(sizeComboBox);
+        sizePanel.setMaximumSize(sizePanel.getPreferredSize());
+        return sizePanel;
+    }
+
+    /**
+     * Run a batch of tests on the worker thread. The buttons that start
+     * tests are disabled until it is done.
+     *
+     * @param batch calls the tests with the listener for the results
+     * @param tableModel where the results are displayed
+     * @param expectedResults the number of results for the progress bar
+     */
+    private void runBatch(Consumer<ResultListener> batch, TableModel tableModel, int expectedResults) {
+        worker = new TestBatchWorker(batch, tableModel, expectedResults);
+        TestBatchWorker thisWorker = worker;
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            } else if ("state".equals(e.getPropertyName())
+                    && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                batchDone(thisWorker);
+            }
+        });
+        setRunning(true);
+        testExecutor.execute(worker);
+    }
+
+    /**
+     * Show why a batch failed, if it did, and enable the buttons again
+     *
+     * @param doneWorker
+     */
+    private void batchDone(TestBatchWorker doneWorker) {
+        setRunning(false);
+        if (doneWorker.isCancelled()) {
+            progressBar.setString("Cancelled");
+            return;
+        }
+        try {
+            doneWorker.get();
+            progressBar.setString("Done");
+        } catch (ExecutionException ex) {
+            progressBar.setString("Failed");
+            JOptionPane.showMessageDialog(this, String.valueOf(ex.getCause()),
+                    "Test Error", JOptionPane.ERROR_MESSAGE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Enable the cancel button while a batch runs and everything else when
+     * it does not
+     *
+     * @param running
+     */
+    private void setRunning(boolean running) {
+        for (JButton button1 : button) {
+            button1.setEnabled(!running);
+        }
+        sizeComboBox.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        if (running) {
+            progressBar.setValue(0);
+            progressBar.setString(null);
+        }
+    }
+
     /**
      * Set up the buttons in the toolbar
      */
@@ -169,20 +333,33 @@ public class CollectionPerformanceApp extends JFrame {
                 char c = source.getActionCommand().charAt(0);
                 switch (c) {
                     case 'A' ->
-                        sequenceTests.doArrayTests();
+                        runBatch(sequenceTests::doArrayTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
                     case 'B' ->
-                        sequenceTests.doArrayListTests();
+                        runBatch(sequenceTests::doArrayListTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
                     case 'C' ->
-                        sequenceTests.doDequeTests();
+                        runBatch(sequenceTests::doDequeTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
                     case 'D' ->
-                        sequenceTests.doLinkedListTests();
+                        runBatch(sequenceTests::doLinkedListTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
+                    case 'K' ->
+                        runBatch(sequenceTests::doUnrolledListTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
+                    case 'L' ->
+                        runBatch(sequenceTests::doGapBufferTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
+                    case 'M' ->
+                        runBatch(sequenceTests::doRingDequeTests, sequenceSpeedTableModel, SEQUENCE_RESULTS);
                     case 'E' ->
-                        mapTests.doHashMapTests();
+                        runBatch(mapTests::doHashMapTests, mapSpeedTableModel, MAP_RESULTS);
                     case 'F' ->
-                        mapTests.doTreeMapTests();
+                        runBatch(mapTests::doTreeMapTests, mapSpeedTableModel, MAP_RESULTS);
+                    case 'H' ->
+                        runBatch(mapTests::doStringIntMapTests, mapSpeedTableModel, MAP_RESULTS);
+                    case 'I' ->
+                        runBatch(mapTests::doLongLongMapTests, mapSpeedTableModel, MAP_RESULTS);
+                    case 'J' ->
+                        runBatch(footprintTests::doFootprintTests, footprintTableModel, FOOTPRINT_RESULTS);
                     case 'G' -> {
                         sequenceSpeedTableModel.clearResults();
                         mapSpeedTableModel.clearResults();
+                        footprintTableModel.clearResults();
                     }
                     default ->
                         JOptionPane.showMessageDialog(null,
@@ -1,17 +1,65 @@
 package com.kenfogel.performance;
 
+import com.kenfogel.performance.collections.LongLongOpenHashMap;
+import com.kenfogel.performance.collections.StringIntOpenHashMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import com.kenfogel.performance.loaders.CacheTests_jmh;
+import com.kenfogel.performance.loaders.ConcurrentMapTests_jmh;
 import com.kenfogel.performance.loaders.MapTests_jmh;
+import com.kenfogel.performance.loaders.MapWorkloadTests_jmh;
+import com.kenfogel.performance.loaders.MixedWorkloadTests_jmh;
+import com.kenfogel.performance.loaders.OffHeapMapTests_jmh;
+import com.kenfogel.performance.loaders.ParallelStreamTests_jmh;
+import com.kenfogel.performance.loaders.QueueTests_jmh;
 import com.kenfogel.performance.loaders.SequenceTests_jmh;
+import com.kenfogel.performance.loaders.SortedMapTests_jmh;
+import com.kenfogel.performance.loaders.StringPoolTests_jmh;
+import com.kenfogel.performance.loaders.TraversalTests_jmh;
+import com.kenfogel.performance.loaders.VirtualThreadTests_jmh;
+import com.kenfogel.performance.reports.AllocationReport;
+import com.kenfogel.performance.reports.GrowthSpikeReport;
+import com.kenfogel.performance.reports.LatencyReport;
+import com.kenfogel.performance.reports.RegressionReport;
+import com.kenfogel.performance.reports.ResultStore;
+import com.kenfogel.performance.reports.ScalingReport;
+import com.kenfogel.performance.reports.SpeedupReport;
+import com.kenfogel.performance.timing.TimingResult;
+import com.kenfogel.performance.workload.CacheResult;
+import com.kenfogel.performance.workload.CacheWorkload;
+import com.kenfogel.performance.workload.ExecutorResult;
+import com.kenfogel.performance.workload.ExecutorWorkload;
+import com.kenfogel.performance.workload.HandoffResult;
+import com.kenfogel.performance.workload.HandoffWorkload;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.AsyncProfiler;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
-import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.TimeValue;
@@ -20,6 +68,19 @@ import org.openjdk.jmh.runner.options.VerboseMode;
 /**
  * Run the JMH tests
  *
+ * The reports and the JSON and CSV results are written to a directory for
+ * the git revision, JVM and hardware, see ResultStore. Give the directory
+ * of an earlier run with -Dbaseline=[path] and every benchmark whose score
+ * is worse than the baseline beyond its error bounds is listed.
+ *
+ * Run with -Dmode=sample to sample the time of individual operations. The
+ * p50 to p99.9 and the maximum of every benchmark are reported, followed
+ * by the sizes at which each growable structure pays for a resize.
+ *
+ * Run only some of the benchmarks with -Dinclude=[regex] and skip some with
+ * -Dexclude=[regex], the regular expressions are matched against the
+ * benchmark names such as MapTests_jmh.do01LoadHashMap.
+ *
  * @author Ken Fogel
  * @version 6.0
  *
@@ -28,41 +89,647 @@ public class CollectionPerformanceApp_JMH {
 
     public static void main(String[] args) throws InterruptedException, RunnerException, Exception {
         runBenchmark(SequenceTests_jmh.class);
+        runBenchmark(TraversalTests_jmh.class);
         runBenchmark(MapTests_jmh.class);
+        runBenchmark(SortedMapTests_jmh.class);
+        runBenchmark(MapWorkloadTests_jmh.class);
+        runBenchmark(MixedWorkloadTests_jmh.class);
+        runBenchmark(OffHeapMapTests_jmh.class);
+        runBenchmark(StringPoolTests_jmh.class);
+        runConcurrentBenchmark(ConcurrentMapTests_jmh.class);
+        runCacheBenchmark(CacheTests_jmh.class);
+        runQueueBenchmark(QueueTests_jmh.class);
+        runVirtualThreadBenchmark(VirtualThreadTests_jmh.class);
+        runParallelismBenchmark(ParallelStreamTests_jmh.class);
+        if (benchmarkMode() == Mode.SampleTime) {
+            runGrowthSpikes();
+        }
+    }
+
+    /**
+     * The mode for the single threaded benchmarks, AverageTime unless
+     * another is given such as -Dmode=sample for the distribution of the
+     * time of every operation
+     *
+     * @return the mode
+     */
+    private static Mode benchmarkMode() {
+        return Mode.deepValueOf(System.getProperty("mode", Mode.AverageTime.shortLabel()));
+    }
+
+    /**
+     * Find the sizes at which adding one element makes each growable
+     * structure resize. The size is 100000 unless given with
+     * -Dspike.size=[size]
+     *
+     * @throws Exception
+     */
+    public static void runGrowthSpikes() throws Exception {
+        int size = Integer.getInteger("spike.size", 100_000);
+        String[] words = WordCorpus.getInstance(size).copyWords();
+        long[] longKeys = WordCorpus.getInstance(size).copyLongKeys();
+        GrowthSpikeReport report = new GrowthSpikeReport(size, 15);
+        report.profile("ArrayList.add", ArrayList<String>::new, (list, x) -> list.add(words[x]));
+        report.profile("ArrayDeque.addFirst", ArrayDeque<String>::new, (deque, x) -> deque.addFirst(words[x]));
+        report.profile("HashMap.put", HashMap<String, String>::new, (map, x) -> map.put(words[x], words[x]));
+        report.profile("StringIntOpenHashMap.put", StringIntOpenHashMap::new, (map, x) -> map.put(words[x], x));
+        report.profile("LongLongOpenHashMap.put", LongLongOpenHashMap::new, (map, x) -> map.put(longKeys[x], x));
+
+        try (PrintStream out = new PrintStream(ResultStore.forThisRun().resolve("GrowthSpikes.txt").toFile())) {
+            report.print(out);
+        }
+        report.print(System.out);
     }
 
     public static void runBenchmark(Class<?> clazz) throws Exception {
-        Options baseOpts = new OptionsBuilder()
-                .include(clazz.getSimpleName())
-                //.shouldDoGC(true)
-                //.resultFormat(ResultFormatType.JSON)
-                //.result(clazz.getSimpleName() + ".json")
-                .output(clazz.getSimpleName() + new Random().nextInt() + ".txt")
+        ResultStore store = ResultStore.forThisRun();
+        String baseName = store.resolve(clazz.getSimpleName()).toString();
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(includePattern(clazz))
+                .shouldDoGC(true)
+                .output(baseName + ".txt")
                 //.verbosity(VerboseMode.EXTRA)
                 .shouldFailOnError(true)
                 .timeUnit(TimeUnit.NANOSECONDS)
-                .mode(Mode.AverageTime)
+                .mode(benchmarkMode());
 //                .forks(2)
 //                .warmupIterations(3)
 //                .warmupTime(TimeValue.seconds(2L))
 //                .measurementIterations(3)
 //                .measurementTime(TimeValue.seconds(2L))
-                .build();
 
-        // Simple run
-        new Runner(baseOpts).run();
-        
+        // Every benchmark runs for each size in its @Param list unless a
+        // shorter list is given with -Dsizes=1000,100000
+        String sizes = System.getProperty("sizes");
+        if (sizes != null && !sizes.isBlank()) {
+            builder.param("size", sizes.split(","));
+        }
+        addProfilers(builder);
+        addExclude(builder);
+        Options baseOpts = builder.build();
+
         // Collect all the results so that they can be accessed programatically.
         // Run the benchmarks and collect the results from each benchmark
-//        Collection<RunResult> runner = new Runner(baseOpts).run();
-
-        // Iterator to go thru all the results
-//        Iterator<RunResult> allResults = runner.iterator();
-//        while (allResults.hasNext()) {
-//            Result myResult = allResults.next().getPrimaryResult();
-//            System.out.printf("%s  %10.3f %s%n",myResult.getLabel(),
-//                    myResult.getScore(), myResult.getScoreUnit()
-//            );
-//        }
+        Collection<RunResult> runner;
+        try {
+            runner = new Runner(baseOpts).run();
+        } catch (NoBenchmarksException ex) {
+            // Every benchmark of the class was filtered out
+            return;
+        }
+
+        // Write the score of each operation against size as a scaling curve
+        ScalingReport scalingReport = ScalingReport.fromRunResults(runner, "size");
+        if (!scalingReport.isEmpty()) {
+            try (PrintStream out = new PrintStream(baseName + "_scaling.txt")) {
+                scalingReport.print(out);
+            }
+            scalingReport.print(System.out);
+        }
+
+        // Add the time, allocation and GC of each benchmark to the end of
+        // the JMH output so they are in one report
+        AllocationReport allocationReport = new AllocationReport(runner);
+        try (PrintStream out = new PrintStream(new FileOutputStream(baseName + ".txt", true))) {
+            allocationReport.print(out);
+        }
+        allocationReport.print(System.out);
+
+        // The percentiles of every operation when the time of each one was
+        // sampled
+        if (benchmarkMode() == Mode.SampleTime) {
+            LatencyReport latencyReport = new LatencyReport(runner);
+            try (PrintStream out = new PrintStream(baseName + "_latency.txt")) {
+                latencyReport.print(out);
+            }
+            latencyReport.print(System.out);
+        }
+
+        storeResults(store, clazz.getSimpleName(), runner);
+    }
+
+    /**
+     * Write the results as JSON and CSV and compare them with the baseline
+     * given by -Dbaseline=[directory], if there is one
+     *
+     * @param store
+     * @param name
+     * @param results
+     * @throws Exception
+     */
+    private static void storeResults(ResultStore store, String name, Collection<RunResult> results) throws Exception {
+        store.write(name, results);
+        String baseline = System.getProperty("baseline");
+        if (baseline != null) {
+            Path baselineCsv = Paths.get(baseline, name + ".csv");
+            if (Files.exists(baselineCsv)) {
+                RegressionReport regressionReport = RegressionReport.compare(
+                        baselineCsv, store.resolve(name + ".csv"));
+                try (PrintStream out = new PrintStream(store.resolve(name + "_regressions.txt").toFile())) {
+                    regressionReport.print(out);
+                }
+                regressionReport.print(System.out);
+            } else {
+                System.out.println("No baseline results in " + baselineCsv);
+            }
+        }
+    }
+
+    /**
+     * The gc profiler is always used so that every result has its bytes
+     * allocated per operation and GC count. The perfnorm hardware counters
+     * are added with -Dperfnorm=true when Linux perf is available, they are
+     * off by default because perf runs alongside every fork. The async
+     * profiler is added when -Dasync=[options] is given, for
+     * example -Dasync=libPath=/opt/async-profiler/lib/libasyncProfiler.so
+     *
+     * @param builder
+     */
+    private static void addProfilers(ChainedOptionsBuilder builder) {
+        builder.addProfiler(GCProfiler.class);
+        if (Boolean.getBoolean("perfnorm")) {
+            try {
+                new LinuxPerfNormProfiler("");
+                builder.addProfiler(LinuxPerfNormProfiler.class);
+            } catch (ProfilerException ex) {
+                System.out.println("Hardware counters are not available: " + ex.getMessage());
+            }
+        }
+        String async = System.getProperty("async");
+        if (async != null) {
+            builder.addProfiler(AsyncProfiler.class, async);
+        }
+    }
+
+    /**
+     * The benchmarks of the class, only those that match -Dinclude if it
+     * is given. JMH finds the pattern anywhere in a benchmark name so the
+     * class name is anchored by the dots around it, otherwise MapTests_jmh
+     * would also run ConcurrentMapTests_jmh and SortedMapTests_jmh.
+     *
+     * @param clazz
+     * @return a regular expression for JMH
+     */
+    private static String includePattern(Class<?> clazz) {
+        String pattern = "\\." + clazz.getSimpleName() + "\\.";
+        String include = System.getProperty("include");
+        if (include == null || include.isBlank()) {
+            return pattern;
+        }
+        return pattern + ".*(?:" + include + ")";
+    }
+
+    /**
+     * Skip the benchmarks that match -Dexclude if it is given
+     *
+     * @param builder
+     */
+    private static void addExclude(ChainedOptionsBuilder builder) {
+        String exclude = System.getProperty("exclude");
+        if (exclude != null && !exclude.isBlank()) {
+            builder.exclude(exclude);
+        }
+    }
+
+    /**
+     * Run a multi threaded benchmark once for each thread count from one to
+     * every available core. Each run measures throughput and the average
+     * time per operation. A summary of both against the thread count is
+     * written at the end.
+     *
+     * JMH rounds the threads of a @Group benchmark up to a multiple of the
+     * threads of the group, so a group is left out of the runs with fewer
+     * threads than it has, except that a group with more threads than
+     * there are cores runs with the last thread count.
+     *
+     * @param clazz
+     * @return the results of every run, empty if every benchmark of the
+     * class was filtered out
+     * @throws Exception
+     */
+    public static List<RunResult> runConcurrentBenchmark(Class<?> clazz) throws Exception {
+        ResultStore store = ResultStore.forThisRun();
+        String baseName = store.resolve(clazz.getSimpleName()).toString();
+        String sizes = System.getProperty("sizes");
+
+        // Throughput and average time for each benchmark and its parameters
+        Map<String, double[]> summary = new TreeMap<>();
+        List<RunResult> allResults = new ArrayList<>();
+        Map<String, Integer> groupSizes = groupSizes(clazz);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : threadCounts(cores)) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(includePattern(clazz))
+                    .output(baseName + "_t" + threads + ".txt")
+                    .shouldFailOnError(true)
+                    .threads(threads)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .mode(Mode.Throughput)
+                    .mode(Mode.AverageTime);
+            if (sizes != null && !sizes.isBlank()) {
+                builder.param("size", sizes.split(","));
+            }
+            addProfilers(builder);
+            addExclude(builder);
+            for (Map.Entry<String, Integer> group : groupSizes.entrySet()) {
+                if (group.getValue() > threads && threads < cores) {
+                    builder.exclude("\\." + clazz.getSimpleName() + "\\." + group.getKey() + "$");
+                }
+            }
+            Collection<RunResult> results;
+            try {
+                results = new Runner(builder.build()).run();
+            } catch (NoBenchmarksException ex) {
+                // Every benchmark was filtered out or is a larger group
+                continue;
+            }
+            allResults.addAll(results);
+            try (PrintStream out = new PrintStream(
+                    new FileOutputStream(baseName + "_t" + threads + ".txt", true))) {
+                new AllocationReport(results).print(out);
+            }
+            for (RunResult runResult : results) {
+                BenchmarkParams params = runResult.getParams();
+                String benchmark = params.getBenchmark();
+                String key = String.format("%-32s %-22s %10s %8d",
+                        benchmark.substring(benchmark.lastIndexOf('.') + 1),
+                        structureOf(params), params.getParam("size"),
+                        params.getThreads());
+                double[] scores = summary.computeIfAbsent(key, k -> new double[2]);
+                scores[params.getMode() == Mode.Throughput ? 0 : 1]
+                        = runResult.getPrimaryResult().getScore();
+            }
+        }
+        if (allResults.isEmpty()) {
+            // Every benchmark of the class was filtered out
+            return allResults;
+        }
+
+        try (PrintStream out = new PrintStream(baseName + "_threads.txt")) {
+            out.printf("%-32s %-22s %10s %8s %14s %14s%n", "Benchmark", "Map",
+                    "size", "threads", "ops/us", "us/op");
+            summary.forEach((key, scores)
+                    -> out.printf("%s %14.3f %14.3f%n", key, scores[0], scores[1]));
+        }
+
+        storeResults(store, clazz.getSimpleName(), allResults);
+        return allResults;
+    }
+
+    /**
+     * Run a cache benchmark for each thread count with
+     * runConcurrentBenchmark and then replay the same trace with
+     * CacheWorkload to measure the hit ratio and the latency of every get
+     * and put, which JMH cannot time one at a time across threads.
+     * CacheWorkload only replays the thread counts, capacities and caches
+     * that the JMH runs measured, so -Dinclude and -Dexclude filter both.
+     * The size is 100000 unless given with -Dsizes=[size], only the first
+     * is used.
+     *
+     * @param clazz
+     * @throws Exception
+     */
+    public static void runCacheBenchmark(Class<?> clazz) throws Exception {
+        Set<String> ran = new HashSet<>();
+        for (RunResult runResult : runConcurrentBenchmark(clazz)) {
+            BenchmarkParams params = runResult.getParams();
+            ran.add(params.getThreads() + "/" + Double.parseDouble(params.getParam("capacityRatio"))
+                    + "/" + params.getParam("cacheType"));
+        }
+        if (ran.isEmpty()) {
+            return;
+        }
+        String sizes = System.getProperty("sizes");
+        int size = sizes == null || sizes.isBlank() ? 100_000 : Integer.parseInt(sizes.split(",")[0].trim());
+        List<CacheResult> cacheResults = new ArrayList<>();
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            CacheWorkload workload = new CacheWorkload(size, CacheWorkload.DEFAULT_DISTRIBUTION, threads);
+            for (double capacityRatio : CacheWorkload.CAPACITY_RATIOS) {
+                for (String cacheType : CacheWorkload.CACHE_TYPES) {
+                    if (ran.contains(threads + "/" + capacityRatio + "/" + cacheType)) {
+                        cacheResults.add(workload.run(cacheType, capacityRatio));
+                    }
+                }
+            }
+        }
+        String baseName = ResultStore.forThisRun().resolve(clazz.getSimpleName()).toString();
+        try (PrintStream out = new PrintStream(baseName + "_hits.txt")) {
+            printCacheResults(out, cacheResults);
+        }
+        printCacheResults(System.out, cacheResults);
+    }
+
+    /**
+     * The hit ratio, throughput and latency in nanoseconds of each cache at
+     * each capacity and thread count
+     */
+    private static void printCacheResults(PrintStream out, List<CacheResult> cacheResults) {
+        out.printf("%-16s %-12s %8s %12s %10s %10s %10s %10s %10s%n", "Cache", "Capacity",
+                "hit %", "ops/s", "get mean", "get p99", "put mean", "put p99", "put p99.9");
+        for (CacheResult result : cacheResults) {
+            TimingResult gets = result.getGetLatency();
+            TimingResult puts = result.getPutLatency();
+            out.printf("%-16s %-12s %8.2f %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n", result.getName(),
+                    result.getConfiguration(), result.getHitRatio() * 100, result.getOperationsPerSecond(),
+                    gets.getMean(), gets.getPercentile(99), puts.getMean(), puts.getPercentile(99),
+                    puts.getPercentile(99.9));
+        }
+    }
+
+    /**
+     * Run the producer and consumer groups of a queue benchmark, whose
+     * thread counts are fixed by the groups, and write a summary of the
+     * hand-offs each queue made in each configuration. The latency of a
+     * hand-off cannot be measured inside JMH so HandoffWorkload then runs
+     * the queues and configurations that JMH ran, so -Dinclude and
+     * -Dexclude filter both, and the percentiles are written after the
+     * summary.
+     *
+     * @param clazz
+     * @throws Exception
+     */
+    public static void runQueueBenchmark(Class<?> clazz) throws Exception {
+        ResultStore store = ResultStore.forThisRun();
+        String baseName = store.resolve(clazz.getSimpleName()).toString();
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(includePattern(clazz))
+                .output(baseName + ".txt")
+                .shouldFailOnError(true)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .mode(Mode.Throughput);
+        addProfilers(builder);
+        addExclude(builder);
+        Collection<RunResult> results;
+        try {
+            results = new Runner(builder.build()).run();
+        } catch (NoBenchmarksException ex) {
+            // Every benchmark of the class was filtered out
+            return;
+        }
+
+        List<HandoffResult> handoffs = measureHandoffs(results);
+        try (PrintStream out = new PrintStream(baseName + "_handoff.txt")) {
+            printHandoffs(out, results, handoffs);
+        }
+        printHandoffs(System.out, results, handoffs);
+        storeResults(store, clazz.getSimpleName(), results);
+    }
+
+    /**
+     * Hand off elements through the queues with one producer and one
+     * consumer, three producers and one consumer and two of each, polling
+     * and then draining, each queue only in the configurations that the
+     * JMH run measured it in. The producers are the first thread group of
+     * a benchmark and the groups that drain are named Drain.
+     *
+     * @param results the JMH results of the queue benchmarks
+     * @return the rate and latency of each queue in each configuration
+     * @throws InterruptedException
+     */
+    private static List<HandoffResult> measureHandoffs(Collection<RunResult> results)
+            throws InterruptedException {
+        Set<String> ran = new HashSet<>();
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            int[] groups = params.getThreadGroups();
+            int batch = params.getBenchmark().endsWith("Drain") ? HandoffWorkload.DEFAULT_BATCH : 0;
+            ran.add(batch + "/" + groups[0] + "/" + groups[1] + "/" + params.getParam("queueType"));
+        }
+        List<HandoffResult> handoffs = new ArrayList<>();
+        int[][] threads = {{1, 1}, {3, 1}, {2, 2}};
+        for (int batch : new int[]{0, HandoffWorkload.DEFAULT_BATCH}) {
+            for (int[] counts : threads) {
+                HandoffWorkload workload = new HandoffWorkload(counts[0], counts[1], batch,
+                        HandoffWorkload.DEFAULT_CAPACITY);
+                for (String queueType : HandoffWorkload.QUEUE_TYPES) {
+                    if (ran.contains(batch + "/" + counts[0] + "/" + counts[1] + "/" + queueType)) {
+                        handoffs.add(workload.run(queueType,
+                                HandoffWorkload.createQueue(queueType, HandoffWorkload.DEFAULT_CAPACITY)));
+                    }
+                }
+            }
+        }
+        return handoffs;
+    }
+
+    /**
+     * The rate of successful and failed offers and polls of every group
+     * followed by the latency of the hand-offs
+     */
+    private static void printHandoffs(PrintStream out, Collection<RunResult> results, List<HandoffResult> handoffs) {
+        out.printf("%-22s %-24s %14s %14s %14s %14s%n", "Benchmark", "Queue",
+                "offers/us", "polls/us", "full/us", "empty/us");
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            String benchmark = params.getBenchmark();
+            Map<String, Result> secondary = runResult.getSecondaryResults();
+            out.printf("%-22s %-24s %14.3f %14.3f %14.3f %14.3f%n",
+                    benchmark.substring(benchmark.lastIndexOf('.') + 1), params.getParam("queueType"),
+                    score(secondary, "offersMade"), score(secondary, "pollsMade"),
+                    score(secondary, "offersFailed"), score(secondary, "pollsFailed"));
+        }
+
+        out.printf("%n%-24s %-20s %14s %10s %10s %10s %10s %10s%n", "Queue", "Configuration",
+                "hand-offs/s", "mean ns", "p50", "p99", "p99.9", "max");
+        for (HandoffResult handoff : handoffs) {
+            TimingResult latency = handoff.getLatency();
+            out.printf("%-24s %-20s %14.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n", handoff.getName(),
+                    handoff.getConfiguration(), handoff.getHandoffsPerSecond(), latency.getMean(),
+                    latency.getMedian(), latency.getPercentile(99), latency.getPercentile(99.9),
+                    latency.getMax());
+        }
+    }
+
+    private static double score(Map<String, Result> results, String label) {
+        Result result = results.get(label);
+        return result == null ? Double.NaN : result.getScore();
+    }
+
+    /**
+     * Run the batches of tasks on platform and virtual threads and then
+     * measure the latency of the tasks and count the pinned parks of the
+     * virtual threads with ExecutorWorkload, which needs a JFR recording
+     * and so cannot run inside JMH. ExecutorWorkload only runs the tasks,
+     * structures and executors that the JMH pass ran, so -Dinclude and
+     * -Dexclude filter both. The size is 10000 unless given with
+     * -Dsizes=[size], only the first is used.
+     *
+     * @param clazz
+     * @throws Exception
+     */
+    public static void runVirtualThreadBenchmark(Class<?> clazz) throws Exception {
+        ResultStore store = ResultStore.forThisRun();
+        String baseName = store.resolve(clazz.getSimpleName()).toString();
+        String sizes = System.getProperty("sizes");
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(includePattern(clazz))
+                .output(baseName + ".txt")
+                .shouldFailOnError(true)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .mode(Mode.AverageTime);
+        if (sizes != null && !sizes.isBlank()) {
+            builder.param("size", sizes.split(","));
+        }
+        addProfilers(builder);
+        addExclude(builder);
+        Collection<RunResult> results;
+        try {
+            results = new Runner(builder.build()).run();
+        } catch (NoBenchmarksException ex) {
+            // Every benchmark of the class was filtered out
+            return;
+        }
+
+        Set<String> ran = new HashSet<>();
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            ran.add(params.getParam("tasks") + "/" + params.getParam("structure") + "/"
+                    + params.getParam("executorType"));
+        }
+        if (ran.isEmpty()) {
+            return;
+        }
+
+        int size = sizes == null || sizes.isBlank() ? 10_000 : Integer.parseInt(sizes.split(",")[0].trim());
+        List<ExecutorResult> executorResults = new ArrayList<>();
+        for (int tasks : new int[]{10_000, 100_000}) {
+            ExecutorWorkload workload = new ExecutorWorkload(size, tasks, ExecutorWorkload.DEFAULT_LOAD_MICROS);
+            for (String structure : ExecutorWorkload.STRUCTURES) {
+                for (String executor : ExecutorWorkload.EXECUTORS) {
+                    if (ran.contains(tasks + "/" + structure + "/" + executor)) {
+                        executorResults.add(workload.run(executor, structure));
+                    }
+                }
+            }
+        }
+        try (PrintStream out = new PrintStream(baseName + "_pinning.txt")) {
+            printExecutorResults(out, executorResults);
+        }
+        printExecutorResults(System.out, executorResults);
+        storeResults(store, clazz.getSimpleName(), results);
+    }
+
+    /**
+     * The throughput, task latency in microseconds and pinned parks of each
+     * structure on each executor
+     */
+    private static void printExecutorResults(PrintStream out, List<ExecutorResult> executorResults) {
+        out.printf("%-22s %-18s %12s %10s %10s %10s %10s %10s %10s%n", "Structure", "Executor",
+                "ops/s", "mean us", "p50", "p99", "p99.9", "pinned", "pinned ms");
+        for (ExecutorResult result : executorResults) {
+            TimingResult latency = result.getLatency();
+            out.printf("%-22s %-18s %12.0f %10.1f %10.1f %10.1f %10.1f %10d %10.1f%n", result.getName(),
+                    result.getExecutor(), result.getOperationsPerSecond(), latency.getMean() / 1000,
+                    latency.getMedian() / 1000, latency.getPercentile(99) / 1000,
+                    latency.getPercentile(99.9) / 1000, result.getPinnedEvents(),
+                    result.getPinnedNanos() / 1e6);
+        }
+    }
+
+    /**
+     * Run a benchmark of parallel streams once for each number of threads
+     * from one to every available core. The calling thread works along
+     * with the workers of the common ForkJoinPool, so each run has a pool
+     * parallelism of one less than its threads. The pool is created when
+     * the JVM starts so each run forks with its parallelism set by a
+     * system property. The sequential benchmarks do not use the pool and
+     * only run with one thread. A summary of the
+     * speedup and efficiency of every parallel benchmark over its
+     * sequential twin is written at the end.
+     *
+     * @param clazz
+     * @throws Exception
+     */
+    public static void runParallelismBenchmark(Class<?> clazz) throws Exception {
+        ResultStore store = ResultStore.forThisRun();
+        String baseName = store.resolve(clazz.getSimpleName()).toString();
+        String sizes = System.getProperty("sizes");
+
+        SpeedupReport speedupReport = new SpeedupReport();
+        List<RunResult> allResults = new ArrayList<>();
+        boolean first = true;
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            // A parallelism of 0 leaves the calling thread to do all the work
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(includePattern(clazz))
+                    .output(baseName + "_t" + threads + ".txt")
+                    .shouldFailOnError(true)
+                    .jvmArgsAppend("-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + (threads - 1))
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .mode(Mode.AverageTime);
+            if (sizes != null && !sizes.isBlank()) {
+                builder.param("size", sizes.split(","));
+            }
+            addProfilers(builder);
+            addExclude(builder);
+            if (!first) {
+                builder.exclude("Sequential$");
+            }
+            Collection<RunResult> results;
+            try {
+                results = new Runner(builder.build()).run();
+            } catch (NoBenchmarksException ex) {
+                if (first) {
+                    // Every benchmark of the class was filtered out
+                    return;
+                }
+                // Only sequential benchmarks were included
+                break;
+            }
+            first = false;
+            allResults.addAll(results);
+            speedupReport.add(threads, results);
+        }
+
+        try (PrintStream out = new PrintStream(baseName + "_speedup.txt")) {
+            speedupReport.print(out);
+        }
+        speedupReport.print(System.out);
+
+        storeResults(store, clazz.getSimpleName(), allResults);
+    }
+
+    /**
+     * @return the map of a concurrent map benchmark, or the cache and its
+     * capacity ratio
+     */
+    private static String structureOf(BenchmarkParams params) {
+        String mapType = params.getParam("mapType");
+        return mapType != null ? mapType : params.getParam("cacheType") + " " + params.getParam("capacityRatio");
+    }
+
+    /**
+     * The number of threads of each @Group benchmark of a class, the sum of
+     * the @GroupThreads of its methods
+     *
+     * @param clazz
+     * @return the threads of each group by its name
+     */
+    private static Map<String, Integer> groupSizes(Class<?> clazz) {
+        Map<String, Integer> sizes = new TreeMap<>();
+        for (Method method : clazz.getMethods()) {
+            Group group = method.getAnnotation(Group.class);
+            if (group != null) {
+                GroupThreads groupThreads = method.getAnnotation(GroupThreads.class);
+                sizes.merge(group.value(), groupThreads == null ? 1 : groupThreads.value(), Integer::sum);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Thread counts that double from one up to the number of cores. The
+     * number of cores is always included.
+     *
+     * @param cores
+     * @return the thread counts to run with
+     */
+    private static List<Integer> threadCounts(int cores) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts;
     }
 }
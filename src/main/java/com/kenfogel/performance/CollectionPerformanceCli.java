@@ -0,0 +1,731 @@
+package com.kenfogel.performance;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.swing.table.TableModel;
+
+import com.kenfogel.performance.loaders.FootprintTests;
+import com.kenfogel.performance.loaders.MapTests;
+import com.kenfogel.performance.loaders.ResultListener;
+import com.kenfogel.performance.loaders.SequenceTests;
+import com.kenfogel.performance.models.FootprintTableModel;
+import com.kenfogel.performance.models.MapSpeedTableModel;
+import com.kenfogel.performance.models.SequenceSpeedTableModel;
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
+import com.kenfogel.performance.workload.CacheResult;
+import com.kenfogel.performance.workload.CacheWorkload;
+import com.kenfogel.performance.workload.ExecutorResult;
+import com.kenfogel.performance.workload.ExecutorWorkload;
+import com.kenfogel.performance.workload.HandoffResult;
+import com.kenfogel.performance.workload.HandoffWorkload;
+import com.kenfogel.performance.workload.MixedWorkload;
+import com.kenfogel.performance.workload.OperationMix;
+import com.kenfogel.performance.workload.WorkloadResult;
+
+/**
+ * The one entry point for the Swing app, the same tests without a window
+ * and the JMH benchmarks, such as
+ *
+ * java -jar benchmarks.jar quick --size 1000,100000 --include "Hash Map/*"
+ * --format csv --output results.csv
+ *
+ * gui, the default, opens the Swing app. quick runs the tests of the Swing
+ * app on the calling thread and prints the distribution of the time for
+ * every operation followed by the footprint of each structure and, with
+ * --mixed, mixes of reads and writes, see MixedWorkload, and with --handoff
+ * the rate and latency of queues between threads, see HandoffWorkload, and
+ * with --executors the shared maps and queues on platform and virtual
+ * threads, see ExecutorWorkload, and with --caches the hit ratio and cost
+ * of the bounded caches, see CacheWorkload. jmh runs
+ * CollectionPerformanceApp_JMH. Run with --help for the options.
+ *
+ * quick and jmh run headless, nothing of AWT is initialized, so they work
+ * on a build agent without a display. A number as the first argument is
+ * the size for quick, as in earlier versions.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class CollectionPerformanceCli {
+
+    private final static String USAGE = """
+            Usage: java -jar benchmarks.jar [gui | quick | jmh] [options]
+
+            gui                    the Swing app, the default
+            quick                  the tests of the Swing app without a window
+              --size n[,n...]      elements in each structure, default 1000
+              --repetitions n      runs of every test at each size, default 1
+              --warmup ms          warmup of each test, default 100
+              --time ms            measurement of each test, default 500
+              --samples n          most samples of each test, default 1000
+              --include glob       run only the matching tests, may be repeated
+              --exclude glob       skip the matching tests, may be repeated
+              --mixed              also replay the mixed read and write workloads
+              --handoff            also pass elements between threads through each queue
+              --executors          also run tasks on platform and virtual threads
+              --caches             also replay a Zipf trace through each cache
+              --format f           text, csv or json, default text
+              --output file        write to the file instead of the console
+            jmh                    the JMH benchmarks
+              --size n[,n...]      sizes instead of those of each @Param
+              --mode m             avgt, thrpt or sample, default avgt
+              --include regex      run only the matching benchmarks
+              --exclude regex      skip the matching benchmarks
+
+            A glob is collection/operation with * for any characters, such as
+            "Hash Map/*", "*/Load Data" or ArrayList. Case and spaces are
+            ignored and a glob without a / matches the collection.
+            """;
+
+    private final PrintStream out;
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+    private final List<Result> results = new ArrayList<>();
+    private TimingEngine timing = new TimingEngine();
+    private String format = "text";
+
+    /**
+     * @param out where the results are printed
+     */
+    public CollectionPerformanceCli(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Run only the tests that match one of the includes
+     *
+     * @param glob collection/operation or collection
+     */
+    public void include(String glob) {
+        includes.add(toPattern(glob));
+    }
+
+    /**
+     * Skip the tests that match
+     *
+     * @param glob collection/operation or collection
+     */
+    public void exclude(String glob) {
+        excludes.add(toPattern(glob));
+    }
+
+    /**
+     * @param timing the engine used by every test
+     */
+    public void setTimingEngine(TimingEngine timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * @param format text, printed as each result arrives, csv, also printed
+     * as each result arrives, or json, printed by finish
+     */
+    public void setFormat(String format) {
+        if (!List.of("text", "csv", "json").contains(format)) {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+        this.format = format;
+    }
+
+    /**
+     * Print the header of the results
+     */
+    public void start() {
+        switch (format) {
+            case "text" ->
+                out.printf("Timer overhead %d ns subtracted%n", TimingEngine.getTimerOverhead());
+            case "csv" ->
+                out.println("size,run,collection,operation,unit,mean,sd,p50,p90,p99,max,samples,batch");
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Run every wanted test on data structures of one size
+     *
+     * @param size
+     * @param run the repetition, starting at 1
+     */
+    public void runAll(int size, int run) {
+        SequenceSpeedTableModel sequenceModel = new SequenceSpeedTableModel();
+        MapSpeedTableModel mapModel = new MapSpeedTableModel();
+        FootprintTableModel footprintModel = new FootprintTableModel();
+
+        if ("text".equals(format)) {
+            out.printf("%nSize %d, run %d%n", size, run);
+            out.printf("%-14s %-24s %12s %12s %12s %12s %12s %12s %8s %6s%n", "Structure", "Operation",
+                    "mean ns", "sd", "p50", "p90", "p99", "max", "samples", "batch");
+        }
+        if (isAnyWanted(sequenceModel)) {
+            SequenceTests sequenceTests = new SequenceTests(sequenceModel);
+            sequenceTests.setTimingEngine(timing);
+            sequenceTests.setSize(size);
+            run(sequenceTests::doArrayTests, sequenceModel, size, run);
+            run(sequenceTests::doArrayListTests, sequenceModel, size, run);
+            run(sequenceTests::doDequeTests, sequenceModel, size, run);
+            run(sequenceTests::doLinkedListTests, sequenceModel, size, run);
+            run(sequenceTests::doUnrolledListTests, sequenceModel, size, run);
+            run(sequenceTests::doGapBufferTests, sequenceModel, size, run);
+            run(sequenceTests::doRingDequeTests, sequenceModel, size, run);
+        }
+        if (isAnyWanted(mapModel)) {
+            MapTests mapTests = new MapTests(mapModel);
+            mapTests.setTimingEngine(timing);
+            mapTests.setSize(size);
+            run(mapTests::doHashMapTests, mapModel, size, run);
+            run(mapTests::doTreeMapTests, mapModel, size, run);
+            run(mapTests::doStringIntMapTests, mapModel, size, run);
+            run(mapTests::doLongLongMapTests, mapModel, size, run);
+        }
+        if (isAnyWanted(footprintModel)) {
+            FootprintTests footprintTests = new FootprintTests(footprintModel);
+            footprintTests.setSize(size);
+            run(footprintTests::doFootprintTests, footprintModel, size, run);
+        }
+    }
+
+    /**
+     * Replay a read heavy and a write heavy mix against each map and a
+     * queue and a stack mix against each deque. The collection of each
+     * result is the structure and the operation is the mix.
+     *
+     * @param size
+     * @param run the repetition, starting at 1
+     */
+    public void runMixedWorkloads(int size, int run) {
+        if ("text".equals(format)) {
+            out.printf("%nMixed workloads, size %d, run %d, %d operations per replay%n", size, run,
+                    MixedWorkload.DEFAULT_LENGTH);
+            out.printf("%-22s %-26s %12s %10s %10s %10s %10s %10s%n", "Structure", "Mix",
+                    "ops/s", "mean ns", "p50", "p99", "p99.9", "max");
+        }
+        Map<String, Supplier<Map<String, String>>> maps = new LinkedHashMap<>();
+        maps.put("HashMap", HashMap::new);
+        maps.put("TreeMap", TreeMap::new);
+        maps.put("ConcurrentHashMap", ConcurrentHashMap::new);
+        for (String spec : new String[]{"get=80/put=15/remove=5", "get=50/put=50"}) {
+            MixedWorkload workload = new MixedWorkload(OperationMix.parse(spec), size, 0,
+                    MixedWorkload.DEFAULT_LENGTH);
+            maps.forEach((name, map) -> {
+                if (isWanted(name, spec)) {
+                    add(workload.run(name, map.get()), size, run);
+                }
+            });
+        }
+        Map<String, Supplier<Deque<String>>> deques = new LinkedHashMap<>();
+        deques.put("ArrayDeque", ArrayDeque::new);
+        deques.put("LinkedList", LinkedList::new);
+        deques.put("ConcurrentLinkedDeque", ConcurrentLinkedDeque::new);
+        for (String spec : new String[]{"offer=50/poll=50", "push=50/pop=50"}) {
+            MixedWorkload workload = new MixedWorkload(OperationMix.parse(spec), size, 0,
+                    MixedWorkload.DEFAULT_LENGTH);
+            deques.forEach((name, deque) -> {
+                if (isWanted(name, spec)) {
+                    add(workload.run(name, deque.get()), size, run);
+                }
+            });
+        }
+    }
+
+    /**
+     * Pass elements between producer and consumer threads through each
+     * queue, see HandoffWorkload. The configurations are one producer and
+     * one consumer, three producers and one consumer and two of each, each
+     * polled and then drained. The collection of each result is the queue
+     * and the operation is the configuration. The size is only recorded
+     * with the results.
+     *
+     * @param size
+     * @param run the repetition, starting at 1
+     * @throws InterruptedException
+     */
+    public void runHandoffWorkloads(int size, int run) throws InterruptedException {
+        if ("text".equals(format)) {
+            out.printf("%nHand-offs, run %d, at most %d elements in flight%n", run,
+                    HandoffWorkload.DEFAULT_CAPACITY);
+            out.printf("%-22s %-26s %12s %10s %10s %10s %10s %10s%n", "Queue", "Configuration",
+                    "hand-offs/s", "mean ns", "p50", "p99", "p99.9", "max");
+        }
+        int[][] threads = {{1, 1}, {3, 1}, {2, 2}};
+        for (int batch : new int[]{0, HandoffWorkload.DEFAULT_BATCH}) {
+            for (int[] counts : threads) {
+                HandoffWorkload workload = new HandoffWorkload(counts[0], counts[1], batch,
+                        HandoffWorkload.DEFAULT_CAPACITY);
+                for (String queueType : HandoffWorkload.QUEUE_TYPES) {
+                    if (HandoffWorkload.isSupported(queueType, counts[0], counts[1])
+                            && isWanted(queueType, workload.getConfiguration())) {
+                        add(workload.run(queueType, HandoffWorkload.createQueue(queueType,
+                                HandoffWorkload.DEFAULT_CAPACITY)), size, run);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run batches of 10000 and 100000 tasks that share each map and queue
+     * on a pool of platform threads and on virtual threads, see
+     * ExecutorWorkload. The collection of each result is the structure and
+     * the operation is the executor and the number of tasks.
+     *
+     * @param size the number of keys in the maps
+     * @param run the repetition, starting at 1
+     * @throws InterruptedException
+     */
+    public void runExecutorWorkloads(int size, int run) throws InterruptedException {
+        if ("text".equals(format)) {
+            out.printf("%nExecutors, size %d, run %d, %d lookups per task, %d us per load%n", size, run,
+                    ExecutorWorkload.OPERATIONS_PER_TASK, ExecutorWorkload.DEFAULT_LOAD_MICROS);
+            out.printf("%-22s %-26s %12s %10s %10s %10s %10s %10s %10s%n", "Structure", "Executor",
+                    "ops/s", "mean us", "p50", "p99", "p99.9", "pinned", "pinned ms");
+        }
+        for (int tasks : new int[]{10_000, 100_000}) {
+            ExecutorWorkload workload = new ExecutorWorkload(size, tasks, ExecutorWorkload.DEFAULT_LOAD_MICROS);
+            for (String structure : ExecutorWorkload.STRUCTURES) {
+                for (String executor : ExecutorWorkload.EXECUTORS) {
+                    if (isWanted(structure, executor + " " + tasks)) {
+                        add(workload.run(executor, structure), size, run);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replay a Zipf trace of the words through each cache at each capacity
+     * ratio with one thread and with a thread for every core, see
+     * CacheWorkload. The collection of each result is the cache and the
+     * operation is the capacity and the threads.
+     *
+     * @param size the number of distinct words in the trace
+     * @param run the repetition, starting at 1
+     * @throws InterruptedException
+     */
+    public void runCacheWorkloads(int size, int run) throws InterruptedException {
+        if ("text".equals(format)) {
+            out.printf("%nCaches, size %d, run %d, %s%n", size, run, CacheWorkload.DEFAULT_DISTRIBUTION);
+            out.printf("%-22s %-26s %8s %12s %10s %10s %10s %10s %10s%n", "Cache", "Capacity",
+                    "hit %", "ops/s", "get mean", "get p99", "put mean", "put p99", "put p99.9");
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : cores == 1 ? new int[]{1} : new int[]{1, cores}) {
+            CacheWorkload workload = new CacheWorkload(size, CacheWorkload.DEFAULT_DISTRIBUTION, threads);
+            for (double capacityRatio : CacheWorkload.CAPACITY_RATIOS) {
+                for (String cacheType : CacheWorkload.CACHE_TYPES) {
+                    if (isWanted(cacheType, workload.getConfiguration(capacityRatio))) {
+                        add(workload.run(cacheType, capacityRatio), size, run);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Print the results that were kept for the end, the JSON array
+     */
+    public void finish() {
+        if (!"json".equals(format)) {
+            return;
+        }
+        out.println("[");
+        for (int x = 0; x < results.size(); ++x) {
+            Result result = results.get(x);
+            out.printf("  {\"size\": %d, \"run\": %d, \"collection\": %s, \"operation\": %s, \"unit\": %s",
+                    result.size, result.run, json(result.collection), json(result.operation),
+                    json(result.unit));
+            if (result.timing == null) {
+                out.printf(", \"value\": %s}", number(result.value));
+            } else {
+                TimingResult t = result.timing;
+                out.printf(", \"mean\": %s, \"sd\": %s, \"p50\": %s, \"p90\": %s, \"p99\": %s, \"max\": %s,"
+                        + " \"samples\": %d, \"batch\": %d}", number(t.getMean()),
+                        number(t.getStandardDeviation()), number(t.getMedian()),
+                        number(t.getPercentile(90)), number(t.getPercentile(99)), number(t.getMax()),
+                        t.getSamples(), t.getOperationsPerSample());
+            }
+            out.println(x < results.size() - 1 ? "," : "");
+        }
+        out.println("]");
+    }
+
+    /**
+     * Run one batch of tests and pass on each wanted result as it arrives.
+     * The names of the structure and operation come from the table model.
+     */
+    private void run(Consumer<ResultListener> batch, TableModel model, int size, int run) {
+        batch.accept(new ResultListener() {
+            @Override
+            public boolean isWanted(int row, int col) {
+                return CollectionPerformanceCli.this.isWanted(model.getColumnName(col),
+                        String.valueOf(model.getValueAt(row, 0)));
+            }
+
+            @Override
+            public void setResult(long value, int row, int col) {
+                if (value >= 0 && isWanted(row, col)) {
+                    add(new Result(size, run, model.getColumnName(col),
+                            String.valueOf(model.getValueAt(row, 0)), "value", null, value));
+                }
+            }
+
+            @Override
+            public void setTiming(TimingResult timing, int row, int col) {
+                add(new Result(size, run, model.getColumnName(col),
+                        String.valueOf(model.getValueAt(row, 0)), "ns", timing, timing.getMean()));
+            }
+        });
+    }
+
+    private void add(Result result) {
+        switch (format) {
+            case "text" -> {
+                if (result.timing == null) {
+                    out.printf("%-14s %-24s %12d%n", result.collection, result.operation,
+                            (long) result.value);
+                } else {
+                    TimingResult t = result.timing;
+                    out.printf("%-14s %-24s %12.2f %12.2f %12.2f %12.2f %12.2f %12.2f %8d %6d%n",
+                            result.collection, result.operation, t.getMean(), t.getStandardDeviation(),
+                            t.getMedian(), t.getPercentile(90), t.getPercentile(99), t.getMax(),
+                            t.getSamples(), t.getOperationsPerSample());
+                }
+            }
+            case "csv" -> {
+                if (result.timing == null) {
+                    out.printf("%d,%d,%s,%s,%s,%s,,,,,,,%n", result.size, result.run,
+                            csv(result.collection), csv(result.operation), result.unit,
+                            number(result.value));
+                } else {
+                    TimingResult t = result.timing;
+                    out.printf("%d,%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%d,%d%n", result.size, result.run,
+                            csv(result.collection), csv(result.operation), result.unit,
+                            number(t.getMean()), number(t.getStandardDeviation()),
+                            number(t.getMedian()), number(t.getPercentile(90)),
+                            number(t.getPercentile(99)), number(t.getMax()), t.getSamples(),
+                            t.getOperationsPerSample());
+                }
+            }
+            default ->
+                results.add(result);
+        }
+    }
+
+    /**
+     * A mixed workload is two results, the throughput and the latency of
+     * each operation
+     */
+    private void add(WorkloadResult result, int size, int run) {
+        String mix = result.getMix().toString();
+        if ("text".equals(format)) {
+            TimingResult latency = result.getLatency();
+            out.printf("%-22s %-26s %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n", result.getName(),
+                    mix, result.getOperationsPerSecond(), latency.getMean(), latency.getMedian(),
+                    latency.getPercentile(99), latency.getPercentile(99.9), latency.getMax());
+            return;
+        }
+        add(new Result(size, run, result.getName(), mix, "ops/s", null, result.getOperationsPerSecond()));
+        add(new Result(size, run, result.getName(), mix, "ns", result.getLatency(),
+                result.getLatency().getMean()));
+    }
+
+    /**
+     * A hand-off is two results, the rate and the latency of each element
+     */
+    private void add(HandoffResult result, int size, int run) {
+        if ("text".equals(format)) {
+            TimingResult latency = result.getLatency();
+            out.printf("%-22s %-26s %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n", result.getName(),
+                    result.getConfiguration(), result.getHandoffsPerSecond(), latency.getMean(),
+                    latency.getMedian(), latency.getPercentile(99), latency.getPercentile(99.9),
+                    latency.getMax());
+            return;
+        }
+        add(new Result(size, run, result.getName(), result.getConfiguration(), "ops/s", null,
+                result.getHandoffsPerSecond()));
+        add(new Result(size, run, result.getName(), result.getConfiguration(), "ns", result.getLatency(),
+                result.getLatency().getMean()));
+    }
+
+    /**
+     * A run of tasks is three results, the throughput, the latency of each
+     * task and the number of pinned parks
+     */
+    private void add(ExecutorResult result, int size, int run) {
+        if ("text".equals(format)) {
+            TimingResult latency = result.getLatency();
+            out.printf("%-22s %-26s %12.0f %10.1f %10.1f %10.1f %10.1f %10d %10.1f%n", result.getName(),
+                    result.getExecutor(), result.getOperationsPerSecond(), latency.getMean() / 1000,
+                    latency.getMedian() / 1000, latency.getPercentile(99) / 1000,
+                    latency.getPercentile(99.9) / 1000, result.getPinnedEvents(),
+                    result.getPinnedNanos() / 1e6);
+            return;
+        }
+        add(new Result(size, run, result.getName(), result.getExecutor(), "ops/s", null,
+                result.getOperationsPerSecond()));
+        add(new Result(size, run, result.getName(), result.getExecutor(), "ns", result.getLatency(),
+                result.getLatency().getMean()));
+        add(new Result(size, run, result.getName(), result.getExecutor(), "pinned", null,
+                result.getPinnedEvents()));
+    }
+
+    /**
+     * A cache replay is four results, the hit ratio, the throughput and the
+     * latency of the gets and of the puts
+     */
+    private void add(CacheResult result, int size, int run) {
+        TimingResult gets = result.getGetLatency();
+        TimingResult puts = result.getPutLatency();
+        if ("text".equals(format)) {
+            out.printf("%-22s %-26s %8.2f %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f%n", result.getName(),
+                    result.getConfiguration(), result.getHitRatio() * 100, result.getOperationsPerSecond(),
+                    gets.getMean(), gets.getPercentile(99), puts.getMean(), puts.getPercentile(99),
+                    puts.getPercentile(99.9));
+            return;
+        }
+        String configuration = result.getConfiguration();
+        add(new Result(size, run, result.getName(), configuration, "hit %", null, result.getHitRatio() * 100));
+        add(new Result(size, run, result.getName(), configuration, "ops/s", null,
+                result.getOperationsPerSecond()));
+        add(new Result(size, run, result.getName(), configuration + " get", "ns", gets, gets.getMean()));
+        add(new Result(size, run, result.getName(), configuration + " put", "ns", puts, puts.getMean()));
+    }
+
+    private boolean isAnyWanted(TableModel model) {
+        for (int row = 0; row < model.getRowCount(); ++row) {
+            for (int col = 1; col < model.getColumnCount(); ++col) {
+                if (isWanted(model.getColumnName(col), String.valueOf(model.getValueAt(row, 0)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isWanted(String collection, String operation) {
+        String name = normalize(collection) + "/" + normalize(operation);
+        return (includes.isEmpty() || includes.stream().anyMatch(p -> p.matcher(name).matches()))
+                && excludes.stream().noneMatch(p -> p.matcher(name).matches());
+    }
+
+    private static Pattern toPattern(String glob) {
+        String normalized = normalize(glob);
+        if (normalized.indexOf('/') < 0) {
+            normalized += "/*";
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String part : normalized.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String normalize(String name) {
+        return name.replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String csv(String value) {
+        return value.contains(",") || value.contains("\"")
+                ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private static String json(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * One measured test, with a timing or a single value such as bytes
+     */
+    private static class Result {
+
+        private final int size;
+        private final int run;
+        private final String collection;
+        private final String operation;
+        private final String unit;
+        private final TimingResult timing;
+        private final double value;
+
+        Result(int size, int run, String collection, String operation, String unit,
+                TimingResult timing, double value) {
+            this.size = size;
+            this.run = run;
+            this.collection = collection;
+            this.operation = operation;
+            this.unit = unit;
+            this.timing = timing;
+            this.value = value;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Deque<String> arguments = new ArrayDeque<>(List.of(args));
+        String command = arguments.isEmpty() ? "gui" : arguments.peekFirst();
+        if (command.matches("\\d+")) {
+            // The size alone, as in earlier versions
+            arguments.addFirst("--size");
+            command = "quick";
+        } else {
+            arguments.pollFirst();
+        }
+        try {
+            switch (command) {
+                case "gui" ->
+                    CollectionPerformanceApp.main(arguments.toArray(new String[0]));
+                case "quick" -> {
+                    System.setProperty("java.awt.headless", "true");
+                    quick(arguments);
+                }
+                case "jmh" -> {
+                    System.setProperty("java.awt.headless", "true");
+                    jmh(arguments);
+                }
+                case "help", "--help", "-h" ->
+                    System.out.print(USAGE);
+                default ->
+                    throw new IllegalArgumentException("Unknown command " + command);
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+    }
+
+    private static void quick(Deque<String> arguments) throws FileNotFoundException, InterruptedException {
+        String sizes = String.valueOf(SequenceTests.DEFAULT_SIZE);
+        int repetitions = 1;
+        long warmup = TimingEngine.DEFAULT_WARMUP_MILLIS;
+        long time = TimingEngine.DEFAULT_MEASURE_MILLIS;
+        int samples = TimingEngine.DEFAULT_MAX_SAMPLES;
+        boolean mixed = false;
+        boolean handoff = false;
+        boolean executors = false;
+        boolean caches = false;
+        String output = null;
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>();
+        String format = "text";
+        while (!arguments.isEmpty()) {
+            String option = arguments.pollFirst();
+            switch (option) {
+                case "--size" ->
+                    sizes = value(option, arguments);
+                case "--repetitions" ->
+                    repetitions = Integer.parseInt(value(option, arguments));
+                case "--warmup" ->
+                    warmup = Long.parseLong(value(option, arguments));
+                case "--time" ->
+                    time = Long.parseLong(value(option, arguments));
+                case "--samples" ->
+                    samples = Integer.parseInt(value(option, arguments));
+                case "--include" ->
+                    includes.add(value(option, arguments));
+                case "--exclude" ->
+                    excludes.add(value(option, arguments));
+                case "--mixed" ->
+                    mixed = true;
+                case "--handoff" ->
+                    handoff = true;
+                case "--executors" ->
+                    executors = true;
+                case "--caches" ->
+                    caches = true;
+                case "--format" ->
+                    format = value(option, arguments);
+                case "--output" ->
+                    output = value(option, arguments);
+                default ->
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        PrintStream out = output == null ? System.out : new PrintStream(output);
+        try {
+            CollectionPerformanceCli cli = new CollectionPerformanceCli(out);
+            cli.setFormat(format);
+            cli.setTimingEngine(new TimingEngine(warmup, time,
+                    Math.min(TimingEngine.DEFAULT_MIN_SAMPLES, samples), samples));
+            includes.forEach(cli::include);
+            excludes.forEach(cli::exclude);
+            cli.start();
+            for (String size : sizes.split(",")) {
+                for (int run = 1; run <= repetitions; ++run) {
+                    cli.runAll(Integer.parseInt(size.trim()), run);
+                    if (mixed) {
+                        cli.runMixedWorkloads(Integer.parseInt(size.trim()), run);
+                    }
+                    if (handoff) {
+                        cli.runHandoffWorkloads(Integer.parseInt(size.trim()), run);
+                    }
+                    if (executors) {
+                        cli.runExecutorWorkloads(Integer.parseInt(size.trim()), run);
+                    }
+                    if (caches) {
+                        cli.runCacheWorkloads(Integer.parseInt(size.trim()), run);
+                    }
+                }
+            }
+            cli.finish();
+        } finally {
+            if (out != System.out) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * The options become the system properties that
+     * CollectionPerformanceApp_JMH reads
+     */
+    private static void jmh(Deque<String> arguments) throws Exception {
+        while (!arguments.isEmpty()) {
+            String option = arguments.pollFirst();
+            switch (option) {
+                case "--size" ->
+                    System.setProperty("sizes", value(option, arguments));
+                case "--mode" ->
+                    System.setProperty("mode", value(option, arguments));
+                case "--include" ->
+                    System.setProperty("include", value(option, arguments));
+                case "--exclude" ->
+                    System.setProperty("exclude", value(option, arguments));
+                default ->
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        CollectionPerformanceApp_JMH.main(new String[0]);
+    }
+
+    private static String value(String option, Deque<String> arguments) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return arguments.pollFirst();
+    }
+}
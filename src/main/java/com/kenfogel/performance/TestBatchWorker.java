@@ -0,0 +1,84 @@
+package com.kenfogel.performance;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.TableModel;
+
+import com.kenfogel.performance.loaders.ResultListener;
+
+/**
+ * Runs a batch of tests, such as SequenceTests.doLinkedListTests, off the
+ * Event Dispatch Thread. Each result is published to the table model as
+ * soon as it is measured and the progress property counts the results
+ * received out of the number expected.
+ *
+ * A cancelled batch stops before its next measurement, the measurement
+ * underway is allowed to finish.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class TestBatchWorker extends SwingWorker<Void, TestBatchWorker.Cell> {
+
+    private final Consumer<ResultListener> batch;
+    private final TableModel tableModel;
+    private final int expectedResults;
+    private int results;
+
+    /**
+     * @param batch calls the tests with the listener that publishes results
+     * @param tableModel the model that displays the results, may be null if
+     * the batch has no results
+     * @param expectedResults the number of results the batch produces
+     */
+    public TestBatchWorker(Consumer<ResultListener> batch, TableModel tableModel, int expectedResults) {
+        this.batch = batch;
+        this.tableModel = tableModel;
+        this.expectedResults = expectedResults;
+    }
+
+    @Override
+    protected Void doInBackground() {
+        batch.accept((value, row, col) -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            publish(new Cell(value, row, col));
+            setProgress(Math.min(100, ++results * 100 / Math.max(1, expectedResults)));
+        });
+        setProgress(100);
+        return null;
+    }
+
+    /**
+     * Update the table on the Event Dispatch Thread
+     *
+     * @param cells
+     */
+    @Override
+    protected void process(List<Cell> cells) {
+        for (Cell cell : cells) {
+            tableModel.setValueAt(cell.value, cell.row, cell.col);
+        }
+    }
+
+    /**
+     * One result on its way to the table
+     */
+    static class Cell {
+
+        private final long value;
+        private final int row;
+        private final int col;
+
+        private Cell(long value, int row, int col) {
+            this.value = value;
+            this.row = row;
+            this.col = col;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A sorted map from String to String laid out as a B+ tree. Each node holds
+ * up to ORDER keys in an array, so a search does a binary search over a few
+ * neighbouring references at each level instead of following one pointer
+ * per comparison as TreeMap does. The tree is only a few levels deep and
+ * the leaves are linked in key order, so a range scan walks arrays and
+ * touches one node for every ORDER entries.
+ *
+ * Removal does not merge or rebalance nodes. A leaf may become empty and is
+ * skipped by searches and scans, which suits an index that mostly grows.
+ *
+ * Null keys are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class BTreeMap {
+
+    public final static int DEFAULT_ORDER = 64;
+
+    /**
+     * The keys and values of a run of entries, linked to its neighbours
+     */
+    private static class Leaf {
+
+        final String[] keys;
+        final String[] values;
+        int count;
+        Leaf next;
+        Leaf previous;
+
+        Leaf(int order) {
+            // One spare slot so that a full leaf can take the key that
+            // splits it
+            keys = new String[order + 1];
+            values = new String[order + 1];
+        }
+    }
+
+    /**
+     * Separator keys and the children between them, keys[x] is the least
+     * key of children[x + 1]
+     */
+    private static class Inner {
+
+        final String[] keys;
+        final Object[] children;
+        int count;
+
+        Inner(int order) {
+            keys = new String[order + 1];
+            children = new Object[order + 2];
+        }
+    }
+
+    private final int order;
+    private final Leaf head;
+    private Object root;
+    private int size;
+
+    // Passed up from a node that split while inserting
+    private String splitKey;
+    private String previousValue;
+
+    /**
+     * Create an empty tree with DEFAULT_ORDER keys per node
+     */
+    public BTreeMap() {
+        this(DEFAULT_ORDER);
+    }
+
+    /**
+     * @param order the most keys in one node, at least 3
+     */
+    public BTreeMap(int order) {
+        if (order < 3) {
+            throw new IllegalArgumentException("The order must be at least 3 but was " + order);
+        }
+        this.order = order;
+        head = new Leaf(order);
+        root = head;
+    }
+
+    /**
+     * @param key
+     * @return the value for key or null
+     */
+    public String get(String key) {
+        Leaf leaf = leafFor(key);
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return slot < 0 ? null : leaf.values[slot];
+    }
+
+    /**
+     * Add or replace an entry in its leaf. A node that overflows is split
+     * in two on the way back up and its parent takes the new half, which
+     * may overflow the parent in turn. A split of the root adds a level.
+     *
+     * @param key
+     * @param value
+     * @return the previous value or null
+     */
+    public String put(String key, String value) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        previousValue = null;
+        Object split = insert(root, key, value);
+        if (split != null) {
+            Inner newRoot = new Inner(order);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = split;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        return previousValue;
+    }
+
+    /**
+     * Remove an entry from its leaf, the tree is not rebalanced
+     *
+     * @param key
+     * @return the removed value or null
+     */
+    public String remove(String key) {
+        Leaf leaf = leafFor(key);
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return slot < 0 ? null : removeAt(leaf, slot);
+    }
+
+    /**
+     * @param key
+     * @return the greatest key less than or equal to key or null
+     */
+    public String floorKey(String key) {
+        Leaf leaf = leafFor(key);
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if (slot >= 0) {
+            return leaf.keys[slot];
+        }
+        slot = -slot - 2;
+        while (slot < 0) {
+            leaf = leaf.previous;
+            if (leaf == null) {
+                return null;
+            }
+            slot = leaf.count - 1;
+        }
+        return leaf.keys[slot];
+    }
+
+    /**
+     * @param key
+     * @return the least key greater than or equal to key or null
+     */
+    public String ceilingKey(String key) {
+        Leaf leaf = leafFor(key);
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if (slot >= 0) {
+            return leaf.keys[slot];
+        }
+        slot = -slot - 1;
+        while (slot == leaf.count) {
+            leaf = leaf.next;
+            if (leaf == null) {
+                return null;
+            }
+            slot = 0;
+        }
+        return leaf.keys[slot];
+    }
+
+    /**
+     * Pass every entry from fromKey inclusive to toKey exclusive to the
+     * action in key order
+     *
+     * @param fromKey
+     * @param toKey
+     * @param action
+     */
+    public void forEach(String fromKey, String toKey, BiConsumer<String, String> action) {
+        Leaf leaf = leafFor(fromKey);
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, fromKey);
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        while (leaf != null) {
+            for (; slot < leaf.count; ++slot) {
+                if (leaf.keys[slot].compareTo(toKey) >= 0) {
+                    return;
+                }
+                action.accept(leaf.keys[slot], leaf.values[slot]);
+            }
+            leaf = leaf.next;
+            slot = 0;
+        }
+    }
+
+    /**
+     * Remove the entry with the least key
+     *
+     * @return the removed entry or null if the tree is empty
+     */
+    public Map.Entry<String, String> pollFirstEntry() {
+        Leaf leaf = head;
+        while (leaf != null && leaf.count == 0) {
+            leaf = leaf.next;
+        }
+        if (leaf == null) {
+            return null;
+        }
+        String key = leaf.keys[0];
+        return new AbstractMap.SimpleImmutableEntry<>(key, removeAt(leaf, 0));
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    private Leaf leafFor(String key) {
+        Object node = root;
+        while (node instanceof Inner inner) {
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    private static int childIndex(Inner inner, String key) {
+        int slot = Arrays.binarySearch(inner.keys, 0, inner.count, key);
+        // A key equal to a separator belongs to the child on its right
+        return slot >= 0 ? slot + 1 : -slot - 1;
+    }
+
+    /**
+     * @return the new right sibling of node if it split, its least key is
+     * left in splitKey, otherwise null
+     */
+    private Object insert(Object node, String key, String value) {
+        if (node instanceof Leaf leaf) {
+            return insertIntoLeaf(leaf, key, value);
+        }
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, key);
+        Object split = insert(inner.children[child], key, value);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, child, inner.keys, child + 1, inner.count - child);
+        System.arraycopy(inner.children, child + 1, inner.children, child + 2, inner.count - child);
+        inner.keys[child] = splitKey;
+        inner.children[child + 1] = split;
+        if (++inner.count <= order) {
+            return null;
+        }
+        // The middle key moves up and is kept by neither half
+        int middle = inner.count / 2;
+        Inner right = new Inner(order);
+        right.count = inner.count - middle - 1;
+        System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+        splitKey = inner.keys[middle];
+        Arrays.fill(inner.keys, middle, inner.count, null);
+        Arrays.fill(inner.children, middle + 1, inner.count + 1, null);
+        inner.count = middle;
+        return right;
+    }
+
+    private Leaf insertIntoLeaf(Leaf leaf, String key, String value) {
+        int slot = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if (slot >= 0) {
+            previousValue = leaf.values[slot];
+            leaf.values[slot] = value;
+            return null;
+        }
+        slot = -slot - 1;
+        System.arraycopy(leaf.keys, slot, leaf.keys, slot + 1, leaf.count - slot);
+        System.arraycopy(leaf.values, slot, leaf.values, slot + 1, leaf.count - slot);
+        leaf.keys[slot] = key;
+        leaf.values[slot] = value;
+        ++size;
+        if (++leaf.count <= order) {
+            return null;
+        }
+        int middle = leaf.count / 2;
+        Leaf right = new Leaf(order);
+        right.count = leaf.count - middle;
+        System.arraycopy(leaf.keys, middle, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, middle, right.values, 0, right.count);
+        Arrays.fill(leaf.keys, middle, leaf.count, null);
+        Arrays.fill(leaf.values, middle, leaf.count, null);
+        leaf.count = middle;
+        right.next = leaf.next;
+        right.previous = leaf;
+        if (leaf.next != null) {
+            leaf.next.previous = right;
+        }
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    private String removeAt(Leaf leaf, int slot) {
+        String previous = leaf.values[slot];
+        System.arraycopy(leaf.keys, slot + 1, leaf.keys, slot, leaf.count - slot - 1);
+        System.arraycopy(leaf.values, slot + 1, leaf.values, slot, leaf.count - slot - 1);
+        --leaf.count;
+        leaf.keys[leaf.count] = null;
+        leaf.values[leaf.count] = null;
+        --size;
+        return previous;
+    }
+}
@@ -0,0 +1,192 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache shared by many threads that evicts with the CLOCK algorithm, the
+ * approximation of least recently used that operating systems use for
+ * pages. The entries sit in a ring and each has a referenced bit. A hit
+ * only sets the bit, so get takes no lock and writes nothing once the bit
+ * is set. To make room the hand sweeps the ring, clearing the bits it
+ * passes, and evicts the first entry whose bit was already clear, one
+ * that has not been read since the hand last went by.
+ *
+ * The keys are found through a ConcurrentHashMap. put and remove change
+ * the ring under one lock, so it is the writers that queue up when the hit
+ * ratio is low, not the readers.
+ *
+ * entrySet is a snapshot, it is not a view. Null keys and values are not
+ * supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ClockCache<K, V> extends AbstractMap<K, V> {
+
+    private static class Entry<K, V> {
+
+        final K key;
+        volatile V value;
+        volatile boolean referenced;
+        int slot;
+
+        Entry(K key, V value, int slot) {
+            this.key = key;
+            this.value = value;
+            this.slot = slot;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<K, V>> index;
+    private final Entry<K, V>[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int count;
+    private int hand;
+
+    /**
+     * @param capacity the most entries kept
+     */
+    @SuppressWarnings("unchecked")
+    public ClockCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        index = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        ring = new Entry[capacity];
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    @Override
+    public V get(Object key) {
+        Entry<K, V> entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.referenced) {
+            // Only the first hit after a sweep writes
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        lock.lock();
+        try {
+            Entry<K, V> entry = index.get(key);
+            if (entry != null) {
+                V previous = entry.value;
+                entry.value = value;
+                entry.referenced = true;
+                return previous;
+            }
+            int slot;
+            if (count < ring.length) {
+                slot = count++;
+            } else {
+                slot = sweep();
+                index.remove(ring[slot].key);
+            }
+            entry = new Entry<>(key, value, slot);
+            ring[slot] = entry;
+            index.put(key, entry);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        lock.lock();
+        try {
+            Entry<K, V> entry = index.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            // The last entry of the ring takes the free slot
+            Entry<K, V> last = ring[--count];
+            ring[entry.slot] = last;
+            last.slot = entry.slot;
+            ring[count] = null;
+            if (hand >= count) {
+                hand = 0;
+            }
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            Arrays.fill(ring, null);
+            count = 0;
+            hand = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the entries
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Entry<K, V> entry : index.values()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.key, entry.value));
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+    }
+
+    /**
+     * Move the hand to the first entry that has not been referenced,
+     * clearing the bits on the way, and leave it one past that entry. With
+     * no gets running it ends within one turn of the ring, the bits it
+     * clears stay clear.
+     *
+     * @return the slot of the entry to evict
+     */
+    private int sweep() {
+        while (true) {
+            Entry<K, V> entry = ring[hand];
+            int slot = hand;
+            hand = hand + 1 == ring.length ? 0 : hand + 1;
+            if (!entry.referenced) {
+                return slot;
+            }
+            entry.referenced = false;
+        }
+    }
+}
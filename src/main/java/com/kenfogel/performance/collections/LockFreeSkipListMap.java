@@ -0,0 +1,285 @@
+package com.kenfogel.performance.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A sorted map shared by many threads with no locks, the lock free skip
+ * list of Herlihy and Shavit. Every link is an AtomicMarkableReference, a
+ * node is linked into each of its levels by a compare and swap from the
+ * bottom up and removed by marking its links from the top down. The mark
+ * on the bottom link is the moment the key leaves the map. A search that
+ * passes a marked node swings the link of its predecessor around it, so a
+ * removed node is unlinked by whichever thread finds it first.
+ *
+ * get never writes and never retries, it steps over marked nodes. A put
+ * of a key that is already there swaps the value of its node and, if the
+ * node was removed in the meantime, tries again with a new node.
+ *
+ * ConcurrentSkipListMap is the same idea with the marks kept in special
+ * nodes so that a link costs no extra object. Here every compare and swap
+ * of a link allocates the pair that holds the reference and the mark,
+ * which is the price of the simpler code.
+ *
+ * entrySet is a snapshot of the bottom level in key order, it is not a
+ * view. Null keys and values are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LockFreeSkipListMap<K extends Comparable<? super K>, V> extends AbstractMap<K, V> {
+
+    private final static int MAX_LEVEL = 24;
+    private final static VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private static class Node<K, V> {
+
+        final K key;
+        volatile Object value;
+        final AtomicMarkableReference<Node<K, V>>[] next;
+
+        @SuppressWarnings("unchecked")
+        Node(K key, Object value, int topLevel) {
+            this.key = key;
+            this.value = value;
+            next = new AtomicMarkableReference[topLevel + 1];
+            for (int level = 0; level <= topLevel; ++level) {
+                next[level] = new AtomicMarkableReference<>(null, false);
+            }
+        }
+    }
+
+    private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL - 1);
+    private final LongAdder size = new LongAdder();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        K k = (K) Objects.requireNonNull(key);
+        boolean[] marked = {false};
+        Node<K, V> predecessor = head;
+        Node<K, V> current = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; --level) {
+            current = predecessor.next[level].getReference();
+            while (current != null) {
+                Node<K, V> successor = current.next[level].get(marked);
+                while (marked[0] && successor != null) {
+                    current = successor;
+                    successor = current.next[level].get(marked);
+                }
+                if (marked[0]) {
+                    // The last node of the level is being removed
+                    current = null;
+                    break;
+                }
+                if (current.key.compareTo(k) < 0) {
+                    predecessor = current;
+                    current = successor;
+                } else {
+                    break;
+                }
+            }
+        }
+        return current != null && current.key.compareTo(k) == 0 ? (V) current.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int topLevel = randomLevel();
+        Node<K, V>[] predecessors = new Node[MAX_LEVEL];
+        Node<K, V>[] successors = new Node[MAX_LEVEL];
+        while (true) {
+            if (find(key, predecessors, successors)) {
+                Node<K, V> found = successors[0];
+                V previous = (V) VALUE.getAndSet(found, value);
+                if (!found.next[0].isMarked()) {
+                    return previous;
+                }
+                // Removed while the value was swapped, put it in a new node
+                continue;
+            }
+            Node<K, V> node = new Node<>(key, value, topLevel);
+            for (int level = 0; level <= topLevel; ++level) {
+                node.next[level].set(successors[level], false);
+            }
+            if (!predecessors[0].next[0].compareAndSet(successors[0], node, false, false)) {
+                continue;
+            }
+            size.increment();
+            linkUpperLevels(node, topLevel, predecessors, successors);
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        K k = (K) Objects.requireNonNull(key);
+        Node<K, V>[] predecessors = new Node[MAX_LEVEL];
+        Node<K, V>[] successors = new Node[MAX_LEVEL];
+        if (!find(k, predecessors, successors)) {
+            return null;
+        }
+        Node<K, V> victim = successors[0];
+        boolean[] marked = {false};
+        for (int level = victim.next.length - 1; level > 0; --level) {
+            Node<K, V> successor = victim.next[level].get(marked);
+            while (!marked[0]) {
+                victim.next[level].compareAndSet(successor, successor, false, true);
+                successor = victim.next[level].get(marked);
+            }
+        }
+        Node<K, V> successor = victim.next[0].get(marked);
+        while (true) {
+            boolean markedByThisThread = victim.next[0].compareAndSet(successor, successor, false, true);
+            successor = victim.next[0].get(marked);
+            if (markedByThisThread) {
+                size.decrement();
+                // Unlink it from every level
+                find(k, predecessors, successors);
+                return (V) victim.value;
+            }
+            if (marked[0]) {
+                // Another thread removed it first
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    /**
+     * Remove the first key until there is none, so it only ends once no
+     * other thread is putting keys
+     */
+    @Override
+    public void clear() {
+        for (Node<K, V> node = head.next[0].getReference(); node != null; node = head.next[0].getReference()) {
+            remove(node.key);
+        }
+    }
+
+    /**
+     * @return a snapshot of the entries that are in the map as the bottom
+     * level is walked, in key order
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Map.Entry<K, V>> entrySet() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Node<K, V> node = head.next[0].getReference(); node != null; node = node.next[0].getReference()) {
+            if (!node.next[0].isMarked()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(node.key, (V) node.value));
+            }
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+    }
+
+    /**
+     * Link a node that is already in the bottom level into the levels
+     * above it, finding the neighbours again whenever one of them changed.
+     * Stops if the node is removed before it is linked everywhere.
+     */
+    private void linkUpperLevels(Node<K, V> node, int topLevel, Node<K, V>[] predecessors,
+            Node<K, V>[] successors) {
+        for (int level = 1; level <= topLevel; ++level) {
+            while (true) {
+                Node<K, V> successor = successors[level];
+                Node<K, V> current = node.next[level].getReference();
+                if (current != successor
+                        && !node.next[level].compareAndSet(current, successor, false, false)) {
+                    // Marked by a remove
+                    return;
+                }
+                if (predecessors[level].next[level].compareAndSet(successor, node, false, false)) {
+                    break;
+                }
+                find(node.key, predecessors, successors);
+                if (successors[0] != node) {
+                    // Removed from the bottom level
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill in the last node before key and the first node from key on at
+     * every level, unlinking the marked nodes that are passed
+     *
+     * @return true if the first node from key on at the bottom level has
+     * the key
+     */
+    private boolean find(K key, Node<K, V>[] predecessors, Node<K, V>[] successors) {
+        boolean[] marked = {false};
+        retry:
+        while (true) {
+            Node<K, V> predecessor = head;
+            Node<K, V> current = null;
+            for (int level = MAX_LEVEL - 1; level >= 0; --level) {
+                current = predecessor.next[level].getReference();
+                while (current != null) {
+                    Node<K, V> successor = current.next[level].get(marked);
+                    while (marked[0]) {
+                        if (!predecessor.next[level].compareAndSet(current, successor, false, false)) {
+                            continue retry;
+                        }
+                        current = successor;
+                        if (current == null) {
+                            break;
+                        }
+                        successor = current.next[level].get(marked);
+                    }
+                    if (current == null || current.key.compareTo(key) >= 0) {
+                        break;
+                    }
+                    predecessor = current;
+                    current = successor;
+                }
+                predecessors[level] = predecessor;
+                successors[level] = current;
+            }
+            return current != null && current.key.compareTo(key) == 0;
+        }
+    }
+
+    /**
+     * @return a level from 0 to MAX_LEVEL - 1, each one half as likely as
+     * the one below
+     */
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | 1 << (MAX_LEVEL - 1));
+    }
+}
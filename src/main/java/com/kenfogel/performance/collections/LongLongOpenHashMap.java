@@ -0,0 +1,214 @@
+package com.kenfogel.performance.collections;
+
+import java.util.Arrays;
+
+/**
+ * A map from long to long that stores its keys and values in two parallel
+ * primitive arrays. There is no Node object per entry and no Long boxing,
+ * unlike HashMap&lt;Long, Long&gt;.
+ *
+ * Collisions are resolved with linear probing. A key of 0 marks an empty
+ * slot so the entry for the key 0 is kept in its own field. Removal shifts
+ * the following entries back instead of leaving tombstones.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class LongLongOpenHashMap {
+
+    private final static int DEFAULT_CAPACITY = 16;
+    private final static float LOAD_FACTOR = 0.5f;
+
+    private final long noEntryValue;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    /**
+     * Create an empty map that returns -1 for missing keys
+     */
+    public LongLongOpenHashMap() {
+        this(DEFAULT_CAPACITY, -1L);
+    }
+
+    /**
+     * @param expectedSize number of entries that can be added before the
+     * arrays must grow
+     * @param noEntryValue value returned by get for a missing key
+     */
+    public LongLongOpenHashMap(int expectedSize, long noEntryValue) {
+        this.noEntryValue = noEntryValue;
+        allocate(StringIntOpenHashMap.tableSizeFor(
+                (int) Math.ceil(Math.max(1, expectedSize) / LOAD_FACTOR)));
+    }
+
+    /**
+     * Copy constructor, the arrays are cloned
+     *
+     * @param map
+     */
+    public LongLongOpenHashMap(LongLongOpenHashMap map) {
+        noEntryValue = map.noEntryValue;
+        keys = map.keys.clone();
+        values = map.values.clone();
+        mask = map.mask;
+        size = map.size;
+        resizeAt = map.resizeAt;
+        hasZeroKey = map.hasZeroKey;
+        zeroValue = map.zeroValue;
+    }
+
+    /**
+     * @param key
+     * @return the value for key or the no entry value
+     */
+    public long get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? noEntryValue : values[slot];
+    }
+
+    /**
+     * @param key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : find(key) >= 0;
+    }
+
+    /**
+     * Add or replace an entry
+     *
+     * @param key
+     * @param value
+     * @return the previous value or the no entry value
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            allocate(keys.length * 2);
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * Remove an entry and shift the entries that follow it back so that no
+     * probe sequence is broken
+     *
+     * @param key
+     * @return the removed value or the no entry value
+     */
+    public long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            --size;
+            return zeroValue;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        long previous = values[slot];
+        int gap = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != 0) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the gap if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        --size;
+        return previous;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry but keep the arrays
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        if (oldKeys != null) {
+            for (int x = 0; x < oldKeys.length; ++x) {
+                if (oldKeys[x] != 0) {
+                    int slot = hash(oldKeys[x]) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[x];
+                    values[slot] = oldValues[x];
+                }
+            }
+        }
+    }
+
+    /**
+     * Fibonacci hashing, the high bits of the product depend on every bit
+     * of the key
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,42 @@
+package com.kenfogel.performance.collections;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The least recently used cache that the JDK already has, a LinkedHashMap
+ * in access order that drops its eldest entry once it holds more than its
+ * capacity. Every get moves the entry to the end of the linked list, so a
+ * hit is a write and the map must be wrapped by
+ * Collections.synchronizedMap to be shared by threads.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private final int capacity;
+
+    /**
+     * @param capacity the most entries kept
+     */
+    public LruCache(int capacity) {
+        super(capacity * 4 / 3 + 1, 0.75f, true);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
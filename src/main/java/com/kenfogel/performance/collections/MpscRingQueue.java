@@ -0,0 +1,201 @@
+package com.kenfogel.performance.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bounded queue for any number of producer threads and one consumer
+ * thread in an array whose length is a power of two, after the bounded
+ * queue of Dmitry Vyukov. A producer claims a slot by a compare and swap on
+ * the tail and never waits for a lock.
+ *
+ * Every slot has a sequence number that says whose turn it is. A slot is
+ * free for the producer that claims tail t when its sequence is t, holds an
+ * element for the consumer at head h when its sequence is h + 1 and is
+ * handed back for the next lap by setting it to h + capacity. A producer
+ * writes the element before it releases the sequence, so the consumer
+ * never sees a claimed slot that is still empty.
+ *
+ * The consumer is the only thread that moves the head, so poll needs no
+ * compare and swap. drainTo moves the elements that are ready up to a
+ * maximum and publishes the head once for all of them, it stops at a slot
+ * that a producer has claimed but not yet written.
+ *
+ * poll, peek and drainTo may only be called by the consumer. Null elements
+ * are not supported. Any thread may call iterator(), which copies the
+ * elements that are ready without stopping the producers or the consumer,
+ * so it may miss an element taken or see one added while it copies.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <E> the type of the elements
+ */
+public class MpscRingQueue<E> extends AbstractQueue<E> {
+
+    private final static VarHandle INDEX = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Two cache lines apart, the producers share one and the consumer has
+    // the other
+    private final static int TAIL = 8;
+    private final static int HEAD = 16;
+
+    private final Object[] elements;
+    private final long[] sequences;
+    private final int mask;
+    private final long[] indexes = new long[24];
+
+    /**
+     * @param capacity the most elements the queue holds, rounded up to a
+     * power of two
+     */
+    public MpscRingQueue(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        elements = new Object[length];
+        sequences = new long[length];
+        mask = length - 1;
+        for (int x = 0; x < length; ++x) {
+            sequences[x] = x;
+        }
+    }
+
+    /**
+     * May be called by any thread
+     *
+     * @return false if the queue is full
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long tail = (long) INDEX.getVolatile(indexes, TAIL);
+        while (true) {
+            int slot = (int) tail & mask;
+            long sequence = (long) INDEX.getAcquire(sequences, slot);
+            if (sequence == tail) {
+                long witness = (long) INDEX.compareAndExchange(indexes, TAIL, tail, tail + 1);
+                if (witness == tail) {
+                    elements[slot] = element;
+                    INDEX.setRelease(sequences, slot, tail + 1);
+                    return true;
+                }
+                tail = witness;
+            } else if (sequence < tail) {
+                // The consumer has not yet taken the element of the last lap
+                return false;
+            } else {
+                // Another producer claimed the slot first
+                tail = (long) INDEX.getVolatile(indexes, TAIL);
+            }
+        }
+    }
+
+    /**
+     * Called by the consumer only. Waits for a producer that has claimed
+     * the next slot to write it.
+     *
+     * @return the oldest element or null if the queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = indexes[HEAD];
+        int slot = (int) head & mask;
+        while ((long) INDEX.getAcquire(sequences, slot) != head + 1) {
+            if ((long) INDEX.getVolatile(indexes, TAIL) == head) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        INDEX.setRelease(sequences, slot, head + elements.length);
+        INDEX.setRelease(indexes, HEAD, head + 1);
+        return element;
+    }
+
+    /**
+     * Called by the consumer only
+     *
+     * @return the oldest element or null if it has not been written yet
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long head = indexes[HEAD];
+        int slot = (int) head & mask;
+        return (long) INDEX.getAcquire(sequences, slot) == head + 1 ? (E) elements[slot] : null;
+    }
+
+    /**
+     * Move up to maxElements of the oldest elements that are ready to a
+     * collection in order. Called by the consumer only.
+     *
+     * @param collection
+     * @param maxElements
+     * @return the number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        long head = indexes[HEAD];
+        int count = 0;
+        while (count < maxElements) {
+            int slot = (int) (head + count) & mask;
+            if ((long) INDEX.getAcquire(sequences, slot) != head + count + 1) {
+                break;
+            }
+            collection.add((E) elements[slot]);
+            elements[slot] = null;
+            INDEX.setRelease(sequences, slot, head + count + elements.length);
+            ++count;
+        }
+        if (count > 0) {
+            INDEX.setRelease(indexes, HEAD, head + count);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of elements claimed by producers and not yet
+     * taken, exact only when no thread is changing the queue
+     */
+    @Override
+    public int size() {
+        long head = (long) INDEX.getAcquire(indexes, HEAD);
+        long tail = (long) INDEX.getAcquire(indexes, TAIL);
+        return (int) Math.max(0, Math.min(elements.length, tail - head));
+    }
+
+    /**
+     * A weakly consistent snapshot of the slots from the head to the tail.
+     * A slot is copied only if its sequence says it holds the element of
+     * that lap before and after the element is read, so a slot that is
+     * claimed but not yet written or is taken meanwhile is skipped. The
+     * iterator does not support remove.
+     *
+     * @return an iterator over the copied elements, oldest first
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        long head = (long) INDEX.getAcquire(indexes, HEAD);
+        long tail = (long) INDEX.getAcquire(indexes, TAIL);
+        List<E> snapshot = new ArrayList<>();
+        for (long x = head; x < tail && x < head + elements.length; ++x) {
+            int slot = (int) x & mask;
+            if ((long) INDEX.getAcquire(sequences, slot) == x + 1) {
+                E element = (E) elements[slot];
+                if ((long) INDEX.getAcquire(sequences, slot) == x + 1 && element != null) {
+                    snapshot.add(element);
+                }
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+}
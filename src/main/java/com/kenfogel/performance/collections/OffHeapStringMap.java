@@ -0,0 +1,304 @@
+package com.kenfogel.performance.collections;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A map from String to String whose entries live outside of the Java heap
+ * in MemorySegments. The garbage collector never sees the entries so a
+ * very large table adds nothing to the live set that it must trace.
+ *
+ * There are two segments. The index is an open addressing table of 16
+ * byte slots, each with the offset of an entry and the hash of its key.
+ * The data segment holds the entries one after another as the length of
+ * the key, the length of the value and then the UTF-8 bytes of both.
+ * Collisions are resolved with linear probing and removal shifts the
+ * following slots back. Replaced and removed entries stay in the data
+ * segment until clear() is called, except for removing the entry that was
+ * added last which gives its bytes back, so a put undone by a remove does
+ * not grow the segment.
+ *
+ * A segment that must grow is copied to a larger one from a new Arena and
+ * the old Arena is closed. Call close() to release the memory, a map that
+ * is not closed holds its memory until the JVM exits.
+ *
+ * Uses the Foreign Function and Memory API that is a preview feature in
+ * Java 21, the JVM must be started with --enable-preview.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class OffHeapStringMap implements AutoCloseable {
+
+    private final static long SLOT_BYTES = 16;
+    private final static long ENTRY_HEADER_BYTES = 8;
+    private final static float LOAD_FACTOR = 0.5f;
+    // Offset 0 is never used for an entry so that 0 marks an empty slot
+    private final static long FIRST_ENTRY = 8;
+
+    private Arena indexArena;
+    private Arena dataArena;
+    private MemorySegment index;
+    private MemorySegment data;
+    private long dataUsed;
+    private long wastedBytes;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Create an empty map with room for 16 entries of 32 bytes
+     */
+    public OffHeapStringMap() {
+        this(16, 32);
+    }
+
+    /**
+     * @param expectedSize number of entries that can be added before the
+     * index must grow
+     * @param averageEntryBytes expected UTF-8 length of a key plus its value
+     */
+    public OffHeapStringMap(int expectedSize, int averageEntryBytes) {
+        int slots = StringIntOpenHashMap.tableSizeFor(
+                (int) Math.ceil(Math.max(1, expectedSize) / LOAD_FACTOR));
+        allocateIndex(slots);
+        dataArena = Arena.ofShared();
+        data = dataArena.allocate(FIRST_ENTRY + (long) Math.max(1, expectedSize)
+                * (ENTRY_HEADER_BYTES + Math.max(1, averageEntryBytes)), 8);
+        dataUsed = FIRST_ENTRY;
+    }
+
+    /**
+     * @param key
+     * @return the value for key or null if it is not in the map
+     */
+    public String get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long slot = find(keyBytes, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        long entry = index.get(ValueLayout.JAVA_LONG, slot);
+        int keyLength = data.get(ValueLayout.JAVA_INT, entry);
+        int valueLength = data.get(ValueLayout.JAVA_INT, entry + 4);
+        byte[] valueBytes = new byte[valueLength];
+        MemorySegment.copy(data, ValueLayout.JAVA_BYTE, entry + ENTRY_HEADER_BYTES + keyLength,
+                valueBytes, 0, valueLength);
+        return new String(valueBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(String key) {
+        return find(key.getBytes(StandardCharsets.UTF_8), hash(key)) >= 0;
+    }
+
+    /**
+     * Add or replace an entry. Unlike Map.put the previous value is not
+     * returned because it would have to be copied back on to the heap.
+     *
+     * @param key
+     * @param value
+     * @return true if the key was not in the map
+     */
+    public boolean put(String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        long slot = find(keyBytes, hash);
+        long entry = append(keyBytes, valueBytes);
+        if (slot >= 0) {
+            wastedBytes += entryBytes(index.get(ValueLayout.JAVA_LONG, slot));
+            index.set(ValueLayout.JAVA_LONG, slot, entry);
+            return false;
+        }
+        if (size >= resizeAt) {
+            resizeIndex();
+        }
+        slot = emptySlot(hash);
+        index.set(ValueLayout.JAVA_LONG, slot, entry);
+        index.set(ValueLayout.JAVA_INT, slot + 8, hash);
+        ++size;
+        return true;
+    }
+
+    /**
+     * Remove an entry. Its bytes stay in the data segment unless it is the
+     * last entry that was added.
+     *
+     * @param key
+     * @return true if the key was in the map
+     */
+    public boolean remove(String key) {
+        long slot = find(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        release(index.get(ValueLayout.JAVA_LONG, slot));
+        long gap = slot;
+        long next = nextSlot(slot);
+        while (index.get(ValueLayout.JAVA_LONG, next) != 0) {
+            long home = (index.get(ValueLayout.JAVA_INT, next + 8) & mask) * SLOT_BYTES;
+            // Move the slot into the gap if the gap lies on its probe path
+            if (distance(home, next) >= distance(gap, next)) {
+                MemorySegment.copy(index, next, index, gap, SLOT_BYTES);
+                gap = next;
+            }
+            next = nextSlot(next);
+        }
+        index.set(ValueLayout.JAVA_LONG, gap, 0L);
+        --size;
+        return true;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry but keep the segments
+     */
+    public void clear() {
+        index.fill((byte) 0);
+        dataUsed = FIRST_ENTRY;
+        wastedBytes = 0;
+        size = 0;
+    }
+
+    /**
+     * @return bytes allocated outside of the heap for the index and data
+     */
+    public long offHeapBytes() {
+        return index.byteSize() + data.byteSize();
+    }
+
+    /**
+     * @return bytes in the data segment used by replaced or removed entries
+     */
+    public long wastedBytes() {
+        return wastedBytes;
+    }
+
+    /**
+     * Release the memory of both segments. The map must not be used after
+     * it is closed.
+     */
+    @Override
+    public void close() {
+        indexArena.close();
+        dataArena.close();
+    }
+
+    private long find(byte[] keyBytes, int hash) {
+        long slot = (hash & mask) * SLOT_BYTES;
+        long entry;
+        while ((entry = index.get(ValueLayout.JAVA_LONG, slot)) != 0) {
+            if (index.get(ValueLayout.JAVA_INT, slot + 8) == hash
+                    && data.get(ValueLayout.JAVA_INT, entry) == keyBytes.length
+                    && MemorySegment.mismatch(data, entry + ENTRY_HEADER_BYTES,
+                            entry + ENTRY_HEADER_BYTES + keyBytes.length,
+                            MemorySegment.ofArray(keyBytes), 0, keyBytes.length) == -1) {
+                return slot;
+            }
+            slot = nextSlot(slot);
+        }
+        return -1;
+    }
+
+    private long emptySlot(int hash) {
+        long slot = (hash & mask) * SLOT_BYTES;
+        while (index.get(ValueLayout.JAVA_LONG, slot) != 0) {
+            slot = nextSlot(slot);
+        }
+        return slot;
+    }
+
+    private long nextSlot(long slot) {
+        return (slot + SLOT_BYTES) & ((long) mask * SLOT_BYTES + SLOT_BYTES - 1);
+    }
+
+    private long distance(long from, long to) {
+        return ((to - from) / SLOT_BYTES) & mask;
+    }
+
+    private long entryBytes(long entry) {
+        return ENTRY_HEADER_BYTES + data.get(ValueLayout.JAVA_INT, entry)
+                + data.get(ValueLayout.JAVA_INT, entry + 4);
+    }
+
+    /**
+     * Give back the bytes of a removed entry if it is at the end of the
+     * data, otherwise they are wasted until clear()
+     */
+    private void release(long entry) {
+        long bytes = entryBytes(entry);
+        if (((entry + bytes + 7) & ~7L) == dataUsed) {
+            dataUsed = entry;
+        } else {
+            wastedBytes += bytes;
+        }
+    }
+
+    private long append(byte[] keyBytes, byte[] valueBytes) {
+        long needed = ENTRY_HEADER_BYTES + keyBytes.length + valueBytes.length;
+        if (dataUsed + needed > data.byteSize()) {
+            Arena newArena = Arena.ofShared();
+            MemorySegment newData = newArena.allocate(
+                    Math.max(data.byteSize() * 2, dataUsed + needed), 8);
+            MemorySegment.copy(data, 0, newData, 0, dataUsed);
+            dataArena.close();
+            dataArena = newArena;
+            data = newData;
+        }
+        long entry = dataUsed;
+        data.set(ValueLayout.JAVA_INT, entry, keyBytes.length);
+        data.set(ValueLayout.JAVA_INT, entry + 4, valueBytes.length);
+        MemorySegment.copy(keyBytes, 0, data, ValueLayout.JAVA_BYTE,
+                entry + ENTRY_HEADER_BYTES, keyBytes.length);
+        MemorySegment.copy(valueBytes, 0, data, ValueLayout.JAVA_BYTE,
+                entry + ENTRY_HEADER_BYTES + keyBytes.length, valueBytes.length);
+        // Keep every entry header aligned
+        dataUsed = (entry + needed + 7) & ~7L;
+        return entry;
+    }
+
+    private void allocateIndex(int slots) {
+        indexArena = Arena.ofShared();
+        index = indexArena.allocate(slots * SLOT_BYTES, 8);
+        mask = slots - 1;
+        resizeAt = (int) (slots * LOAD_FACTOR);
+    }
+
+    private void resizeIndex() {
+        Arena oldArena = indexArena;
+        MemorySegment oldIndex = index;
+        allocateIndex((mask + 1) * 2);
+        for (long slot = 0; slot < oldIndex.byteSize(); slot += SLOT_BYTES) {
+            long entry = oldIndex.get(ValueLayout.JAVA_LONG, slot);
+            if (entry != 0) {
+                int hash = oldIndex.get(ValueLayout.JAVA_INT, slot + 8);
+                long newSlot = emptySlot(hash);
+                index.set(ValueLayout.JAVA_LONG, newSlot, entry);
+                index.set(ValueLayout.JAVA_INT, newSlot + 8, hash);
+            }
+        }
+        oldArena.close();
+    }
+
+    /**
+     * Spread the String hash so that the low bits used for the slot depend
+     * on all of the bits
+     */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,114 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Wraps any map with a ReentrantReadWriteLock so that many readers can
+ * share the map while a writer has it to itself. This is the usual way to
+ * make a TreeMap safe for a multi threaded service without changing to
+ * ConcurrentSkipListMap.
+ *
+ * Only the operations used by the benchmarks take the lock directly. The
+ * entry set is a copy made under the read lock.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class ReadWriteLockedMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, V> map;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    /**
+     * @param map the map to guard, it should not be used directly afterwards
+     */
+    public ReadWriteLockedMap(Map<K, V> map) {
+        this.map = map;
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        readLock = lock.readLock();
+        writeLock = lock.writeLock();
+    }
+
+    @Override
+    public V get(Object key) {
+        readLock.lock();
+        try {
+            return map.get(key);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        readLock.lock();
+        try {
+            return map.containsKey(key);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        readLock.lock();
+        try {
+            return map.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        writeLock.lock();
+        try {
+            return map.put(key, value);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        writeLock.lock();
+        try {
+            return map.remove(key);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            map.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        readLock.lock();
+        try {
+            Set<Entry<K, V>> entries = new HashSet<>();
+            for (Entry<K, V> entry : map.entrySet()) {
+                entries.add(new SimpleImmutableEntry<>(entry));
+            }
+            return entries;
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
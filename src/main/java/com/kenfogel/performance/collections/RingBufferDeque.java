@@ -0,0 +1,705 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * A deque in a circular array whose length is a power of two, so that the
+ * slot of an index is (head + index) &amp; mask. Unlike ArrayDeque it is
+ * also a List: get and set at any index take constant time, which is what
+ * a sliding window needs.
+ *
+ * An insert or removal in the middle shifts the elements on the shorter
+ * side of the index, moving the head or the tail, so it copies at most
+ * half of the elements where an ArrayList always copies everything after
+ * the index. removeIf and retainAll compact the elements in one pass.
+ *
+ * reversed() is a ReversedView, a List and a Deque over the same array
+ * whose index x is the index size - 1 - x of this deque.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <E> the type of the elements
+ */
+public class RingBufferDeque<E> extends AbstractList<E> implements Deque<E>, RandomAccess {
+
+    private final static int DEFAULT_CAPACITY = 16;
+
+    private Object[] elements;
+    private int mask;
+    private int head;
+    private int size;
+
+    /**
+     * Create an empty deque with room for DEFAULT_CAPACITY elements
+     */
+    public RingBufferDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of elements that can be added before
+     * the array must grow, rounded up to a power of two
+     */
+    public RingBufferDeque(int initialCapacity) {
+        int capacity = capacityFor(initialCapacity);
+        elements = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Create a deque of the elements of a collection in its iteration order
+     *
+     * @param collection
+     */
+    public RingBufferDeque(Collection<? extends E> collection) {
+        Object[] contents = collection.toArray();
+        int capacity = capacityFor(contents.length + 1);
+        elements = Arrays.copyOf(contents, capacity, Object[].class);
+        mask = capacity - 1;
+        size = contents.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) elements[(head + index) & mask];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size);
+        int slot = (head + index) & mask;
+        E previous = (E) elements[slot];
+        elements[slot] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(E element) {
+        addLast(element);
+        return true;
+    }
+
+    /**
+     * Shifts the elements before index toward the head or the elements
+     * from index on toward the tail, whichever are fewer
+     */
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size + 1);
+        if (size == elements.length) {
+            grow();
+        }
+        if (index < size - index) {
+            shiftTowardHead(0, index, 1);
+            head = (head - 1) & mask;
+        } else {
+            shiftTowardTail(index, size - index, 1);
+        }
+        elements[(head + index) & mask] = element;
+        ++size;
+        ++modCount;
+    }
+
+    /**
+     * Shifts the elements before index toward the tail or the elements
+     * after index toward the head, whichever are fewer
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        E previous = (E) elements[(head + index) & mask];
+        if (index < size - index - 1) {
+            shiftTowardTail(0, index, 1);
+            elements[head] = null;
+            head = (head + 1) & mask;
+        } else {
+            shiftTowardHead(index + 1, size - index - 1, 1);
+            elements[(head + size - 1) & mask] = null;
+        }
+        --size;
+        ++modCount;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Keeps the elements that do not match in order at the front, copying
+     * each of them at most once
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        int kept = 0;
+        for (int x = 0; x < size; ++x) {
+            E element = (E) elements[(head + x) & mask];
+            if (!filter.test(element)) {
+                elements[(head + kept++) & mask] = element;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        for (int x = kept; x < size; ++x) {
+            elements[(head + x) & mask] = null;
+        }
+        size = kept;
+        ++modCount;
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        Objects.requireNonNull(collection);
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        Objects.requireNonNull(collection);
+        return removeIf(element -> !collection.contains(element));
+    }
+
+    /**
+     * Closes the range from the shorter side, used by
+     * subList(from, to).clear()
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int removed = toIndex - fromIndex;
+        if (removed <= 0) {
+            return;
+        }
+        if (fromIndex < size - toIndex) {
+            shiftTowardTail(0, fromIndex, removed);
+            clearSlots(0, removed);
+            head = (head + removed) & mask;
+        } else {
+            shiftTowardHead(toIndex, size - toIndex, removed);
+            clearSlots(size - removed, removed);
+        }
+        size -= removed;
+        ++modCount;
+    }
+
+    @Override
+    public void addFirst(E element) {
+        if (size == elements.length) {
+            grow();
+        }
+        head = (head - 1) & mask;
+        elements[head] = element;
+        ++size;
+        ++modCount;
+    }
+
+    @Override
+    public void addLast(E element) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & mask] = element;
+        ++size;
+        ++modCount;
+    }
+
+    @Override
+    public boolean offerFirst(E element) {
+        addFirst(element);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E element) {
+        addLast(element);
+        return true;
+    }
+
+    @Override
+    public E removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return pollFirst();
+    }
+
+    @Override
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return pollLast();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        E element = (E) elements[head];
+        elements[head] = null;
+        head = (head + 1) & mask;
+        --size;
+        ++modCount;
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E pollLast() {
+        if (size == 0) {
+            return null;
+        }
+        int slot = (head + size - 1) & mask;
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        --size;
+        ++modCount;
+        return element;
+    }
+
+    @Override
+    public E getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return peekFirst();
+    }
+
+    @Override
+    public E getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return peekLast();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peekFirst() {
+        return size == 0 ? null : (E) elements[head];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peekLast() {
+        return size == 0 ? null : (E) elements[(head + size - 1) & mask];
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        int index = lastIndexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        return offerLast(element);
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E element) {
+        addFirst(element);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new DescendingIterator();
+    }
+
+    /**
+     * @return a view of this deque in reverse order, changes to either are
+     * seen by the other
+     */
+    @Override
+    public ReversedView reversed() {
+        return new ReversedView();
+    }
+
+    /**
+     * The capacity for a number of elements, a power of two of at least 2
+     */
+    private static int capacityFor(int elementCount) {
+        return Integer.highestOneBit(Math.max(2, elementCount) - 1) << 1;
+    }
+
+    /**
+     * Move the count elements from index toward the head by distance
+     * slots. The copy runs from the first element so that it never
+     * overwrites an element that has still to move.
+     */
+    private void shiftTowardHead(int index, int count, int distance) {
+        int source = (head + index) & mask;
+        while (count > 0) {
+            int destination = (source - distance) & mask;
+            int run = Math.min(count, Math.min(elements.length - source, elements.length - destination));
+            System.arraycopy(elements, source, elements, destination, run);
+            source = (source + run) & mask;
+            count -= run;
+        }
+    }
+
+    /**
+     * Move the count elements from index toward the tail by distance
+     * slots. The copy runs from the last element so that it never
+     * overwrites an element that has still to move.
+     */
+    private void shiftTowardTail(int index, int count, int distance) {
+        int sourceLast = (head + index + count - 1) & mask;
+        while (count > 0) {
+            int destinationLast = (sourceLast + distance) & mask;
+            int run = Math.min(count, Math.min(sourceLast + 1, destinationLast + 1));
+            System.arraycopy(elements, sourceLast - run + 1, elements, destinationLast - run + 1, run);
+            sourceLast = (sourceLast - run) & mask;
+            count -= run;
+        }
+    }
+
+    private void clearSlots(int index, int count) {
+        for (int x = index; x < index + count; ++x) {
+            elements[(head + x) & mask] = null;
+        }
+    }
+
+    /**
+     * Double the array, the elements are copied in order to its start
+     */
+    private void grow() {
+        Object[] grown = new Object[elements.length * 2];
+        int firstRun = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstRun);
+        System.arraycopy(elements, 0, grown, firstRun, size - firstRun);
+        elements = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+
+    /**
+     * Walks the indexes from the last to the first
+     */
+    private class DescendingIterator implements Iterator<E> {
+
+        private int next = size - 1;
+        private int returned = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            returned = next--;
+            return get(returned);
+        }
+
+        @Override
+        public void remove() {
+            if (returned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            RingBufferDeque.this.remove(returned);
+            returned = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * This deque in reverse order. Every method maps the index x of the
+     * view to size - 1 - x and swaps first and last, nothing is copied.
+     */
+    public class ReversedView extends AbstractList<E> implements Deque<E>, RandomAccess {
+
+        private ReversedView() {
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public E get(int index) {
+            Objects.checkIndex(index, size);
+            return RingBufferDeque.this.get(size - 1 - index);
+        }
+
+        @Override
+        public E set(int index, E element) {
+            Objects.checkIndex(index, size);
+            return RingBufferDeque.this.set(size - 1 - index, element);
+        }
+
+        @Override
+        public boolean add(E element) {
+            addLast(element);
+            return true;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            Objects.checkIndex(index, size + 1);
+            RingBufferDeque.this.add(size - index, element);
+            ++modCount;
+        }
+
+        @Override
+        public E remove(int index) {
+            Objects.checkIndex(index, size);
+            E previous = RingBufferDeque.this.remove(size - 1 - index);
+            ++modCount;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            RingBufferDeque.this.clear();
+            ++modCount;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super E> filter) {
+            boolean removed = RingBufferDeque.this.removeIf(filter);
+            if (removed) {
+                ++modCount;
+            }
+            return removed;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            Objects.requireNonNull(collection);
+            return removeIf(collection::contains);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            Objects.requireNonNull(collection);
+            return removeIf(element -> !collection.contains(element));
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            RingBufferDeque.this.removeRange(size - toIndex, size - fromIndex);
+            ++modCount;
+        }
+
+        @Override
+        public void addFirst(E element) {
+            RingBufferDeque.this.addLast(element);
+            ++modCount;
+        }
+
+        @Override
+        public void addLast(E element) {
+            RingBufferDeque.this.addFirst(element);
+            ++modCount;
+        }
+
+        @Override
+        public boolean offerFirst(E element) {
+            addFirst(element);
+            return true;
+        }
+
+        @Override
+        public boolean offerLast(E element) {
+            addLast(element);
+            return true;
+        }
+
+        @Override
+        public E removeFirst() {
+            E element = RingBufferDeque.this.removeLast();
+            ++modCount;
+            return element;
+        }
+
+        @Override
+        public E removeLast() {
+            E element = RingBufferDeque.this.removeFirst();
+            ++modCount;
+            return element;
+        }
+
+        @Override
+        public E pollFirst() {
+            if (size == 0) {
+                return null;
+            }
+            return removeFirst();
+        }
+
+        @Override
+        public E pollLast() {
+            if (size == 0) {
+                return null;
+            }
+            return removeLast();
+        }
+
+        @Override
+        public E getFirst() {
+            return RingBufferDeque.this.getLast();
+        }
+
+        @Override
+        public E getLast() {
+            return RingBufferDeque.this.getFirst();
+        }
+
+        @Override
+        public E peekFirst() {
+            return RingBufferDeque.this.peekLast();
+        }
+
+        @Override
+        public E peekLast() {
+            return RingBufferDeque.this.peekFirst();
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            int index = indexOf(o);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            int index = lastIndexOf(o);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+
+        @Override
+        public boolean offer(E element) {
+            return offerLast(element);
+        }
+
+        @Override
+        public E remove() {
+            return removeFirst();
+        }
+
+        @Override
+        public E poll() {
+            return pollFirst();
+        }
+
+        @Override
+        public E element() {
+            return getFirst();
+        }
+
+        @Override
+        public E peek() {
+            return peekFirst();
+        }
+
+        @Override
+        public void push(E element) {
+            addFirst(element);
+        }
+
+        @Override
+        public E pop() {
+            return removeFirst();
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return RingBufferDeque.this.iterator();
+        }
+
+        /**
+         * @return the deque this is a view of
+         */
+        @Override
+        public RingBufferDeque<E> reversed() {
+            return RingBufferDeque.this;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A sorted map from String to String that stores its keys and values in two
+ * parallel arrays kept in key order. Every search is a binary search and a
+ * range of entries is a run of neighbouring slots, so a range scan reads
+ * memory in order and there is no node object per entry.
+ *
+ * The price is paid on change. Adding or removing an entry shifts every
+ * entry after it, so put, remove and pollFirstEntry are linear in the size
+ * while TreeMap is logarithmic.
+ *
+ * Null keys are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class SortedArrayMap {
+
+    private final static int DEFAULT_CAPACITY = 16;
+
+    private String[] keys;
+    private String[] values;
+    private int size;
+
+    /**
+     * Create an empty map
+     */
+    public SortedArrayMap() {
+        keys = new String[DEFAULT_CAPACITY];
+        values = new String[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Create a map of the entries of another map, sorted once instead of
+     * being inserted one at a time
+     *
+     * @param map
+     */
+    public SortedArrayMap(Map<String, String> map) {
+        @SuppressWarnings("unchecked")
+        Map.Entry<String, String>[] entries = map.entrySet().toArray(new Map.Entry[0]);
+        Arrays.sort(entries, Map.Entry.comparingByKey());
+        size = entries.length;
+        keys = new String[Math.max(DEFAULT_CAPACITY, size)];
+        values = new String[keys.length];
+        for (int x = 0; x < size; ++x) {
+            keys[x] = entries[x].getKey();
+            values[x] = entries[x].getValue();
+        }
+    }
+
+    /**
+     * @param key
+     * @return the value for key or null
+     */
+    public String get(String key) {
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    /**
+     * Add or replace an entry, the entries after it are shifted up
+     *
+     * @param key
+     * @param value
+     * @return the previous value or null
+     */
+    public String put(String key, String value) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        if (slot >= 0) {
+            String previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = -slot - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+        System.arraycopy(values, slot, values, slot + 1, size - slot);
+        keys[slot] = key;
+        values[slot] = value;
+        ++size;
+        return null;
+    }
+
+    /**
+     * Remove an entry, the entries after it are shifted down
+     *
+     * @param key
+     * @return the removed value or null
+     */
+    public String remove(String key) {
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        return slot < 0 ? null : removeAt(slot);
+    }
+
+    /**
+     * @param key
+     * @return the greatest key less than or equal to key or null
+     */
+    public String floorKey(String key) {
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        if (slot >= 0) {
+            return keys[slot];
+        }
+        slot = -slot - 2;
+        return slot < 0 ? null : keys[slot];
+    }
+
+    /**
+     * @param key
+     * @return the least key greater than or equal to key or null
+     */
+    public String ceilingKey(String key) {
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        if (slot >= 0) {
+            return keys[slot];
+        }
+        slot = -slot - 1;
+        return slot == size ? null : keys[slot];
+    }
+
+    /**
+     * Pass every entry from fromKey inclusive to toKey exclusive to the
+     * action in key order
+     *
+     * @param fromKey
+     * @param toKey
+     * @param action
+     */
+    public void forEach(String fromKey, String toKey, BiConsumer<String, String> action) {
+        int slot = Arrays.binarySearch(keys, 0, size, fromKey);
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        while (slot < size && keys[slot].compareTo(toKey) < 0) {
+            action.accept(keys[slot], values[slot]);
+            ++slot;
+        }
+    }
+
+    /**
+     * Remove the entry with the least key, every other entry is shifted
+     * down
+     *
+     * @return the removed entry or null if the map is empty
+     */
+    public Map.Entry<String, String> pollFirstEntry() {
+        if (size == 0) {
+            return null;
+        }
+        String key = keys[0];
+        return new AbstractMap.SimpleImmutableEntry<>(key, removeAt(0));
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    private String removeAt(int slot) {
+        String previous = values[slot];
+        System.arraycopy(keys, slot + 1, keys, slot, size - slot - 1);
+        System.arraycopy(values, slot + 1, values, slot, size - slot - 1);
+        --size;
+        keys[size] = null;
+        values[size] = null;
+        return previous;
+    }
+}
@@ -0,0 +1,188 @@
+package com.kenfogel.performance.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bounded queue for exactly one producer thread and one consumer thread
+ * in an array whose length is a power of two. Neither side takes a lock or
+ * does a compare and swap: the producer writes the slot and then publishes
+ * the new tail with a release store, the consumer reads the tail with an
+ * acquire load and publishes the new head the same way.
+ *
+ * Each side keeps a copy of the other side's index and only reads the
+ * shared one when its copy says the queue is full or empty, so while the
+ * queue is neither the two threads do not touch the same cache line. The
+ * tail, the head and the copies are kept in one long array with each side
+ * on a cache line of its own.
+ *
+ * drainTo moves every available element up to a maximum and publishes the
+ * head once for all of them.
+ *
+ * offer may only be called by the producer and poll, peek and drainTo only
+ * by the consumer. Null elements are not supported. Any thread may call
+ * iterator(), which copies the elements without stopping either side, so
+ * it may miss an element taken or see one added while it copies.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <E> the type of the elements
+ */
+public class SpscRingQueue<E> extends AbstractQueue<E> {
+
+    private final static VarHandle INDEX = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Two cache lines apart, the producer's line then the consumer's line
+    private final static int TAIL = 8;
+    private final static int HEAD_COPY = 9;
+    private final static int HEAD = 16;
+    private final static int TAIL_COPY = 17;
+
+    private final Object[] elements;
+    private final int mask;
+    private final long[] indexes = new long[24];
+
+    /**
+     * @param capacity the most elements the queue holds, rounded up to a
+     * power of two
+     */
+    public SpscRingQueue(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        elements = new Object[length];
+        mask = length - 1;
+    }
+
+    /**
+     * Called by the producer only
+     *
+     * @return false if the queue is full
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long tail = indexes[TAIL];
+        if (tail - indexes[HEAD_COPY] == elements.length) {
+            indexes[HEAD_COPY] = (long) INDEX.getAcquire(indexes, HEAD);
+            if (tail - indexes[HEAD_COPY] == elements.length) {
+                return false;
+            }
+        }
+        elements[(int) tail & mask] = element;
+        INDEX.setRelease(indexes, TAIL, tail + 1);
+        return true;
+    }
+
+    /**
+     * Called by the consumer only
+     *
+     * @return the oldest element or null if the queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = indexes[HEAD];
+        if (!isAvailable(head)) {
+            return null;
+        }
+        int slot = (int) head & mask;
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        INDEX.setRelease(indexes, HEAD, head + 1);
+        return element;
+    }
+
+    /**
+     * Called by the consumer only
+     *
+     * @return the oldest element or null if the queue is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long head = indexes[HEAD];
+        return isAvailable(head) ? (E) elements[(int) head & mask] : null;
+    }
+
+    /**
+     * Move up to maxElements of the oldest elements to a collection in
+     * order. Called by the consumer only.
+     *
+     * @param collection
+     * @param maxElements
+     * @return the number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        long head = indexes[HEAD];
+        long tail = (long) INDEX.getAcquire(indexes, TAIL);
+        indexes[TAIL_COPY] = tail;
+        int count = (int) Math.min(maxElements, tail - head);
+        if (count <= 0) {
+            return 0;
+        }
+        for (int x = 0; x < count; ++x) {
+            int slot = (int) (head + x) & mask;
+            collection.add((E) elements[slot]);
+            elements[slot] = null;
+        }
+        INDEX.setRelease(indexes, HEAD, head + count);
+        return count;
+    }
+
+    /**
+     * @return the number of elements, exact only when neither side is
+     * changing the queue
+     */
+    @Override
+    public int size() {
+        long head = (long) INDEX.getAcquire(indexes, HEAD);
+        long tail = (long) INDEX.getAcquire(indexes, TAIL);
+        return (int) Math.max(0, Math.min(elements.length, tail - head));
+    }
+
+    /**
+     * A weakly consistent snapshot, the slots from the head to the tail are
+     * copied and then the head is read again. A slot the consumer took
+     * meanwhile may already hold an element of the next lap so it is left
+     * out. The iterator does not support remove.
+     *
+     * @return an iterator over the copied elements, oldest first
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        long head = (long) INDEX.getAcquire(indexes, HEAD);
+        long tail = (long) INDEX.getAcquire(indexes, TAIL);
+        int count = (int) Math.max(0, Math.min(elements.length, tail - head));
+        Object[] copied = new Object[count];
+        for (int x = 0; x < count; ++x) {
+            copied[x] = elements[(int) (head + x) & mask];
+        }
+        VarHandle.loadLoadFence();
+        long taken = (long) INDEX.getAcquire(indexes, HEAD) - head;
+        List<E> snapshot = new ArrayList<>(count);
+        for (long x = taken; x < count; ++x) {
+            snapshot.add((E) copied[(int) x]);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Refresh the copy of the tail only when it says there is nothing left
+     */
+    private boolean isAvailable(long head) {
+        if (head < indexes[TAIL_COPY]) {
+            return true;
+        }
+        indexes[TAIL_COPY] = (long) INDEX.getAcquire(indexes, TAIL);
+        return head < indexes[TAIL_COPY];
+    }
+}
@@ -0,0 +1,233 @@
+package com.kenfogel.performance.collections;
+
+import java.util.Arrays;
+
+/**
+ * A map from String to int that stores its keys, values and key hash codes
+ * in three parallel arrays. There is no Node object per entry and no boxing
+ * of the value, unlike HashMap&lt;String, Integer&gt;.
+ *
+ * Collisions are resolved with Robin Hood linear probing. An entry that is
+ * being inserted takes the slot of any entry that is closer to its home
+ * slot, which keeps every probe sequence short even at a high load factor.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ *
+ * Null keys are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class StringIntOpenHashMap {
+
+    private final static int DEFAULT_CAPACITY = 16;
+    private final static float LOAD_FACTOR = 0.75f;
+
+    private final int noEntryValue;
+    private String[] keys;
+    private int[] values;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Create an empty map that returns -1 for missing keys
+     */
+    public StringIntOpenHashMap() {
+        this(DEFAULT_CAPACITY, -1);
+    }
+
+    /**
+     * @param expectedSize number of entries that can be added before the
+     * arrays must grow
+     * @param noEntryValue value returned by get for a missing key
+     */
+    public StringIntOpenHashMap(int expectedSize, int noEntryValue) {
+        this.noEntryValue = noEntryValue;
+        allocate(tableSizeFor((int) Math.ceil(Math.max(1, expectedSize) / LOAD_FACTOR)));
+    }
+
+    /**
+     * Copy constructor, the arrays are cloned
+     *
+     * @param map
+     */
+    public StringIntOpenHashMap(StringIntOpenHashMap map) {
+        noEntryValue = map.noEntryValue;
+        keys = map.keys.clone();
+        values = map.values.clone();
+        hashes = map.hashes.clone();
+        mask = map.mask;
+        size = map.size;
+        resizeAt = map.resizeAt;
+    }
+
+    /**
+     * @param key
+     * @return the value for key or the no entry value
+     */
+    public int get(String key) {
+        int slot = find(key);
+        return slot < 0 ? noEntryValue : values[slot];
+    }
+
+    /**
+     * @param key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Add or replace an entry
+     *
+     * @param key
+     * @param value
+     * @return the previous value or the no entry value
+     */
+    public int put(String key, int value) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        int hash = hash(key);
+        int slot = hash & mask;
+        int distance = 0;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && key.equals(keys[slot])) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            int existingDistance = (slot - (hashes[slot] & mask)) & mask;
+            if (existingDistance < distance) {
+                // Take the place of the richer entry and carry it forward
+                break;
+            }
+            slot = (slot + 1) & mask;
+            ++distance;
+        }
+        if (size >= resizeAt) {
+            allocate(keys.length * 2);
+            return put(key, value);
+        }
+        insert(slot, distance, key, value, hash);
+        ++size;
+        return noEntryValue;
+    }
+
+    /**
+     * Remove an entry and shift the entries that follow it back toward
+     * their home slots
+     *
+     * @param key
+     * @return the removed value or the no entry value
+     */
+    public int remove(String key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        int previous = values[slot];
+        int next = (slot + 1) & mask;
+        while (keys[next] != null && ((next - (hashes[next] & mask)) & mask) != 0) {
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            hashes[slot] = hashes[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        keys[slot] = null;
+        --size;
+        return previous;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry but keep the arrays
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    private int find(String key) {
+        int hash = hash(key);
+        int slot = hash & mask;
+        int distance = 0;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+            // A richer entry means the key would have been placed before it
+            if (((slot - (hashes[slot] & mask)) & mask) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+            ++distance;
+        }
+        return -1;
+    }
+
+    private void insert(int slot, int distance, String key, int value, int hash) {
+        while (keys[slot] != null) {
+            int existingDistance = (slot - (hashes[slot] & mask)) & mask;
+            if (existingDistance < distance) {
+                String swapKey = keys[slot];
+                int swapValue = values[slot];
+                int swapHash = hashes[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                hashes[slot] = hash;
+                key = swapKey;
+                value = swapValue;
+                hash = swapHash;
+                distance = existingDistance;
+            }
+            slot = (slot + 1) & mask;
+            ++distance;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+    }
+
+    private void allocate(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldHashes = hashes;
+        keys = new String[capacity];
+        values = new int[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        if (oldKeys != null) {
+            for (int x = 0; x < oldKeys.length; ++x) {
+                if (oldKeys[x] != null) {
+                    int hash = oldHashes[x];
+                    insert(hash & mask, 0, oldKeys[x], oldValues[x], hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * Spread the String hash so that the low bits used for the slot depend
+     * on all of the bits
+     */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int capacity) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+}
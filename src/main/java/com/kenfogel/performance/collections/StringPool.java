@@ -0,0 +1,256 @@
+package com.kenfogel.performance.collections;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns strings into one contiguous byte array instead of keeping a
+ * String object for each one. A String of a short ASCII word costs a 24
+ * byte String object and a 16 byte array header on top of its characters,
+ * here it costs its UTF-8 bytes, an offset and a cached hash code.
+ *
+ * Each distinct string gets a handle, a dense int from 0 that is the
+ * index of its offset and hash in two parallel arrays. The length of a
+ * string is the distance to the offset of the next handle. Adding the
+ * same string again returns the same handle, so the handle can stand in
+ * for the string as a map key and two handles are equal only when their
+ * strings are.
+ *
+ * The handles are found through an open addressing table of handles with
+ * linear probing. The hash code is that of the String so it is computed
+ * once by the String and never from the bytes, and comparing a String to
+ * the bytes of a handle decodes nothing while both are ASCII.
+ *
+ * Strings are never removed, clear() empties the whole pool. Null
+ * strings are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class StringPool {
+
+    public final static int NO_HANDLE = -1;
+    private final static int DEFAULT_CAPACITY = 16;
+    private final static int DEFAULT_AVERAGE_BYTES = 8;
+    private final static float LOAD_FACTOR = 0.75f;
+
+    private byte[] arena;
+    private int arenaUsed;
+    // One more than the number of handles, the last is the end of the arena
+    private int[] offsets;
+    private int[] hashes;
+    // The handle plus one of each slot, 0 for an empty slot
+    private int[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Create an empty pool with room for 16 strings of 8 bytes
+     */
+    public StringPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_AVERAGE_BYTES);
+    }
+
+    /**
+     * @param expectedSize number of strings that can be added before the
+     * table must grow
+     * @param averageBytes expected UTF-8 length of a string
+     */
+    public StringPool(int expectedSize, int averageBytes) {
+        int capacity = Math.max(1, expectedSize);
+        arena = new byte[Math.max(16, capacity * Math.max(1, averageBytes))];
+        offsets = new int[capacity + 1];
+        hashes = new int[capacity];
+        allocateTable(StringIntOpenHashMap.tableSizeFor((int) Math.ceil(capacity / LOAD_FACTOR)));
+    }
+
+    /**
+     * Add a string if it is not already in the pool
+     *
+     * @param string
+     * @return the handle of the string
+     */
+    public int intern(String string) {
+        int hash = string.hashCode();
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            int handle = table[slot] - 1;
+            if (hashes[handle] == hash && equals(handle, string)) {
+                return handle;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= resizeAt) {
+            allocateTable(table.length * 2);
+            return intern(string);
+        }
+        int handle = append(string, hash);
+        table[slot] = handle + 1;
+        return handle;
+    }
+
+    /**
+     * @param string
+     * @return the handle of the string or NO_HANDLE if it is not in the
+     * pool
+     */
+    public int find(String string) {
+        int hash = string.hashCode();
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            int handle = table[slot] - 1;
+            if (hashes[handle] == hash && equals(handle, string)) {
+                return handle;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_HANDLE;
+    }
+
+    /**
+     * @param handle
+     * @return a new String with the characters of the handle
+     */
+    public String toString(int handle) {
+        return new String(arena, offsets[handle], length(handle), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param handle
+     * @return the number of UTF-8 bytes of the string
+     */
+    public int length(int handle) {
+        return offsets[handle + 1] - offsets[handle];
+    }
+
+    /**
+     * @param handle
+     * @return the hash code of the string, the same as String.hashCode
+     */
+    public int hashCode(int handle) {
+        return hashes[handle];
+    }
+
+    /**
+     * Compare the bytes of a handle to a String without decoding them
+     *
+     * @param handle
+     * @param string
+     * @return true if the handle holds the string
+     */
+    public boolean equals(int handle, String string) {
+        int offset = offsets[handle];
+        int length = length(handle);
+        int chars = string.length();
+        if (chars > length) {
+            // UTF-8 never has fewer bytes than characters
+            return false;
+        }
+        for (int x = 0; x < chars; ++x) {
+            char c = string.charAt(x);
+            if (c >= 0x80) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                return Arrays.equals(arena, offset, offset + length, bytes, 0, bytes.length);
+            }
+            if (arena[offset + x] != c) {
+                return false;
+            }
+        }
+        return chars == length;
+    }
+
+    /**
+     * @return the number of strings in the pool, handles are from 0 to one
+     * less than this
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes of the arena that hold strings
+     */
+    public int arenaBytes() {
+        return arenaUsed;
+    }
+
+    /**
+     * Remove every string, handles that were given out no longer mean
+     * anything
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        arenaUsed = 0;
+        size = 0;
+    }
+
+    /**
+     * Copy the bytes of a new string to the end of the arena, without
+     * encoding it while it is ASCII
+     *
+     * @return the handle of the string
+     */
+    private int append(String string, int hash) {
+        int chars = string.length();
+        ensureArena(chars);
+        int start = arenaUsed;
+        for (int x = 0; x < chars; ++x) {
+            char c = string.charAt(x);
+            if (c >= 0x80) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                ensureArena(bytes.length);
+                System.arraycopy(bytes, 0, arena, start, bytes.length);
+                arenaUsed = start + bytes.length;
+                return addHandle(start, hash);
+            }
+            arena[arenaUsed++] = (byte) c;
+        }
+        return addHandle(start, hash);
+    }
+
+    private int addHandle(int start, int hash) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+        }
+        offsets[size] = start;
+        offsets[size + 1] = arenaUsed;
+        hashes[size] = hash;
+        return size++;
+    }
+
+    /**
+     * Grow the arena by half or to fit the bytes, whichever is more
+     */
+    private void ensureArena(int bytes) {
+        if (arenaUsed + bytes > arena.length) {
+            long length = Math.max((long) arenaUsed + bytes, arena.length + (arena.length >> 1));
+            if (length > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The pool cannot hold more than 2 GB of strings");
+            }
+            arena = Arrays.copyOf(arena, (int) length);
+        }
+    }
+
+    /**
+     * Make a new table and put every handle back in it
+     */
+    private void allocateTable(int length) {
+        table = new int[length];
+        mask = length - 1;
+        resizeAt = (int) (length * LOAD_FACTOR);
+        for (int handle = 0; handle < size; ++handle) {
+            int slot = spread(hashes[handle]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = handle + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,151 @@
+package com.kenfogel.performance.collections;
+
+import java.util.Arrays;
+
+/**
+ * A map from String to String that keeps its keys and values in a
+ * StringPool and is keyed by their handles. Because a pool gives every
+ * distinct string a dense handle the map needs no hash table of its own,
+ * the value handle of each key handle is kept in an int array indexed by
+ * the key handle. A lookup is one probe of the pool and one array read.
+ *
+ * Keys and values share the pool, so a value that is also a key, or the
+ * same value for many keys, is stored once. A removed key stays in the
+ * pool and its handle is reused if it is put again.
+ *
+ * get decodes a new String for the value. A caller that can work with the
+ * handles uses getHandle and the StringPool instead and allocates nothing.
+ *
+ * Null keys and values are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class StringPoolMap {
+
+    private final StringPool pool;
+    // The value handle for each key handle, NO_HANDLE if it is not a key
+    private int[] values;
+    private int size;
+
+    /**
+     * Create an empty map with room for 16 entries
+     */
+    public StringPoolMap() {
+        this(new StringPool());
+    }
+
+    /**
+     * @param expectedSize number of distinct keys and values that can be
+     * added before the pool must grow
+     * @param averageBytes expected UTF-8 length of a key or value
+     */
+    public StringPoolMap(int expectedSize, int averageBytes) {
+        this(new StringPool(expectedSize, averageBytes));
+    }
+
+    /**
+     * @param pool the pool for the keys and values, it may already hold
+     * strings and may be shared with other maps
+     */
+    public StringPoolMap(StringPool pool) {
+        this.pool = pool;
+        values = new int[Math.max(16, pool.size())];
+        Arrays.fill(values, StringPool.NO_HANDLE);
+    }
+
+    /**
+     * @return the pool that holds the keys and values
+     */
+    public StringPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @param key
+     * @return the value for key or null if it is not in the map
+     */
+    public String get(String key) {
+        int value = getHandle(key);
+        return value == StringPool.NO_HANDLE ? null : pool.toString(value);
+    }
+
+    /**
+     * @param key
+     * @return the handle of the value for key or NO_HANDLE
+     */
+    public int getHandle(String key) {
+        return getByHandle(pool.find(key));
+    }
+
+    /**
+     * @param keyHandle a handle of the pool
+     * @return the handle of the value for the key or NO_HANDLE
+     */
+    public int getByHandle(int keyHandle) {
+        return keyHandle >= 0 && keyHandle < values.length ? values[keyHandle] : StringPool.NO_HANDLE;
+    }
+
+    /**
+     * @param key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(String key) {
+        return getHandle(key) != StringPool.NO_HANDLE;
+    }
+
+    /**
+     * Add or replace an entry
+     *
+     * @param key
+     * @param value
+     * @return the handle of the previous value or NO_HANDLE
+     */
+    public int put(String key, String value) {
+        int keyHandle = pool.intern(key);
+        int valueHandle = pool.intern(value);
+        if (keyHandle >= values.length) {
+            int length = values.length;
+            values = Arrays.copyOf(values, Math.max(keyHandle + 1, length * 2));
+            Arrays.fill(values, length, values.length, StringPool.NO_HANDLE);
+        }
+        int previous = values[keyHandle];
+        values[keyHandle] = valueHandle;
+        if (previous == StringPool.NO_HANDLE) {
+            ++size;
+        }
+        return previous;
+    }
+
+    /**
+     * @param key
+     * @return the handle of the removed value or NO_HANDLE
+     */
+    public int remove(String key) {
+        int keyHandle = pool.find(key);
+        int previous = getByHandle(keyHandle);
+        if (previous != StringPool.NO_HANDLE) {
+            values[keyHandle] = StringPool.NO_HANDLE;
+            --size;
+        }
+        return previous;
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry and every string of the pool, a pool shared with
+     * other maps is emptied for them too
+     */
+    public void clear() {
+        pool.clear();
+        Arrays.fill(values, StringPool.NO_HANDLE);
+        size = 0;
+    }
+}
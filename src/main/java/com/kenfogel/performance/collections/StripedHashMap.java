@@ -0,0 +1,251 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A hash map shared by many threads that is split into segments, each a
+ * chained hash table with a StampedLock of its own, so that threads that
+ * change keys in different segments never wait for each other. The top
+ * bits of the hash times a large odd constant choose the segment and the
+ * low bits of the hash the bucket.
+ *
+ * get does not take the lock. It notes the stamp of the segment, walks the
+ * chain and only takes the read lock if a write happened in the meantime.
+ * That is safe because a chain is never changed in place: the key and the
+ * next node of a node are final, a new key goes in front of its chain, a
+ * removal copies the nodes in front of the one removed and a resize builds
+ * a new array of new chains. A reader that races a writer sees an old but
+ * complete chain and the stamp tells it to look again.
+ *
+ * put, remove and size take the write or read lock of one or every
+ * segment. entrySet is a snapshot taken one segment at a time, it is not
+ * a view. Null keys and values are not supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class StripedHashMap<K, V> extends AbstractMap<K, V> {
+
+    public final static int DEFAULT_SEGMENTS = 16;
+    private final static int INITIAL_BUCKETS = 16;
+
+    private static class Node<K, V> {
+
+        final int hash;
+        final K key;
+        volatile V value;
+        final Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static class Segment<K, V> extends StampedLock {
+
+        Node<K, V>[] table = newTable(INITIAL_BUCKETS);
+        int count;
+    }
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+
+    /**
+     * Create a map with DEFAULT_SEGMENTS segments
+     */
+    public StripedHashMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param segmentCount the number of locks, rounded up to a power of
+     * two, about the number of threads that change the map at once
+     */
+    @SuppressWarnings("unchecked")
+    public StripedHashMap(int segmentCount) {
+        int length = Integer.highestOneBit(Math.max(2, segmentCount) - 1) << 1;
+        segments = new Segment[length];
+        for (int x = 0; x < length; ++x) {
+            segments[x] = new Segment<>();
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(length);
+    }
+
+    @Override
+    public V get(Object key) {
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        long stamp = segment.tryOptimisticRead();
+        V value = find(segment.table, hash, key);
+        if (segment.validate(stamp)) {
+            return value;
+        }
+        stamp = segment.readLock();
+        try {
+            return find(segment.table, hash, key);
+        } finally {
+            segment.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        long stamp = segment.writeLock();
+        try {
+            Node<K, V>[] table = segment.table;
+            int bucket = hash & (table.length - 1);
+            for (Node<K, V> node = table[bucket]; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    V previous = node.value;
+                    node.value = value;
+                    return previous;
+                }
+            }
+            table[bucket] = new Node<>(hash, key, value, table[bucket]);
+            if (++segment.count > table.length - table.length / 4) {
+                segment.table = resize(table);
+            }
+            return null;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        long stamp = segment.writeLock();
+        try {
+            Node<K, V>[] table = segment.table;
+            int bucket = hash & (table.length - 1);
+            Node<K, V> first = table[bucket];
+            for (Node<K, V> node = first; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    // Copy the nodes in front of the one removed
+                    Node<K, V> rest = node.next;
+                    for (Node<K, V> copy = first; copy != node; copy = copy.next) {
+                        rest = new Node<>(copy.hash, copy.key, copy.value, rest);
+                    }
+                    table[bucket] = rest;
+                    --segment.count;
+                    return node.value;
+                }
+            }
+            return null;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.readLock();
+            try {
+                size += segment.count;
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.writeLock();
+            try {
+                segment.table = newTable(INITIAL_BUCKETS);
+                segment.count = 0;
+            } finally {
+                segment.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of the entries, each segment is copied under its
+     * read lock
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.readLock();
+            try {
+                for (Node<K, V> node : segment.table) {
+                    for (; node != null; node = node.next) {
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(node.key, node.value));
+                    }
+                }
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        // The multiply spreads the low bits, which pick the bucket, into
+        // the high bits that pick the segment
+        return segments[(hash * 0x9E3779B9) >>> segmentShift];
+    }
+
+    private static <K, V> V find(Node<K, V>[] table, int hash, Object key) {
+        for (Node<K, V> node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A new array twice as long with new chains, the old chains are left
+     * as they were for readers that still walk them
+     */
+    private static <K, V> Node<K, V>[] resize(Node<K, V>[] table) {
+        Node<K, V>[] grown = newTable(table.length * 2);
+        for (Node<K, V> node : table) {
+            for (; node != null; node = node.next) {
+                int bucket = node.hash & (grown.length - 1);
+                grown[bucket] = new Node<>(node.hash, node.key, node.value, grown[bucket]);
+            }
+        }
+        return grown;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newTable(int length) {
+        return new Node[length];
+    }
+}
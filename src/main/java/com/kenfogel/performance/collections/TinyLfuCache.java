@@ -0,0 +1,270 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A cache that decides what to keep by how often a key is used and not
+ * only how recently, after the W-TinyLFU policy of Einziger, Friedman and
+ * Manes that Caffeine uses. A new key enters a small window, WINDOW_PERCENT
+ * of the capacity, that is a least recently used list. The key the window
+ * pushes out is a candidate for the main region and only gets in if it
+ * has been used more often than the key the main region would evict.
+ *
+ * The main region is a segmented LRU. A key admitted from the window is on
+ * probation and is moved to the protected segment, PROTECTED_PERCENT of the
+ * main region, on its next hit. The protected segment pushes its least
+ * recent key back to probation, so a key that was popular once must stay
+ * popular to stay protected.
+ *
+ * How often a key was used is estimated by a count-min sketch of four bit
+ * counters, four counters for each key in a long array about the size of
+ * the cache, rather than a count kept for every key ever seen. Each get
+ * and each put of a new key adds one. When the additions reach ten times
+ * the capacity every counter is halved so that old popularity fades.
+ *
+ * A scan of keys that are used once goes through the window and is turned
+ * away at the door, where a least recently used cache would lose all of
+ * its popular keys.
+ *
+ * Every method takes the monitor of the cache. Caffeine records the reads
+ * in striped buffers and replays them on the policy later, which is what
+ * lets its reads scale, this cache keeps the policy exact instead.
+ *
+ * entrySet is a snapshot, it is not a view. Null keys and values are not
+ * supported.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class TinyLfuCache<K, V> extends AbstractMap<K, V> {
+
+    public final static int WINDOW_PERCENT = 1;
+    public final static int PROTECTED_PERCENT = 80;
+
+    private final int capacity;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    /**
+     * @param capacity the most entries kept, at least 2 so that there is a
+     * window and a main region
+     */
+    public TinyLfuCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The capacity must be at least 2");
+        }
+        this.capacity = capacity;
+        windowCapacity = Math.max(1, capacity * WINDOW_PERCENT / 100);
+        mainCapacity = capacity - windowCapacity;
+        protectedCapacity = mainCapacity * PROTECTED_PERCENT / 100;
+        sketch = new FrequencySketch(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V get(Object key) {
+        sketch.increment(key);
+        V value = window.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = protectedSegment.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            // A second hit, promote it
+            protectedSegment.put((K) key, value);
+            if (protectedSegment.size() > protectedCapacity) {
+                Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return window.containsKey(key) || protectedSegment.containsKey(key) || probation.containsKey(key);
+    }
+
+    @Override
+    public synchronized V put(K key, V value) {
+        Objects.requireNonNull(value);
+        if (window.containsKey(key)) {
+            return window.put(key, value);
+        }
+        if (protectedSegment.containsKey(key)) {
+            return protectedSegment.put(key, value);
+        }
+        if (probation.containsKey(key)) {
+            return probation.put(key, value);
+        }
+        sketch.increment(key);
+        window.put(key, value);
+        if (window.size() > windowCapacity) {
+            admit(removeEldest(window));
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized V remove(Object key) {
+        V value = window.remove(key);
+        if (value == null) {
+            value = protectedSegment.remove(key);
+        }
+        if (value == null) {
+            value = probation.remove(key);
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * @return a snapshot of the entries
+     */
+    @Override
+    public synchronized Set<Map.Entry<K, V>> entrySet() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Map<K, V> region : List.of(window, probation, protectedSegment)) {
+            for (Map.Entry<K, V> entry : region.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+    }
+
+    /**
+     * Put the candidate pushed out of the window on probation if there is
+     * room, or if it is used more often than the key that would be evicted
+     * for it, and otherwise drop it
+     */
+    private void admit(Map.Entry<K, V> candidate) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        LinkedHashMap<K, V> victims = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victims.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> region) {
+        Iterator<Map.Entry<K, V>> iterator = region.entrySet().iterator();
+        Map.Entry<K, V> eldest = new AbstractMap.SimpleImmutableEntry<>(iterator.next());
+        iterator.remove();
+        return eldest;
+    }
+
+    /**
+     * Sixteen four bit counters in each long. A key has one counter in each
+     * of four longs chosen by different hashes of the key and its estimate
+     * is the smallest of the four, which may be too high when other keys
+     * share the counters but is never too low.
+     */
+    private static class FrequencySketch {
+
+        private final static long[] SEEDS = {0x97CB3127L, 0xB37A6C5BL, 0xC2B2AE3DL, 0x9E3779B9L};
+        private final static long HALF_MASK = 0x7777_7777_7777_7777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            table = new long[Integer.highestOneBit(Math.max(4, capacity) - 1) << 1];
+            sampleSize = 10 * capacity;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int x = 0; x < 4; ++x) {
+                int index = indexOf(hash, x);
+                int shift = counterShift(hash, x);
+                if (((table[index] >>> shift) & 0xF) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int x = 0; x < 4; ++x) {
+                frequency = Math.min(frequency, (int) ((table[indexOf(hash, x)] >>> counterShift(hash, x)) & 0xF));
+            }
+            return frequency;
+        }
+
+        /**
+         * Halve every counter
+         */
+        private void reset() {
+            for (int x = 0; x < table.length; ++x) {
+                table[x] = (table[x] >>> 1) & HALF_MASK;
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int x) {
+            long h = (hash + SEEDS[x]) * SEEDS[x];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        /**
+         * Two bits of the hash for each of the four rows pick one of the
+         * sixteen counters of the long
+         */
+        private static int counterShift(int hash, int x) {
+            return (((hash >>> (x << 3)) & 3) << 2) + (x << 4);
+        }
+
+        private static int spread(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.kenfogel.performance.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A list of nodes that each hold up to nodeCapacity elements in an array.
+ * Finding an index steps over a whole node at a time from the nearer end,
+ * so it follows size / nodeCapacity pointers instead of the size / 2 of a
+ * LinkedList, and an insert or removal only shifts the elements of one
+ * node instead of the whole array as an ArrayList does.
+ *
+ * A full node splits in two when an element is added to its middle and a
+ * node that is less than half full after a removal takes in its successor
+ * if they fit together. Adding at either end starts a new node instead of
+ * splitting, so a list that is loaded in order has full nodes.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ * @param <E> the type of the elements
+ */
+public class UnrolledLinkedList<E> extends AbstractList<E> {
+
+    public final static int DEFAULT_NODE_CAPACITY = 64;
+
+    private static class Node {
+
+        final Object[] elements;
+        int count;
+        Node next;
+        Node previous;
+
+        Node(int capacity) {
+            elements = new Object[capacity];
+        }
+    }
+
+    private final int nodeCapacity;
+    private Node first;
+    private Node last;
+    private int size;
+
+    // Set by locate to the position of the index within the node it returns
+    private int offset;
+
+    /**
+     * Create an empty list with DEFAULT_NODE_CAPACITY elements per node
+     */
+    public UnrolledLinkedList() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param nodeCapacity the most elements in one node, at least 2
+     */
+    public UnrolledLinkedList(int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("The node capacity must be at least 2 but was " + nodeCapacity);
+        }
+        this.nodeCapacity = nodeCapacity;
+    }
+
+    /**
+     * Create a list of the elements of a collection in its iteration order
+     *
+     * @param collection
+     */
+    public UnrolledLinkedList(Collection<? extends E> collection) {
+        this(DEFAULT_NODE_CAPACITY);
+        for (E element : collection) {
+            append(element);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        Node node = locate(index);
+        return (E) node.elements[offset];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size);
+        Node node = locate(index);
+        E previous = (E) node.elements[offset];
+        node.elements[offset] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size + 1);
+        if (index == size) {
+            append(element);
+            return;
+        }
+        Node node;
+        if (index == 0 && first.count == nodeCapacity) {
+            node = new Node(nodeCapacity);
+            linkBefore(first, node);
+            offset = 0;
+        } else {
+            node = locate(index);
+            if (node.count == nodeCapacity) {
+                Node right = split(node);
+                if (offset > node.count) {
+                    offset -= node.count;
+                    node = right;
+                }
+            }
+        }
+        System.arraycopy(node.elements, offset, node.elements, offset + 1, node.count - offset);
+        node.elements[offset] = element;
+        ++node.count;
+        ++size;
+        ++modCount;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        Node node = locate(index);
+        E previous = (E) node.elements[offset];
+        removeAt(node, offset);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        first = null;
+        last = null;
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * Walks the nodes instead of calling get for each index
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new NodeIterator();
+    }
+
+    /**
+     * Removes whole runs of each node instead of one element at a time,
+     * used by subList(from, to).clear()
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        Node node = locate(fromIndex);
+        int start = offset;
+        int remaining = toIndex - fromIndex;
+        while (remaining > 0) {
+            int removed = Math.min(remaining, node.count - start);
+            System.arraycopy(node.elements, start + removed, node.elements, start,
+                    node.count - start - removed);
+            node.count -= removed;
+            size -= removed;
+            remaining -= removed;
+            Node next = node.next;
+            if (node.count == 0) {
+                unlink(node);
+            } else {
+                Arrays.fill(node.elements, node.count, node.count + removed, null);
+            }
+            node = next;
+            start = 0;
+        }
+        ++modCount;
+    }
+
+    /**
+     * Find the node that holds index, walking from the nearer end, and
+     * leave the position within it in offset
+     */
+    private Node locate(int index) {
+        Node node;
+        if (index < size / 2) {
+            node = first;
+            while (index >= node.count) {
+                index -= node.count;
+                node = node.next;
+            }
+            offset = index;
+        } else {
+            node = last;
+            int start = size - node.count;
+            while (index < start) {
+                node = node.previous;
+                start -= node.count;
+            }
+            offset = index - start;
+        }
+        return node;
+    }
+
+    /**
+     * Move the upper half of a full node into a new node after it
+     *
+     * @return the new node
+     */
+    private Node split(Node node) {
+        Node right = new Node(nodeCapacity);
+        int half = node.count / 2;
+        right.count = node.count - half;
+        System.arraycopy(node.elements, half, right.elements, 0, right.count);
+        Arrays.fill(node.elements, half, node.count, null);
+        node.count = half;
+        linkAfter(node, right);
+        return right;
+    }
+
+    /**
+     * Remove the element at a position of a node and merge or unlink the
+     * node if that leaves it less than half full
+     *
+     * @return the node that now holds the element that followed the
+     * removed one, which is node unless it was unlinked
+     */
+    private Node removeAt(Node node, int position) {
+        System.arraycopy(node.elements, position + 1, node.elements, position, node.count - position - 1);
+        node.elements[--node.count] = null;
+        --size;
+        ++modCount;
+        if (node.count == 0) {
+            Node next = node.next;
+            unlink(node);
+            return next;
+        }
+        Node next = node.next;
+        if (next != null && node.count < nodeCapacity / 2 && node.count + next.count <= nodeCapacity) {
+            System.arraycopy(next.elements, 0, node.elements, node.count, next.count);
+            node.count += next.count;
+            unlink(next);
+        }
+        return node;
+    }
+
+    /**
+     * Add an element after the last, starting a new node when the last one
+     * is full. Private so the constructor can call it.
+     */
+    private void append(E element) {
+        if (last == null || last.count == nodeCapacity) {
+            linkAfter(last, new Node(nodeCapacity));
+        }
+        last.elements[last.count++] = element;
+        ++size;
+        ++modCount;
+    }
+
+    private void linkAfter(Node node, Node added) {
+        added.previous = node;
+        if (node == null) {
+            added.next = first;
+            first = added;
+        } else {
+            added.next = node.next;
+            node.next = added;
+        }
+        if (added.next == null) {
+            last = added;
+        } else {
+            added.next.previous = added;
+        }
+    }
+
+    private void linkBefore(Node node, Node added) {
+        linkAfter(node.previous, added);
+    }
+
+    private void unlink(Node node) {
+        if (node.previous == null) {
+            first = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            last = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+    }
+
+    /**
+     * Steps through the array of each node in turn, remove takes the
+     * element out of its node without searching for it again
+     */
+    private class NodeIterator implements Iterator<E> {
+
+        private Node node = first;
+        private int position;
+        private int returned;
+        private boolean canRemove;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return returned < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (returned >= size) {
+                throw new NoSuchElementException();
+            }
+            while (position == node.count) {
+                node = node.next;
+                position = 0;
+            }
+            ++returned;
+            canRemove = true;
+            return (E) node.elements[position++];
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node holder = removeAt(node, position - 1);
+            if (holder == node) {
+                --position;
+            } else {
+                node = holder;
+                position = 0;
+            }
+            --returned;
+            canRemove = false;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.kenfogel.performance.corpus;
+
+import java.util.SplittableRandom;
+
+/**
+ * The keys loaded into a map and a sequence of lookups into it that looks
+ * like the traffic of a real cache rather than a handful of uniformly
+ * chosen hits.
+ *
+ * The distribution of the lookups is one of
+ * <ul>
+ * <li>uniform, every key as likely as any other</li>
+ * <li>zipf-[exponent], such as zipf-0.99, a few keys get most lookups</li>
+ * <li>hotset-[fraction], such as hotset-0.01, the first fraction of the
+ * keys gets 90% of the lookups</li>
+ * </ul>
+ *
+ * A miss ratio sends that fraction of the lookups to keys that are not in
+ * the map. A miss key is a key of the map with a character added, so a
+ * TreeMap compares almost all of it before it can tell the difference. A
+ * prefix length puts the same prefix of that many characters in front of
+ * every key, as in "tenant/region/service/..." keys, which makes every
+ * equals and compareTo walk past the prefix first.
+ *
+ * Every lookup is a new String, not the instance stored in the map, so
+ * equals compares the characters as it would for a key read from a
+ * request. The lookups are the same for every run with the same settings.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class KeyWorkload {
+
+    private final static double HOT_SET_SHARE = 0.9;
+    private final static String PREFIX_PATTERN = "tenant-0042/region-eu/service/cache/";
+
+    private final String[] keys;
+    private final String distribution;
+    private final double missRatio;
+    private final long seed;
+
+    /**
+     * @param size the number of keys in the map
+     * @param distribution uniform, zipf-[exponent] or hotset-[fraction]
+     * @param missRatio fraction of lookups for keys not in the map
+     * @param prefixLength characters of common prefix in front of every key
+     */
+    public KeyWorkload(int size, String distribution, double missRatio, int prefixLength) {
+        this(size, distribution, missRatio, prefixLength, WordCorpus.DEFAULT_SEED);
+    }
+
+    /**
+     * @param size the number of keys in the map
+     * @param distribution uniform, zipf-[exponent] or hotset-[fraction]
+     * @param missRatio fraction of lookups for keys not in the map
+     * @param prefixLength characters of common prefix in front of every key
+     * @param seed
+     */
+    public KeyWorkload(int size, String distribution, double missRatio, int prefixLength, long seed) {
+        if (missRatio < 0 || missRatio > 1) {
+            throw new IllegalArgumentException("The miss ratio must be from 0 to 1");
+        }
+        this.distribution = distribution;
+        this.missRatio = missRatio;
+        this.seed = seed;
+        keys = WordCorpus.getInstance(size).copyWords();
+        if (prefixLength > 0) {
+            String prefix = prefix(prefixLength);
+            for (int x = 0; x < keys.length; ++x) {
+                keys[x] = prefix + keys[x];
+            }
+        }
+        // Fails now rather than when the lookups are made
+        indexSampler(distribution, size, seed);
+    }
+
+    /**
+     * @return the keys to load into the map, the caller may keep the array
+     */
+    public String[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return the fraction of lookups that miss
+     */
+    public double getMissRatio() {
+        return missRatio;
+    }
+
+    /**
+     * Make a sequence of lookups
+     *
+     * @param count
+     * @return the keys to look up
+     */
+    public String[] lookups(int count) {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        IndexSampler sampler = indexSampler(distribution, keys.length, seed);
+        String[] lookups = new String[count];
+        for (int x = 0; x < count; ++x) {
+            String key = keys[sampler.nextIndex()];
+            lookups[x] = random.nextDouble() < missRatio ? key + "~" : new String(key);
+        }
+        return lookups;
+    }
+
+    /**
+     * A prefix of exactly length characters
+     */
+    static String prefix(int length) {
+        StringBuilder prefix = new StringBuilder(length);
+        while (prefix.length() < length) {
+            prefix.append(PREFIX_PATTERN);
+        }
+        prefix.setLength(length);
+        return prefix.toString();
+    }
+
+    private static IndexSampler indexSampler(String distribution, int size, long seed) {
+        String[] parts = distribution.split("-", 2);
+        switch (parts[0]) {
+            case "uniform" -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                return () -> random.nextInt(size);
+            }
+            case "zipf" -> {
+                ZipfSampler zipf = new ZipfSampler(size, Double.parseDouble(parts[1]), seed);
+                return zipf::nextIndex;
+            }
+            case "hotset" -> {
+                int hot = (int) Math.max(1, Math.min(size, Math.round(size * Double.parseDouble(parts[1]))));
+                SplittableRandom random = new SplittableRandom(seed);
+                return () -> hot == size || random.nextDouble() < HOT_SET_SHARE
+                        ? random.nextInt(hot) : hot + random.nextInt(size - hot);
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown distribution " + distribution
+                        + ", expected uniform, zipf-[exponent] or hotset-[fraction]");
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexSampler {
+
+        int nextIndex();
+    }
+}
@@ -0,0 +1,272 @@
+package com.kenfogel.performance.corpus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.butlerpress.dict.Dictionary;
+
+/**
+ * A pool of unique words drawn from Dictionary.jar that is built once and
+ * then shared by every test that needs data.
+ *
+ * Dictionary.getRandomWordTermCommonNameOrConnector() uses Math.random() so
+ * it cannot be seeded and calling it thousands of times with HashSet
+ * de-duplication before every benchmark invocation took longer than the
+ * operations being measured. The corpus reads the same word lists that the
+ * Dictionary uses, picks words with a seeded Random so that every run and
+ * every JMH fork sees the same data, and keeps the result in memory and in
+ * a binary snapshot on disk.
+ *
+ * The Dictionary has a little over 300,000 unique entries. Larger pools are
+ * made by joining two words with a space, the same form as the multi word
+ * terms already in the dictionary.
+ *
+ * The snapshot folder defaults to "corpus" in the working folder and can be
+ * changed with -Dcorpus.dir=[folder].
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public final class WordCorpus {
+
+    public final static long DEFAULT_SEED = 20240911L;
+
+    private final static String[] WORD_LISTS = {"/web2", "/web2a",
+        "/connectives", "/propernames"};
+    private final static int SNAPSHOT_MAGIC = 0x574F5244; // "WORD"
+
+    private final static Map<String, WordCorpus> CACHE = new ConcurrentHashMap<>();
+    private static String[] dictionaryWords;
+
+    private final String[] words;
+    private final long seed;
+
+    private WordCorpus(String[] words, long seed) {
+        this.words = words;
+        this.seed = seed;
+    }
+
+    /**
+     * Return a corpus of size unique words using the default seed
+     *
+     * @param size
+     * @return the corpus
+     */
+    public static WordCorpus getInstance(int size) {
+        return getInstance(size, DEFAULT_SEED);
+    }
+
+    /**
+     * Return a corpus of size unique words. A corpus already built in this
+     * JVM is reused, otherwise it is read from its snapshot or built from
+     * the Dictionary and then written to a snapshot.
+     *
+     * @param size
+     * @param seed
+     * @return the corpus
+     */
+    public static WordCorpus getInstance(int size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Corpus size must not be negative: " + size);
+        }
+        return CACHE.computeIfAbsent(size + ":" + seed, key -> load(size, seed));
+    }
+
+    /**
+     * @return the number of words in the corpus
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * @return the seed used to select the words
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param index
+     * @return the word at index
+     */
+    public String get(int index) {
+        return words[index];
+    }
+
+    /**
+     * A fresh copy of the words that the caller may change. This is a
+     * single array copy so it is cheap enough to call before every
+     * benchmark invocation.
+     *
+     * @return a copy of the words
+     */
+    public String[] copyWords() {
+        return Arrays.copyOf(words, words.length);
+    }
+
+    /**
+     * A 64 bit FNV-1a hash of each word, in the same order as the words.
+     * Used as the keys for the tests of maps with primitive long keys so
+     * that they work on the same data as the String maps.
+     *
+     * @return a new array of keys
+     */
+    public long[] copyLongKeys() {
+        long[] keys = new long[words.length];
+        for (int x = 0; x < words.length; ++x) {
+            keys[x] = toLongKey(words[x]);
+        }
+        return keys;
+    }
+
+    /**
+     * @param word
+     * @return the 64 bit FNV-1a hash of the characters in word
+     */
+    public static long toLongKey(String word) {
+        long hash = 0xCBF29CE484222325L;
+        for (int x = 0; x < word.length(); ++x) {
+            hash ^= word.charAt(x);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static WordCorpus load(int size, long seed) {
+        Path snapshot = snapshotPath(size, seed);
+        if (Files.isReadable(snapshot)) {
+            try {
+                return new WordCorpus(readSnapshot(snapshot, size), seed);
+            } catch (IOException ex) {
+                // A damaged or partial snapshot is rebuilt below
+            }
+        }
+        WordCorpus corpus = new WordCorpus(build(size, seed), seed);
+        try {
+            writeSnapshot(snapshot, corpus.words);
+        } catch (IOException ex) {
+            // The snapshot is only an optimization, the corpus is still valid
+        }
+        return corpus;
+    }
+
+    /**
+     * Select size unique words with a seeded random
+     */
+    private static String[] build(int size, long seed) {
+        String[] pool = getDictionaryWords();
+        Random random = new Random(seed);
+        String[] result = new String[size];
+        HashSet<String> dataSet = new HashSet<>(Math.max(16, (int) (size / 0.75f) + 1));
+
+        // Sample without replacement while there are plenty of words left,
+        // then fill the rest with two word terms
+        int fromDictionary = Math.min(size, pool.length / 2);
+        int x = 0;
+        while (x < fromDictionary) {
+            String string = pool[random.nextInt(pool.length)];
+            if (dataSet.add(string)) {
+                result[x++] = string;
+            }
+        }
+        while (x < size) {
+            String string = pool[random.nextInt(pool.length)] + " "
+                    + pool[random.nextInt(pool.length)];
+            if (dataSet.add(string)) {
+                result[x++] = string;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the unique words from the lists inside Dictionary.jar in the same
+     * order that the Dictionary uses
+     */
+    private static synchronized String[] getDictionaryWords() {
+        if (dictionaryWords == null) {
+            LinkedHashSet<String> unique = new LinkedHashSet<>();
+            for (String name : WORD_LISTS) {
+                try (InputStream in = Dictionary.class.getResourceAsStream(name)) {
+                    if (in == null) {
+                        throw new IllegalStateException("Dictionary.jar is missing " + name);
+                    }
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty()) {
+                            unique.add(line);
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            dictionaryWords = unique.toArray(String[]::new);
+        }
+        return dictionaryWords;
+    }
+
+    private static Path snapshotPath(int size, long seed) {
+        return Paths.get(System.getProperty("corpus.dir", "corpus"),
+                "words-" + size + "-" + seed + ".bin");
+    }
+
+    private static String[] readSnapshot(Path snapshot, int size) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != size) {
+                throw new IOException("Snapshot does not match: " + snapshot);
+            }
+            String[] result = new String[size];
+            for (int x = 0; x < size; ++x) {
+                result[x] = in.readUTF();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Write to a temporary file and then move it so that concurrent forks
+     * never see a partial snapshot
+     */
+    private static void writeSnapshot(Path snapshot, String[] words) throws IOException {
+        Files.createDirectories(snapshot.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), "words", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(words.length);
+                for (String word : words) {
+                    out.writeUTF(word);
+                }
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.kenfogel.performance.corpus;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks from 1 to n so that rank k is chosen with a probability
+ * proportional to 1 / k^exponent. With an exponent near 1 a few ranks get
+ * most of the draws, as the most popular keys of a cache do. An exponent
+ * of 0 is uniform.
+ *
+ * Uses the rejection-inversion method of Hörmann and Derflinger, which
+ * needs no table of probabilities so it works for any n in constant
+ * memory.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ZipfSampler {
+
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+    private final SplittableRandom random;
+
+    /**
+     * @param n the number of ranks
+     * @param exponent not negative
+     * @param seed
+     */
+    public ZipfSampler(long n, double exponent, long seed) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("n must be positive and the exponent must not be negative");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.random = new SplittableRandom(seed);
+        hIntegralX1 = hIntegral(1.5) - 1.0;
+        hIntegralN = hIntegral(n + 0.5);
+        s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+    }
+
+    /**
+     * @return a rank from 1 to n
+     */
+    public long next() {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * @return an index from 0 to n - 1, 0 is the most popular
+     */
+    public int nextIndex() {
+        return (int) (next() - 1);
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1.0 - exponent);
+        if (t < -1.0) {
+            t = -1.0;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * log(1 + x) / x, accurate near 0
+     */
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /**
+     * (exp(x) - 1) / x, accurate near 0
+     */
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+    }
+}
@@ -0,0 +1,101 @@
+package com.kenfogel.performance.footprint;
+
+/**
+ * The heap retained by one data structure holding a number of elements.
+ * The bytes and objects of the structure itself, its arrays, nodes and
+ * entries, are kept apart from those of the elements it holds so that the
+ * overhead of the structure can be compared no matter what is stored in
+ * it.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class Footprint {
+
+    private final int elements;
+    private final long structureBytes;
+    private final long structureObjects;
+    private final long elementBytes;
+    private final long elementObjects;
+
+    Footprint(int elements, long structureBytes, long structureObjects, long elementBytes, long elementObjects) {
+        this.elements = elements;
+        this.structureBytes = structureBytes;
+        this.structureObjects = structureObjects;
+        this.elementBytes = elementBytes;
+        this.elementObjects = elementObjects;
+    }
+
+    public int getElements() {
+        return elements;
+    }
+
+    /**
+     * @return the bytes of the structure and its elements
+     */
+    public long getTotalBytes() {
+        return structureBytes + elementBytes;
+    }
+
+    /**
+     * @return the objects of the structure and its elements
+     */
+    public long getTotalObjects() {
+        return structureObjects + elementObjects;
+    }
+
+    /**
+     * @return the bytes of the structure without its elements
+     */
+    public long getStructureBytes() {
+        return structureBytes;
+    }
+
+    /**
+     * @return the objects of the structure without its elements
+     */
+    public long getStructureObjects() {
+        return structureObjects;
+    }
+
+    /**
+     * @return the bytes of the elements alone
+     */
+    public long getElementBytes() {
+        return elementBytes;
+    }
+
+    /**
+     * @return the total bytes divided by the number of elements
+     */
+    public double getBytesPerElement() {
+        return perElement(getTotalBytes());
+    }
+
+    /**
+     * @return the structure bytes divided by the number of elements, what
+     * the structure costs on top of what it holds
+     */
+    public double getOverheadPerElement() {
+        return perElement(structureBytes);
+    }
+
+    /**
+     * @return the total objects divided by the number of elements
+     */
+    public double getObjectsPerElement() {
+        return perElement(getTotalObjects());
+    }
+
+    private double perElement(long value) {
+        return elements == 0 ? value : (double) value / elements;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d elements, %d bytes, %.1f bytes/element, %.1f overhead/element,"
+                + " %d objects", elements, getTotalBytes(), getBytesPerElement(),
+                getOverheadPerElement(), getTotalObjects());
+    }
+}
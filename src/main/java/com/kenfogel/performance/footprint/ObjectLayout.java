@@ -0,0 +1,154 @@
+package com.kenfogel.performance.footprint;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * The size of an object and the offsets of its references as this JVM lays
+ * them out, found the way JOL finds them. The offset of every instance
+ * field comes from Unsafe, reached through UnsafeAccess, which reads the
+ * real layout including the padding between fields and the gaps the JVM
+ * fills with the fields of a subclass, and which does not need the field
+ * to be accessible so the internals of java.util can be walked without
+ * --add-opens. The object
+ * alignment comes from the ObjectAlignmentInBytes option and the header
+ * size from the offset of the first element of an int array.
+ *
+ * The layout of each class is found once and cached.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+final class ObjectLayout {
+
+    private final static int OBJECT_ALIGNMENT = objectAlignment();
+    // An int array is a header, a 4 byte length and then the elements
+    private final static int HEADER_SIZE = UnsafeAccess.arrayBaseOffset(int[].class) - 4;
+    private final static int REFERENCE_SIZE = UnsafeAccess.arrayIndexScale(Object[].class);
+
+    private final static ClassValue<ObjectLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ObjectLayout computeValue(Class<?> type) {
+            return new ObjectLayout(type);
+        }
+    };
+
+    private final long shallowSize;
+    private final long[] referenceOffsets;
+    private final Field[] referenceFields;
+
+    private ObjectLayout(Class<?> type) {
+        long end = HEADER_SIZE;
+        List<Long> offsets = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                long offset = offset(field);
+                if (offset < 0) {
+                    // Records and hidden classes do not give out offsets,
+                    // assume their fields are packed after the header
+                    offset = end;
+                    if (!field.getType().isPrimitive() && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                } else if (!field.getType().isPrimitive()) {
+                    offsets.add(offset);
+                }
+                end = Math.max(end, offset + fieldSize(field.getType()));
+            }
+        }
+        shallowSize = align(end);
+        referenceOffsets = offsets.stream().mapToLong(Long::longValue).toArray();
+        referenceFields = fields.toArray(new Field[0]);
+    }
+
+    /**
+     * @param type a class that is not an array
+     * @return the layout of its instances
+     */
+    static ObjectLayout of(Class<?> type) {
+        return LAYOUTS.get(type);
+    }
+
+    /**
+     * @return the bytes in one instance including the header and padding
+     */
+    long getShallowSize() {
+        return shallowSize;
+    }
+
+    /**
+     * Pass every object that an instance refers to, null or not
+     *
+     * @param instance
+     * @param visitor
+     */
+    void forEachReference(Object instance, Consumer<Object> visitor) {
+        for (long offset : referenceOffsets) {
+            visitor.accept(UnsafeAccess.getObject(instance, offset));
+        }
+        for (Field field : referenceFields) {
+            try {
+                visitor.accept(field.get(instance));
+            } catch (IllegalAccessException ex) {
+                // trySetAccessible succeeded so this does not happen
+            }
+        }
+    }
+
+    /**
+     * @param array any array
+     * @return the bytes in the array including the header and padding
+     */
+    static long arraySize(Object array) {
+        Class<?> type = array.getClass();
+        return align(UnsafeAccess.arrayBaseOffset(type)
+                + (long) UnsafeAccess.arrayIndexScale(type) * Array.getLength(array));
+    }
+
+    private static long offset(Field field) {
+        try {
+            return UnsafeAccess.objectFieldOffset(field);
+        } catch (UnsupportedOperationException ex) {
+            return -1;
+        }
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private static int objectAlignment() {
+        try {
+            return Integer.parseInt(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("ObjectAlignmentInBytes").getValue());
+        } catch (RuntimeException ex) {
+            // Not HotSpot, 8 is the alignment of every common JVM
+            return 8;
+        }
+    }
+}
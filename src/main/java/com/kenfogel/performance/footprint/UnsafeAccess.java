@@ -0,0 +1,70 @@
+package com.kenfogel.performance.footprint;
+
+import java.lang.reflect.Field;
+
+/**
+ * The few methods of sun.misc.Unsafe that ObjectLayout needs, kept in one
+ * class so that it is the only place that uses the unsupported API. The
+ * type is named in full rather than imported so that the suppression on
+ * the class covers every use, and only twice. The javac of Java 21 does
+ * not honour the sunapi suppression and still reports those two lines.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+// Unsafe is the only way to read field offsets and the fields of java.util
+// classes without --add-opens, see ObjectLayout
+@SuppressWarnings({"sunapi", "deprecation"})
+final class UnsafeAccess {
+
+    private final static sun.misc.Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (sun.misc.Unsafe) field.get(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Object layouts need sun.misc.Unsafe", ex);
+        }
+    }
+
+    private UnsafeAccess() {
+    }
+
+    /**
+     * @param field an instance field
+     * @return its offset from the start of the object
+     * @throws UnsupportedOperationException for a field of a record or a
+     * hidden class
+     */
+    static long objectFieldOffset(Field field) {
+        return UNSAFE.objectFieldOffset(field);
+    }
+
+    /**
+     * @param instance
+     * @param offset the offset of a reference field
+     * @return the object the field refers to
+     */
+    static Object getObject(Object instance, long offset) {
+        return UNSAFE.getObject(instance, offset);
+    }
+
+    /**
+     * @param arrayType
+     * @return the offset of the first element
+     */
+    static int arrayBaseOffset(Class<?> arrayType) {
+        return UNSAFE.arrayBaseOffset(arrayType);
+    }
+
+    /**
+     * @param arrayType
+     * @return the bytes between two elements
+     */
+    static int arrayIndexScale(Class<?> arrayType) {
+        return UNSAFE.arrayIndexScale(arrayType);
+    }
+}
@@ -0,0 +1,121 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.kenfogel.performance.workload.CacheWorkload;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Performs a set of tests to determine the cost of bounded caches shared
+ * by many threads. Compares the LruCache, a LinkedHashMap in access order
+ * wrapped by Collections.synchronizedMap, the CLOCK ClockCache whose gets
+ * take no lock and the W-TinyLFU TinyLfuCache.
+ *
+ * Every thread replays a Zipf trace of the Dictionary words, see
+ * CacheWorkload, from its own starting point. A lookup is a get and, on a
+ * miss, a put of the word. The cache holds capacityRatio of the words and
+ * is filled by one pass over the trace before the measurement.
+ *
+ * The number of threads is set by the runner, see
+ * CollectionPerformanceApp_JMH.runCacheBenchmark. The hits and misses
+ * counted here are stored with the other secondary results of JMH, the hit
+ * ratio the runner reports comes from replaying the trace with
+ * CacheWorkload.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class CacheTests_jmh {
+
+    /**
+     * The cache shared by every thread in the benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class SharedCache {
+
+        @Param({"LruCache", "ClockCache", "TinyLfuCache"})
+        public String cacheType;
+
+        /**
+         * The number of distinct words, override with -p size=[values]
+         */
+        @Param({"100000"})
+        public int size;
+
+        /**
+         * The capacity of the cache as a fraction of the words
+         */
+        @Param({"0.01", "0.05", "0.2"})
+        public double capacityRatio;
+
+        /**
+         * zipf-[exponent], or any other distribution of KeyWorkload
+         */
+        @Param({CacheWorkload.DEFAULT_DISTRIBUTION})
+        public String distribution;
+
+        public String[] trace;
+        public Map<String, String> cache;
+
+        /**
+         * Make the trace and fill the cache by replaying it once. Called
+         * once per trial.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            trace = CacheWorkload.traceOf(size, distribution);
+            cache = CacheWorkload.createCache(cacheType, CacheWorkload.capacityOf(size, capacityRatio));
+            for (String key : trace) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Where one thread is in the trace and what it found, JMH adds up the
+     * public fields of every thread
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Replay {
+
+        public long hits;
+        public long misses;
+
+        private int position;
+
+        @Setup(Level.Trial)
+        public void doChooseStart() {
+            position = ThreadLocalRandom.current().nextInt();
+        }
+
+        @Setup(Level.Iteration)
+        public void doReset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Benchmark
+    public String do01GetOrPut(SharedCache state, Replay replay) {
+        String[] trace = state.trace;
+        String key = trace[replay.position++ & (trace.length - 1)];
+        String value = state.cache.get(key);
+        if (value != null) {
+            ++replay.hits;
+            return value;
+        }
+        ++replay.misses;
+        return state.cache.put(key, key);
+    }
+}
@@ -0,0 +1,177 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.kenfogel.performance.collections.LockFreeSkipListMap;
+import com.kenfogel.performance.collections.ReadWriteLockedMap;
+import com.kenfogel.performance.collections.StripedHashMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Performs a set of tests to determine the performance of maps that are
+ * shared by many threads. The keys are the same Dictionary words used by
+ * MapTests_jmh.
+ *
+ * Compares ConcurrentHashMap, ConcurrentSkipListMap, a HashMap wrapped by
+ * Collections.synchronizedMap, a TreeMap guarded by a
+ * ReentrantReadWriteLock, StripedHashMap, whose segments are read under
+ * the optimistic stamp of a StampedLock, and LockFreeSkipListMap, a sorted
+ * map with no locks at all.
+ *
+ * The readOnly and writeOnly tests use every thread for the same operation.
+ * The read/write groups run readers and writers at the same time on the
+ * same map, seven readers to a writer in readMostly, one to one in
+ * readWrite and three writers to a reader in writeMostly. The number of
+ * threads is set by the runner, see
+ * CollectionPerformanceApp_JMH.runConcurrentBenchmark. A group only runs
+ * with at least as many threads as it has, JMH rounds the thread count up
+ * to a multiple of the group size.
+ *
+ * A write removes a key and puts it back so that the map changes shape on
+ * every write but keeps the same size for the whole run.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ConcurrentMapTests_jmh {
+
+    /**
+     * The map shared by every thread in the benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class SharedMap {
+
+        @Param({"ConcurrentHashMap", "ConcurrentSkipListMap",
+            "SynchronizedHashMap", "ReadWriteLockTreeMap",
+            "StripedHashMap", "LockFreeSkipListMap"})
+        public String mapType;
+
+        /**
+         * The number of entries in the map, override with -p size=[values]
+         */
+        @Param({"1000", "100000"})
+        public int size;
+
+        public String[] dataArray;
+        public Map<String, String> map;
+
+        /**
+         * Load the words from the shared corpus into the map under test.
+         * Called once per trial so every iteration starts with the same
+         * map.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            dataArray = WordCorpus.getInstance(size).copyWords();
+            map = switch (mapType) {
+                case "ConcurrentHashMap" ->
+                    new ConcurrentHashMap<>();
+                case "ConcurrentSkipListMap" ->
+                    new ConcurrentSkipListMap<>();
+                case "SynchronizedHashMap" ->
+                    Collections.synchronizedMap(new HashMap<>());
+                case "ReadWriteLockTreeMap" ->
+                    new ReadWriteLockedMap<>(new TreeMap<>());
+                case "StripedHashMap" ->
+                    new StripedHashMap<>();
+                case "LockFreeSkipListMap" ->
+                    new LockFreeSkipListMap<>();
+                default ->
+                    throw new IllegalArgumentException("Unknown map type: " + mapType);
+            };
+            for (String word : dataArray) {
+                map.put(word, word);
+            }
+        }
+
+        /**
+         * @return a random key that is in the map
+         */
+        public String randomKey() {
+            return dataArray[ThreadLocalRandom.current().nextInt(dataArray.length)];
+        }
+    }
+
+    @Benchmark
+    public String readOnly(SharedMap state) {
+        // Find an element
+        return state.map.get(state.randomKey());
+    }
+
+    @Benchmark
+    public String writeOnly(SharedMap state) {
+        // Remove and add back an element
+        String key = state.randomKey();
+        state.map.remove(key);
+        return state.map.put(key, key);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(7)
+    public String readMostlyGet(SharedMap state) {
+        // Seven readers
+        return state.map.get(state.randomKey());
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public String readMostlyPut(SharedMap state) {
+        // One writer
+        String key = state.randomKey();
+        state.map.remove(key);
+        return state.map.put(key, key);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public String readWriteGet(SharedMap state) {
+        // One reader
+        return state.map.get(state.randomKey());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public String readWritePut(SharedMap state) {
+        // One writer
+        String key = state.randomKey();
+        state.map.remove(key);
+        return state.map.put(key, key);
+    }
+
+    @Benchmark
+    @Group("writeMostly")
+    @GroupThreads(1)
+    public String writeMostlyGet(SharedMap state) {
+        // One reader
+        return state.map.get(state.randomKey());
+    }
+
+    @Benchmark
+    @Group("writeMostly")
+    @GroupThreads(3)
+    public String writeMostlyPut(SharedMap state) {
+        // Three writers
+        String key = state.randomKey();
+        state.map.remove(key);
+        return state.map.put(key, key);
+    }
+}
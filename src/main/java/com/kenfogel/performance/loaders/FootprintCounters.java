@@ -0,0 +1,70 @@
+package com.kenfogel.performance.loaders;
+
+import com.kenfogel.performance.footprint.Footprint;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Adds the heap retained by the structure a Load benchmark fills to its
+ * results as secondary results, such as do03aLoadArrayList:bytesPerElement.
+ * The structure is the part of the benchmark name after Load, measured by
+ * FootprintTests at the size of the benchmark.
+ *
+ * The footprint does not change while the benchmark runs so it is measured
+ * once per trial, outside of any timed code. JMH adds up the events of
+ * every measurement iteration so the footprint is reported by the first
+ * one only.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class FootprintCounters {
+
+    public double totalBytes;
+    public double bytesPerElement;
+    public double overheadPerElement;
+    public double objectsPerElement;
+
+    private Footprint footprint;
+    private boolean reported;
+
+    /**
+     * Measure the structure that the benchmark loads
+     *
+     * @param params describes the benchmark that is about to run
+     */
+    @Setup(Level.Trial)
+    public void doMeasure(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        String structure = benchmark.substring(benchmark.lastIndexOf("Load") + "Load".length());
+        footprint = FootprintTests.measure(structure, Integer.parseInt(params.getParam("size")));
+    }
+
+    /**
+     * JMH clears the counters when an iteration starts and reads them when
+     * it ends so they are set at the end of the first measurement iteration
+     *
+     * @param params describes the iteration that just ended
+     */
+    @TearDown(Level.Iteration)
+    public void doReport(IterationParams params) {
+        if (reported || params.getType() != IterationType.MEASUREMENT) {
+            return;
+        }
+        reported = true;
+        totalBytes = footprint.getTotalBytes();
+        bytesPerElement = footprint.getBytesPerElement();
+        overheadPerElement = footprint.getOverheadPerElement();
+        objectsPerElement = footprint.getObjectsPerElement();
+    }
+}
@@ -0,0 +1,218 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.TreeMap;
+
+import com.kenfogel.performance.collections.GapBuffer;
+import com.kenfogel.performance.collections.LongLongOpenHashMap;
+import com.kenfogel.performance.collections.RingBufferDeque;
+import com.kenfogel.performance.collections.StringIntOpenHashMap;
+import com.kenfogel.performance.collections.StringPoolMap;
+import com.kenfogel.performance.collections.UnrolledLinkedList;
+import com.kenfogel.performance.corpus.WordCorpus;
+import com.kenfogel.performance.footprint.Footprint;
+import com.kenfogel.performance.footprint.FootprintAnalyzer;
+import com.kenfogel.performance.models.FootprintTableModel;
+
+/**
+ * Measures the heap retained by each data structure of SequenceTests and
+ * MapTests when it holds the words of the corpus, see FootprintAnalyzer.
+ * Each structure is loaded one element at a time as the Load Data tests
+ * do, so it has grown the way it would in an application rather than
+ * being sized in advance.
+ *
+ * Displays the results in a table with the same columns as the other two
+ * tables.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class FootprintTests {
+
+    /**
+     * The structures in the order of the columns of the table
+     */
+    public final static String[] STRUCTURES = {"Array", "ArrayList", "Deque", "LinkedList",
+        "UnrolledList", "GapBuffer", "RingDeque", "HashMap", "TreeMap", "StringIntMap", "LongLongMap",
+        "StringPoolMap"};
+    private final static int ROWS = 5;
+
+    private final FootprintTableModel footprintTableModel;
+    private int size;
+
+    /**
+     * Constructor Receives reference to the table model that will hold the
+     * results
+     *
+     * @param footprintTableModel
+     */
+    public FootprintTests(FootprintTableModel footprintTableModel) {
+        this.footprintTableModel = footprintTableModel;
+        setSize(SequenceTests.DEFAULT_SIZE);
+    }
+
+    /**
+     * Change the number of elements in each data structure
+     *
+     * @param size
+     */
+    public final void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the number of elements in each data structure
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Measure every structure on the calling thread, the results go
+     * straight to the table
+     */
+    public void doFootprintTests() {
+        doFootprintTests(footprintTableModel::setValueAt);
+    }
+
+    /**
+     * Measure every structure
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doFootprintTests(ResultListener results) {
+        for (int x = 0; x < STRUCTURES.length; ++x) {
+            int col = x + 1;
+            if (!isAnyRowWanted(results, col)) {
+                continue;
+            }
+            Footprint footprint = measure(STRUCTURES[x], size);
+            results.setResult(footprint.getTotalBytes(), 0, col);
+            results.setResult(Math.round(footprint.getBytesPerElement()), 1, col);
+            results.setResult(Math.round(footprint.getOverheadPerElement()), 2, col);
+            results.setResult(footprint.getTotalObjects(), 3, col);
+            results.setResult(Math.round(footprint.getObjectsPerElement()), 4, col);
+        }
+    }
+
+    private static boolean isAnyRowWanted(ResultListener results, int col) {
+        for (int row = 0; row < ROWS; ++row) {
+            if (results.isWanted(row, col)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Load one structure with size words and measure it
+     *
+     * @param structure one of STRUCTURES or LongHashMap, a HashMap with
+     * boxed long keys and values
+     * @param size
+     * @return the footprint
+     */
+    public static Footprint measure(String structure, int size) {
+        String[] words = WordCorpus.getInstance(size).copyWords();
+        switch (structure) {
+            case "Array" -> {
+                String[] array = new String[size];
+                System.arraycopy(words, 0, array, 0, size);
+                return FootprintAnalyzer.measure(array, size, words);
+            }
+            case "ArrayList" -> {
+                ArrayList<String> arrayList = new ArrayList<>();
+                for (String word : words) {
+                    arrayList.add(word);
+                }
+                return FootprintAnalyzer.measure(arrayList, size, words);
+            }
+            case "Deque" -> {
+                ArrayDeque<String> arrayDeque = new ArrayDeque<>();
+                for (String word : words) {
+                    arrayDeque.add(word);
+                }
+                return FootprintAnalyzer.measure(arrayDeque, size, words);
+            }
+            case "LinkedList" -> {
+                LinkedList<String> linkedList = new LinkedList<>();
+                for (String word : words) {
+                    linkedList.add(word);
+                }
+                return FootprintAnalyzer.measure(linkedList, size, words);
+            }
+            case "UnrolledList" -> {
+                UnrolledLinkedList<String> unrolledList = new UnrolledLinkedList<>();
+                for (String word : words) {
+                    unrolledList.add(word);
+                }
+                return FootprintAnalyzer.measure(unrolledList, size, words);
+            }
+            case "GapBuffer" -> {
+                GapBuffer<String> gapBuffer = new GapBuffer<>();
+                for (String word : words) {
+                    gapBuffer.add(word);
+                }
+                return FootprintAnalyzer.measure(gapBuffer, size, words);
+            }
+            case "RingDeque" -> {
+                RingBufferDeque<String> ringDeque = new RingBufferDeque<>();
+                for (String word : words) {
+                    ringDeque.add(word);
+                }
+                return FootprintAnalyzer.measure(ringDeque, size, words);
+            }
+            case "HashMap" -> {
+                HashMap<String, String> hashMap = new HashMap<>();
+                for (String word : words) {
+                    hashMap.put(word, word);
+                }
+                return FootprintAnalyzer.measure(hashMap, size, words);
+            }
+            case "TreeMap" -> {
+                TreeMap<String, String> treeMap = new TreeMap<>();
+                for (String word : words) {
+                    treeMap.put(word, word);
+                }
+                return FootprintAnalyzer.measure(treeMap, size, words);
+            }
+            case "StringIntMap" -> {
+                StringIntOpenHashMap stringIntMap = new StringIntOpenHashMap();
+                for (int x = 0; x < size; ++x) {
+                    stringIntMap.put(words[x], x);
+                }
+                return FootprintAnalyzer.measure(stringIntMap, size, words);
+            }
+            case "LongLongMap" -> {
+                long[] longKeys = WordCorpus.getInstance(size).copyLongKeys();
+                LongLongOpenHashMap longLongMap = new LongLongOpenHashMap();
+                for (int x = 0; x < size; ++x) {
+                    longLongMap.put(longKeys[x], x);
+                }
+                return FootprintAnalyzer.measure(longLongMap, size, null);
+            }
+            case "StringPoolMap" -> {
+                // The words are copied into the pool, none of them is held
+                StringPoolMap poolMap = new StringPoolMap();
+                for (String word : words) {
+                    poolMap.put(word, word);
+                }
+                return FootprintAnalyzer.measure(poolMap, size, null);
+            }
+            case "LongHashMap" -> {
+                long[] longKeys = WordCorpus.getInstance(size).copyLongKeys();
+                HashMap<Long, Long> longHashMap = new HashMap<>();
+                for (int x = 0; x < size; ++x) {
+                    longHashMap.put(longKeys[x], (long) x);
+                }
+                return FootprintAnalyzer.measure(longHashMap, size, null);
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown structure " + structure);
+        }
+    }
+}
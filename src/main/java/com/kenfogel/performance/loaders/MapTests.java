@@ -1,23 +1,28 @@
 package com.kenfogel.performance.loaders;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 
-import com.butlerpress.dict.Dictionary;
+import com.kenfogel.performance.collections.LongLongOpenHashMap;
+import com.kenfogel.performance.collections.StringIntOpenHashMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import com.kenfogel.performance.footprint.FootprintAnalyzer;
 import com.kenfogel.performance.models.MapSpeedTableModel;
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
 
 /**
  * Rewritten to be able to do the benchmark internally for the Swing display or
  * by using Java Microbenchmark Harness
  *
- * Performs a set of tests to determine the Big-O performance of an HashMap and
- * TreeMap
+ * Performs a set of tests to determine the Big-O performance of an HashMap,
+ * TreeMap and the open addressing String to int and long to long maps
  *
- * Does multiple REPETITIONS on data structures of a given SIZE
+ * Each test is timed by a TimingEngine on maps of a given size
  *
  * Displays the results in a table
  *
@@ -28,7 +33,11 @@ import com.kenfogel.performance.models.MapSpeedTableModel;
  *
  * Using Java 21 used the copy constructor for Hashmap and TreeMap.
  *
- * Created a new data structure for each repetition of each test.
+ * Created a new data structure for each sample of each test that writes
+ * to a map.
+ *
+ * The remove, compute, merge and putAll tests mutate the map so each one
+ * either works on a fresh copy or leaves every entry as it found it.
  *
  * @author Ken Fogel
  * @version 6.0
@@ -36,23 +45,26 @@ import com.kenfogel.performance.models.MapSpeedTableModel;
  */
 public class MapTests {
 
-    private final static int REPETITIONS = 1000;
-    private final static int SIZE = 1000;
+    public final static int DEFAULT_SIZE = 1000;
     private final static int SEARCH_SIZE = 10;
 
     private final MapSpeedTableModel mapSpeedTableModel;
     private Set<String> dataSet;
     private Set<String> searchSet;
     private String[] dataArray;
-    private String string;
 
     private final Random random;
+    private int size;
+    private TimingEngine timing;
 
-    private long startTime, endTime, runningTime;
     private HashMap<String, String> hashMap0;
-    private HashMap<String, String> hashMap1;
     private TreeMap<String, String> treeMap0;
-    private TreeMap<String, String> treeMap1;
+    private StringIntOpenHashMap stringIntMap0;
+    private long[] longKeys;
+    private long[] longSearchKeys;
+    private LongLongOpenHashMap longLongMap0;
+    // New entries, a tenth of the size, that putAll copies into a full map
+    private HashMap<String, String> putAllSource;
 
     /**
      * Constructor Receives reference to the table model that will hold the
@@ -63,29 +75,60 @@ public class MapTests {
     public MapTests(MapSpeedTableModel mapSpeedTableModel) {
         this.mapSpeedTableModel = mapSpeedTableModel;
         random = new Random();
+        timing = new TimingEngine();
+        setSize(DEFAULT_SIZE);
+    }
+
+    /**
+     * Change the number of entries in each map and reload the data
+     *
+     * @param size
+     */
+    public final void setSize(int size) {
+        this.size = size;
         loadDataSet();
         loadSearchSet();
     }
 
     /**
-     * Load a set with random values and copy the values to an array The array
-     * is used to select a SEARCH_SIZE of random words to search for
+     * @return the number of entries in each map
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param timing the engine that times every test, it decides how long
+     * each test runs for
+     */
+    public void setTimingEngine(TimingEngine timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Load the unique words from the shared corpus into an array and a set.
+     * The array is used to select a SEARCH_SIZE of random words to search for
      */
     private void loadDataSet() {
         // Load Array
-        dataSet = new HashSet<>();
-        dataArray = new String[SIZE];
-        for (int x = 0; x < SIZE; ++x) {
-            do { // This loop will repeat if the random word in not unique
-                string = Dictionary.getRandomWordTermCommonNameOrConnector();
-                dataArray[x] = string;
-            } while (!dataSet.add(string));
-        }
+        dataArray = WordCorpus.getInstance(size).copyWords();
+        dataSet = new HashSet<>(Arrays.asList(dataArray));
         hashMap0 = new HashMap<>();
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < size; ++x) {
             hashMap0.put(dataArray[x], dataArray[x]);
         }
         treeMap0 = new TreeMap<>(hashMap0);
+        longKeys = WordCorpus.getInstance(size).copyLongKeys();
+        stringIntMap0 = new StringIntOpenHashMap();
+        longLongMap0 = new LongLongOpenHashMap();
+        for (int x = 0; x < size; ++x) {
+            stringIntMap0.put(dataArray[x], x);
+            longLongMap0.put(longKeys[x], x);
+        }
+        putAllSource = new HashMap<>();
+        for (int x = 0; x < Math.max(1, size / 10); ++x) {
+            putAllSource.put(dataArray[x] + "~", dataArray[x]);
+        }
     }
 
     /**
@@ -95,111 +138,381 @@ public class MapTests {
     private void loadSearchSet() {
         searchSet = new HashSet<>();
         for (int x = 0; x < SEARCH_SIZE; ++x) {
-            while (!searchSet.add(dataArray[random.nextInt(SIZE)]));
+            while (!searchSet.add(dataArray[random.nextInt(size)]));
+        }
+        longSearchKeys = new long[searchSet.size()];
+        int x = 0;
+        for (String word : searchSet) {
+            longSearchKeys[x++] = WordCorpus.toLongKey(word);
         }
     }
 
-    public void do01LoadHashMap() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            hashMap1 = new HashMap<>();
-            startTime = System.nanoTime();
+    /**
+     * @return the time to load every entry into an empty HashMap
+     */
+    public TimingResult do01LoadHashMap() {
+        return timing.measure(HashMap<String, String>::new, hashMap1 -> {
             // Load Data
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 hashMap1.put(dataArray[x], dataArray[x]);
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+            return hashMap1;
+        });
     }
 
-    public void do02AddToHashMap() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            hashMap1 = new HashMap<>(hashMap0);
-            startTime = System.nanoTime();
-            hashMap1.put("KenF", "KenF");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+    /**
+     * @return the time to add one entry to a full HashMap
+     */
+    public TimingResult do02AddToHashMap() {
+        return timing.measure(() -> new HashMap<>(hashMap0),
+                hashMap1 -> hashMap1.put("KenF", "KenF"));
     }
 
-    public void do03HashMapSearch() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            hashMap1 = new HashMap<>(hashMap0);
-            startTime = System.nanoTime();
-            Iterator<String> it = searchSet.iterator();
-            while (it.hasNext()) {
-                string = hashMap1.get(it.next());
+    /**
+     * @return the time to find SEARCH_SIZE entries in a HashMap
+     */
+    public TimingResult do03HashMapSearch() {
+        return timing.measure(() -> {
+            String found = null;
+            for (String key : searchSet) {
+                found = hashMap0.get(key);
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+            return found;
+        });
+    }
+
+    /**
+     * @return the time to remove one entry from a full HashMap
+     */
+    public TimingResult do15RemoveFromHashMap() {
+        String key = searchSet.iterator().next();
+        return timing.measure(() -> new HashMap<>(hashMap0),
+                hashMap1 -> hashMap1.remove(key));
+    }
+
+    /**
+     * @return the time to compute SEARCH_SIZE existing entries in a HashMap
+     */
+    public TimingResult do16ComputeHashMap() {
+        HashMap<String, String> hashMap1 = new HashMap<>(hashMap0);
+        return timing.measure(() -> {
+            String computed = null;
+            for (String key : searchSet) {
+                computed = hashMap1.compute(key, (k, v) -> k);
+            }
+            return computed;
+        });
+    }
+
+    /**
+     * @return the time to merge SEARCH_SIZE existing entries in a HashMap
+     */
+    public TimingResult do17MergeHashMap() {
+        HashMap<String, String> hashMap1 = new HashMap<>(hashMap0);
+        return timing.measure(() -> {
+            String merged = null;
+            for (String key : searchSet) {
+                merged = hashMap1.merge(key, key, (old, value) -> value);
+            }
+            return merged;
+        });
+    }
+
+    /**
+     * @return the time to copy a tenth of the size in new entries into a
+     * full HashMap
+     */
+    public TimingResult do18PutAllHashMap() {
+        return timing.measure(() -> new HashMap<>(hashMap0), hashMap1 -> {
+            hashMap1.putAll(putAllSource);
+            return hashMap1;
+        });
     }
 
     /**
      * Carry out the tests on the hash map
+     * on the calling thread, the results go straight to the table
      */
     public void doHashMapTests() {
-        do01LoadHashMap();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 1);
-        do02AddToHashMap();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 1);
-        do03HashMapSearch();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 1);
-    }
-
-    public void do04LoadTreeMap() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            treeMap1 = new TreeMap<>();
-            startTime = System.nanoTime();
+        doHashMapTests(mapSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Carry out the tests on the hash map
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doHashMapTests(ResultListener results) {
+        results.measure(this::do01LoadHashMap, 0, 1);
+        results.measure(this::do02AddToHashMap, 1, 1);
+        results.measure(this::do03HashMapSearch, 2, 1);
+        if (results.isWanted(3, 1)) {
+            results.setResult(overheadPerEntry(hashMap0), 3, 1);
+        }
+        results.measure(this::do15RemoveFromHashMap, 4, 1);
+        results.measure(this::do16ComputeHashMap, 5, 1);
+        results.measure(this::do17MergeHashMap, 6, 1);
+        results.measure(this::do18PutAllHashMap, 7, 1);
+    }
+
+    /**
+     * @return the time to load every entry into an empty TreeMap
+     */
+    public TimingResult do04LoadTreeMap() {
+        return timing.measure(TreeMap<String, String>::new, treeMap1 -> {
             // Load Tree Map
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 treeMap1.put(dataArray[x], dataArray[x]);
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+            return treeMap1;
+        });
     }
 
-    public void do05AddToTreeMap() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            treeMap1 = new TreeMap<>(treeMap0);
-            startTime = System.nanoTime();
-            // Add Tree Map
-            treeMap1.put("kenF", "kenF");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+    /**
+     * @return the time to add one entry to a full TreeMap
+     */
+    public TimingResult do05AddToTreeMap() {
+        // Add Tree Map
+        return timing.measure(() -> new TreeMap<>(treeMap0),
+                treeMap1 -> treeMap1.put("kenF", "kenF"));
     }
 
-    public void do06TreeMapSearch() {
-        runningTime = 0;
-        for (int r = 0; r < REPETITIONS; ++r) {
-            treeMap1 = new TreeMap<>(treeMap0);
-            startTime = System.nanoTime();
+    /**
+     * @return the time to find SEARCH_SIZE entries in a TreeMap
+     */
+    public TimingResult do06TreeMapSearch() {
+        return timing.measure(() -> {
             // Find SEARCH_SIZE elements
-            Iterator<String> it = searchSet.iterator();
-            while (it.hasNext()) {
-                string = treeMap1.get(it.next());
+            String found = null;
+            for (String key : searchSet) {
+                found = treeMap0.get(key);
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
+            return found;
+        });
+    }
+
+    /**
+     * @return the time to remove one entry from a full TreeMap
+     */
+    public TimingResult do19RemoveFromTreeMap() {
+        String key = searchSet.iterator().next();
+        return timing.measure(() -> new TreeMap<>(treeMap0),
+                treeMap1 -> treeMap1.remove(key));
+    }
+
+    /**
+     * @return the time to compute SEARCH_SIZE existing entries in a TreeMap
+     */
+    public TimingResult do20ComputeTreeMap() {
+        TreeMap<String, String> treeMap1 = new TreeMap<>(treeMap0);
+        return timing.measure(() -> {
+            String computed = null;
+            for (String key : searchSet) {
+                computed = treeMap1.compute(key, (k, v) -> k);
+            }
+            return computed;
+        });
+    }
+
+    /**
+     * @return the time to merge SEARCH_SIZE existing entries in a TreeMap
+     */
+    public TimingResult do21MergeTreeMap() {
+        TreeMap<String, String> treeMap1 = new TreeMap<>(treeMap0);
+        return timing.measure(() -> {
+            String merged = null;
+            for (String key : searchSet) {
+                merged = treeMap1.merge(key, key, (old, value) -> value);
+            }
+            return merged;
+        });
+    }
+
+    /**
+     * @return the time to copy a tenth of the size in new entries into a
+     * full TreeMap
+     */
+    public TimingResult do22PutAllTreeMap() {
+        return timing.measure(() -> new TreeMap<>(treeMap0), treeMap1 -> {
+            treeMap1.putAll(putAllSource);
+            return treeMap1;
+        });
     }
 
     /**
      * Carry out the tests on a tree map
+     * on the calling thread, the results go straight to the table
      */
     public void doTreeMapTests() {
-        do04LoadTreeMap();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 2);
-        do05AddToTreeMap();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 2);
-        do06TreeMapSearch();
-        mapSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 2);
+        doTreeMapTests(mapSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Carry out the tests on a tree map
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doTreeMapTests(ResultListener results) {
+        results.measure(this::do04LoadTreeMap, 0, 2);
+        results.measure(this::do05AddToTreeMap, 1, 2);
+        results.measure(this::do06TreeMapSearch, 2, 2);
+        if (results.isWanted(3, 2)) {
+            results.setResult(overheadPerEntry(treeMap0), 3, 2);
+        }
+        results.measure(this::do19RemoveFromTreeMap, 4, 2);
+        results.measure(this::do20ComputeTreeMap, 5, 2);
+        results.measure(this::do21MergeTreeMap, 6, 2);
+        results.measure(this::do22PutAllTreeMap, 7, 2);
+    }
+
+    /**
+     * @return the time to load every entry into an empty String to int map
+     */
+    public TimingResult do07LoadStringIntMap() {
+        return timing.measure(StringIntOpenHashMap::new, stringIntMap1 -> {
+            // Load Data
+            for (int x = 0; x < size; ++x) {
+                stringIntMap1.put(dataArray[x], x);
+            }
+            return stringIntMap1;
+        });
+    }
+
+    /**
+     * @return the time to add one entry to a full String to int map
+     */
+    public TimingResult do08AddToStringIntMap() {
+        return timing.measure(() -> new StringIntOpenHashMap(stringIntMap0),
+                stringIntMap1 -> stringIntMap1.put("KenF", -2));
+    }
+
+    /**
+     * @return the time to find SEARCH_SIZE entries in a String to int map
+     */
+    public TimingResult do09StringIntMapSearch() {
+        return timing.measure(() -> {
+            int found = 0;
+            for (String key : searchSet) {
+                found += stringIntMap0.get(key);
+            }
+            return found;
+        });
+    }
+
+    /**
+     * @return the time to remove one entry from a full String to int map
+     */
+    public TimingResult do23RemoveFromStringIntMap() {
+        String key = searchSet.iterator().next();
+        return timing.measure(() -> new StringIntOpenHashMap(stringIntMap0),
+                stringIntMap1 -> stringIntMap1.remove(key));
+    }
+
+    /**
+     * Carry out the tests on the open addressing String to int map
+     * on the calling thread, the results go straight to the table
+     */
+    public void doStringIntMapTests() {
+        doStringIntMapTests(mapSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Carry out the tests on the open addressing String to int map
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doStringIntMapTests(ResultListener results) {
+        results.measure(this::do07LoadStringIntMap, 0, 3);
+        results.measure(this::do08AddToStringIntMap, 1, 3);
+        results.measure(this::do09StringIntMapSearch, 2, 3);
+        if (results.isWanted(3, 3)) {
+            results.setResult(overheadPerEntry(stringIntMap0), 3, 3);
+        }
+        results.measure(this::do23RemoveFromStringIntMap, 4, 3);
+        // Primitive maps have no compute, merge or putAll
+        results.setResult(-1L, 5, 3);
+        results.setResult(-1L, 6, 3);
+        results.setResult(-1L, 7, 3);
+    }
+
+    /**
+     * @return the time to load every entry into an empty long to long map
+     */
+    public TimingResult do10LoadLongLongMap() {
+        return timing.measure(LongLongOpenHashMap::new, longLongMap1 -> {
+            // Load Data
+            for (int x = 0; x < size; ++x) {
+                longLongMap1.put(longKeys[x], x);
+            }
+            return longLongMap1;
+        });
+    }
+
+    /**
+     * @return the time to add one entry to a full long to long map
+     */
+    public TimingResult do11AddToLongLongMap() {
+        return timing.measure(() -> new LongLongOpenHashMap(longLongMap0),
+                longLongMap1 -> longLongMap1.put(-2L, -2L));
+    }
+
+    /**
+     * @return the time to find SEARCH_SIZE entries in a long to long map
+     */
+    public TimingResult do12LongLongMapSearch() {
+        return timing.measure(() -> {
+            long found = 0;
+            for (long key : longSearchKeys) {
+                found += longLongMap0.get(key);
+            }
+            return found;
+        });
+    }
+
+    /**
+     * @return the time to remove one entry from a full long to long map
+     */
+    public TimingResult do24RemoveFromLongLongMap() {
+        long key = longSearchKeys[0];
+        return timing.measure(() -> new LongLongOpenHashMap(longLongMap0),
+                longLongMap1 -> longLongMap1.remove(key));
+    }
+
+    /**
+     * Carry out the tests on the open addressing long to long map
+     * on the calling thread, the results go straight to the table
+     */
+    public void doLongLongMapTests() {
+        doLongLongMapTests(mapSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Carry out the tests on the open addressing long to long map
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doLongLongMapTests(ResultListener results) {
+        results.measure(this::do10LoadLongLongMap, 0, 4);
+        results.measure(this::do11AddToLongLongMap, 1, 4);
+        results.measure(this::do12LongLongMapSearch, 2, 4);
+        if (results.isWanted(3, 4)) {
+            results.setResult(overheadPerEntry(longLongMap0), 3, 4);
+        }
+        results.measure(this::do24RemoveFromLongLongMap, 4, 4);
+        // Primitive maps have no compute, merge or putAll
+        results.setResult(-1L, 5, 4);
+        results.setResult(-1L, 6, 4);
+        results.setResult(-1L, 7, 4);
+    }
+
+    /**
+     * Bytes retained by a map per entry, not counting the keys and values,
+     * as measured by walking its nodes and table
+     *
+     * @param map
+     * @return bytes per entry
+     */
+    private long overheadPerEntry(Object map) {
+        return Math.round(FootprintAnalyzer.measure(map, size, dataArray).getOverheadPerElement());
     }
 }
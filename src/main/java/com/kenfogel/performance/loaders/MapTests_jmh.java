@@ -1,5 +1,6 @@
 package com.kenfogel.performance.loaders;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -7,12 +8,17 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 
-import com.butlerpress.dict.Dictionary;
+import com.kenfogel.performance.collections.LongLongOpenHashMap;
+import com.kenfogel.performance.collections.StringIntOpenHashMap;
+import com.kenfogel.performance.corpus.WordCorpus;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
 
 /**
@@ -20,7 +26,7 @@ import org.openjdk.jmh.infra.Blackhole;
  * display or by using Java Microbenchmark Harness
  *
  * Performs a set of tests to determine the performance of an HashMap and
- * TreeMap
+ * TreeMap and of the open addressing String to int and long to long maps
  *
  * Displays the results in a table
  *
@@ -30,13 +36,20 @@ import org.openjdk.jmh.infra.Blackhole;
  * src/main/resources/batch_file is a batch file to add the Dictionary.jar
  * file to your local maven repository.
  *
+ * The remove benchmarks put the removed entry back after each call, the
+ * putAll benchmark of the TreeMap removes the entries it added, the one of
+ * the HashMap loads the map again at its original capacity, and compute
+ * and merge leave every entry as they found it.
+ *
+ * The Load benchmarks also report the heap retained by the structure they
+ * fill as secondary results, see FootprintCounters.
+ *
  * @author Ken Fogel
  * @version 6.0
  *
  */
 public class MapTests_jmh {
 
-    private final static int SIZE = 1000;
     private final static int SEARCH_SIZE = 10;
 
     /**
@@ -59,48 +72,149 @@ public class MapTests_jmh {
         public TreeMap<String, String> treeMap0;
         public TreeMap<String, String> treeMap1;
 
+        public StringIntOpenHashMap stringIntMap0;
+        public StringIntOpenHashMap stringIntMap1;
+        public LongLongOpenHashMap longLongMap0;
+        public LongLongOpenHashMap longLongMap1;
+        public HashMap<Long, Long> longHashMap0;
+        public HashMap<Long, Long> longHashMap1;
+        public long[] longKeys;
+        public long[] longSearchKeys;
+        public int intValue;
+        public long longValue;
+        public Long boxedValue;
+
         public Iterator<String> it;
+        // The key that the remove benchmarks take out and put back
+        public String removeKey;
+        public long longRemoveKey;
+        // New entries, a tenth of the size, that putAll copies into a full map
+        public HashMap<String, String> putAllSource;
+
+        /**
+         * The number of entries in each map. JMH runs every benchmark once
+         * for each value, override with -p size=[values]. The largest sizes
+         * need a larger heap such as -Xmx8g.
+         */
+        @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        private Runnable undo;
 
         /**
-         * Load words from the dictionary into a set to eliminate
-         * duplication and then into an array. Declare and initialize the
-         * state variables for the benchmark methods. This method is called
-         * for every iteration/invocation
+         * Load the unique words from the shared corpus into an array and
+         * into each map and select the words to search for. The corpus is
+         * built from the dictionary once and cached so this is only called
+         * once per trial.
+         *
+         * @param params describes the benchmark that is about to run
          */
         @SuppressWarnings("empty-statement")
-        @Setup(Level.Invocation)
-        public void doLoadDataSet() {
-            Random random = new Random();
-            // Load Array
-            dataSet = new HashSet<>();
-            dataArray = new String[SIZE];
-            for (int x = 0; x < SIZE; ++x) {
-                do { // This loop will repeat if the random word in not unique
-                    string = Dictionary.getRandomWordTermCommonNameOrConnector();
-                } while (!dataSet.add(string));
-                dataArray[x] = string;
-            }
-            hashMap0 = new HashMap<>();
-            treeMap0 = new TreeMap<>();
-            for (int x = 0; x < SIZE; ++x) {
-                hashMap0.put(dataArray[x], dataArray[x]);
-                treeMap0.put(dataArray[x], dataArray[x]);
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            dataArray = WordCorpus.getInstance(size).copyWords();
+            dataSet = new HashSet<>(Arrays.asList(dataArray));
+            loadHashMap0();
+            treeMap0 = new TreeMap<>(hashMap0);
+
+            longKeys = WordCorpus.getInstance(size).copyLongKeys();
+            stringIntMap0 = new StringIntOpenHashMap();
+            longLongMap0 = new LongLongOpenHashMap();
+            longHashMap0 = new HashMap<>();
+            for (int x = 0; x < size; ++x) {
+                stringIntMap0.put(dataArray[x], x);
+                longLongMap0.put(longKeys[x], x);
+                longHashMap0.put(longKeys[x], (long) x);
             }
-            treeMap1 = new TreeMap<>();
             hashMap1 = new HashMap<>();
+            treeMap1 = new TreeMap<>();
+            stringIntMap1 = new StringIntOpenHashMap();
+            longLongMap1 = new LongLongOpenHashMap();
+            longHashMap1 = new HashMap<>();
 
             searchSet = new HashSet<>();
             for (int x = 0; x < SEARCH_SIZE; ++x) {
-                while (!searchSet.add(dataArray[random.nextInt(SIZE)]));
+                while (!searchSet.add(dataArray[random.nextInt(size)]));
             }
+            longSearchKeys = searchSet.stream().mapToLong(WordCorpus::toLongKey).toArray();
             it = searchSet.iterator();
+            removeKey = searchSet.iterator().next();
+            longRemoveKey = WordCorpus.toLongKey(removeKey);
+            putAllSource = new HashMap<>();
+            for (int x = 0; x < Math.max(1, size / 10); ++x) {
+                putAllSource.put(dataArray[x] + "~", dataArray[x]);
+            }
+
+            String benchmark = params.getBenchmark();
+            undo = switch (benchmark.substring(benchmark.lastIndexOf('.') + 1)) {
+                case "do01LoadHashMap" ->
+                    () -> hashMap1 = new HashMap<>();
+                case "do02AddToHashMap" ->
+                    () -> hashMap0.remove("KenF");
+                case "do04LoadTreeMap" ->
+                    () -> treeMap1 = new TreeMap<>();
+                case "do05AddToTreeMap" ->
+                    () -> treeMap0.remove("kenF");
+                case "do07LoadStringIntMap" ->
+                    () -> stringIntMap1 = new StringIntOpenHashMap();
+                case "do08AddToStringIntMap" ->
+                    () -> stringIntMap0.remove("KenF");
+                case "do10LoadLongLongMap" ->
+                    () -> longLongMap1 = new LongLongOpenHashMap();
+                case "do11AddToLongLongMap" ->
+                    () -> longLongMap0.remove(-2L);
+                case "do13LoadLongHashMap" ->
+                    () -> longHashMap1 = new HashMap<>();
+                case "do15RemoveFromHashMap" ->
+                    () -> hashMap0.put(removeKey, string);
+                case "do18PutAllHashMap" ->
+                    this::loadHashMap0;
+                case "do19RemoveFromTreeMap" ->
+                    () -> treeMap0.put(removeKey, string);
+                case "do22PutAllTreeMap" ->
+                    () -> treeMap0.keySet().removeAll(putAllSource.keySet());
+                case "do23RemoveFromStringIntMap" ->
+                    () -> stringIntMap0.put(removeKey, intValue);
+                case "do24RemoveFromLongLongMap" ->
+                    () -> longLongMap0.put(longRemoveKey, longValue);
+                default ->
+                    () -> it = searchSet.iterator();
+            };
+        }
+
+        /**
+         * Undo the change made by the benchmark that was just called so that
+         * the next invocation starts with the same maps. Removing the added
+         * element or replacing the loaded map with an empty one allocates
+         * next to nothing, unlike copying every map, so the bytes per
+         * operation from the gc profiler belong to the benchmark alone.
+         * The exception is do18PutAllHashMap, removing the entries it added
+         * would leave the table at the capacity putAll grew it to, so
+         * hashMap0 is loaded again and its bytes per operation include the
+         * new map.
+         */
+        @TearDown(Level.Invocation)
+        public void doUndoChange() {
+            undo.run();
+        }
+
+        /**
+         * Fill hashMap0 with the data one entry at a time so its table grows
+         * to the same capacity every time
+         */
+        private void loadHashMap0() {
+            hashMap0 = new HashMap<>();
+            for (int x = 0; x < size; ++x) {
+                hashMap0.put(dataArray[x], dataArray[x]);
+            }
         }
     }
 
     @Benchmark
-    public void do01LoadHashMap(StateValues state) {
+    public void do01LoadHashMap(StateValues state, FootprintCounters footprint) {
         // Load Data
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.hashMap1.put(state.dataArray[x], state.dataArray[x]);
         }
     }
@@ -120,9 +234,9 @@ public class MapTests_jmh {
     }
 
     @Benchmark
-    public void do04LoadTreeMap(StateValues state) {
+    public void do04LoadTreeMap(StateValues state, FootprintCounters footprint) {
         // Load Tree Map
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.treeMap1.put(state.dataArray[x], state.dataArray[x]);
         }
     }
@@ -141,4 +255,134 @@ public class MapTests_jmh {
         }
     }
 
+    @Benchmark
+    public void do07LoadStringIntMap(StateValues state, FootprintCounters footprint) {
+        // Load open addressing String to int map
+        for (int x = 0; x < state.size; ++x) {
+            state.stringIntMap1.put(state.dataArray[x], x);
+        }
+    }
+
+    @Benchmark
+    public void do08AddToStringIntMap(StateValues state) {
+        // Add to open addressing String to int map
+        state.stringIntMap0.put("KenF", -2);
+    }
+
+    @Benchmark
+    public void do09StringIntMapSearch(StateValues state) {
+        // Find SEARCH_SIZE elements in open addressing String to int map
+        while (state.it.hasNext()) {
+            state.intValue = state.stringIntMap0.get(state.it.next());
+        }
+    }
+
+    @Benchmark
+    public void do10LoadLongLongMap(StateValues state, FootprintCounters footprint) {
+        // Load open addressing long to long map
+        for (int x = 0; x < state.size; ++x) {
+            state.longLongMap1.put(state.longKeys[x], x);
+        }
+    }
+
+    @Benchmark
+    public void do11AddToLongLongMap(StateValues state) {
+        // Add to open addressing long to long map
+        state.longLongMap0.put(-2L, -2L);
+    }
+
+    @Benchmark
+    public void do12LongLongMapSearch(StateValues state) {
+        // Find SEARCH_SIZE elements in open addressing long to long map
+        for (long key : state.longSearchKeys) {
+            state.longValue = state.longLongMap0.get(key);
+        }
+    }
+
+    @Benchmark
+    public void do13LoadLongHashMap(StateValues state, FootprintCounters footprint) {
+        // Load HashMap with boxed long keys, the baseline for do10
+        for (int x = 0; x < state.size; ++x) {
+            state.longHashMap1.put(state.longKeys[x], (long) x);
+        }
+    }
+
+    @Benchmark
+    public void do14LongHashMapSearch(StateValues state) {
+        // Find SEARCH_SIZE elements in HashMap with boxed long keys, the
+        // baseline for do12
+        for (long key : state.longSearchKeys) {
+            state.boxedValue = state.longHashMap0.get(key);
+        }
+    }
+
+    @Benchmark
+    public void do15RemoveFromHashMap(StateValues state) {
+        // Remove one entry from Hash Map
+        state.string = state.hashMap0.remove(state.removeKey);
+    }
+
+    @Benchmark
+    public void do16ComputeHashMap(StateValues state) {
+        // Compute SEARCH_SIZE existing entries in Hash Map
+        while (state.it.hasNext()) {
+            state.string = state.hashMap0.compute(state.it.next(), (k, v) -> k);
+        }
+    }
+
+    @Benchmark
+    public void do17MergeHashMap(StateValues state) {
+        // Merge SEARCH_SIZE existing entries in Hash Map
+        while (state.it.hasNext()) {
+            String key = state.it.next();
+            state.string = state.hashMap0.merge(key, key, (old, value) -> value);
+        }
+    }
+
+    @Benchmark
+    public void do18PutAllHashMap(StateValues state) {
+        // Copy a tenth of the size in new entries into Hash Map
+        state.hashMap0.putAll(state.putAllSource);
+    }
+
+    @Benchmark
+    public void do19RemoveFromTreeMap(StateValues state) {
+        // Remove one entry from Tree Map
+        state.string = state.treeMap0.remove(state.removeKey);
+    }
+
+    @Benchmark
+    public void do20ComputeTreeMap(StateValues state) {
+        // Compute SEARCH_SIZE existing entries in Tree Map
+        while (state.it.hasNext()) {
+            state.string = state.treeMap0.compute(state.it.next(), (k, v) -> k);
+        }
+    }
+
+    @Benchmark
+    public void do21MergeTreeMap(StateValues state) {
+        // Merge SEARCH_SIZE existing entries in Tree Map
+        while (state.it.hasNext()) {
+            String key = state.it.next();
+            state.string = state.treeMap0.merge(key, key, (old, value) -> value);
+        }
+    }
+
+    @Benchmark
+    public void do22PutAllTreeMap(StateValues state) {
+        // Copy a tenth of the size in new entries into Tree Map
+        state.treeMap0.putAll(state.putAllSource);
+    }
+
+    @Benchmark
+    public void do23RemoveFromStringIntMap(StateValues state) {
+        // Remove one entry from open addressing String to int map
+        state.intValue = state.stringIntMap0.remove(state.removeKey);
+    }
+
+    @Benchmark
+    public void do24RemoveFromLongLongMap(StateValues state) {
+        // Remove one entry from open addressing long to long map
+        state.longValue = state.longLongMap0.remove(state.longRemoveKey);
+    }
 }
@@ -0,0 +1,143 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+
+import com.kenfogel.performance.collections.StringIntOpenHashMap;
+import com.kenfogel.performance.corpus.KeyWorkload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Looks up a million keys in a HashMap, a TreeMap and the open addressing
+ * String to int map with the key distributions of a real cache, see
+ * KeyWorkload. Unlike the ten uniformly chosen hits of MapTests_jmh the
+ * lookups are skewed, some of them miss and the keys may share a long
+ * prefix, so the cost of cache misses and of the miss path is part of the
+ * result.
+ *
+ * The score is the time of one lookup.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class MapWorkloadTests_jmh {
+
+    private final static int LOOKUPS = 1 << 20;
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of entries in each map, override with -p size=[values]
+         */
+        @Param({"10000", "1000000"})
+        public int size;
+
+        /**
+         * uniform, zipf-[exponent] or hotset-[fraction]
+         */
+        @Param({"uniform", "zipf-0.8", "zipf-1.2", "hotset-0.01"})
+        public String distribution;
+
+        /**
+         * Fraction of the lookups for keys that are not in the map
+         */
+        @Param({"0.0", "0.3", "0.6"})
+        public double missRatio;
+
+        /**
+         * Characters of common prefix in front of every key
+         */
+        @Param({"0", "32"})
+        public int prefixLength;
+
+        public String[] lookups;
+        public HashMap<String, String> hashMap;
+        public TreeMap<String, String> treeMap;
+        public StringIntOpenHashMap stringIntMap;
+
+        /**
+         * Make the keys and lookups and load only the map that the
+         * benchmark uses. Called once per trial.
+         *
+         * @param params describes the benchmark that is about to run
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            KeyWorkload workload = new KeyWorkload(size, distribution, missRatio, prefixLength);
+            String[] keys = workload.getKeys();
+            lookups = workload.lookups(LOOKUPS);
+            String benchmark = params.getBenchmark();
+            switch (benchmark.substring(benchmark.lastIndexOf('.') + 1)) {
+                case "do01HashMapLookups" -> {
+                    hashMap = new HashMap<>();
+                    for (String key : keys) {
+                        hashMap.put(key, key);
+                    }
+                }
+                case "do02TreeMapLookups" -> {
+                    treeMap = new TreeMap<>();
+                    for (String key : keys) {
+                        treeMap.put(key, key);
+                    }
+                }
+                default -> {
+                    stringIntMap = new StringIntOpenHashMap(size, -1);
+                    for (int x = 0; x < keys.length; ++x) {
+                        stringIntMap.put(keys[x], x);
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do01HashMapLookups(StateValues state) {
+        int hits = 0;
+        for (String key : state.lookups) {
+            if (state.hashMap.get(key) != null) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do02TreeMapLookups(StateValues state) {
+        int hits = 0;
+        for (String key : state.lookups) {
+            if (state.treeMap.get(key) != null) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do03StringIntMapLookups(StateValues state) {
+        int hits = 0;
+        for (String key : state.lookups) {
+            if (state.stringIntMap.get(key) >= 0) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,156 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import com.kenfogel.performance.workload.MixedWorkload;
+import com.kenfogel.performance.workload.OperationMix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays a mix of reads and writes against the maps and deques, see
+ * MixedWorkload. A read only test of one operation hides what writes do to
+ * a structure, such as a TreeMap rebalancing or a HashMap that has to find
+ * room for a key it just removed, so these tests interleave them in the
+ * proportions of the mix.
+ *
+ * The score is the time of one operation of the mix.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class MixedWorkloadTests_jmh {
+
+    private final static int LENGTH = MixedWorkload.DEFAULT_LENGTH;
+
+    /**
+     * The map and the operations replayed against it
+     */
+    @State(Scope.Thread)
+    public static class MapState {
+
+        /**
+         * The number of entries in the map at the start, override with -p
+         * size=[values]
+         */
+        @Param({"10000", "1000000"})
+        public int size;
+
+        @Param({"HashMap", "TreeMap", "ConcurrentHashMap"})
+        public String mapType;
+
+        /**
+         * See OperationMix
+         */
+        @Param({"get=80/put=15/remove=5", "get=50/put=25/remove=25", "get=95/put=5"})
+        public String mix;
+
+        /**
+         * 0 for uniform keys, otherwise the exponent of a Zipf distribution
+         */
+        @Param({"0.0", "1.0"})
+        public double zipfExponent;
+
+        public MixedWorkload workload;
+        public Map<String, String> map;
+
+        /**
+         * Make the operations and load the map. Called once per trial, the
+         * map starts with every word and is not reloaded between replays.
+         * Every replay repeats the same keys, so after the first one each
+         * key a put or a remove touches is left as its last write left it
+         * and the map holds the same entries from then on. A written key is
+         * missing with the chance remove / (put + remove), so at a size of
+         * 10000, where most keys are written, get=80/put=15/remove=5
+         * settles near 80% full and get=50/put=25/remove=25 near half full
+         * with uniform keys, and a Zipf exponent of 1.0 leaves them near 90%
+         * and 70%. At 1000000 a replay writes few of the keys and the map
+         * stays over 98% full. get=95/put=5 always stays full.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            workload = new MixedWorkload(OperationMix.parse(mix), size, zipfExponent, LENGTH);
+            map = switch (mapType) {
+                case "HashMap" ->
+                    new HashMap<>();
+                case "TreeMap" ->
+                    new TreeMap<>();
+                case "ConcurrentHashMap" ->
+                    new ConcurrentHashMap<>();
+                default ->
+                    throw new IllegalArgumentException("Unknown map type " + mapType);
+            };
+            workload.load(map);
+        }
+    }
+
+    /**
+     * The deque and the operations replayed against it
+     */
+    @State(Scope.Thread)
+    public static class DequeState {
+
+        /**
+         * The number of elements in the deque at the start, override with
+         * -p size=[values]
+         */
+        @Param({"10000", "1000000"})
+        public int size;
+
+        @Param({"ArrayDeque", "LinkedList", "ConcurrentLinkedDeque"})
+        public String dequeType;
+
+        /**
+         * See OperationMix, a queue then a stack
+         */
+        @Param({"offer=50/poll=50", "push=50/pop=50", "offer=40/poll=40/peek=20"})
+        public String mix;
+
+        public MixedWorkload workload;
+        public Deque<String> deque;
+
+        /**
+         * Make the operations and load the deque. Called once per trial.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            workload = new MixedWorkload(OperationMix.parse(mix), size, 0, LENGTH);
+            deque = switch (dequeType) {
+                case "ArrayDeque" ->
+                    new ArrayDeque<>();
+                case "LinkedList" ->
+                    new LinkedList<>();
+                case "ConcurrentLinkedDeque" ->
+                    new ConcurrentLinkedDeque<>();
+                default ->
+                    throw new IllegalArgumentException("Unknown deque type " + dequeType);
+            };
+            workload.load(deque);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public int do01MapMix(MapState state) {
+        return state.workload.replay(state.map);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public int do02DequeMix(DequeState state) {
+        return state.workload.replay(state.deque);
+    }
+}
@@ -0,0 +1,272 @@
+package com.kenfogel.performance.loaders;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import com.kenfogel.performance.collections.OffHeapStringMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Performs the load, add and find tests of MapTests_jmh on a HashMap and on
+ * an OffHeapStringMap that keeps its entries in a MemorySegment outside of
+ * the Java heap.
+ *
+ * Along with the time for each operation the MemoryCounters report the GC
+ * pause time and the number of pauses in each iteration, the heap
+ * retained by the map that is searched and the bytes held off heap. A
+ * HashMap with millions of entries is live data that every full marking
+ * cycle must trace, the off heap map is not.
+ *
+ * OffHeapStringMap uses a preview API in Java 21 so the forked JVM is
+ * started with --enable-preview.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+@Fork(jvmArgsAppend = "--enable-preview")
+public class OffHeapMapTests_jmh {
+
+    private final static int SEARCH_SIZE = 10;
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of entries in each map, override with -p size=[values]
+         */
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        public Set<String> searchSet;
+        public String[] dataArray;
+        public String string;
+
+        public HashMap<String, String> hashMap0;
+        public HashMap<String, String> hashMap1;
+        public OffHeapStringMap offHeapMap0;
+        public OffHeapStringMap offHeapMap1;
+
+        public Iterator<String> it;
+
+        public boolean offHeap;
+        public long retainedHeapBytes;
+
+        /**
+         * Load the unique words from the shared corpus into an array and
+         * into the map that is searched. Only the kind of map used by the
+         * benchmark is created so that the heap figures for the off heap
+         * tests do not include a HashMap. Called once per trial.
+         *
+         * @param params describes the benchmark that is about to run
+         */
+        @SuppressWarnings("empty-statement")
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            String benchmark = params.getBenchmark();
+            offHeap = benchmark.substring(benchmark.lastIndexOf('.') + 1).contains("OffHeap");
+            dataArray = WordCorpus.getInstance(size).copyWords();
+            long heapBefore = usedHeapAfterGc();
+            if (offHeap) {
+                offHeapMap0 = new OffHeapStringMap(size, 32);
+                offHeapMap1 = new OffHeapStringMap(size, 32);
+                for (int x = 0; x < size; ++x) {
+                    offHeapMap0.put(dataArray[x], dataArray[x]);
+                }
+            } else {
+                hashMap0 = HashMap.newHashMap(size);
+                hashMap1 = HashMap.newHashMap(size);
+                for (int x = 0; x < size; ++x) {
+                    hashMap0.put(dataArray[x], dataArray[x]);
+                }
+            }
+            retainedHeapBytes = Math.max(0, usedHeapAfterGc() - heapBefore);
+
+            searchSet = new HashSet<>();
+            for (int x = 0; x < SEARCH_SIZE; ++x) {
+                while (!searchSet.add(dataArray[random.nextInt(size)]));
+            }
+        }
+
+        /**
+         * Undo the changes made by the previous invocation. Removing the
+         * one added element and clearing the load target is much cheaper
+         * than copying the maps. Both kinds of map are sized for every
+         * entry and the load target is cleared rather than replaced, so
+         * the HashMap load does not pay for a rehash or a new table that
+         * the off heap load does not.
+         */
+        @Setup(Level.Invocation)
+        public void doResetDataSet() {
+            if (offHeap) {
+                offHeapMap0.remove("KenF");
+                if (offHeapMap1.size() > 0) {
+                    offHeapMap1.clear();
+                }
+            } else {
+                hashMap0.remove("KenF");
+                if (!hashMap1.isEmpty()) {
+                    hashMap1.clear();
+                }
+            }
+            it = searchSet.iterator();
+        }
+
+        /**
+         * Release the off heap memory
+         */
+        @TearDown(Level.Trial)
+        public void doReleaseDataSet() {
+            if (offHeap) {
+                offHeapMap0.close();
+                offHeapMap1.close();
+            }
+        }
+
+        /**
+         * Heap in use after a full collection, only called outside of the
+         * measured time
+         */
+        private static long usedHeapAfterGc() {
+            System.gc();
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        /**
+         * @return bytes held outside of the heap by the maps
+         */
+        public long offHeapBytes() {
+            return offHeap ? offHeapMap0.offHeapBytes() + offHeapMap1.offHeapBytes() : 0;
+        }
+    }
+
+    /**
+     * Memory figures reported as secondary results of every benchmark. The
+     * GC figures are those of the collectors that pause the application,
+     * the time of a concurrent cycle such as the G1 Concurrent GC bean
+     * reports is spent alongside the benchmark and is left out.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MemoryCounters {
+
+        public long gcPauseMs;
+        public long gcCount;
+        public long retainedHeapBytes;
+        public long offHeapBytes;
+
+        private long gcTimeStart;
+        private long gcCountStart;
+
+        @Setup(Level.Iteration)
+        public void doStartIteration() {
+            gcTimeStart = totalGcTime();
+            gcCountStart = totalGcCount();
+        }
+
+        @TearDown(Level.Iteration)
+        public void doEndIteration(StateValues state) {
+            gcPauseMs = totalGcTime() - gcTimeStart;
+            gcCount = totalGcCount() - gcCountStart;
+            retainedHeapBytes = state.retainedHeapBytes;
+            offHeapBytes = state.offHeapBytes();
+        }
+
+        private static long totalGcTime() {
+            long time = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (isPauseCollector(gc)) {
+                    time += Math.max(0, gc.getCollectionTime());
+                }
+            }
+            return time;
+        }
+
+        private static long totalGcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (isPauseCollector(gc)) {
+                    count += Math.max(0, gc.getCollectionCount());
+                }
+            }
+            return count;
+        }
+
+        /**
+         * G1 reports its concurrent marking as G1 Concurrent GC, ZGC and
+         * Shenandoah report their concurrent work as Cycles beside the
+         * Pauses
+         */
+        private static boolean isPauseCollector(GarbageCollectorMXBean gc) {
+            String name = gc.getName();
+            return !name.contains("Concurrent") && !name.contains("Cycles");
+        }
+    }
+
+    @Benchmark
+    public void do01LoadHashMap(StateValues state, MemoryCounters counters) {
+        // Load Data
+        for (int x = 0; x < state.size; ++x) {
+            state.hashMap1.put(state.dataArray[x], state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    public void do02AddToHashMap(StateValues state, MemoryCounters counters) {
+        // Add to Hash Map
+        state.hashMap0.put("KenF", "KenF");
+    }
+
+    @Benchmark
+    public void do03HashMapSearch(StateValues state, MemoryCounters counters) {
+        // Find SEARCH_SIZE elements in HashMap
+        while (state.it.hasNext()) {
+            state.string = state.hashMap0.get(state.it.next());
+        }
+    }
+
+    @Benchmark
+    public void do04LoadOffHeapMap(StateValues state, MemoryCounters counters) {
+        // Load Data
+        for (int x = 0; x < state.size; ++x) {
+            state.offHeapMap1.put(state.dataArray[x], state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    public void do05AddToOffHeapMap(StateValues state, MemoryCounters counters) {
+        // Add to off heap map
+        state.offHeapMap0.put("KenF", "KenF");
+    }
+
+    @Benchmark
+    public void do06OffHeapMapSearch(StateValues state, MemoryCounters counters) {
+        // Find SEARCH_SIZE elements in off heap map
+        while (state.it.hasNext()) {
+            state.string = state.offHeapMap0.get(state.it.next());
+        }
+    }
+}
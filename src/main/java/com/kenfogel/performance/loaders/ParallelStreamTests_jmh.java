@@ -0,0 +1,162 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Runs the same bulk operations as a sequential and as a parallel stream
+ * over the words of SequenceTests_jmh and MapTests_jmh held in an
+ * ArrayList, a LinkedList, the values of a HashMap and the values of a
+ * TreeMap. How well a parallel stream does depends on how evenly and how
+ * cheaply the Spliterator of the source splits: an ArrayList splits in
+ * half by index, a LinkedList copies batches of elements into arrays, a
+ * HashMap splits its table and a TreeMap splits its tree.
+ *
+ * A parallel stream runs on the calling thread and the common
+ * ForkJoinPool, whose parallelism is fixed when the JVM starts, so
+ * CollectionPerformanceApp_JMH runs this class once for each number of
+ * threads from 1 to the number of cores, setting
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism to one less, and
+ * reports the speedup and efficiency of each parallel benchmark over its
+ * sequential twin, see SpeedupReport.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ParallelStreamTests_jmh {
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of words, override with -p size=[values]
+         */
+        @Param({"10000", "100000", "1000000"})
+        public int size;
+
+        @Param({"ArrayList", "LinkedList", "HashMap", "TreeMap"})
+        public String source;
+
+        public Collection<String> words;
+
+        /**
+         * Load the words into the source collection. Called once per trial.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            String[] data = WordCorpus.getInstance(size).copyWords();
+            words = switch (source) {
+                case "ArrayList" -> {
+                    List<String> list = new ArrayList<>();
+                    for (String word : data) {
+                        list.add(word);
+                    }
+                    yield list;
+                }
+                case "LinkedList" -> {
+                    List<String> list = new LinkedList<>();
+                    for (String word : data) {
+                        list.add(word);
+                    }
+                    yield list;
+                }
+                case "HashMap" -> {
+                    HashMap<String, String> map = new HashMap<>();
+                    for (String word : data) {
+                        map.put(word, word);
+                    }
+                    yield map.values();
+                }
+                case "TreeMap" -> {
+                    TreeMap<String, String> map = new TreeMap<>();
+                    for (String word : data) {
+                        map.put(word, word);
+                    }
+                    yield map.values();
+                }
+                default ->
+                    throw new IllegalArgumentException("Unknown source " + source);
+            };
+        }
+    }
+
+    /**
+     * A few dozen nanoseconds of work on each word, as in parsing or
+     * scoring it, so that there is something to share between the threads
+     *
+     * @param word
+     * @return a hash of the characters
+     */
+    private static int score(String word) {
+        int score = 0;
+        for (int x = 0; x < word.length(); ++x) {
+            score = 31 * score + Character.toLowerCase(word.charAt(x));
+        }
+        return score;
+    }
+
+    @Benchmark
+    public long do01MapFilterReduceSequential(StateValues state) {
+        return state.words.stream()
+                .mapToInt(ParallelStreamTests_jmh::score)
+                .filter(score -> (score & 1) == 0)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public long do02MapFilterReduceParallel(StateValues state) {
+        return state.words.parallelStream()
+                .mapToInt(ParallelStreamTests_jmh::score)
+                .filter(score -> (score & 1) == 0)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public List<String> do03SortCollectSequential(StateValues state) {
+        return state.words.stream()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> do04SortCollectParallel(StateValues state) {
+        return state.words.parallelStream()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Map<Character, Long> do05GroupCountSequential(StateValues state) {
+        return state.words.stream()
+                .collect(Collectors.groupingBy(word -> word.charAt(0), Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Character, Long> do06GroupCountParallel(StateValues state) {
+        return state.words.parallelStream()
+                .collect(Collectors.groupingBy(word -> word.charAt(0), Collectors.counting()));
+    }
+}
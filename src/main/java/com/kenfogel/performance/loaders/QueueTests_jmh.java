@@ -0,0 +1,305 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kenfogel.performance.workload.HandoffWorkload;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Performs a set of tests to determine how fast queues hand elements from
+ * producer threads to consumer threads. Compares ArrayBlockingQueue,
+ * LinkedBlockingQueue, ConcurrentLinkedQueue, LinkedTransferQueue and the
+ * lock free SpscRingQueue and MpscRingQueue.
+ *
+ * Each group is one configuration: one producer and one consumer, three
+ * producers and one consumer, and two of each. A queue only runs in the
+ * configurations it is safe for, so the SpscRingQueue is only in the first
+ * and the MpscRingQueue is not in the last. The drain groups are the same
+ * configurations with consumers that take up to BATCH elements with
+ * drainTo, see HandoffWorkload.drain.
+ *
+ * Nothing blocks. An offer to a full queue or a poll of an empty one
+ * counts as failed and yields so that the groups still hand off when
+ * there are fewer cores than threads. Every thread counts what it did,
+ * so besides the score of the group, which is every call whether it
+ * succeeded or not, the results have offersMade and pollsMade per unit of
+ * time, and pollsMade is the rate of hand-offs. The producers stop while
+ * more than CAPACITY elements are in flight so that the unbounded queues
+ * stay the same size as the bounded ones.
+ *
+ * The latency of each hand-off is measured by HandoffWorkload, which
+ * CollectionPerformanceApp_JMH.runQueueBenchmark runs after these tests.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class QueueTests_jmh {
+
+    private final static int CAPACITY = HandoffWorkload.DEFAULT_CAPACITY;
+    private final static int BATCH = HandoffWorkload.DEFAULT_BATCH;
+    private final static int PUBLISH_EVERY = 64;
+    private final static Long ELEMENT = 1L;
+
+    /**
+     * The queue shared by the threads of one group and the totals that
+     * keep the number of elements in flight below CAPACITY. Each thread
+     * adds to the totals once every PUBLISH_EVERY elements.
+     */
+    public abstract static class SharedQueue {
+
+        public Queue<Long> queue;
+        public final AtomicLong offered = new AtomicLong();
+        public final AtomicLong taken = new AtomicLong();
+
+        /**
+         * An empty queue for each iteration so that nothing is left over
+         * from the last one
+         *
+         * @param queueType
+         * @param producers the producer threads of the group
+         * @param consumers the consumer threads of the group
+         */
+        protected void create(String queueType, int producers, int consumers) {
+            if (!HandoffWorkload.isSupported(queueType, producers, consumers)) {
+                throw new IllegalArgumentException(queueType + " is not safe with " + producers
+                        + " producers and " + consumers + " consumers");
+            }
+            queue = HandoffWorkload.createQueue(queueType, CAPACITY);
+            offered.set(0);
+            taken.set(0);
+        }
+
+        public void offer(Counters counters) {
+            if (counters.waiting || counters.unpublished == PUBLISH_EVERY) {
+                long total = counters.unpublished == 0 ? offered.get()
+                        : offered.addAndGet(counters.unpublished);
+                long inFlight = total - taken.get();
+                counters.unpublished = 0;
+                counters.waiting = inFlight > CAPACITY;
+                if (counters.waiting) {
+                    failed(counters);
+                    return;
+                }
+            }
+            if (queue.offer(ELEMENT)) {
+                ++counters.offersMade;
+                ++counters.unpublished;
+            } else {
+                failed(counters);
+            }
+        }
+
+        public Long poll(Counters counters) {
+            Long element = queue.poll();
+            if (element == null) {
+                empty(counters);
+            } else {
+                ++counters.pollsMade;
+                taken(counters, 1);
+            }
+            return element;
+        }
+
+        public int drain(Counters counters) {
+            int count = HandoffWorkload.drain(queue, counters.received, BATCH);
+            counters.received.clear();
+            if (count == 0) {
+                empty(counters);
+            } else {
+                counters.pollsMade += count;
+                taken(counters, count);
+            }
+            return count;
+        }
+
+        private static void failed(Counters counters) {
+            ++counters.offersFailed;
+            Thread.yield();
+        }
+
+        private static void empty(Counters counters) {
+            ++counters.pollsFailed;
+            Thread.yield();
+        }
+
+        private void taken(Counters counters, int count) {
+            counters.unpublished += count;
+            if (counters.unpublished >= PUBLISH_EVERY) {
+                taken.addAndGet(counters.unpublished);
+                counters.unpublished = 0;
+            }
+        }
+    }
+
+    /**
+     * The queues that are safe for one producer and one consumer
+     */
+    @State(Scope.Group)
+    public static class OneToOneQueue extends SharedQueue {
+
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "ConcurrentLinkedQueue",
+            "LinkedTransferQueue", "SpscRingQueue", "MpscRingQueue"})
+        public String queueType;
+
+        @Setup(Level.Iteration)
+        public void doCreateQueue() {
+            create(queueType, 1, 1);
+        }
+    }
+
+    /**
+     * The queues that are safe for many producers and one consumer
+     */
+    @State(Scope.Group)
+    public static class ManyToOneQueue extends SharedQueue {
+
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "ConcurrentLinkedQueue",
+            "LinkedTransferQueue", "MpscRingQueue"})
+        public String queueType;
+
+        @Setup(Level.Iteration)
+        public void doCreateQueue() {
+            create(queueType, 3, 1);
+        }
+    }
+
+    /**
+     * The queues that are safe for many producers and many consumers
+     */
+    @State(Scope.Group)
+    public static class ManyToManyQueue extends SharedQueue {
+
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "ConcurrentLinkedQueue",
+            "LinkedTransferQueue"})
+        public String queueType;
+
+        @Setup(Level.Iteration)
+        public void doCreateQueue() {
+            create(queueType, 2, 2);
+        }
+    }
+
+    /**
+     * What one thread did, JMH adds up the public fields of every thread
+     * and reports each as a rate
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long offersMade;
+        public long offersFailed;
+        public long pollsMade;
+        public long pollsFailed;
+
+        private int unpublished;
+        private boolean waiting;
+        private final List<Long> received = new ArrayList<>(BATCH);
+
+        @Setup(Level.Iteration)
+        public void doReset() {
+            offersMade = 0;
+            offersFailed = 0;
+            pollsMade = 0;
+            pollsFailed = 0;
+            unpublished = 0;
+            waiting = false;
+        }
+    }
+
+    @Benchmark
+    @Group("do01OneToOne")
+    @GroupThreads(1)
+    public void do01aOffer(OneToOneQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do01OneToOne")
+    @GroupThreads(1)
+    public Long do01bPoll(OneToOneQueue state, Counters counters) {
+        return state.poll(counters);
+    }
+
+    @Benchmark
+    @Group("do02ManyToOne")
+    @GroupThreads(3)
+    public void do02aOffer(ManyToOneQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do02ManyToOne")
+    @GroupThreads(1)
+    public Long do02bPoll(ManyToOneQueue state, Counters counters) {
+        return state.poll(counters);
+    }
+
+    @Benchmark
+    @Group("do03ManyToMany")
+    @GroupThreads(2)
+    public void do03aOffer(ManyToManyQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do03ManyToMany")
+    @GroupThreads(2)
+    public Long do03bPoll(ManyToManyQueue state, Counters counters) {
+        return state.poll(counters);
+    }
+
+    @Benchmark
+    @Group("do04OneToOneDrain")
+    @GroupThreads(1)
+    public void do04aOffer(OneToOneQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do04OneToOneDrain")
+    @GroupThreads(1)
+    public int do04bDrain(OneToOneQueue state, Counters counters) {
+        return state.drain(counters);
+    }
+
+    @Benchmark
+    @Group("do05ManyToOneDrain")
+    @GroupThreads(3)
+    public void do05aOffer(ManyToOneQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do05ManyToOneDrain")
+    @GroupThreads(1)
+    public int do05bDrain(ManyToOneQueue state, Counters counters) {
+        return state.drain(counters);
+    }
+
+    @Benchmark
+    @Group("do06ManyToManyDrain")
+    @GroupThreads(2)
+    public void do06aOffer(ManyToManyQueue state, Counters counters) {
+        state.offer(counters);
+    }
+
+    @Benchmark
+    @Group("do06ManyToManyDrain")
+    @GroupThreads(2)
+    public int do06bDrain(ManyToManyQueue state, Counters counters) {
+        return state.drain(counters);
+    }
+}
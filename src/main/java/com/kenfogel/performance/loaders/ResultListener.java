@@ -0,0 +1,63 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.function.Supplier;
+
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * Receives the result of each test as soon as it is measured. The Swing
+ * table models accept results this way on the Event Dispatch Thread, a
+ * background worker passes them on to the Event Dispatch Thread.
+ *
+ * A listener that only wants some of the results, such as the command
+ * line runner with a filter, says so with isWanted and the tests it does
+ * not want are not run.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+@FunctionalInterface
+public interface ResultListener {
+
+    /**
+     * @param value nanoseconds per operation, bytes or -1 if not supported
+     * @param row the operation
+     * @param col the data structure
+     */
+    void setResult(long value, int row, int col);
+
+    /**
+     * Receive the full distribution of a timed test. Unless this is
+     * overridden only the median is kept.
+     *
+     * @param timing
+     * @param row the operation
+     * @param col the data structure
+     */
+    default void setTiming(TimingResult timing, int row, int col) {
+        setResult(Math.round(timing.getMedian()), row, col);
+    }
+
+    /**
+     * @param row the operation
+     * @param col the data structure
+     * @return false if the test should be skipped, true unless overridden
+     */
+    default boolean isWanted(int row, int col) {
+        return true;
+    }
+
+    /**
+     * Run a timed test if it is wanted and pass on its result
+     *
+     * @param test
+     * @param row the operation
+     * @param col the data structure
+     */
+    default void measure(Supplier<TimingResult> test, int row, int col) {
+        if (isWanted(row, col)) {
+            setTiming(test.get(), row, col);
+        }
+    }
+}
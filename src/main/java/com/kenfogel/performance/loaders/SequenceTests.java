@@ -1,17 +1,27 @@
 package com.kenfogel.performance.loaders;
 
-import com.butlerpress.dict.Dictionary;
+import com.kenfogel.performance.collections.GapBuffer;
+import com.kenfogel.performance.collections.RingBufferDeque;
+import com.kenfogel.performance.collections.UnrolledLinkedList;
+import com.kenfogel.performance.corpus.WordCorpus;
 import com.kenfogel.performance.models.SequenceSpeedTableModel;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
 
 /**
  * Performs a set of tests to determine the performance of an array, array
- * list, arraydeque, and linked list. Does multiple REPETITIONS on data
- * structures of a given SIZE. Displays the results in a table
+ * list, arraydeque, linked list, unrolled linked list, gap buffer and ring
+ * buffer deque. Each test is timed by a TimingEngine
+ * on data structures of a given size. Displays the results in a table
  *
  * Uses Dictionary.jar Copyright (c) 2004-2007 Scott Willson that generates
  * random words from a set of words derived from a public source
@@ -19,8 +29,8 @@ import java.util.LinkedList;
  * src/main/resources/batch_file is a batch file to add the Dictionary.jar
  * file to your local maven repository.
  *
- * Created a new data structure for each repetition of each test that
- * writes to the data structure.
+ * Created a new data structure for each sample of each test that writes
+ * to the data structure.
  *
  * @author Ken Fogel
  * @version 6.0
@@ -28,13 +38,17 @@ import java.util.LinkedList;
  */
 public class SequenceTests {
 
-    private final static int SIZE = 1000;
-    private final static int REPETITIONS = 1000;
+    public final static int DEFAULT_SIZE = 1000;
+    // removeIf drops roughly half of the elements
+    private final static Predicate<String> REMOVE_IF = word -> (word.hashCode() & 1) == 0;
     private String[] dataArray;
     private SequenceSpeedTableModel sequenceSpeedTableModel = null;
     private ArrayList<String> arrayList0;
-    private long runningTime;
-    private final int pos = SIZE / 2;
+    // Every other word, the argument to retainAll
+    private Set<String> retainSet;
+    private TimingEngine timing;
+    private int size;
+    private int pos;
 
     /**
      * Constructor Receives reference to the table model that will hold the
@@ -44,477 +58,809 @@ public class SequenceTests {
      */
     public SequenceTests(SequenceSpeedTableModel sequenceSpeedTableModel) {
         this.sequenceSpeedTableModel = sequenceSpeedTableModel;
+        timing = new TimingEngine();
+        setSize(DEFAULT_SIZE);
+    }
+
+    /**
+     * Change the number of elements in each data structure and reload the
+     * data
+     *
+     * @param size
+     */
+    public final void setSize(int size) {
+        this.size = size;
+        this.pos = size / 2;
         loadArrays();
     }
 
     /**
-     * Load words from the dictionary into a set to eliminate duplication
-     * and then into an array
+     * @return the number of elements in each data structure
      */
-    public final void loadArrays() {
+    public int getSize() {
+        return size;
+    }
 
-        String string;
+    /**
+     * @param timing the engine that times every test, it decides how long
+     * each test runs for
+     */
+    public void setTimingEngine(TimingEngine timing) {
+        this.timing = timing;
+    }
 
+    /**
+     * Load the unique words from the shared corpus into an array and an
+     * ArrayList
+     */
+    public final void loadArrays() {
         // Load Array
-        dataArray = new String[SIZE];
-        arrayList0 = new ArrayList<>(SIZE * 2);
-
-        HashSet<String> dataSet = new HashSet<>();
-
-        for (int x = 0; x < SIZE; ++x) {
-            do { // This loop will repeat if the random word is not unique
-                string = Dictionary.getRandomWordTermCommonNameOrConnector();
-            } while (!dataSet.add(string));
-            dataArray[x] = string;
-            arrayList0.add(string);
+        dataArray = WordCorpus.getInstance(size).copyWords();
+        arrayList0 = new ArrayList<>(size * 2);
+        arrayList0.addAll(Arrays.asList(dataArray));
+        retainSet = new HashSet<>(size);
+        for (int x = 0; x < size; x += 2) {
+            retainSet.add(dataArray[x]);
         }
     }
 
-    private String[] do02LoadArray() {
-        String[] array1 = new String[SIZE];
-        long startTime, endTime;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
+    private TimingResult do02LoadArray() {
+        String[] array1 = new String[size];
+        return timing.measure(() -> {
             // Load the array
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 array1[x] = dataArray[x];
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return array1;
-    }
-
-    private String do02AccessFirstElementArray() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        String[] array1 = Arrays.copyOf(dataArray, SIZE);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access first element
-            string = array1[0];
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
-    }
-
-    private String do02AccessLastElementArray() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        String[] array1 = Arrays.copyOf(dataArray, SIZE);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access last element
-            string = array1[SIZE - 1];
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
-    }
-
-    private String do02AccessMiddleElementArray() {
-        long startTime, endTime;
-        String string = "";
-        String[] array1 = Arrays.copyOf(dataArray, SIZE);
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access middle element
-            string = array1[pos];
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+            return array1;
+        });
+    }
+
+    private TimingResult do02AccessFirstElementArray() {
+        String[] array1 = Arrays.copyOf(dataArray, size);
+        // Access first element
+        return timing.measure(() -> array1[0]);
+    }
+
+    private TimingResult do02AccessLastElementArray() {
+        String[] array1 = Arrays.copyOf(dataArray, size);
+        // Access last element
+        return timing.measure(() -> array1[size - 1]);
+    }
+
+    private TimingResult do02AccessMiddleElementArray() {
+        String[] array1 = Arrays.copyOf(dataArray, size);
+        // Access middle element
+        return timing.measure(() -> array1[pos]);
     }
 
     /**
      * Perform tests on an array
+     * on the calling thread, the results go straight to the table
      */
     public void doArrayTests() {
+        doArrayTests(sequenceSpeedTableModel::setValueAt);
+    }
 
-        do02LoadArray();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 1);
-        do02AccessFirstElementArray();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 1);
-        do02AccessLastElementArray();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 1);
-        do02AccessMiddleElementArray();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 3, 1);
+    /**
+     * Perform tests on an array
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doArrayTests(ResultListener results) {
+        results.measure(this::do02LoadArray, 0, 1);
+        results.measure(this::do02AccessFirstElementArray, 1, 1);
+        results.measure(this::do02AccessLastElementArray, 2, 1);
+        results.measure(this::do02AccessMiddleElementArray, 3, 1);
 
         // Does not support insert at start
-        sequenceSpeedTableModel.setValueAt(-1L, 4, 1);
+        results.setResult(-1L, 4, 1);
         // Does not support insert at end
-        sequenceSpeedTableModel.setValueAt(-1L, 5, 1);
+        results.setResult(-1L, 5, 1);
         // Does not support insert at middle
-        sequenceSpeedTableModel.setValueAt(-1L, 6, 1);
+        results.setResult(-1L, 6, 1);
+
+        // Does not support removal or bulk mutation
+        for (int row = 7; row <= 12; ++row) {
+            results.setResult(-1L, row, 1);
+        }
     }
 
-    private ArrayList<String> do03LoadArrayList() {
-        long startTime, endTime;
-        ArrayList<String> arrayList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayList1 = new ArrayList<>(SIZE);
-            startTime = System.nanoTime();
+    private TimingResult do03LoadArrayList() {
+        return timing.measure(() -> new ArrayList<String>(size), arrayList1 -> {
             // Load ArrayList
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 arrayList1.add(arrayList0.get(x));
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayList1;
+            return arrayList1;
+        });
     }
 
-    private String do03AccessFirstElementArrayList() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        ArrayList<String> arrayList1 = new ArrayList<>(SIZE * 2);
+    private TimingResult do03AccessFirstElementArrayList() {
+        ArrayList<String> arrayList1 = new ArrayList<>(size * 2);
         arrayList1.addAll(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access first element
-            string = arrayList1.get(0);
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access first element
+        return timing.measure(() -> arrayList1.get(0));
     }
 
-    private String do03AccessLastElementArrayList() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        ArrayList<String> arrayList1 = new ArrayList<>(SIZE * 2);
+    private TimingResult do03AccessLastElementArrayList() {
+        ArrayList<String> arrayList1 = new ArrayList<>(size * 2);
         arrayList1.addAll(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access last element
-            string = arrayList1.get(SIZE - 1);
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access last element
+        return timing.measure(() -> arrayList1.get(size - 1));
     }
 
-    private String do03AccessMiddleElementArrayList() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        ArrayList<String> arrayList1 = new ArrayList<>(SIZE * 2);
+    private TimingResult do03AccessMiddleElementArrayList() {
+        ArrayList<String> arrayList1 = new ArrayList<>(size * 2);
         arrayList1.addAll(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access middle element
-            string = arrayList1.get(pos / 2);
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
-    }
-
-    private ArrayList<String> do03InsertFirstElementArrayList() {
-        long startTime, endTime;
-        ArrayList<String> arrayList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayList1 = new ArrayList<>(SIZE * 2);
-            arrayList1.addAll(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at start
+        // Access middle element
+        return timing.measure(() -> arrayList1.get(pos / 2));
+    }
+
+    private TimingResult do03InsertFirstElementArrayList() {
+        // Insert at start
+        return timing.measure(() -> copyArrayList(), arrayList1 -> {
             arrayList1.addFirst("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayList1;
+            return arrayList1;
+        });
     }
 
-    private ArrayList<String> do03InsertLastElementArrayList() {
-        long startTime, endTime;
-        ArrayList<String> arrayList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayList1 = new ArrayList<>(SIZE * 2);
-            arrayList1.addAll(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at end
-            arrayList1.add("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayList1;
+    private TimingResult do03InsertLastElementArrayList() {
+        // Insert at end
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.add("Dawson College"));
     }
 
-    private ArrayList<String> do03InsertMiddleElementArrayList() {
-        long startTime, endTime;
-        ArrayList<String> arrayList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayList1 = new ArrayList<>(SIZE * 2);
-            arrayList1.addAll(arrayList0);
-            startTime = System.nanoTime();
-            // Insert in middle
+    private TimingResult do03InsertMiddleElementArrayList() {
+        // Insert in middle
+        return timing.measure(() -> copyArrayList(), arrayList1 -> {
             arrayList1.add(pos, "Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayList1;
+            return arrayList1;
+        });
+    }
+
+    private TimingResult do03RemoveFirstElementArrayList() {
+        // Remove from start
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.removeFirst());
+    }
+
+    private TimingResult do03RemoveLastElementArrayList() {
+        // Remove from end
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.removeLast());
+    }
+
+    private TimingResult do03RemoveMiddleElementArrayList() {
+        // Remove from middle
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.remove(pos));
+    }
+
+    private TimingResult do03RemoveIfArrayList() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do03RetainAllArrayList() {
+        // Keep every other word
+        return timing.measure(() -> copyArrayList(), arrayList1 -> arrayList1.retainAll(retainSet));
+    }
+
+    private TimingResult do03SubListClearArrayList() {
+        // Remove the middle half as a range
+        return timing.measure(() -> copyArrayList(), arrayList1 -> {
+            List<String> middle = arrayList1.subList(size / 4, size - size / 4);
+            middle.clear();
+            return arrayList1;
+        });
     }
 
     /**
      * Perform tests on an ArrayList
+     * on the calling thread, the results go straight to the table
      */
     public void doArrayListTests() {
-        do03LoadArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 2);
-        do03AccessFirstElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 2);
-        do03AccessLastElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 2);
-        do03AccessMiddleElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 3, 2);
-        do03InsertFirstElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 4, 2);
-        do03InsertLastElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 5, 2);
-        do03InsertMiddleElementArrayList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 6, 2);
-    }
-
-    private ArrayDeque<String> do04LoadDeque() {
-        long startTime, endTime;
-        ArrayDeque<String> arrayDeque1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayDeque1 = new ArrayDeque<>(SIZE * 2);
-            startTime = System.nanoTime();
+        doArrayListTests(sequenceSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Perform tests on an ArrayList
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doArrayListTests(ResultListener results) {
+        results.measure(this::do03LoadArrayList, 0, 2);
+        results.measure(this::do03AccessFirstElementArrayList, 1, 2);
+        results.measure(this::do03AccessLastElementArrayList, 2, 2);
+        results.measure(this::do03AccessMiddleElementArrayList, 3, 2);
+        results.measure(this::do03InsertFirstElementArrayList, 4, 2);
+        results.measure(this::do03InsertLastElementArrayList, 5, 2);
+        results.measure(this::do03InsertMiddleElementArrayList, 6, 2);
+        results.measure(this::do03RemoveFirstElementArrayList, 7, 2);
+        results.measure(this::do03RemoveLastElementArrayList, 8, 2);
+        results.measure(this::do03RemoveMiddleElementArrayList, 9, 2);
+        results.measure(this::do03RemoveIfArrayList, 10, 2);
+        results.measure(this::do03RetainAllArrayList, 11, 2);
+        results.measure(this::do03SubListClearArrayList, 12, 2);
+    }
+
+    private TimingResult do04LoadDeque() {
+        return timing.measure(() -> new ArrayDeque<String>(size * 2), arrayDeque1 -> {
             // Load ArrayDeque
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 arrayDeque1.add(arrayList0.get(x));
             }
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayDeque1;
+            return arrayDeque1;
+        });
     }
 
-    private String do04AccessFirstElementDeque() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        ArrayDeque<String> arrayDeque1 = new ArrayDeque<>(SIZE * 2);
+    private TimingResult do04AccessFirstElementDeque() {
+        ArrayDeque<String> arrayDeque1 = new ArrayDeque<>(size * 2);
         arrayDeque1.addAll(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access first element
-            string = arrayDeque1.getFirst();
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access first element
+        return timing.measure(() -> arrayDeque1.getFirst());
     }
 
-    private String do04AccessLastElementDeque() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
-        ArrayDeque<String> arrayDeque1 = new ArrayDeque<>(SIZE * 2);
+    private TimingResult do04AccessLastElementDeque() {
+        ArrayDeque<String> arrayDeque1 = new ArrayDeque<>(size * 2);
         arrayDeque1.addAll(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access last element
-            string = arrayDeque1.getLast();
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
-    }
-
-    private ArrayDeque<String> do04InsertFirstElementDeque() {
-        long startTime, endTime;
-        ArrayDeque<String> arrayDeque1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayDeque1 = new ArrayDeque<>(SIZE * 2);
-            arrayDeque1.addAll(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at start
+        // Access last element
+        return timing.measure(() -> arrayDeque1.getLast());
+    }
+
+    private TimingResult do04InsertFirstElementDeque() {
+        // Insert at start
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> {
             arrayDeque1.addFirst("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayDeque1;
+            return arrayDeque1;
+        });
     }
 
-    private ArrayDeque<String> do04InsertLastElementDeque() {
-        long startTime, endTime;
-        ArrayDeque<String> arrayDeque1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            arrayDeque1 = new ArrayDeque<>(SIZE * 2);
-            arrayDeque1.addAll(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at end
+    private TimingResult do04InsertLastElementDeque() {
+        // Insert at end
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> {
             arrayDeque1.addLast("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return arrayDeque1;
+            return arrayDeque1;
+        });
+    }
+
+    private TimingResult do04RemoveFirstElementDeque() {
+        // Remove from start
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> arrayDeque1.removeFirst());
+    }
+
+    private TimingResult do04RemoveLastElementDeque() {
+        // Remove from end
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> arrayDeque1.removeLast());
+    }
+
+    private TimingResult do04RemoveIfDeque() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> arrayDeque1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do04RetainAllDeque() {
+        // Keep every other word
+        return timing.measure(() -> copyArrayDeque(), arrayDeque1 -> arrayDeque1.retainAll(retainSet));
     }
 
     /**
      * Perform tests on an ArrayDeque
+     * on the calling thread, the results go straight to the table
      */
     public void doDequeTests() {
+        doDequeTests(sequenceSpeedTableModel::setValueAt);
+    }
 
-        do04LoadDeque();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 3);
-        do04AccessFirstElementDeque();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 3);
-        do04AccessLastElementDeque();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 3);
+    /**
+     * Perform tests on an ArrayDeque
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doDequeTests(ResultListener results) {
+        results.measure(this::do04LoadDeque, 0, 3);
+        results.measure(this::do04AccessFirstElementDeque, 1, 3);
+        results.measure(this::do04AccessLastElementDeque, 2, 3);
         // Access middle element not supported
-        sequenceSpeedTableModel.setValueAt(-1L, 3, 4);
-        do04InsertFirstElementDeque();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 4, 3);
-        do04InsertLastElementDeque();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 5, 3);
+        results.setResult(-1L, 3, 3);
+        results.measure(this::do04InsertFirstElementDeque, 4, 3);
+        results.measure(this::do04InsertLastElementDeque, 5, 3);
 
         // Does not support insert at middle
-        sequenceSpeedTableModel.setValueAt(-1L, 6, 3);
+        results.setResult(-1L, 6, 3);
+        results.measure(this::do04RemoveFirstElementDeque, 7, 3);
+        results.measure(this::do04RemoveLastElementDeque, 8, 3);
+        // Does not support remove at middle
+        results.setResult(-1L, 9, 3);
+        results.measure(this::do04RemoveIfDeque, 10, 3);
+        results.measure(this::do04RetainAllDeque, 11, 3);
+        // Does not support range removal
+        results.setResult(-1L, 12, 3);
     }
 
-    private LinkedList<String> do05LoadLinkedList() {
-        long startTime, endTime;
-        LinkedList<String> linkedList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            linkedList1 = new LinkedList<>();
-            startTime = System.nanoTime();
+    private TimingResult do05LoadLinkedList() {
+        return timing.measure(LinkedList<String>::new, linkedList1 -> {
             // Load LinkedList
-            for (int x = 0; x < SIZE; ++x) {
+            for (int x = 0; x < size; ++x) {
                 linkedList1.add(arrayList0.get(x));
             }
-            linkedList1 = new LinkedList<>(Arrays.asList(dataArray));
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return linkedList1;
+            return linkedList1;
+        });
     }
 
-    private String do05AccessFirstElementLinkedList() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
+    private TimingResult do05AccessFirstElementLinkedList() {
         LinkedList<String> linkedList1 = new LinkedList<>(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access first element
-            string = linkedList1.getFirst();
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access first element
+        return timing.measure(() -> linkedList1.getFirst());
     }
 
-    private String do05AccessLastElementLinkedList() {
-        long startTime, endTime;
-        String string = "";
-        runningTime = 0;
+    private TimingResult do05AccessLastElementLinkedList() {
         LinkedList<String> linkedList1 = new LinkedList<>(arrayList0);
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access last element
-            string = linkedList1.getLast();
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access last element
+        return timing.measure(() -> linkedList1.getLast());
     }
 
-    private String do05AccessMiddleElementLinkedList() {
-        long startTime, endTime;
-        String string = "";
+    private TimingResult do05AccessMiddleElementLinkedList() {
         LinkedList<String> linkedList1 = new LinkedList<>(arrayList0);
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            startTime = System.nanoTime();
-            // Access middle element
-            string = linkedList1.get(pos);
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return string;
+        // Access middle element
+        return timing.measure(() -> linkedList1.get(pos));
     }
 
-    private LinkedList<String> do05InsertFirstElementLinkedList() {
-        long startTime, endTime;
-        LinkedList<String> linkedList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            linkedList1 = new LinkedList<>(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at start
+    private TimingResult do05InsertFirstElementLinkedList() {
+        // Insert at start
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> {
             linkedList1.addFirst("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return linkedList1;
+            return linkedList1;
+        });
     }
 
-    private LinkedList<String> do05InsertLastElementLinkedList() {
-        long startTime, endTime;
-        LinkedList<String> linkedList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            linkedList1 = new LinkedList<>(arrayList0);
-            startTime = System.nanoTime();
-            // Insert at end
+    private TimingResult do05InsertLastElementLinkedList() {
+        // Insert at end
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> {
             linkedList1.addLast("Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return linkedList1;
+            return linkedList1;
+        });
     }
 
-    private LinkedList<String> do05InsertMiddleElementLinkedList() {
-        long startTime, endTime;
-        LinkedList<String> linkedList1 = null;
-        runningTime = 0;
-        for (int i = 0; i < REPETITIONS; ++i) {
-            linkedList1 = new LinkedList<>(arrayList0);
-            startTime = System.nanoTime();
-            // Insert in middle
+    private TimingResult do05InsertMiddleElementLinkedList() {
+        // Insert in middle
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> {
             linkedList1.add(pos, "Dawson College");
-            endTime = System.nanoTime() - startTime;
-            runningTime += endTime;
-        }
-        return linkedList1;
+            return linkedList1;
+        });
+    }
+
+    private TimingResult do05RemoveFirstElementLinkedList() {
+        // Remove from start
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> linkedList1.removeFirst());
+    }
+
+    private TimingResult do05RemoveLastElementLinkedList() {
+        // Remove from end
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> linkedList1.removeLast());
+    }
+
+    private TimingResult do05RemoveMiddleElementLinkedList() {
+        // Remove from middle
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> linkedList1.remove(pos));
+    }
+
+    private TimingResult do05RemoveIfLinkedList() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> linkedList1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do05RetainAllLinkedList() {
+        // Keep every other word
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> linkedList1.retainAll(retainSet));
+    }
+
+    private TimingResult do05SubListClearLinkedList() {
+        // Remove the middle half as a range
+        return timing.measure(() -> new LinkedList<>(arrayList0), linkedList1 -> {
+            List<String> middle = linkedList1.subList(size / 4, size - size / 4);
+            middle.clear();
+            return linkedList1;
+        });
     }
 
     /**
      * Perform tests on a LinkedList
+     * on the calling thread, the results go straight to the table
      */
     public void doLinkedListTests() {
+        doLinkedListTests(sequenceSpeedTableModel::setValueAt);
+    }
 
-        do05LoadLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 0, 4);
-        do05AccessFirstElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 1, 4);
-        do05AccessLastElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 2, 4);
-        do05AccessMiddleElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 3, 4);
-        do05InsertFirstElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 4, 4);
-        do05InsertLastElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 5, 4);
-        do05InsertMiddleElementLinkedList();
-        sequenceSpeedTableModel.setValueAt(runningTime / REPETITIONS, 6, 4);
+    /**
+     * Perform tests on a LinkedList
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doLinkedListTests(ResultListener results) {
+        results.measure(this::do05LoadLinkedList, 0, 4);
+        results.measure(this::do05AccessFirstElementLinkedList, 1, 4);
+        results.measure(this::do05AccessLastElementLinkedList, 2, 4);
+        results.measure(this::do05AccessMiddleElementLinkedList, 3, 4);
+        results.measure(this::do05InsertFirstElementLinkedList, 4, 4);
+        results.measure(this::do05InsertLastElementLinkedList, 5, 4);
+        results.measure(this::do05InsertMiddleElementLinkedList, 6, 4);
+        results.measure(this::do05RemoveFirstElementLinkedList, 7, 4);
+        results.measure(this::do05RemoveLastElementLinkedList, 8, 4);
+        results.measure(this::do05RemoveMiddleElementLinkedList, 9, 4);
+        results.measure(this::do05RemoveIfLinkedList, 10, 4);
+        results.measure(this::do05RetainAllLinkedList, 11, 4);
+        results.measure(this::do05SubListClearLinkedList, 12, 4);
+    }
+
+    private TimingResult do06LoadUnrolledList() {
+        return timing.measure(UnrolledLinkedList<String>::new, unrolledList1 -> {
+            // Load an UnrolledLinkedList
+            for (int x = 0; x < size; ++x) {
+                unrolledList1.add(arrayList0.get(x));
+            }
+            return unrolledList1;
+        });
+    }
+
+    private TimingResult do06AccessFirstElementUnrolledList() {
+        List<String> unrolledList1 = new UnrolledLinkedList<>(arrayList0);
+        // Access first element
+        return timing.measure(() -> unrolledList1.getFirst());
+    }
+
+    private TimingResult do06AccessLastElementUnrolledList() {
+        List<String> unrolledList1 = new UnrolledLinkedList<>(arrayList0);
+        // Access last element
+        return timing.measure(() -> unrolledList1.getLast());
+    }
+
+    private TimingResult do06AccessMiddleElementUnrolledList() {
+        List<String> unrolledList1 = new UnrolledLinkedList<>(arrayList0);
+        // Access middle element
+        return timing.measure(() -> unrolledList1.get(pos));
+    }
+
+    private TimingResult do06InsertFirstElementUnrolledList() {
+        // Insert at start
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> {
+            unrolledList1.addFirst("Dawson College");
+            return unrolledList1;
+        });
+    }
+
+    private TimingResult do06InsertLastElementUnrolledList() {
+        // Insert at end
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.add("Dawson College"));
+    }
+
+    private TimingResult do06InsertMiddleElementUnrolledList() {
+        // Insert in middle
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> {
+            unrolledList1.add(pos, "Dawson College");
+            return unrolledList1;
+        });
+    }
+
+    private TimingResult do06RemoveFirstElementUnrolledList() {
+        // Remove from start
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.removeFirst());
+    }
+
+    private TimingResult do06RemoveLastElementUnrolledList() {
+        // Remove from end
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.removeLast());
+    }
+
+    private TimingResult do06RemoveMiddleElementUnrolledList() {
+        // Remove from middle
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.remove(pos));
+    }
+
+    private TimingResult do06RemoveIfUnrolledList() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do06RetainAllUnrolledList() {
+        // Keep every other word
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> unrolledList1.retainAll(retainSet));
+    }
+
+    private TimingResult do06SubListClearUnrolledList() {
+        // Remove the middle half as a range
+        return timing.measure(() -> new UnrolledLinkedList<>(arrayList0), unrolledList1 -> {
+            List<String> middle = unrolledList1.subList(size / 4, size - size / 4);
+            middle.clear();
+            return unrolledList1;
+        });
+    }
+
+    /**
+     * Perform tests on an UnrolledLinkedList
+     * on the calling thread, the results go straight to the table
+     */
+    public void doUnrolledListTests() {
+        doUnrolledListTests(sequenceSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Perform tests on an UnrolledLinkedList
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doUnrolledListTests(ResultListener results) {
+        results.measure(this::do06LoadUnrolledList, 0, 5);
+        results.measure(this::do06AccessFirstElementUnrolledList, 1, 5);
+        results.measure(this::do06AccessLastElementUnrolledList, 2, 5);
+        results.measure(this::do06AccessMiddleElementUnrolledList, 3, 5);
+        results.measure(this::do06InsertFirstElementUnrolledList, 4, 5);
+        results.measure(this::do06InsertLastElementUnrolledList, 5, 5);
+        results.measure(this::do06InsertMiddleElementUnrolledList, 6, 5);
+        results.measure(this::do06RemoveFirstElementUnrolledList, 7, 5);
+        results.measure(this::do06RemoveLastElementUnrolledList, 8, 5);
+        results.measure(this::do06RemoveMiddleElementUnrolledList, 9, 5);
+        results.measure(this::do06RemoveIfUnrolledList, 10, 5);
+        results.measure(this::do06RetainAllUnrolledList, 11, 5);
+        results.measure(this::do06SubListClearUnrolledList, 12, 5);
+    }
+
+    private TimingResult do07LoadGapBuffer() {
+        return timing.measure(() -> new GapBuffer<String>(size), gapBuffer1 -> {
+            // Load a GapBuffer
+            for (int x = 0; x < size; ++x) {
+                gapBuffer1.add(arrayList0.get(x));
+            }
+            return gapBuffer1;
+        });
+    }
+
+    private TimingResult do07AccessFirstElementGapBuffer() {
+        List<String> gapBuffer1 = copyGapBuffer();
+        // Access first element
+        return timing.measure(() -> gapBuffer1.getFirst());
+    }
+
+    private TimingResult do07AccessLastElementGapBuffer() {
+        List<String> gapBuffer1 = copyGapBuffer();
+        // Access last element
+        return timing.measure(() -> gapBuffer1.getLast());
+    }
+
+    private TimingResult do07AccessMiddleElementGapBuffer() {
+        List<String> gapBuffer1 = copyGapBuffer();
+        // Access middle element
+        return timing.measure(() -> gapBuffer1.get(pos));
+    }
+
+    private TimingResult do07InsertFirstElementGapBuffer() {
+        // Insert at start
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> {
+            gapBuffer1.addFirst("Dawson College");
+            return gapBuffer1;
+        });
+    }
+
+    private TimingResult do07InsertLastElementGapBuffer() {
+        // Insert at end
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.add("Dawson College"));
+    }
+
+    private TimingResult do07InsertMiddleElementGapBuffer() {
+        // Insert in middle
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> {
+            gapBuffer1.add(pos, "Dawson College");
+            return gapBuffer1;
+        });
+    }
+
+    private TimingResult do07RemoveFirstElementGapBuffer() {
+        // Remove from start
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.removeFirst());
+    }
+
+    private TimingResult do07RemoveLastElementGapBuffer() {
+        // Remove from end
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.removeLast());
+    }
+
+    private TimingResult do07RemoveMiddleElementGapBuffer() {
+        // Remove from middle
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.remove(pos));
+    }
+
+    private TimingResult do07RemoveIfGapBuffer() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do07RetainAllGapBuffer() {
+        // Keep every other word
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> gapBuffer1.retainAll(retainSet));
+    }
+
+    private TimingResult do07SubListClearGapBuffer() {
+        // Remove the middle half as a range
+        return timing.measure(() -> copyGapBuffer(), gapBuffer1 -> {
+            List<String> middle = gapBuffer1.subList(size / 4, size - size / 4);
+            middle.clear();
+            return gapBuffer1;
+        });
+    }
+
+    /**
+     * Perform tests on a GapBuffer
+     * on the calling thread, the results go straight to the table
+     */
+    public void doGapBufferTests() {
+        doGapBufferTests(sequenceSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Perform tests on a GapBuffer
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doGapBufferTests(ResultListener results) {
+        results.measure(this::do07LoadGapBuffer, 0, 6);
+        results.measure(this::do07AccessFirstElementGapBuffer, 1, 6);
+        results.measure(this::do07AccessLastElementGapBuffer, 2, 6);
+        results.measure(this::do07AccessMiddleElementGapBuffer, 3, 6);
+        results.measure(this::do07InsertFirstElementGapBuffer, 4, 6);
+        results.measure(this::do07InsertLastElementGapBuffer, 5, 6);
+        results.measure(this::do07InsertMiddleElementGapBuffer, 6, 6);
+        results.measure(this::do07RemoveFirstElementGapBuffer, 7, 6);
+        results.measure(this::do07RemoveLastElementGapBuffer, 8, 6);
+        results.measure(this::do07RemoveMiddleElementGapBuffer, 9, 6);
+        results.measure(this::do07RemoveIfGapBuffer, 10, 6);
+        results.measure(this::do07RetainAllGapBuffer, 11, 6);
+        results.measure(this::do07SubListClearGapBuffer, 12, 6);
+    }
+
+    private TimingResult do08LoadRingDeque() {
+        return timing.measure(() -> new RingBufferDeque<String>(size), ringDeque1 -> {
+            // Load a RingBufferDeque
+            for (int x = 0; x < size; ++x) {
+                ringDeque1.add(arrayList0.get(x));
+            }
+            return ringDeque1;
+        });
+    }
+
+    private TimingResult do08AccessFirstElementRingDeque() {
+        List<String> ringDeque1 = copyRingDeque();
+        // Access first element
+        return timing.measure(() -> ringDeque1.getFirst());
+    }
+
+    private TimingResult do08AccessLastElementRingDeque() {
+        List<String> ringDeque1 = copyRingDeque();
+        // Access last element
+        return timing.measure(() -> ringDeque1.getLast());
+    }
+
+    private TimingResult do08AccessMiddleElementRingDeque() {
+        List<String> ringDeque1 = copyRingDeque();
+        // Access middle element
+        return timing.measure(() -> ringDeque1.get(pos));
+    }
+
+    private TimingResult do08InsertFirstElementRingDeque() {
+        // Insert at start
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> {
+            ringDeque1.addFirst("Dawson College");
+            return ringDeque1;
+        });
+    }
+
+    private TimingResult do08InsertLastElementRingDeque() {
+        // Insert at end
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.add("Dawson College"));
+    }
+
+    private TimingResult do08InsertMiddleElementRingDeque() {
+        // Insert in middle
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> {
+            ringDeque1.add(pos, "Dawson College");
+            return ringDeque1;
+        });
+    }
+
+    private TimingResult do08RemoveFirstElementRingDeque() {
+        // Remove from start
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.removeFirst());
+    }
+
+    private TimingResult do08RemoveLastElementRingDeque() {
+        // Remove from end
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.removeLast());
+    }
+
+    private TimingResult do08RemoveMiddleElementRingDeque() {
+        // Remove from middle
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.remove(pos));
+    }
+
+    private TimingResult do08RemoveIfRingDeque() {
+        // Remove about half of the elements in one pass
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.removeIf(REMOVE_IF));
+    }
+
+    private TimingResult do08RetainAllRingDeque() {
+        // Keep every other word
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> ringDeque1.retainAll(retainSet));
+    }
+
+    private TimingResult do08SubListClearRingDeque() {
+        // Remove the middle half as a range
+        return timing.measure(() -> copyRingDeque(), ringDeque1 -> {
+            List<String> middle = ringDeque1.subList(size / 4, size - size / 4);
+            middle.clear();
+            return ringDeque1;
+        });
+    }
+
+    /**
+     * Perform tests on a RingBufferDeque
+     * on the calling thread, the results go straight to the table
+     */
+    public void doRingDequeTests() {
+        doRingDequeTests(sequenceSpeedTableModel::setValueAt);
+    }
+
+    /**
+     * Perform tests on a RingBufferDeque
+     *
+     * @param results receives each result as it is measured
+     */
+    public void doRingDequeTests(ResultListener results) {
+        results.measure(this::do08LoadRingDeque, 0, 7);
+        results.measure(this::do08AccessFirstElementRingDeque, 1, 7);
+        results.measure(this::do08AccessLastElementRingDeque, 2, 7);
+        results.measure(this::do08AccessMiddleElementRingDeque, 3, 7);
+        results.measure(this::do08InsertFirstElementRingDeque, 4, 7);
+        results.measure(this::do08InsertLastElementRingDeque, 5, 7);
+        results.measure(this::do08InsertMiddleElementRingDeque, 6, 7);
+        results.measure(this::do08RemoveFirstElementRingDeque, 7, 7);
+        results.measure(this::do08RemoveLastElementRingDeque, 8, 7);
+        results.measure(this::do08RemoveMiddleElementRingDeque, 9, 7);
+        results.measure(this::do08RemoveIfRingDeque, 10, 7);
+        results.measure(this::do08RetainAllRingDeque, 11, 7);
+        results.measure(this::do08SubListClearRingDeque, 12, 7);
+    }
+
+    /**
+     * @return a copy of the data with room to grow so that an insert does
+     * not have to resize it
+     */
+    private ArrayList<String> copyArrayList() {
+        ArrayList<String> arrayList1 = new ArrayList<>(size * 2);
+        arrayList1.addAll(arrayList0);
+        return arrayList1;
+    }
+
+    /**
+     * @return a copy of the data with room to grow
+     */
+    private ArrayDeque<String> copyArrayDeque() {
+        ArrayDeque<String> arrayDeque1 = new ArrayDeque<>(size * 2);
+        arrayDeque1.addAll(arrayList0);
+        return arrayDeque1;
+    }
+
+    /**
+     * @return a copy of the data with the gap after it, as wide as the data,
+     * so that an insert does not have to resize it
+     */
+    private GapBuffer<String> copyGapBuffer() {
+        GapBuffer<String> gapBuffer1 = new GapBuffer<>(size * 2);
+        gapBuffer1.addAll(arrayList0);
+        return gapBuffer1;
+    }
+
+    /**
+     * @return a copy of the data with room to grow so that an insert does
+     * not have to resize it
+     */
+    private RingBufferDeque<String> copyRingDeque() {
+        RingBufferDeque<String> ringDeque1 = new RingBufferDeque<>(size * 2);
+        ringDeque1.addAll(arrayList0);
+        return ringDeque1;
     }
 }
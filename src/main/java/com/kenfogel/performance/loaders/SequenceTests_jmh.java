@@ -1,20 +1,28 @@
 package com.kenfogel.performance.loaders;
 
 import java.util.*;
+import java.util.function.Predicate;
 
-import com.butlerpress.dict.Dictionary;
+import com.kenfogel.performance.collections.GapBuffer;
+import com.kenfogel.performance.collections.RingBufferDeque;
+import com.kenfogel.performance.collections.UnrolledLinkedList;
+import com.kenfogel.performance.corpus.WordCorpus;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
 
 /**
  * Rewritten to be able to do the benchmark internally for the Swing
  * display or by using Java Microbenchmark Harness
  *
  * Performs a set of tests to determine the performance of an array, array
- * list, arraydeque, and linked list. Does multiple REPETITIONS on data
+ * list, arraydeque, linked list, unrolled linked list, gap buffer and ring
+ * buffer deque. Does multiple REPETITIONS on data
  * structures of a given SIZE. Displays the results in a table
  *
  * Uses Dictionary.jar Copyright (c) 2004-2007 Scott Willson that generates
@@ -23,8 +31,19 @@ import org.openjdk.jmh.annotations.State;
  * src/main/resources/batch_file is a batch file to add the Dictionary.jar
  * file to your local maven repository.
  *
- * Creates a new data structure for each repetition of each test that
- * writes to the data structure.
+ * The remove benchmarks put the removed element back after each call and
+ * the bulk removals refill the structure from the data. For the linked
+ * list and the unrolled list the undo allocates nodes, which the gc
+ * profiler adds to the bytes per operation of the benchmark, see
+ * StateValues.doUndoChange.
+ *
+ * The undo of a change to the gap buffer also moves its gap back to the
+ * end, where a buffer loaded from the data has it, so every invocation
+ * pays for moving the gap to the position of the change as it does in the
+ * Swing tests.
+ *
+ * The Load benchmarks also report the heap retained by the structure they
+ * fill as secondary results, see FootprintCounters.
  *
  * @author Ken Fogel
  * @version 6.0
@@ -34,8 +53,6 @@ import org.openjdk.jmh.annotations.State;
 // @State(Scope.Benchmark)
 public class SequenceTests_jmh {
 
-    private final static int SIZE = 1000;
-
     /**
      * A static class with this annotation performs any tasks that should
      * be performed either before or after tests. To avoid constant folding
@@ -60,52 +77,240 @@ public class SequenceTests_jmh {
         public LinkedList<String> linkedList0;
         public LinkedList<String> linkedList1;
 
+        public UnrolledLinkedList<String> unrolledList0;
+        public UnrolledLinkedList<String> unrolledList1;
+
+        public GapBuffer<String> gapBuffer0;
+        public GapBuffer<String> gapBuffer1;
+
+        public RingBufferDeque<String> ringDeque0;
+        public RingBufferDeque<String> ringDeque1;
+
         public long startTime, endTime;
         public long runningTime;
 
-        public final int pos = SIZE / 2;
-        public final int capacity = SIZE * 2;
+        /**
+         * The number of elements in each data structure. JMH runs every
+         * benchmark once for each value, override with -p size=[values].
+         * The largest sizes need a larger heap such as -Xmx8g.
+         */
+        @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        public int pos;
+        public int capacity;
+
+        // removeIf drops roughly half of the elements
+        public Predicate<String> removeIf;
+        // Every other word, the argument to retainAll
+        public Set<String> retainSet;
+
+        private Runnable undo;
 
         /**
-         * Load words from the dictionary into a set to eliminate
-         * duplication and then into an array. Declare and initialize the
-         * state variables for the benchmark methods. This method is called
-         * for every iteration/invocation
+         * Load the unique words from the shared corpus into an array and
+         * then into each data structure. The corpus is built from the
+         * dictionary once and cached so this is only called once per trial.
+         *
+         * @param params describes the benchmark that is about to run
          */
-        @Setup(Level.Invocation)
-        public void doLoadDataSet() {
-            // Load Array
-            dataArray = new String[SIZE];
-            array0 = new String[SIZE];
-            array1 = new String[SIZE];
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            pos = size / 2;
+            capacity = size * 2;
+            dataArray = WordCorpus.getInstance(size).copyWords();
+            array0 = Arrays.copyOf(dataArray, size);
+            array1 = new String[size];
+
+            List<String> dataList = Arrays.asList(dataArray);
 
             arrayList0 = new ArrayList<>(capacity);
+            arrayList0.addAll(dataList);
             arrayList1 = new ArrayList<>(capacity);
 
-            arrayDeque0 = new ArrayDeque(capacity);
-            arrayDeque1 = new ArrayDeque(capacity);
+            arrayDeque0 = new ArrayDeque<>(capacity);
+            arrayDeque0.addAll(dataList);
+            arrayDeque1 = new ArrayDeque<>(capacity);
 
-            linkedList0 = new LinkedList<>();
+            linkedList0 = new LinkedList<>(dataList);
             linkedList1 = new LinkedList<>();
 
-            HashSet<String> dataSet = new HashSet<>();
-            for (int x = 0; x < SIZE; ++x) {
-                do { // This loop will repeat if the random word is not unique
-                    string = Dictionary.getRandomWordTermCommonNameOrConnector();
-                } while (!dataSet.add(string));
-                dataArray[x] = string;
-                array0[x] = string;
-                arrayList0.add(string);
-                arrayDeque0.add(string);
-                linkedList0.add(string);
+            unrolledList0 = new UnrolledLinkedList<>(dataList);
+            unrolledList1 = new UnrolledLinkedList<>();
+
+            gapBuffer0 = new GapBuffer<>(capacity);
+            gapBuffer0.addAll(dataList);
+            gapBuffer1 = new GapBuffer<>(capacity);
+
+            ringDeque0 = new RingBufferDeque<>(capacity);
+            ringDeque0.addAll(dataList);
+            ringDeque1 = new RingBufferDeque<>(capacity);
+
+            removeIf = word -> (word.hashCode() & 1) == 0;
+            retainSet = new HashSet<>(size);
+            for (int x = 0; x < size; x += 2) {
+                retainSet.add(dataArray[x]);
             }
+
+            String benchmark = params.getBenchmark();
+            undo = switch (benchmark.substring(benchmark.lastIndexOf('.') + 1)) {
+                case "do03aLoadArrayList" ->
+                    arrayList1::clear;
+                case "do03eInsertFirstElementArrayList" ->
+                    arrayList0::removeFirst;
+                case "do03fInsertLastElementArrayList" ->
+                    arrayList0::removeLast;
+                case "do03gInsertMiddleElementArrayList" ->
+                    () -> arrayList0.remove(pos);
+                case "do03hRemoveFirstElementArrayList" ->
+                    () -> arrayList0.addFirst(string);
+                case "do03iRemoveLastElementArrayList" ->
+                    () -> arrayList0.addLast(string);
+                case "do03jRemoveMiddleElementArrayList" ->
+                    () -> arrayList0.add(pos, string);
+                case "do03kRemoveIfArrayList", "do03lRetainAllArrayList",
+                        "do03mSubListClearArrayList" ->
+                    () -> refill(arrayList0);
+                case "do04aLoadDeque" ->
+                    arrayDeque1::clear;
+                case "do04dInsertFirstElementDeque" ->
+                    arrayDeque0::removeFirst;
+                case "do04eInsertLastElementDeque" ->
+                    arrayDeque0::removeLast;
+                case "do04fRemoveFirstElementDeque" ->
+                    () -> arrayDeque0.addFirst(string);
+                case "do04gRemoveLastElementDeque" ->
+                    () -> arrayDeque0.addLast(string);
+                case "do04hRemoveIfDeque", "do04iRetainAllDeque" ->
+                    () -> refill(arrayDeque0);
+                case "do05aLoadLinkedList" ->
+                    linkedList1::clear;
+                case "do05eInsertFirstElementLinkedList" ->
+                    linkedList0::removeFirst;
+                case "do05fInsertLastElementLinkedList" ->
+                    linkedList0::removeLast;
+                case "do05gInsertMiddleElementLinkedList" ->
+                    () -> linkedList0.remove(pos);
+                case "do05hRemoveFirstElementLinkedList" ->
+                    () -> linkedList0.addFirst(string);
+                case "do05iRemoveLastElementLinkedList" ->
+                    () -> linkedList0.addLast(string);
+                case "do05jRemoveMiddleElementLinkedList" ->
+                    () -> linkedList0.add(pos, string);
+                case "do05kRemoveIfLinkedList", "do05lRetainAllLinkedList",
+                        "do05mSubListClearLinkedList" ->
+                    () -> refill(linkedList0);
+                case "do06aLoadUnrolledList" ->
+                    unrolledList1::clear;
+                case "do06eInsertFirstElementUnrolledList" ->
+                    unrolledList0::removeFirst;
+                case "do06fInsertLastElementUnrolledList" ->
+                    unrolledList0::removeLast;
+                case "do06gInsertMiddleElementUnrolledList" ->
+                    () -> unrolledList0.remove(pos);
+                case "do06hRemoveFirstElementUnrolledList" ->
+                    () -> unrolledList0.addFirst(string);
+                case "do06iRemoveLastElementUnrolledList" ->
+                    () -> unrolledList0.addLast(string);
+                case "do06jRemoveMiddleElementUnrolledList" ->
+                    () -> unrolledList0.add(pos, string);
+                case "do06kRemoveIfUnrolledList", "do06lRetainAllUnrolledList",
+                        "do06mSubListClearUnrolledList" ->
+                    () -> refill(unrolledList0);
+                case "do07aLoadGapBuffer" ->
+                    gapBuffer1::clear;
+                case "do07eInsertFirstElementGapBuffer" ->
+                    () -> {
+                        gapBuffer0.removeFirst();
+                        moveGapToEnd();
+                    };
+                case "do07fInsertLastElementGapBuffer" ->
+                    gapBuffer0::removeLast;
+                case "do07gInsertMiddleElementGapBuffer" ->
+                    () -> {
+                        gapBuffer0.remove(pos);
+                        moveGapToEnd();
+                    };
+                case "do07hRemoveFirstElementGapBuffer" ->
+                    () -> {
+                        gapBuffer0.addFirst(string);
+                        moveGapToEnd();
+                    };
+                case "do07iRemoveLastElementGapBuffer" ->
+                    () -> gapBuffer0.addLast(string);
+                case "do07jRemoveMiddleElementGapBuffer" ->
+                    () -> {
+                        gapBuffer0.add(pos, string);
+                        moveGapToEnd();
+                    };
+                case "do07kRemoveIfGapBuffer", "do07lRetainAllGapBuffer",
+                        "do07mSubListClearGapBuffer" ->
+                    () -> refill(gapBuffer0);
+                case "do08aLoadRingDeque" ->
+                    ringDeque1::clear;
+                case "do08eInsertFirstElementRingDeque" ->
+                    ringDeque0::removeFirst;
+                case "do08fInsertLastElementRingDeque" ->
+                    ringDeque0::removeLast;
+                case "do08gInsertMiddleElementRingDeque" ->
+                    () -> ringDeque0.remove(pos);
+                case "do08hRemoveFirstElementRingDeque" ->
+                    () -> ringDeque0.addFirst(string);
+                case "do08iRemoveLastElementRingDeque" ->
+                    () -> ringDeque0.addLast(string);
+                case "do08jRemoveMiddleElementRingDeque" ->
+                    () -> ringDeque0.add(pos, string);
+                case "do08kRemoveIfRingDeque", "do08lRetainAllRingDeque",
+                        "do08mSubListClearRingDeque" ->
+                    () -> refill(ringDeque0);
+                default ->
+                    () -> {
+                    };
+            };
+        }
+
+        /**
+         * Undo the change made by the benchmark that was just called so that
+         * the next invocation starts with the same data. The gc profiler
+         * counts what the undo allocates as part of the benchmark. The undo
+         * of the array based structures allocates nothing because they have
+         * room for twice the data, so their bytes per operation belong to
+         * the benchmark alone. Putting back an element of the linked list
+         * allocates a node and so may putting one back into the unrolled
+         * list, and refilling either allocates all of its nodes, so the
+         * bytes per operation of do05h, do05j, do05k to do05m, do06h, do06j
+         * and do06k to do06m include the undo.
+         */
+        @TearDown(Level.Invocation)
+        public void doUndoChange() {
+            undo.run();
+        }
+
+        /**
+         * Put the data back into a structure after a bulk removal. The words
+         * are added one at a time, addAll would first copy them to an array.
+         */
+        private void refill(Collection<String> structure) {
+            structure.clear();
+            for (String word : dataArray) {
+                structure.add(word);
+            }
+        }
+
+        /**
+         * An add and a removal at the end leave the gap of gapBuffer0 after
+         * the last element
+         */
+        private void moveGapToEnd() {
+            gapBuffer0.add(string);
+            gapBuffer0.removeLast();
         }
     }
 
     @Benchmark
-    public void do02aLoadArray(StateValues state) {
+    public void do02aLoadArray(StateValues state, FootprintCounters footprint) {
         // Load Array
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.array1[x] = state.dataArray[x];
         }
     }
@@ -119,7 +324,7 @@ public class SequenceTests_jmh {
     @Benchmark
     public void do02cAccessLastElementArray(StateValues state) {
         // Access last element
-        state.string = state.array0[SIZE - 1];
+        state.string = state.array0[state.size - 1];
     }
 
     @Benchmark
@@ -129,9 +334,9 @@ public class SequenceTests_jmh {
     }
 
     @Benchmark
-    public void do03aLoadArrayList(StateValues state) {
+    public void do03aLoadArrayList(StateValues state, FootprintCounters footprint) {
         // Load ArrayList
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.arrayList1.add(state.dataArray[x]);
         }
     }
@@ -145,7 +350,7 @@ public class SequenceTests_jmh {
     @Benchmark
     public void do03cAccessLastElementArrayList(StateValues state) {
         // Access last element
-        state.string = state.arrayList0.get(SIZE - 1);
+        state.string = state.arrayList0.get(state.size - 1);
     }
 
     @Benchmark
@@ -173,9 +378,45 @@ public class SequenceTests_jmh {
     }
 
     @Benchmark
-    public void do04aLoadDeque(StateValues state) {
+    public void do03hRemoveFirstElementArrayList(StateValues state) {
+        // Remove from start
+        state.string = state.arrayList0.removeFirst();
+    }
+
+    @Benchmark
+    public void do03iRemoveLastElementArrayList(StateValues state) {
+        // Remove from end
+        state.string = state.arrayList0.removeLast();
+    }
+
+    @Benchmark
+    public void do03jRemoveMiddleElementArrayList(StateValues state) {
+        // Remove from middle
+        state.string = state.arrayList0.remove(state.pos);
+    }
+
+    @Benchmark
+    public void do03kRemoveIfArrayList(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.arrayList0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do03lRetainAllArrayList(StateValues state) {
+        // Keep every other word
+        state.arrayList0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do03mSubListClearArrayList(StateValues state) {
+        // Remove the middle half as a range
+        state.arrayList0.subList(state.size / 4, state.size - state.size / 4).clear();
+    }
+
+    @Benchmark
+    public void do04aLoadDeque(StateValues state, FootprintCounters footprint) {
         // Load ArrayDeque
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.arrayDeque1.add(state.dataArray[x]);
         }
     }
@@ -205,9 +446,33 @@ public class SequenceTests_jmh {
     }
 
     @Benchmark
-    public void do05aLoadLinkedList(StateValues state) {
+    public void do04fRemoveFirstElementDeque(StateValues state) {
+        // Remove from start
+        state.string = state.arrayDeque0.removeFirst();
+    }
+
+    @Benchmark
+    public void do04gRemoveLastElementDeque(StateValues state) {
+        // Remove from end
+        state.string = state.arrayDeque0.removeLast();
+    }
+
+    @Benchmark
+    public void do04hRemoveIfDeque(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.arrayDeque0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do04iRetainAllDeque(StateValues state) {
+        // Keep every other word
+        state.arrayDeque0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do05aLoadLinkedList(StateValues state, FootprintCounters footprint) {
         // Load LinkedList
-        for (int x = 0; x < SIZE; ++x) {
+        for (int x = 0; x < state.size; ++x) {
             state.linkedList1.add(state.dataArray[x]);
         }
     }
@@ -246,4 +511,280 @@ public class SequenceTests_jmh {
         // Insert in the middle
         state.linkedList0.add(state.pos, "Dawson College");
     }
+
+    @Benchmark
+    public void do05hRemoveFirstElementLinkedList(StateValues state) {
+        // Remove from start
+        state.string = state.linkedList0.removeFirst();
+    }
+
+    @Benchmark
+    public void do05iRemoveLastElementLinkedList(StateValues state) {
+        // Remove from end
+        state.string = state.linkedList0.removeLast();
+    }
+
+    @Benchmark
+    public void do05jRemoveMiddleElementLinkedList(StateValues state) {
+        // Remove from middle
+        state.string = state.linkedList0.remove(state.pos);
+    }
+
+    @Benchmark
+    public void do05kRemoveIfLinkedList(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.linkedList0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do05lRetainAllLinkedList(StateValues state) {
+        // Keep every other word
+        state.linkedList0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do05mSubListClearLinkedList(StateValues state) {
+        // Remove the middle half as a range
+        state.linkedList0.subList(state.size / 4, state.size - state.size / 4).clear();
+    }
+
+    @Benchmark
+    public void do06aLoadUnrolledList(StateValues state, FootprintCounters footprint) {
+        // Load UnrolledLinkedList
+        for (int x = 0; x < state.size; ++x) {
+            state.unrolledList1.add(state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    public void do06bAccessFirstElementUnrolledList(StateValues state) {
+        // Access first element
+        state.string = state.unrolledList0.getFirst();
+    }
+
+    @Benchmark
+    public void do06cAccessLastElementUnrolledList(StateValues state) {
+        // Access last element
+        state.string = state.unrolledList0.getLast();
+    }
+
+    @Benchmark
+    public void do06dAccessMiddleElementUnrolledList(StateValues state) {
+        // Access middle element
+        state.string = state.unrolledList0.get(state.pos);
+    }
+
+    @Benchmark
+    public void do06eInsertFirstElementUnrolledList(StateValues state) {
+        // Insert at start
+        state.unrolledList0.addFirst("Dawson College");
+    }
+
+    @Benchmark
+    public void do06fInsertLastElementUnrolledList(StateValues state) {
+        // Insert at end
+        state.unrolledList0.addLast("Dawson College");
+    }
+
+    @Benchmark
+    public void do06gInsertMiddleElementUnrolledList(StateValues state) {
+        // Insert in middle
+        state.unrolledList0.add(state.pos, "Dawson College");
+    }
+
+    @Benchmark
+    public void do06hRemoveFirstElementUnrolledList(StateValues state) {
+        // Remove from start
+        state.string = state.unrolledList0.removeFirst();
+    }
+
+    @Benchmark
+    public void do06iRemoveLastElementUnrolledList(StateValues state) {
+        // Remove from end
+        state.string = state.unrolledList0.removeLast();
+    }
+
+    @Benchmark
+    public void do06jRemoveMiddleElementUnrolledList(StateValues state) {
+        // Remove from middle
+        state.string = state.unrolledList0.remove(state.pos);
+    }
+
+    @Benchmark
+    public void do06kRemoveIfUnrolledList(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.unrolledList0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do06lRetainAllUnrolledList(StateValues state) {
+        // Keep every other word
+        state.unrolledList0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do06mSubListClearUnrolledList(StateValues state) {
+        // Remove the middle half as a range
+        state.unrolledList0.subList(state.size / 4, state.size - state.size / 4).clear();
+    }
+
+    @Benchmark
+    public void do07aLoadGapBuffer(StateValues state, FootprintCounters footprint) {
+        // Load GapBuffer
+        for (int x = 0; x < state.size; ++x) {
+            state.gapBuffer1.add(state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    public void do07bAccessFirstElementGapBuffer(StateValues state) {
+        // Access first element
+        state.string = state.gapBuffer0.getFirst();
+    }
+
+    @Benchmark
+    public void do07cAccessLastElementGapBuffer(StateValues state) {
+        // Access last element
+        state.string = state.gapBuffer0.getLast();
+    }
+
+    @Benchmark
+    public void do07dAccessMiddleElementGapBuffer(StateValues state) {
+        // Access middle element
+        state.string = state.gapBuffer0.get(state.pos);
+    }
+
+    @Benchmark
+    public void do07eInsertFirstElementGapBuffer(StateValues state) {
+        // Insert at start
+        state.gapBuffer0.addFirst("Dawson College");
+    }
+
+    @Benchmark
+    public void do07fInsertLastElementGapBuffer(StateValues state) {
+        // Insert at end
+        state.gapBuffer0.addLast("Dawson College");
+    }
+
+    @Benchmark
+    public void do07gInsertMiddleElementGapBuffer(StateValues state) {
+        // Insert in middle
+        state.gapBuffer0.add(state.pos, "Dawson College");
+    }
+
+    @Benchmark
+    public void do07hRemoveFirstElementGapBuffer(StateValues state) {
+        // Remove from start
+        state.string = state.gapBuffer0.removeFirst();
+    }
+
+    @Benchmark
+    public void do07iRemoveLastElementGapBuffer(StateValues state) {
+        // Remove from end
+        state.string = state.gapBuffer0.removeLast();
+    }
+
+    @Benchmark
+    public void do07jRemoveMiddleElementGapBuffer(StateValues state) {
+        // Remove from middle
+        state.string = state.gapBuffer0.remove(state.pos);
+    }
+
+    @Benchmark
+    public void do07kRemoveIfGapBuffer(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.gapBuffer0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do07lRetainAllGapBuffer(StateValues state) {
+        // Keep every other word
+        state.gapBuffer0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do07mSubListClearGapBuffer(StateValues state) {
+        // Remove the middle half as a range
+        state.gapBuffer0.subList(state.size / 4, state.size - state.size / 4).clear();
+    }
+
+    @Benchmark
+    public void do08aLoadRingDeque(StateValues state, FootprintCounters footprint) {
+        // Load RingBufferDeque
+        for (int x = 0; x < state.size; ++x) {
+            state.ringDeque1.add(state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    public void do08bAccessFirstElementRingDeque(StateValues state) {
+        // Access first element
+        state.string = state.ringDeque0.getFirst();
+    }
+
+    @Benchmark
+    public void do08cAccessLastElementRingDeque(StateValues state) {
+        // Access last element
+        state.string = state.ringDeque0.getLast();
+    }
+
+    @Benchmark
+    public void do08dAccessMiddleElementRingDeque(StateValues state) {
+        // Access middle element
+        state.string = state.ringDeque0.get(state.pos);
+    }
+
+    @Benchmark
+    public void do08eInsertFirstElementRingDeque(StateValues state) {
+        // Insert at start
+        state.ringDeque0.addFirst("Dawson College");
+    }
+
+    @Benchmark
+    public void do08fInsertLastElementRingDeque(StateValues state) {
+        // Insert at end
+        state.ringDeque0.addLast("Dawson College");
+    }
+
+    @Benchmark
+    public void do08gInsertMiddleElementRingDeque(StateValues state) {
+        // Insert in middle
+        state.ringDeque0.add(state.pos, "Dawson College");
+    }
+
+    @Benchmark
+    public void do08hRemoveFirstElementRingDeque(StateValues state) {
+        // Remove from start
+        state.string = state.ringDeque0.removeFirst();
+    }
+
+    @Benchmark
+    public void do08iRemoveLastElementRingDeque(StateValues state) {
+        // Remove from end
+        state.string = state.ringDeque0.removeLast();
+    }
+
+    @Benchmark
+    public void do08jRemoveMiddleElementRingDeque(StateValues state) {
+        // Remove from middle
+        state.string = state.ringDeque0.remove(state.pos);
+    }
+
+    @Benchmark
+    public void do08kRemoveIfRingDeque(StateValues state) {
+        // Remove about half of the elements in one pass
+        state.ringDeque0.removeIf(state.removeIf);
+    }
+
+    @Benchmark
+    public void do08lRetainAllRingDeque(StateValues state) {
+        // Keep every other word
+        state.ringDeque0.retainAll(state.retainSet);
+    }
+
+    @Benchmark
+    public void do08mSubListClearRingDeque(StateValues state) {
+        // Remove the middle half as a range
+        state.ringDeque0.subList(state.size / 4, state.size - state.size / 4).clear();
+    }
 }
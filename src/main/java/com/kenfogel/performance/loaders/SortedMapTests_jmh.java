@@ -0,0 +1,329 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+
+import com.kenfogel.performance.collections.BTreeMap;
+import com.kenfogel.performance.collections.SortedArrayMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Compares the sorted maps that could back an index on the operations that
+ * are the reason to choose a sorted map over a HashMap: floorKey and
+ * ceilingKey, a scan of the entries between two keys and pollFirstEntry.
+ * The maps are a TreeMap, a ConcurrentSkipListMap, a SortedArrayMap that
+ * binary searches two arrays and a BTreeMap that keeps DEFAULT_ORDER keys
+ * in each node, all loaded with the words of the corpus.
+ *
+ * floorKey and ceilingKey look for a word with a character added so that
+ * the answer is a neighbour and never an exact hit. The score is the time
+ * of one search.
+ *
+ * The scan visits the rangeLength entries that follow a random word and
+ * adds up the length of each value. The score is the time of one scan.
+ *
+ * pollFirstEntry removes the least entry and the teardown puts it back.
+ * The score is the time of one removal, which for the SortedArrayMap
+ * includes shifting every other entry.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class SortedMapTests_jmh {
+
+    private final static int PROBES = 1024;
+    private final static int SCANS = 64;
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of entries in each map, override with -p size=[values]
+         */
+        @Param({"10000", "1000000"})
+        public int size;
+
+        public String[] sortedWords;
+        public String[] probes;
+
+        public TreeMap<String, String> treeMap;
+        public ConcurrentSkipListMap<String, String> skipListMap;
+        public SortedArrayMap sortedArrayMap;
+        public BTreeMap bTreeMap;
+
+        public Map.Entry<String, String> entry;
+        public int checksum;
+        public final BiConsumer<String, String> sink = (key, value) -> checksum += value.length();
+
+        private Runnable undo;
+
+        /**
+         * Load only the map that the benchmark uses, the number after do in
+         * its name, and choose the words to search for. Called once per
+         * trial.
+         *
+         * @param params describes the benchmark that is about to run
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            String[] words = WordCorpus.getInstance(size).copyWords();
+            sortedWords = words.clone();
+            Arrays.sort(sortedWords);
+
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            probes = new String[PROBES];
+            for (int x = 0; x < PROBES; ++x) {
+                probes[x] = words[random.nextInt(size)] + "~";
+            }
+
+            String benchmark = params.getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            switch (method.substring(2, 4)) {
+                case "01" -> {
+                    treeMap = new TreeMap<>();
+                    for (String word : words) {
+                        treeMap.put(word, word);
+                    }
+                    undo = () -> treeMap.put(entry.getKey(), entry.getValue());
+                }
+                case "02" -> {
+                    skipListMap = new ConcurrentSkipListMap<>();
+                    for (String word : words) {
+                        skipListMap.put(word, word);
+                    }
+                    undo = () -> skipListMap.put(entry.getKey(), entry.getValue());
+                }
+                case "03" -> {
+                    TreeMap<String, String> source = new TreeMap<>();
+                    for (String word : words) {
+                        source.put(word, word);
+                    }
+                    sortedArrayMap = new SortedArrayMap(source);
+                    undo = () -> sortedArrayMap.put(entry.getKey(), entry.getValue());
+                }
+                default -> {
+                    bTreeMap = new BTreeMap();
+                    for (String word : words) {
+                        bTreeMap.put(word, word);
+                    }
+                    undo = () -> bTreeMap.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * Put back the entry that pollFirstEntry removed so that the next
+         * invocation starts with the same map
+         */
+        @TearDown(Level.Invocation)
+        public void doUndoChange() {
+            if (entry != null) {
+                undo.run();
+                entry = null;
+            }
+        }
+    }
+
+    /**
+     * The ranges to scan, only the scan benchmarks use this state so only
+     * they are run once for each rangeLength
+     */
+    @State(Scope.Thread)
+    public static class RangeState {
+
+        /**
+         * The number of entries in each scan, override with -p
+         * rangeLength=[values]
+         */
+        @Param({"10", "100", "1000"})
+        public int rangeLength;
+
+        public String[] fromKeys;
+        public String[] toKeys;
+
+        /**
+         * Choose SCANS random words to start from, each scan ends before
+         * the word rangeLength places later. A rangeLength that is not less
+         * than the size, such as with -Dsizes=10, is cut to one less than
+         * the size. Called once per trial.
+         *
+         * @param state holds the sorted words
+         */
+        @Setup(Level.Trial)
+        public void doChooseRanges(StateValues state) {
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            int length = Math.min(rangeLength, state.size - 1);
+            fromKeys = new String[SCANS];
+            toKeys = new String[SCANS];
+            for (int x = 0; x < SCANS; ++x) {
+                int start = random.nextInt(state.size - length);
+                fromKeys[x] = state.sortedWords[start];
+                toKeys[x] = state.sortedWords[start + length];
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do01aFloorKeyTreeMap(StateValues state) {
+        int sum = 0;
+        for (String probe : state.probes) {
+            sum += state.treeMap.floorKey(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do01bCeilingKeyTreeMap(StateValues state) {
+        int found = 0;
+        for (String probe : state.probes) {
+            if (state.treeMap.ceilingKey(probe) != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCANS)
+    public int do01cSubMapScanTreeMap(StateValues state, RangeState range) {
+        for (int x = 0; x < SCANS; ++x) {
+            state.treeMap.subMap(range.fromKeys[x], true, range.toKeys[x], false).forEach(state.sink);
+        }
+        return state.checksum;
+    }
+
+    @Benchmark
+    public void do01dPollFirstEntryTreeMap(StateValues state) {
+        state.entry = state.treeMap.pollFirstEntry();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do02aFloorKeySkipListMap(StateValues state) {
+        int sum = 0;
+        for (String probe : state.probes) {
+            sum += state.skipListMap.floorKey(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do02bCeilingKeySkipListMap(StateValues state) {
+        int found = 0;
+        for (String probe : state.probes) {
+            if (state.skipListMap.ceilingKey(probe) != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCANS)
+    public int do02cSubMapScanSkipListMap(StateValues state, RangeState range) {
+        for (int x = 0; x < SCANS; ++x) {
+            state.skipListMap.subMap(range.fromKeys[x], true, range.toKeys[x], false).forEach(state.sink);
+        }
+        return state.checksum;
+    }
+
+    @Benchmark
+    public void do02dPollFirstEntrySkipListMap(StateValues state) {
+        state.entry = state.skipListMap.pollFirstEntry();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do03aFloorKeySortedArray(StateValues state) {
+        int sum = 0;
+        for (String probe : state.probes) {
+            sum += state.sortedArrayMap.floorKey(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do03bCeilingKeySortedArray(StateValues state) {
+        int found = 0;
+        for (String probe : state.probes) {
+            if (state.sortedArrayMap.ceilingKey(probe) != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCANS)
+    public int do03cSubMapScanSortedArray(StateValues state, RangeState range) {
+        for (int x = 0; x < SCANS; ++x) {
+            state.sortedArrayMap.forEach(range.fromKeys[x], range.toKeys[x], state.sink);
+        }
+        return state.checksum;
+    }
+
+    @Benchmark
+    public void do03dPollFirstEntrySortedArray(StateValues state) {
+        state.entry = state.sortedArrayMap.pollFirstEntry();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do04aFloorKeyBTree(StateValues state) {
+        int sum = 0;
+        for (String probe : state.probes) {
+            sum += state.bTreeMap.floorKey(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int do04bCeilingKeyBTree(StateValues state) {
+        int found = 0;
+        for (String probe : state.probes) {
+            if (state.bTreeMap.ceilingKey(probe) != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCANS)
+    public int do04cSubMapScanBTree(StateValues state, RangeState range) {
+        for (int x = 0; x < SCANS; ++x) {
+            state.bTreeMap.forEach(range.fromKeys[x], range.toKeys[x], state.sink);
+        }
+        return state.checksum;
+    }
+
+    @Benchmark
+    public void do04dPollFirstEntryBTree(StateValues state) {
+        state.entry = state.bTreeMap.pollFirstEntry();
+    }
+}
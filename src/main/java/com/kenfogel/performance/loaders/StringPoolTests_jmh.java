@@ -0,0 +1,169 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import com.kenfogel.performance.collections.StringPoolMap;
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Performs the load and lookup tests of MapTests_jmh on a
+ * HashMap&lt;String, String&gt; and on a StringPoolMap, whose words are
+ * bytes in one array of a StringPool rather than a String object each.
+ *
+ * The Load benchmarks report the heap retained by the map they fill, see
+ * FootprintCounters. The words of a HashMap are counted with it, so the
+ * bytes per element of both maps are what it costs to hold a word as a
+ * key. At the largest sizes the String objects and array headers are
+ * most of the heap of the HashMap.
+ *
+ * The lookups are LOOKUPS words chosen at random, each a new String so
+ * that equals compares the characters as it would for a key read from a
+ * request. The handle lookup finds the handle of the value, the get
+ * lookup also decodes it into a new String as a caller that needs a
+ * String must.
+ *
+ * The footprint of the largest size is measured by walking ten million
+ * entries and the Strings they hold, so every fork is given an 8 GB heap.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+@Fork(jvmArgsAppend = "-Xmx8g")
+public class StringPoolTests_jmh {
+
+    private final static int LOOKUPS = 1 << 16;
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of entries in each map, override with -p size=[values].
+         * The largest size needs the larger heap given to the fork.
+         */
+        @Param({"100000", "1000000", "10000000"})
+        public int size;
+
+        public String[] dataArray;
+        public String[] lookups;
+
+        public HashMap<String, String> hashMap0;
+        public HashMap<String, String> hashMap1;
+        public StringPoolMap poolMap0;
+        public StringPoolMap poolMap1;
+
+        public boolean pooled;
+
+        /**
+         * Load the words from the shared corpus into the map that is
+         * searched, only the kind of map used by the benchmark is made.
+         * Called once per trial.
+         *
+         * @param params describes the benchmark that is about to run
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) {
+            String benchmark = params.getBenchmark();
+            pooled = benchmark.substring(benchmark.lastIndexOf('.') + 1).contains("StringPool");
+            dataArray = WordCorpus.getInstance(size).copyWords();
+            if (pooled) {
+                poolMap0 = new StringPoolMap();
+                for (String word : dataArray) {
+                    poolMap0.put(word, word);
+                }
+            } else {
+                hashMap0 = new HashMap<>();
+                for (String word : dataArray) {
+                    hashMap0.put(word, word);
+                }
+            }
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            lookups = new String[LOOKUPS];
+            for (int x = 0; x < LOOKUPS; ++x) {
+                lookups[x] = new String(dataArray[random.nextInt(size)].toCharArray());
+            }
+        }
+
+        /**
+         * An empty map for the load benchmarks
+         */
+        @Setup(Level.Invocation)
+        public void doResetDataSet() {
+            if (pooled) {
+                poolMap1 = new StringPoolMap();
+            } else {
+                hashMap1 = new HashMap<>();
+            }
+        }
+    }
+
+    @Benchmark
+    public void do01LoadHashMap(StateValues state, FootprintCounters footprint) {
+        // Load Data
+        for (int x = 0; x < state.size; ++x) {
+            state.hashMap1.put(state.dataArray[x], state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do02HashMapLookups(StateValues state) {
+        int hits = 0;
+        for (String key : state.lookups) {
+            if (state.hashMap0.get(key) != null) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public void do03LoadStringPoolMap(StateValues state, FootprintCounters footprint) {
+        // Load Data
+        for (int x = 0; x < state.size; ++x) {
+            state.poolMap1.put(state.dataArray[x], state.dataArray[x]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do04StringPoolMapHandleLookups(StateValues state) {
+        int hits = 0;
+        for (String key : state.lookups) {
+            if (state.poolMap0.getHandle(key) >= 0) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int do05StringPoolMapGetLookups(StateValues state) {
+        // The length of each decoded value is used so it must be made
+        int characters = 0;
+        for (String key : state.lookups) {
+            String value = state.poolMap0.get(key);
+            if (value != null) {
+                characters += value.length();
+            }
+        }
+        return characters;
+    }
+}
@@ -0,0 +1,427 @@
+package com.kenfogel.performance.loaders;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.kenfogel.performance.corpus.WordCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Visits every element of an array, ArrayList, ArrayDeque, LinkedList,
+ * the entrySet of a HashMap and a TreeMap with each way Java offers: an
+ * indexed loop where there is an index, the enhanced for, forEach,
+ * Spliterator.forEachRemaining, a sequential stream and a parallel
+ * stream. Each visit adds up the length of the word so that every String,
+ * not only the reference to it, is read.
+ *
+ * The score is the time of one full traversal. The scaling report that
+ * CollectionPerformanceApp_JMH writes for this class divides it by the
+ * size to give the cost per element and marks the size at which that cost
+ * jumps. The array and ArrayList read their references from one block of
+ * memory while the LinkedList, HashMap and TreeMap follow a pointer to
+ * each node, so once the nodes no longer fit in the caches every step can
+ * be a cache miss, and the difference between the two kinds grows with
+ * the size.
+ *
+ * A LinkedList that is filled by add puts each node next to the one
+ * before it in memory, so walking it reads memory in order and the
+ * prefetcher hides most of the misses. A young collection keeps it that
+ * way, the collector copies the nodes in the order it reaches them, which
+ * is the order of the list. The shuffled LinkedList holds the same words
+ * in the same order but its nodes lie in memory in a random order, so
+ * following next jumps to an unrelated address at every step. The
+ * difference between the two is the cost of the cache misses, which the
+ * perfnorm profiler reports as L1-dcache-load-misses and LLC-load-misses
+ * per operation when it is turned on with -Dperfnorm=true. At a million
+ * words the shuffled list takes more than ten times as long.
+ *
+ * The LinkedList has no indexed loop because get(index) walks from the
+ * nearest end, which makes the loop quadratic and a 10 million element
+ * run would never end.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class TraversalTests_jmh {
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of elements in each data structure, override with -p
+         * size=[values]. The largest size needs a larger heap such as
+         * -Xmx8g.
+         */
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        public String[] array;
+        public ArrayList<String> arrayList;
+        public ArrayDeque<String> arrayDeque;
+        public LinkedList<String> linkedList;
+        public LinkedList<String> shuffledLinkedList;
+        public HashMap<String, String> hashMap;
+        public TreeMap<String, String> treeMap;
+
+        /**
+         * Load only the structure that the benchmark traverses, the number
+         * after do in its name, so the largest size fits in the heap.
+         * Called once per trial.
+         *
+         * @param params describes the benchmark that is about to run
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet(BenchmarkParams params) throws ReflectiveOperationException {
+            String[] words = WordCorpus.getInstance(size).copyWords();
+            String benchmark = params.getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            switch (method.substring(2, 4)) {
+                case "01" ->
+                    array = Arrays.copyOf(words, size);
+                case "02" -> {
+                    arrayList = new ArrayList<>();
+                    arrayList.addAll(Arrays.asList(words));
+                }
+                case "03" -> {
+                    arrayDeque = new ArrayDeque<>();
+                    arrayDeque.addAll(Arrays.asList(words));
+                }
+                case "04" -> {
+                    linkedList = new LinkedList<>();
+                    for (String word : words) {
+                        linkedList.add(word);
+                    }
+                }
+                case "05" -> {
+                    hashMap = new HashMap<>();
+                    for (String word : words) {
+                        hashMap.put(word, word);
+                    }
+                }
+                case "07" ->
+                    shuffledLinkedList = shuffledLinkedList(words);
+                default -> {
+                    treeMap = new TreeMap<>();
+                    for (String word : words) {
+                        treeMap.put(word, word);
+                    }
+                }
+            }
+        }
+
+        /**
+         * A LinkedList of the words in their order whose nodes lie in memory
+         * in a random order. The nodes are made unlinked in a random order
+         * and kept in that order in an array, so a collection that copies
+         * them while they are made reaches them in that order too. A full
+         * collection then moves them to the old generation, which keeps
+         * their order, and only after that are they linked in the order of
+         * the words. No later young collection copies them again.
+         *
+         * The nodes of a LinkedList are private, so the forks of the
+         * benchmarks that use this list open java.util with --add-opens.
+         */
+        private static LinkedList<String> shuffledLinkedList(String[] words)
+                throws ReflectiveOperationException {
+            int[] order = new int[words.length];
+            for (int x = 0; x < order.length; ++x) {
+                order[x] = x;
+            }
+            Random random = new Random(WordCorpus.DEFAULT_SEED);
+            for (int x = order.length - 1; x > 0; --x) {
+                int other = random.nextInt(x + 1);
+                int swap = order[x];
+                order[x] = order[other];
+                order[other] = swap;
+            }
+
+            Class<?> nodeType = Class.forName("java.util.LinkedList$Node");
+            Constructor<?> newNode = nodeType.getDeclaredConstructor(nodeType, Object.class, nodeType);
+            newNode.setAccessible(true);
+            // made[x] is the index in nodes of the node of words[x]
+            Object[] nodes = new Object[words.length];
+            int[] made = new int[words.length];
+            for (int x = 0; x < nodes.length; ++x) {
+                nodes[x] = newNode.newInstance(null, words[order[x]], null);
+                made[order[x]] = x;
+            }
+            System.gc();
+
+            Field next = accessible(nodeType, "next");
+            Field prev = accessible(nodeType, "prev");
+            for (int x = 0; x < words.length; ++x) {
+                Object node = nodes[made[x]];
+                if (x > 0) {
+                    prev.set(node, nodes[made[x - 1]]);
+                }
+                if (x < words.length - 1) {
+                    next.set(node, nodes[made[x + 1]]);
+                }
+            }
+            LinkedList<String> list = new LinkedList<>();
+            if (words.length > 0) {
+                accessible(LinkedList.class, "first").set(list, nodes[made[0]]);
+                accessible(LinkedList.class, "last").set(list, nodes[made[words.length - 1]]);
+                accessible(LinkedList.class, "size").setInt(list, words.length);
+            }
+            return list;
+        }
+
+        private static Field accessible(Class<?> type, String name) throws NoSuchFieldException {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        }
+    }
+
+    @Benchmark
+    public int do01aIndexedArray(StateValues state) {
+        String[] array = state.array;
+        int sum = 0;
+        for (int x = 0; x < array.length; ++x) {
+            sum += array[x].length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do01bEnhancedForArray(StateValues state) {
+        int sum = 0;
+        for (String word : state.array) {
+            sum += word.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do01cSpliteratorArray(StateValues state) {
+        int[] sum = {0};
+        Arrays.spliterator(state.array).forEachRemaining(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do01dStreamArray(StateValues state) {
+        return Arrays.stream(state.array).mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do01eParallelStreamArray(StateValues state) {
+        return Arrays.stream(state.array).parallel().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do02aIndexedArrayList(StateValues state) {
+        ArrayList<String> arrayList = state.arrayList;
+        int sum = 0;
+        for (int x = 0; x < arrayList.size(); ++x) {
+            sum += arrayList.get(x).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do02bEnhancedForArrayList(StateValues state) {
+        int sum = 0;
+        for (String word : state.arrayList) {
+            sum += word.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do02cForEachArrayList(StateValues state) {
+        int[] sum = {0};
+        state.arrayList.forEach(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do02dSpliteratorArrayList(StateValues state) {
+        int[] sum = {0};
+        state.arrayList.spliterator().forEachRemaining(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do02eStreamArrayList(StateValues state) {
+        return state.arrayList.stream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do02fParallelStreamArrayList(StateValues state) {
+        return state.arrayList.parallelStream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do03aEnhancedForDeque(StateValues state) {
+        int sum = 0;
+        for (String word : state.arrayDeque) {
+            sum += word.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do03bForEachDeque(StateValues state) {
+        int[] sum = {0};
+        state.arrayDeque.forEach(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do03cSpliteratorDeque(StateValues state) {
+        int[] sum = {0};
+        state.arrayDeque.spliterator().forEachRemaining(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do03dStreamDeque(StateValues state) {
+        return state.arrayDeque.stream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do03eParallelStreamDeque(StateValues state) {
+        return state.arrayDeque.parallelStream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do04aEnhancedForLinkedList(StateValues state) {
+        int sum = 0;
+        for (String word : state.linkedList) {
+            sum += word.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do04bForEachLinkedList(StateValues state) {
+        int[] sum = {0};
+        state.linkedList.forEach(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do04cSpliteratorLinkedList(StateValues state) {
+        int[] sum = {0};
+        state.linkedList.spliterator().forEachRemaining(word -> sum[0] += word.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do04dStreamLinkedList(StateValues state) {
+        return state.linkedList.stream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do04eParallelStreamLinkedList(StateValues state) {
+        return state.linkedList.parallelStream().mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    public int do05aEnhancedForHashMap(StateValues state) {
+        int sum = 0;
+        for (Map.Entry<String, String> entry : state.hashMap.entrySet()) {
+            sum += entry.getKey().length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do05bForEachHashMap(StateValues state) {
+        int[] sum = {0};
+        state.hashMap.forEach((key, value) -> sum[0] += key.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do05cSpliteratorHashMap(StateValues state) {
+        int[] sum = {0};
+        state.hashMap.entrySet().spliterator().forEachRemaining(entry -> sum[0] += entry.getKey().length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do05dStreamHashMap(StateValues state) {
+        return state.hashMap.entrySet().stream().mapToInt(entry -> entry.getKey().length()).sum();
+    }
+
+    @Benchmark
+    public int do05eParallelStreamHashMap(StateValues state) {
+        return state.hashMap.entrySet().parallelStream().mapToInt(entry -> entry.getKey().length()).sum();
+    }
+
+    @Benchmark
+    public int do06aEnhancedForTreeMap(StateValues state) {
+        int sum = 0;
+        for (Map.Entry<String, String> entry : state.treeMap.entrySet()) {
+            sum += entry.getKey().length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int do06bForEachTreeMap(StateValues state) {
+        int[] sum = {0};
+        state.treeMap.forEach((key, value) -> sum[0] += key.length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do06cSpliteratorTreeMap(StateValues state) {
+        int[] sum = {0};
+        state.treeMap.entrySet().spliterator().forEachRemaining(entry -> sum[0] += entry.getKey().length());
+        return sum[0];
+    }
+
+    @Benchmark
+    public int do06dStreamTreeMap(StateValues state) {
+        return state.treeMap.entrySet().stream().mapToInt(entry -> entry.getKey().length()).sum();
+    }
+
+    @Benchmark
+    public int do06eParallelStreamTreeMap(StateValues state) {
+        return state.treeMap.entrySet().parallelStream().mapToInt(entry -> entry.getKey().length()).sum();
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "--add-opens=java.base/java.util=ALL-UNNAMED")
+    public int do07aEnhancedForShuffledLinkedList(StateValues state) {
+        int sum = 0;
+        for (String word : state.shuffledLinkedList) {
+            sum += word.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "--add-opens=java.base/java.util=ALL-UNNAMED")
+    public int do07bForEachShuffledLinkedList(StateValues state) {
+        int[] sum = {0};
+        state.shuffledLinkedList.forEach(word -> sum[0] += word.length());
+        return sum[0];
+    }
+}
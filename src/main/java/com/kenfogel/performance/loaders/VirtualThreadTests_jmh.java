@@ -0,0 +1,99 @@
+package com.kenfogel.performance.loaders;
+
+import java.util.concurrent.ExecutorService;
+
+import com.kenfogel.performance.workload.ExecutorWorkload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Runs a batch of tasks that share one map or queue on a pool of platform
+ * threads and on a virtual thread per task, see ExecutorWorkload. A miss
+ * loads the key by parking for loadMicros, inside a synchronized block for
+ * the maps so that virtual threads are pinned while they wait.
+ *
+ * The score is the time for every task of the batch to end. The latency of
+ * the tasks and the number of pinned parks are measured by
+ * ExecutorWorkload.run, which CollectionPerformanceApp_JMH runs after these
+ * tests.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class VirtualThreadTests_jmh {
+
+    /**
+     * A static class with this annotation performs any tasks that should
+     * be performed either before or after tests. To avoid constant folding
+     * variables used in a method being benchmarked should come from this
+     * class.
+     */
+    @State(Scope.Thread)
+    public static class StateValues {
+
+        /**
+         * The number of keys in the map, override with -p size=[values]
+         */
+        @Param({"10000"})
+        public int size;
+
+        @Param({"platform", "virtual"})
+        public String executorType;
+
+        @Param({"ConcurrentHashMap", "SynchronizedHashMap", "SynchronizedTreeMap",
+            "ArrayBlockingQueue", "LinkedBlockingQueue"})
+        public String structure;
+
+        /**
+         * The number of tasks in a batch
+         */
+        @Param({"10000", "100000"})
+        public int tasks;
+
+        /**
+         * How long the load of a missing key parks
+         */
+        @Param({"0", "100"})
+        public long loadMicros;
+
+        public ExecutorWorkload workload;
+        public ExecutorService executor;
+        public ExecutorWorkload.Operation operation;
+        public long[] latencies;
+
+        /**
+         * Make the lookups and the executor. Called once per trial.
+         */
+        @Setup(Level.Trial)
+        public void doLoadDataSet() {
+            workload = new ExecutorWorkload(size, tasks, loadMicros);
+            executor = ExecutorWorkload.createExecutor(executorType);
+            latencies = new long[tasks];
+        }
+
+        /**
+         * A new structure for every batch so that each one loads the same
+         * misses
+         */
+        @Setup(Level.Invocation)
+        public void doCreateStructure() {
+            operation = workload.createOperation(structure);
+        }
+
+        @TearDown(Level.Trial)
+        public void doCloseExecutor() {
+            executor.close();
+        }
+    }
+
+    @Benchmark
+    public int do01RunBatch(StateValues state) throws InterruptedException {
+        return state.workload.runBatch(state.executor, state.operation, state.latencies);
+    }
+}
@@ -0,0 +1,91 @@
+package com.kenfogel.performance.models;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table Model for the memory footprint results. Unlike the speed tables
+ * the columns are every structure of both the sequence and the map tests,
+ * and the rows are the bytes and objects each one retains rather than the
+ * time of an operation. The overhead per element is what a structure
+ * costs beyond the words it holds.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+@SuppressWarnings("serial")
+public class FootprintTableModel extends AbstractTableModel {
+
+    private final String[] columnNames = {"", "Array", "ArrayList", "Deque",
+        "Linked List", "Unrolled List", "Gap Buffer", "Ring Deque", "Hash Map", "Tree Map", "String->int", "long->long", "String pool"};
+    private final Object[][] data;
+
+    private final Long zero = Long.valueOf(0);
+
+    public FootprintTableModel() {
+        this.data = new Object[][]{{"Total bytes", 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Bytes per element", 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Overhead per element", 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Objects", 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Objects per element", 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L}};
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public int getRowCount() {
+        return data.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return columnNames[col];
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        return data[row][col];
+    }
+
+    /**
+     * JTable uses this method to determine the default renderer/ editor for
+     * each cell.
+     * @param c
+     * @return 
+     */
+    @Override
+    public Class<? extends Object> getColumnClass(int c) {
+        return getValueAt(0, c).getClass();
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    /**
+     * Used by FootprintTests to fill in a structure once it is measured
+     * @param value
+     * @param row
+     * @param col
+     */
+    @Override
+    public void setValueAt(Object value, int row, int col) {
+        data[row][col] = value;
+        fireTableCellUpdated(row, col);
+    }
+
+    /**
+     * Clear all results in the table
+     */
+    public void clearResults() {
+        for (int x = 0; x < data.length; ++x) {
+            for (int y = 1; y < data[0].length; ++y) {
+                setValueAt(zero, x, y);
+            }
+        }
+    }
+}
@@ -14,13 +14,21 @@ import javax.swing.table.AbstractTableModel;
 @SuppressWarnings("serial")
 public class MapSpeedTableModel extends AbstractTableModel {
 
-    private final String[] columnNames = {"", "Hash Map", "Tree Map"};
+    private final String[] columnNames = {"", "Hash Map", "Tree Map",
+        "String->int", "long->long"};
     private final Object[][] data;
 
     private final Long zero = Long.valueOf(0);
 
     public MapSpeedTableModel() {
-        this.data = new Object[][]{{"Load data", 0L, 0L}, {"Add element", 0L, 0L}, {"Find elements", 0L, 0L}};
+        this.data = new Object[][]{{"Load data", 0L, 0L, 0L, 0L},
+        {"Add element", 0L, 0L, 0L, 0L},
+        {"Find elements", 0L, 0L, 0L, 0L},
+        {"Bytes per entry", 0L, 0L, 0L, 0L},
+        {"Remove element", 0L, 0L, 0L, 0L},
+        {"Compute elements", 0L, 0L, 0L, 0L},
+        {"Merge elements", 0L, 0L, 0L, 0L},
+        {"Put all elements", 0L, 0L, 0L, 0L}};
     }
 
     @Override
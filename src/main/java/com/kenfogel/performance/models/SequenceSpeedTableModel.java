@@ -15,19 +15,25 @@ import javax.swing.table.AbstractTableModel;
 public class SequenceSpeedTableModel extends AbstractTableModel {
 
     private final String[] columnNames = {"", "Array", "ArrayList", "Deque",
-        "Linked List"};
+        "Linked List", "Unrolled List", "Gap Buffer", "Ring Deque"};
     private final Object[][] data;
 
     private final Long zero = Long.valueOf(0);
 
     public SequenceSpeedTableModel() {
-        this.data = new Object[][]{{"Load Data", 0L, 0L, 0L, 0L},
-        {"Access first element", 0L, 0L, 0L, 0L},
-        {"Access last element", 0L, 0L, 0L, 0L},
-        {"Access middle element", 0L, 0L, 0L, 0L},
-        {"Insert at start", 0L, 0L, 0L, 0L},
-        {"Insert at end", 0L, 0L, 0L, 0L},
-        {"Insert in middle", 0L, 0L, 0L, 0L}};
+        this.data = new Object[][]{{"Load Data", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Access first element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Access last element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Access middle element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Insert at start", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Insert at end", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Insert in middle", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Remove first element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Remove last element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Remove middle element", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Remove half", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Retain half", 0L, 0L, 0L, 0L, 0L, 0L, 0L},
+        {"Clear middle half", 0L, 0L, 0L, 0L, 0L, 0L, 0L}};
     }
 
     @Override
@@ -62,13 +62,13 @@ public class MapSpeedTablePanel extends JPanel {
         TableColumn column;
         column = table.getColumnModel().getColumn(0);
         column.setPreferredWidth(200);
-        for (int x = 1; x < 3; ++x) {
+        for (int x = 1; x < table.getColumnCount(); ++x) {
             column = table.getColumnModel().getColumn(x);
             column.setPreferredWidth(110);
         }
 
         // Set the size of the table by calculating the best size
-        table.setPreferredScrollableViewportSize(new Dimension(700, 200));
+        table.setPreferredScrollableViewportSize(new Dimension(785, 200));
         // Create the scroll pane and add the table to it.
         JScrollPane scrollPane = new JScrollPane(table);
 
@@ -61,13 +61,13 @@ public class SequenceSpeedTablePanel extends JPanel {
         TableColumn column;
         column = table.getColumnModel().getColumn(0);
         column.setPreferredWidth(200);
-        for (int x = 1; x < 5; ++x) {
+        for (int x = 1; x < table.getColumnCount(); ++x) {
             column = table.getColumnModel().getColumn(x);
             column.setPreferredWidth(115);
         }
 
         // Set the size of the table by calculating the best size
-        table.setPreferredScrollableViewportSize(new Dimension(785, 200));
+        table.setPreferredScrollableViewportSize(new Dimension(1010, 200));
         // Create the scroll pane and add the table to it.
         JScrollPane scrollPane = new JScrollPane(table);
 
@@ -0,0 +1,94 @@
+package com.kenfogel.performance.reports;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Puts the time of each benchmark on the same line as the allocation and
+ * GC figures from the JMH gc profiler, followed by any hardware counters
+ * from the perfnorm profiler when -Dperfnorm=true adds it.
+ *
+ * The bytes allocated per operation show churn that the time alone hides.
+ * A LinkedList allocates a node for every element it adds while an
+ * ArrayDeque only allocates when its array grows.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class AllocationReport {
+
+    private final static String ALLOC_NORM = "gc.alloc.rate.norm";
+    private final static String ALLOC_RATE = "gc.alloc.rate";
+    private final static String GC_COUNT = "gc.count";
+    private final static String GC_TIME = "gc.time";
+
+    private final Collection<RunResult> results;
+
+    /**
+     * @param results the results of a JMH run
+     */
+    public AllocationReport(Collection<RunResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Write one line per benchmark and then the hardware counters
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        out.printf("%n%-56s %14s %10s %14s %12s %8s %8s%n", "Benchmark", "Score",
+                "Units", "B/op", "MB/sec", "GCs", "GC ms");
+        TreeSet<String> counters = new TreeSet<>();
+        for (RunResult runResult : results) {
+            Result<?> primary = runResult.getPrimaryResult();
+            Map<String, Result> secondary = runResult.getSecondaryResults();
+            out.printf("%-56s %14.3f %10s %14s %12s %8s %8s%n", label(runResult),
+                    primary.getScore(), primary.getScoreUnit(),
+                    format(secondary.get(ALLOC_NORM), "%.1f"),
+                    format(secondary.get(ALLOC_RATE), "%.1f"),
+                    format(secondary.get(GC_COUNT), "%.0f"),
+                    format(secondary.get(GC_TIME), "%.0f"));
+            for (String key : secondary.keySet()) {
+                if (!key.startsWith("gc.")) {
+                    counters.add(key);
+                }
+            }
+        }
+
+        // Hardware counters or auxiliary counters, one block per counter
+        for (String counter : counters) {
+            out.printf("%n%s%n", counter);
+            for (RunResult runResult : results) {
+                Result<?> result = runResult.getSecondaryResults().get(counter);
+                if (result != null) {
+                    out.printf("  %-56s %16.3f %s%n", label(runResult),
+                            result.getScore(), result.getScoreUnit());
+                }
+            }
+        }
+    }
+
+    /**
+     * The class and method name followed by the parameters
+     */
+    static String label(RunResult runResult) {
+        String benchmark = runResult.getParams().getBenchmark();
+        StringBuilder label = new StringBuilder(benchmark.substring(
+                benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        for (String key : runResult.getParams().getParamsKeys()) {
+            label.append(' ').append(runResult.getParams().getParam(key));
+        }
+        return label.toString();
+    }
+
+    private static String format(Result<?> result, String format) {
+        return result == null ? "-" : String.format(format, result.getScore());
+    }
+}
@@ -0,0 +1,117 @@
+package com.kenfogel.performance.reports;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Finds the exact sizes at which a growing data structure pays for a
+ * resize. Each structure starts empty and is filled one element at a
+ * time with every add timed on its own. This is repeated for a number of
+ * rounds and the fastest time at each size is kept. A GC pause or a
+ * context switch lands on a different add in each round so it is filtered
+ * out, while a resize happens at the same size every round so it stays.
+ *
+ * An add that takes much longer than the median add is a spike. For each
+ * spike the report shows the size of the structure before the add, its
+ * time and what it costs when spread over the adds since the previous
+ * spike, which is the amortized cost the average time hides.
+ *
+ * Runs in the current JVM, not in a JMH fork.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class GrowthSpikeReport {
+
+    private final static double SPIKE_FACTOR = 8.0;
+    private final static long MIN_SPIKE_NANOS = 200;
+
+    private final int size;
+    private final int rounds;
+    private final List<Profile> profiles = new ArrayList<>();
+
+    /**
+     * @param size the number of elements to add to each structure
+     * @param rounds the number of times each structure is filled, the
+     * first are also the warmup
+     */
+    public GrowthSpikeReport(int size, int rounds) {
+        this.size = size;
+        this.rounds = Math.max(1, rounds);
+    }
+
+    /**
+     * Fill a structure rounds times and record the fastest time of every
+     * add
+     *
+     * @param <T> the data structure
+     * @param name
+     * @param create makes an empty structure
+     * @param add adds the element with the given index
+     */
+    public <T> void profile(String name, Supplier<T> create, ObjIntConsumer<T> add) {
+        long[] fastest = new long[size];
+        Arrays.fill(fastest, Long.MAX_VALUE);
+        for (int round = 0; round < rounds; ++round) {
+            T structure = create.get();
+            for (int x = 0; x < size; ++x) {
+                long start = System.nanoTime();
+                add.accept(structure, x);
+                long elapsed = System.nanoTime() - start;
+                if (elapsed < fastest[x]) {
+                    fastest[x] = elapsed;
+                }
+            }
+        }
+        profiles.add(new Profile(name, fastest));
+    }
+
+    /**
+     * Write the spikes of every structure
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        out.printf("%nGrowth spikes, fastest of %d rounds of %d adds%n", rounds, size);
+        for (Profile profile : profiles) {
+            long[] sorted = profile.nanos.clone();
+            Arrays.sort(sorted);
+            long median = sorted[sorted.length / 2];
+            long threshold = Math.max(MIN_SPIKE_NANOS, (long) (SPIKE_FACTOR * median));
+            long total = 0;
+            long spikeTotal = 0;
+            for (long nanos : profile.nanos) {
+                total += nanos;
+            }
+            out.printf("%n%s  median add %d ns%n", profile.name, median);
+            out.printf("%12s %14s %10s %20s%n", "size", "ns", "x median", "amortized ns/add");
+            int previousSpike = 0;
+            for (int x = 0; x < profile.nanos.length; ++x) {
+                long nanos = profile.nanos[x];
+                if (nanos >= threshold) {
+                    out.printf("%12d %14d %10.1f %20.2f%n", x, nanos, (double) nanos / Math.max(1, median),
+                            (double) nanos / Math.max(1, x - previousSpike));
+                    previousSpike = x;
+                    spikeTotal += nanos;
+                }
+            }
+            out.printf("Spikes are %.1f%% of the total time%n", total == 0 ? 0 : 100.0 * spikeTotal / total);
+        }
+    }
+
+    private static class Profile {
+
+        private final String name;
+        private final long[] nanos;
+
+        private Profile(String name, long[] nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+}
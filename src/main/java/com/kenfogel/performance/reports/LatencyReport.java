@@ -0,0 +1,58 @@
+package com.kenfogel.performance.reports;
+
+import java.io.PrintStream;
+import java.util.Collection;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.util.Statistics;
+
+/**
+ * Shows the distribution of the time per operation of benchmarks run in
+ * Mode.SampleTime. The average hides the rare operation that has to grow
+ * an array or rehash a table, the high percentiles and the maximum show
+ * it.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class LatencyReport {
+
+    private final static double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Collection<RunResult> results;
+
+    /**
+     * @param results the results of a JMH run, those not in SampleTime
+     * mode are ignored
+     */
+    public LatencyReport(Collection<RunResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Write one line per benchmark
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        out.printf("%n%-56s %10s %12s %12s %12s %12s %12s %8s%n", "Benchmark", "samples",
+                "p50", "p90", "p99", "p99.9", "max", "Units");
+        for (RunResult runResult : results) {
+            if (runResult.getParams().getMode() != Mode.SampleTime) {
+                continue;
+            }
+            Result<?> primary = runResult.getPrimaryResult();
+            Statistics statistics = primary.getStatistics();
+            StringBuilder line = new StringBuilder(String.format("%-56s %10d",
+                    AllocationReport.label(runResult), statistics.getN()));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format(" %12.1f", statistics.getPercentile(percentile)));
+            }
+            line.append(String.format(" %12.1f %8s", statistics.getMax(), primary.getScoreUnit()));
+            out.println(line);
+        }
+    }
+}
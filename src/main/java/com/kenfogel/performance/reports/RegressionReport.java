@@ -0,0 +1,225 @@
+package com.kenfogel.performance.reports;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Mode;
+
+/**
+ * Compares the CSV results of a run with those of a baseline run, usually
+ * the same code on another JVM or with other GC flags, or the previous
+ * revision on the same machine.
+ *
+ * A benchmark has regressed when the confidence interval of its new score
+ * lies entirely on the worse side of the interval of its baseline score.
+ * Lower is better for time per operation, higher is better for throughput.
+ * A score from a single measurement has no error bounds, for these the
+ * change must be larger than a tolerance of 5%, override with
+ * -Dregression.tolerance=0.1
+ *
+ * Only the primary scores are compared, not profiler results.
+ *
+ * To compare every class in two result directories:
+ * java -cp benchmarks.jar com.kenfogel.performance.reports.RegressionReport
+ * [baseline directory] [current directory]
+ * The exit status is 1 if anything regressed.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class RegressionReport {
+
+    private final static double TOLERANCE = Double.parseDouble(
+            System.getProperty("regression.tolerance", "0.05"));
+
+    private final List<String> lines = new ArrayList<>();
+    private int regressions;
+    private int improvements;
+
+    /**
+     * Compare two CSV files written by ResultStore
+     *
+     * @param baseline
+     * @param current
+     * @return the report
+     * @throws IOException
+     */
+    public static RegressionReport compare(Path baseline, Path current) throws IOException {
+        RegressionReport report = new RegressionReport();
+        report.add(readCsv(baseline), readCsv(current));
+        return report;
+    }
+
+    /**
+     * Compare every CSV file in the current directory with the file of the
+     * same name in the baseline directory
+     *
+     * @param baselineDirectory
+     * @param currentDirectory
+     * @return the report
+     * @throws IOException
+     */
+    public static RegressionReport compareDirectories(Path baselineDirectory, Path currentDirectory) throws IOException {
+        RegressionReport report = new RegressionReport();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(currentDirectory, "*.csv")) {
+            for (Path current : files) {
+                Path baseline = baselineDirectory.resolve(current.getFileName().toString());
+                if (Files.exists(baseline)) {
+                    report.add(readCsv(baseline), readCsv(current));
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * @return the number of benchmarks that are worse than the baseline
+     */
+    public int getRegressions() {
+        return regressions;
+    }
+
+    /**
+     * @return the number of benchmarks that are better than the baseline
+     */
+    public int getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * Write one line for each benchmark found in both runs
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        out.printf("%n%-64s %14s %14s %9s %s%n", "Benchmark", "Baseline", "Current", "Change", "");
+        lines.forEach(out::println);
+        out.printf("%d regressed, %d improved, %d compared%n", regressions, improvements, lines.size());
+    }
+
+    private void add(Map<String, Score> baseline, Map<String, Score> current) {
+        current.forEach((key, score) -> {
+            Score base = baseline.get(key);
+            if (base == null || base.score == 0) {
+                return;
+            }
+            // Make higher always mean worse
+            double sign = score.mode == Mode.Throughput ? -1 : 1;
+            double difference = sign * (score.score - base.score);
+            double bounds = Double.isNaN(score.error) || Double.isNaN(base.error)
+                    ? TOLERANCE * Math.abs(base.score)
+                    : score.error + base.error;
+            String verdict = "";
+            if (difference > bounds) {
+                verdict = "REGRESSED";
+                ++regressions;
+            } else if (difference < -bounds) {
+                verdict = "improved";
+                ++improvements;
+            }
+            lines.add(String.format("%-64s %14.3f %14.3f %8.1f%% %s", key, base.score,
+                    score.score, 100 * (score.score - base.score) / base.score, verdict));
+        });
+    }
+
+    /**
+     * Read the primary scores from a JMH CSV file, keyed by the benchmark
+     * name, mode, thread count and parameters
+     */
+    private static Map<String, Score> readCsv(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        List<String> rows = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (rows.isEmpty()) {
+            return scores;
+        }
+        List<String> header = splitCsv(rows.get(0));
+        int benchmarkColumn = header.indexOf("Benchmark");
+        int modeColumn = header.indexOf("Mode");
+        int threadsColumn = header.indexOf("Threads");
+        int scoreColumn = header.indexOf("Score");
+        int errorColumn = scoreColumn + 1;
+        int firstParam = header.indexOf("Unit") + 1;
+        for (String row : rows.subList(1, rows.size())) {
+            List<String> fields = splitCsv(row);
+            String benchmark = fields.get(benchmarkColumn);
+            if (benchmark.contains(":")) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(benchmark.substring(
+                    benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            key.append(' ').append(fields.get(modeColumn)).append(" t").append(fields.get(threadsColumn));
+            for (int x = firstParam; x < fields.size(); ++x) {
+                if (!fields.get(x).isEmpty()) {
+                    key.append(' ').append(fields.get(x));
+                }
+            }
+            scores.put(key.toString(), new Score(Mode.deepValueOf(fields.get(modeColumn)),
+                    parse(fields.get(scoreColumn)), parse(fields.get(errorColumn))));
+        }
+        return scores;
+    }
+
+    private static double parse(String number) {
+        return number.isEmpty() ? Double.NaN : Double.parseDouble(number);
+    }
+
+    /**
+     * Split a CSV line where any field may be in double quotes
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int x = 0; x < line.length(); ++x) {
+            char c = line.charAt(x);
+            if (c == '"') {
+                if (quoted && x + 1 < line.length() && line.charAt(x + 1) == '"') {
+                    field.append('"');
+                    ++x;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static class Score {
+
+        private final Mode mode;
+        private final double score;
+        private final double error;
+
+        private Score(Mode mode, double score, double error) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RegressionReport [baseline directory] [current directory]");
+            System.exit(2);
+        }
+        RegressionReport report = compareDirectories(Paths.get(args[0]), Paths.get(args[1]));
+        report.print(System.out);
+        System.exit(report.getRegressions() > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,168 @@
+package com.kenfogel.performance.reports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+/**
+ * A directory of benchmark results keyed by the git revision of the code,
+ * the JVM that ran it and the hardware it ran on, such as
+ * results/1a2b3c4/21.0.1+12-LTS_Eclipse_Adoptium/Intel_R_Core_TM_i7-8700_x12
+ *
+ * Each benchmark class writes its results as JSON and as CSV next to the
+ * human readable reports. A run of the same code on the same JVM and
+ * machine replaces the previous one. A revision with uncommitted changes
+ * ends in -dirty. Runs that differ only in JVM flags, such as the garbage
+ * collector, are kept apart with -Dresults.tag=[name].
+ *
+ * The root directory is results unless -Dresults.dir=[path] is given.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ResultStore {
+
+    private final String revision;
+    private final String jvm;
+    private final String hardware;
+    private final Path directory;
+
+    private ResultStore(String revision, String jvm, String hardware, String tag) throws IOException {
+        this.revision = revision;
+        this.jvm = jvm;
+        this.hardware = hardware;
+        Path path = Paths.get(System.getProperty("results.dir", "results"), revision, jvm, hardware);
+        if (tag != null && !tag.isBlank()) {
+            path = path.resolve(clean(tag));
+        }
+        directory = Files.createDirectories(path);
+    }
+
+    /**
+     * The store for this checkout, this JVM and this machine. The forked
+     * benchmark JVMs are started from the same installation unless JMH is
+     * told otherwise.
+     *
+     * @return the store, its directory has been created
+     * @throws IOException
+     */
+    public static ResultStore forThisRun() throws IOException {
+        return new ResultStore(gitRevision(),
+                clean(System.getProperty("java.runtime.version") + "_" + System.getProperty("java.vm.vendor")),
+                clean(cpuModel() + "_x" + Runtime.getRuntime().availableProcessors()),
+                System.getProperty("results.tag"));
+    }
+
+    /**
+     * @return the directory that holds the results of this run
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param name
+     * @return the path of a file in the results directory
+     */
+    public Path resolve(String name) {
+        return directory.resolve(name);
+    }
+
+    /**
+     * Write the results as name.json and name.csv in the JMH formats and
+     * describe the run in run.properties
+     *
+     * @param name usually the simple name of the benchmark class
+     * @param results
+     * @throws IOException
+     */
+    public void write(String name, Collection<RunResult> results) throws IOException {
+        for (ResultFormatType type : List.of(ResultFormatType.JSON, ResultFormatType.CSV)) {
+            Path file = resolve(name + "." + type.name().toLowerCase());
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+                ResultFormatFactory.getInstance(type, out).writeOut(results);
+            }
+        }
+        Files.write(resolve("run.properties"), List.of(
+                "revision=" + revision,
+                "jvm=" + jvm,
+                "hardware=" + hardware,
+                "os=" + System.getProperty("os.name") + " " + System.getProperty("os.version"),
+                "time=" + Instant.now()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The short hash of HEAD, ending in -dirty if there are uncommitted
+     * changes, or unknown if git cannot be run
+     */
+    private static String gitRevision() {
+        String revision = git("rev-parse", "--short", "HEAD");
+        if (revision.isEmpty()) {
+            return "unknown";
+        }
+        return git("status", "--porcelain", "--untracked-files=no").isEmpty() ? revision : revision + "-dirty";
+    }
+
+    private static String git(String... args) {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    output.append(line).append('\n');
+                }
+            }
+            return process.waitFor() == 0 ? output.toString().trim() : "";
+        } catch (IOException ex) {
+            return "";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    /**
+     * The model name of the first processor on Linux, otherwise the
+     * architecture
+     */
+    private static String cpuModel() {
+        Path cpuInfo = Paths.get("/proc/cpuinfo");
+        if (Files.isReadable(cpuInfo)) {
+            try {
+                for (String line : Files.readAllLines(cpuInfo, StandardCharsets.UTF_8)) {
+                    if (line.startsWith("model name")) {
+                        return line.substring(line.indexOf(':') + 1).trim();
+                    }
+                }
+            } catch (IOException ex) {
+                // Fall back to the architecture
+            }
+        }
+        return System.getProperty("os.arch");
+    }
+
+    /**
+     * Make a string safe to use as a directory name
+     */
+    private static String clean(String name) {
+        return name.replaceAll("[^A-Za-z0-9.+-]+", "_").replaceAll("^_+|_+$", "");
+    }
+}
@@ -0,0 +1,178 @@
+package com.kenfogel.performance.reports;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Arranges the results of a size sweep as one scaling curve per operation.
+ *
+ * For each size the report shows the score, the score per element and the
+ * local exponent k in score ~ size^k measured from the previous size. The
+ * exponent read from a log-log plot is the empirical Big-O: near 0 is
+ * constant time, near 1 is linear. A jump in the cost per element from one
+ * size to the next, while the exponent says the work should be flat or
+ * linear, is where the structure stopped fitting in a cache level and is
+ * marked as a cliff.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ScalingReport {
+
+    private final static double CLIFF_FACTOR = 1.5;
+
+    private final String sizeParam;
+    private final Map<String, TreeMap<Integer, Double>> curves = new TreeMap<>();
+    private String unit = "";
+
+    /**
+     * @param sizeParam the name of the parameter that holds the size
+     */
+    public ScalingReport(String sizeParam) {
+        this.sizeParam = sizeParam;
+    }
+
+    /**
+     * Build a report from JMH results that were run with a size parameter.
+     * Results without the parameter are ignored.
+     *
+     * @param results
+     * @param sizeParam
+     * @return the report
+     */
+    public static ScalingReport fromRunResults(Collection<RunResult> results, String sizeParam) {
+        ScalingReport report = new ScalingReport(sizeParam);
+        for (RunResult runResult : results) {
+            String size = runResult.getParams().getParam(sizeParam);
+            if (size != null) {
+                Result<?> result = runResult.getPrimaryResult();
+                String benchmark = runResult.getParams().getBenchmark();
+                // Each combination of the other parameters is its own curve
+                StringBuilder operation = new StringBuilder(benchmark.substring(
+                        benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+                for (String key : runResult.getParams().getParamsKeys()) {
+                    if (!key.equals(sizeParam)) {
+                        operation.append(' ').append(key).append('=').append(runResult.getParams().getParam(key));
+                    }
+                }
+                report.add(operation.toString(), Integer.parseInt(size), result.getScore());
+                report.unit = result.getScoreUnit();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Add one point to the curve of an operation
+     *
+     * @param operation
+     * @param size
+     * @param score
+     */
+    public void add(String operation, int size, double score) {
+        curves.computeIfAbsent(operation, k -> new TreeMap<>()).put(size, score);
+    }
+
+    /**
+     * @return true if there are no points
+     */
+    public boolean isEmpty() {
+        return curves.isEmpty();
+    }
+
+    /**
+     * Least squares slope of log(score) against log(size), the exponent
+     * that best describes the whole curve
+     *
+     * @param operation
+     * @return the exponent or NaN if there are fewer than two points
+     */
+    public double fittedExponent(String operation) {
+        TreeMap<Integer, Double> curve = curves.get(operation);
+        if (curve == null || curve.size() < 2) {
+            return Double.NaN;
+        }
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        int n = 0;
+        for (Map.Entry<Integer, Double> point : curve.entrySet()) {
+            if (point.getValue() > 0) {
+                double x = Math.log(point.getKey());
+                double y = Math.log(point.getValue());
+                sumX += x;
+                sumY += y;
+                sumXY += x * y;
+                sumXX += x * x;
+                ++n;
+            }
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        return n < 2 || denominator == 0 ? Double.NaN : (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * Name the complexity class closest to an exponent
+     *
+     * @param exponent
+     * @return a Big-O label
+     */
+    public static String bigO(double exponent) {
+        if (Double.isNaN(exponent)) {
+            return "?";
+        }
+        if (exponent < 0.25) {
+            return "O(1)";
+        }
+        if (exponent < 0.75) {
+            return "O(log n)";
+        }
+        if (exponent < 1.35) {
+            return "O(n)";
+        }
+        if (exponent < 1.75) {
+            return "O(n log n)";
+        }
+        return "O(n^" + String.format("%.1f", exponent) + ")";
+    }
+
+    /**
+     * Write every curve as a table
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        for (Map.Entry<String, TreeMap<Integer, Double>> curve : curves.entrySet()) {
+            double fitted = fittedExponent(curve.getKey());
+            out.printf("%n%s  fitted k=%.2f %s%n", curve.getKey(), fitted, bigO(fitted));
+            out.printf("%12s %16s %16s %8s%n", sizeParam, "score " + unit, "per element", "k");
+            Integer previousSize = null;
+            double previousScore = 0;
+            for (Map.Entry<Integer, Double> point : curve.getValue().entrySet()) {
+                int size = point.getKey();
+                double score = point.getValue();
+                String exponent = "";
+                String cliff = "";
+                if (previousSize != null && previousScore > 0 && score > 0) {
+                    double k = Math.log(score / previousScore) / Math.log((double) size / previousSize);
+                    exponent = String.format("%.2f", k);
+                    // Cost per element should not grow for O(1) or O(n) work
+                    double perElement = score / size;
+                    double previousPerElement = previousScore / previousSize;
+                    double expected = Math.max(1.0, Math.pow((double) size / previousSize, Math.max(0, fitted - 1)));
+                    if (perElement / previousPerElement > CLIFF_FACTOR * expected
+                            || (fitted < 0.25 && score / previousScore > CLIFF_FACTOR)) {
+                        cliff = "  <- cliff";
+                    }
+                }
+                out.printf("%12d %16.3f %16.6f %8s%s%n", size, score, score / size, exponent, cliff);
+                previousSize = size;
+                previousScore = score;
+            }
+        }
+    }
+}
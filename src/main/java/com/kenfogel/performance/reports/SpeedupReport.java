@@ -0,0 +1,104 @@
+package com.kenfogel.performance.reports;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Compares each parallel benchmark with its sequential twin at every
+ * number of threads it was run with. The twins have the same name
+ * but for the number and the ending, such as do01MapFilterReduceSequential
+ * and do02MapFilterReduceParallel, and the scores are times per operation.
+ * The sequential twin does not use the pool so it is only run once.
+ *
+ * The thread that runs a parallel stream works on it along with the
+ * workers of the common ForkJoinPool, so a run with t threads has a pool
+ * parallelism of t - 1. The speedup is the sequential time over the
+ * parallel time and the efficiency is the speedup over the t threads, 1.0
+ * when every thread does a full share of useful work. A speedup below 1 means that splitting the source
+ * and merging the results cost more than the threads gained and is marked.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class SpeedupReport {
+
+    private final static String SEQUENTIAL = "Sequential";
+    private final static String PARALLEL = "Parallel";
+
+    // Operation and parameters, then threads, then the parallel score
+    private final Map<String, TreeMap<Integer, Double>> curves = new TreeMap<>();
+    // Operation and parameters, then the sequential score
+    private final Map<String, Double> sequential = new TreeMap<>();
+    private String unit = "";
+
+    /**
+     * Add the results of the run with one number of threads, the
+     * sequential benchmarks may be in the results of any one of the runs
+     *
+     * @param threads the calling thread and the workers of the pool
+     * @param results
+     */
+    public void add(int threads, Collection<RunResult> results) {
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            String benchmark = params.getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            boolean isSequential;
+            if (method.endsWith(SEQUENTIAL)) {
+                isSequential = true;
+                method = method.substring(0, method.length() - SEQUENTIAL.length());
+            } else if (method.endsWith(PARALLEL)) {
+                isSequential = false;
+                method = method.substring(0, method.length() - PARALLEL.length());
+            } else {
+                continue;
+            }
+            // Drop doNN so that the twins share a name
+            StringBuilder operation = new StringBuilder(method.replaceFirst("^do\\d+", ""));
+            for (String key : params.getParamsKeys()) {
+                operation.append(' ').append(key).append('=').append(params.getParam(key));
+            }
+            double score = runResult.getPrimaryResult().getScore();
+            if (isSequential) {
+                sequential.put(operation.toString(), score);
+            } else {
+                curves.computeIfAbsent(operation.toString(), k -> new TreeMap<>()).put(threads, score);
+            }
+            unit = runResult.getPrimaryResult().getScoreUnit();
+        }
+    }
+
+    /**
+     * @return true if nothing was added
+     */
+    public boolean isEmpty() {
+        return curves.isEmpty();
+    }
+
+    /**
+     * Write the speedup and efficiency curve of every operation
+     *
+     * @param out
+     */
+    public void print(PrintStream out) {
+        for (Map.Entry<String, TreeMap<Integer, Double>> curve : curves.entrySet()) {
+            double sequentialScore = sequential.getOrDefault(curve.getKey(), Double.NaN);
+            out.printf("%n%s%n", curve.getKey());
+            out.printf("%8s %12s %16s %16s %10s %10s%n", "threads", "parallelism", "sequential " + unit,
+                    "parallel " + unit, "speedup", "efficiency");
+            for (Map.Entry<Integer, Double> point : curve.getValue().entrySet()) {
+                int threads = point.getKey();
+                double speedup = sequentialScore / point.getValue();
+                out.printf("%8d %12d %16.3f %16.3f %10.2f %10.2f%s%n", threads, threads - 1, sequentialScore,
+                        point.getValue(), speedup, speedup / threads,
+                        speedup < 1 ? "  splitting costs more than it gains" : "");
+            }
+        }
+    }
+}
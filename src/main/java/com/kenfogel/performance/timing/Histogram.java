@@ -0,0 +1,140 @@
+package com.kenfogel.performance.timing;
+
+/**
+ * Counts non-negative long values in log-linear buckets, in the manner of
+ * HdrHistogram. Every power of two range is split into 64 buckets so any
+ * percentile is within about 1.5% of the recorded value while the whole
+ * range of a long fits in fewer than 4000 counters. Values below 128 are
+ * counted exactly.
+ *
+ * The minimum, maximum, mean and standard deviation are kept exactly.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class Histogram {
+
+    private final static int SUB_BUCKET_BITS = 7;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final static int HALF = SUB_BUCKETS / 2;
+
+    private final long[] counts = new long[SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF];
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+    private double sumOfSquares;
+
+    /**
+     * @param value must not be negative
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        ++counts[indexOf(value)];
+        ++count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        sumOfSquares += (double) value * value;
+    }
+
+    /**
+     * Add every value recorded by another histogram, such as one kept by
+     * each thread of a run
+     *
+     * @param other
+     */
+    public void add(Histogram other) {
+        for (int index = 0; index < counts.length; ++index) {
+            counts[index] += other.counts[index];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value or 0 if there are none
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the largest value or 0 if there are none
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean or 0 if there are no values
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return the population standard deviation
+     */
+    public double getStandardDeviation() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    /**
+     * The value that percentile percent of the recorded values are at or
+     * below. The middle of the bucket is returned, clamped to the exact
+     * minimum and maximum.
+     *
+     * @param percentile from 0 to 100
+     * @return the value or 0 if there are none
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; ++index) {
+            seen += counts[index];
+            if (seen >= target) {
+                return Math.max(min, Math.min(max, middleOf(index)));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top SUB_BUCKET_BITS bits of the value
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    private static long middleOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long top = (index - SUB_BUCKETS) % HALF + HALF;
+        return (top << shift) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,199 @@
+package com.kenfogel.performance.timing;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Measures the time of an operation in the running JVM, for the Swing
+ * tables and the command line where JMH is not used.
+ *
+ * Each measurement has a warmup phase, so that the operation is compiled
+ * before it is timed, followed by a measurement phase that collects
+ * samples until the time budget is spent. An operation that can be
+ * repeated without setup is timed in batches. The batch size doubles
+ * during warmup until a batch takes much longer than a read of the timer,
+ * so an operation of a nanosecond is not swamped by the 20 to 30
+ * nanoseconds that System.nanoTime itself takes. An operation that needs a
+ * fresh data structure each time is timed one at a time with the setup
+ * outside of the timer. The cost of reading the timer is measured once and
+ * subtracted from every sample.
+ *
+ * Samples further than three interquartile ranges outside of the middle
+ * half, such as one that included a GC pause or a context switch, are
+ * rejected before the distribution is recorded in a Histogram.
+ *
+ * A call through the Supplier or Function interface is still part of the
+ * time, around a nanosecond, so use JMH for anything smaller.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class TimingEngine {
+
+    public final static long DEFAULT_WARMUP_MILLIS = 100;
+    public final static long DEFAULT_MEASURE_MILLIS = 500;
+    public final static int DEFAULT_MIN_SAMPLES = 3;
+    public final static int DEFAULT_MAX_SAMPLES = 1000;
+
+    private final static double OUTLIER_FENCE = 3.0;
+    private final static int MAX_BATCH = 1 << 24;
+    private final static long TIMER_OVERHEAD;
+    private final static long TARGET_BATCH_NANOS;
+
+    static {
+        // Read the timer back to back, the median difference is its cost
+        long[] deltas = new long[20_001];
+        for (int x = 0; x < deltas.length; ++x) {
+            long start = System.nanoTime();
+            deltas[x] = System.nanoTime() - start;
+        }
+        Arrays.sort(deltas);
+        TIMER_OVERHEAD = deltas[deltas.length / 2];
+        long granularity = 1;
+        for (long delta : deltas) {
+            if (delta > 0) {
+                granularity = delta;
+                break;
+            }
+        }
+        TARGET_BATCH_NANOS = Math.max(1_000, 100 * Math.max(TIMER_OVERHEAD, granularity));
+    }
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final int minSamples;
+    private final int maxSamples;
+
+    // Results are stored here so the JIT compiler cannot remove the work
+    private Object sink;
+    private int escapeMatches;
+    private volatile Object escape;
+
+    /**
+     * An engine with the default warmup and measurement times
+     */
+    public TimingEngine() {
+        this(DEFAULT_WARMUP_MILLIS, DEFAULT_MEASURE_MILLIS, DEFAULT_MIN_SAMPLES, DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * @param warmupMillis time to run the operation before it is measured,
+     * it is always run at least once
+     * @param measureMillis time budget for the samples, including any setup
+     * @param minSamples samples taken even if the budget is spent
+     * @param maxSamples samples after which measurement stops early
+     */
+    public TimingEngine(long warmupMillis, long measureMillis, int minSamples, int maxSamples) {
+        this.warmupNanos = warmupMillis * 1_000_000L;
+        this.measureNanos = measureMillis * 1_000_000L;
+        this.minSamples = Math.max(1, minSamples);
+        this.maxSamples = Math.max(this.minSamples, maxSamples);
+    }
+
+    /**
+     * @return nanoseconds subtracted from every sample for the timer
+     */
+    public static long getTimerOverhead() {
+        return TIMER_OVERHEAD;
+    }
+
+    /**
+     * Time an operation that can be repeated without any setup, such as
+     * reading an element
+     *
+     * @param operation
+     * @return the time per operation
+     */
+    public TimingResult measure(Supplier<?> operation) {
+        // Warm up while finding a batch size that dwarfs the timer
+        int batch = 1;
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        do {
+            long elapsed = timeBatch(operation, batch);
+            if (elapsed < TARGET_BATCH_NANOS && batch < MAX_BATCH) {
+                batch *= 2;
+            }
+        } while (System.nanoTime() < warmupEnd);
+
+        long[] samples = new long[maxSamples];
+        int count = 0;
+        long end = System.nanoTime() + measureNanos;
+        while (count < minSamples || (count < maxSamples && System.nanoTime() < end)) {
+            long elapsed = timeBatch(operation, batch) - TIMER_OVERHEAD;
+            samples[count++] = Math.max(0, elapsed) * 1000 / batch;
+        }
+        return summarize(samples, count, batch);
+    }
+
+    /**
+     * Time an operation that changes its data structure. The setup creates
+     * a fresh one for every sample and is not timed.
+     *
+     * @param <T> the data structure
+     * @param setup
+     * @param operation
+     * @return the time per operation
+     */
+    public <T> TimingResult measure(Supplier<T> setup, Function<? super T, ?> operation) {
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        do {
+            sink = operation.apply(setup.get());
+        } while (System.nanoTime() < warmupEnd);
+
+        long[] samples = new long[maxSamples];
+        int count = 0;
+        long end = System.nanoTime() + measureNanos;
+        while (count < minSamples || (count < maxSamples && System.nanoTime() < end)) {
+            T data = setup.get();
+            long start = System.nanoTime();
+            sink = operation.apply(data);
+            long elapsed = System.nanoTime() - start - TIMER_OVERHEAD;
+            samples[count++] = Math.max(0, elapsed) * 1000;
+        }
+        escape = sink;
+        return summarize(samples, count, 1);
+    }
+
+    private long timeBatch(Supplier<?> operation, int batch) {
+        int matches = 0;
+        long start = System.nanoTime();
+        for (int x = 0; x < batch; ++x) {
+            // The volatile read stops the compiler from hoisting the
+            // operation out of the loop
+            if (operation.get() == escape) {
+                ++matches;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        escapeMatches += matches;
+        return elapsed;
+    }
+
+    /**
+     * Reject the outliers and record the rest
+     *
+     * @param samples picoseconds per operation
+     * @param count the number of samples
+     * @param batch operations per sample
+     */
+    private static TimingResult summarize(long[] samples, int count, int batch) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long q1 = sorted[count / 4];
+        long q3 = sorted[(3 * count) / 4];
+        double fence = OUTLIER_FENCE * (q3 - q1);
+        Histogram histogram = new Histogram();
+        int rejected = 0;
+        for (long sample : sorted) {
+            // Too few samples to tell what is unusual
+            if (count >= 8 && (sample < q1 - fence || sample > q3 + fence)) {
+                ++rejected;
+            } else {
+                histogram.record(sample);
+            }
+        }
+        return new TimingResult(histogram, rejected, batch);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kenfogel.performance.timing;
+
+/**
+ * The distribution of the time for one operation as measured by the
+ * TimingEngine, after the outliers were rejected. Times are in nanoseconds
+ * with a fraction because an operation timed in a batch can take less than
+ * a nanosecond.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class TimingResult {
+
+    private final Histogram histogram;
+    private final int rejected;
+    private final int operationsPerSample;
+
+    /**
+     * @param histogram the accepted samples in picoseconds per operation
+     * @param rejected the number of samples rejected as outliers
+     * @param operationsPerSample the number of operations between two reads
+     * of the timer
+     */
+    public TimingResult(Histogram histogram, int rejected, int operationsPerSample) {
+        this.histogram = histogram;
+        this.rejected = rejected;
+        this.operationsPerSample = operationsPerSample;
+    }
+
+    /**
+     * @return the number of samples that were kept
+     */
+    public long getSamples() {
+        return histogram.getCount();
+    }
+
+    /**
+     * @return the number of samples rejected as outliers
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return the number of operations timed by each sample
+     */
+    public int getOperationsPerSample() {
+        return operationsPerSample;
+    }
+
+    public double getMean() {
+        return histogram.getMean() / 1000.0;
+    }
+
+    public double getStandardDeviation() {
+        return histogram.getStandardDeviation() / 1000.0;
+    }
+
+    public double getMin() {
+        return histogram.getMin() / 1000.0;
+    }
+
+    public double getMax() {
+        return histogram.getMax() / 1000.0;
+    }
+
+    public double getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return nanoseconds per operation
+     */
+    public double getPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.2f ns, sd %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f,"
+                + " %d samples of %d ops, %d rejected", getMean(), getStandardDeviation(),
+                getMedian(), getPercentile(90), getPercentile(99), getMax(), getSamples(),
+                operationsPerSample, rejected);
+    }
+}
@@ -0,0 +1,72 @@
+package com.kenfogel.performance.workload;
+
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * The hit ratio, throughput and the latency of get and put of one cache at
+ * one capacity and number of threads
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class CacheResult {
+
+    private final String name;
+    private final String configuration;
+    private final double hitRatio;
+    private final double operationsPerSecond;
+    private final TimingResult getLatency;
+    private final TimingResult putLatency;
+
+    CacheResult(String name, String configuration, double hitRatio, double operationsPerSecond,
+            TimingResult getLatency, TimingResult putLatency) {
+        this.name = name;
+        this.configuration = configuration;
+        this.hitRatio = hitRatio;
+        this.operationsPerSecond = operationsPerSecond;
+        this.getLatency = getLatency;
+        this.putLatency = putLatency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the capacity as a percentage of the keys and the threads,
+     * such as 1% 4T
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the fraction of the gets that found their key
+     */
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    /**
+     * @return the gets made by all of the threads each second, with the
+     * put that follows each miss
+     */
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * @return the time of each get, hit or miss
+     */
+    public TimingResult getGetLatency() {
+        return getLatency;
+    }
+
+    /**
+     * @return the time of each put after a miss, including any eviction
+     */
+    public TimingResult getPutLatency() {
+        return putLatency;
+    }
+}
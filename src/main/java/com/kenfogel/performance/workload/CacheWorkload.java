@@ -0,0 +1,215 @@
+package com.kenfogel.performance.workload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kenfogel.performance.collections.ClockCache;
+import com.kenfogel.performance.collections.LruCache;
+import com.kenfogel.performance.collections.TinyLfuCache;
+import com.kenfogel.performance.corpus.KeyWorkload;
+import com.kenfogel.performance.timing.Histogram;
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * Replays a trace of Dictionary words drawn with a Zipf distribution, see
+ * KeyWorkload, against a cache that holds only a fraction of the words,
+ * the way a cache in front of a slow backend is used. Each word is a get
+ * and, if it misses, a put of the word, so the cache decides on every
+ * miss what to evict.
+ *
+ * Every thread replays the same trace from its own starting point. The
+ * cache is filled during the warmup and then the hits, the misses and the
+ * time of every get and put are recorded for the time budget.
+ *
+ * The hit ratio is what the eviction policy is worth, the latency and the
+ * throughput are what it costs. A cache with a higher hit ratio saves a
+ * trip to the backend on more lookups, which usually matters more than a
+ * slower get.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class CacheWorkload {
+
+    public final static String DEFAULT_DISTRIBUTION = "zipf-0.99";
+    public final static List<String> CACHE_TYPES = List.of("LruCache", "ClockCache", "TinyLfuCache");
+    public final static List<Double> CAPACITY_RATIOS = List.of(0.01, 0.05, 0.2);
+
+    /**
+     * The number of lookups in a trace, a power of two
+     */
+    public final static int TRACE_LENGTH = 1 << 20;
+    private final static long WARMUP_MILLIS = 200;
+    private final static long MEASURE_MILLIS = 1000;
+
+    private final static int WARMUP = 0;
+    private final static int MEASURE = 1;
+    private final static int STOP = 2;
+
+    private final int size;
+    private final int threads;
+    private final String[] trace;
+
+    /**
+     * @param size the number of distinct words in the trace
+     * @param distribution zipf-[exponent], or any other distribution of
+     * KeyWorkload
+     * @param threads the number of threads that share the cache
+     */
+    public CacheWorkload(int size, String distribution, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        this.size = size;
+        this.threads = threads;
+        trace = traceOf(size, distribution);
+    }
+
+    /**
+     * The lookups replayed by the cache benchmarks, a new String for every
+     * lookup
+     *
+     * @param size the number of distinct words
+     * @param distribution
+     * @return TRACE_LENGTH words
+     */
+    public static String[] traceOf(int size, String distribution) {
+        return new KeyWorkload(size, distribution, 0.0, 0).lookups(TRACE_LENGTH);
+    }
+
+    /**
+     * The capacity of a cache that holds a fraction of the words, at least
+     * 2
+     *
+     * @param size the number of distinct words
+     * @param capacityRatio
+     * @return the capacity
+     */
+    public static int capacityOf(int size, double capacityRatio) {
+        return (int) Math.max(2, Math.round(size * capacityRatio));
+    }
+
+    /**
+     * A cache of one of the types compared by the cache benchmarks that may
+     * be shared by threads, the LruCache wrapped by
+     * Collections.synchronizedMap
+     *
+     * @param cacheType one of CACHE_TYPES
+     * @param capacity
+     * @return an empty cache
+     */
+    public static Map<String, String> createCache(String cacheType, int capacity) {
+        return switch (cacheType) {
+            case "LruCache" ->
+                Collections.synchronizedMap(new LruCache<>(capacity));
+            case "ClockCache" ->
+                new ClockCache<>(capacity);
+            case "TinyLfuCache" ->
+                new TinyLfuCache<>(capacity);
+            default ->
+                throw new IllegalArgumentException("Unknown cache type " + cacheType);
+        };
+    }
+
+    /**
+     * @param capacityRatio
+     * @return the capacity as a percentage and the threads, such as 1% 4T
+     */
+    public String getConfiguration(double capacityRatio) {
+        return String.format("%s%% %dT", formatPercent(capacityRatio * 100), threads);
+    }
+
+    /**
+     * Replay the trace on a new cache with the threads of this workload
+     *
+     * @param cacheType one of CACHE_TYPES
+     * @param capacityRatio the capacity as a fraction of the words
+     * @return the hit ratio, throughput and latency
+     * @throws InterruptedException
+     */
+    public CacheResult run(String cacheType, double capacityRatio) throws InterruptedException {
+        Map<String, String> cache = createCache(cacheType, capacityOf(size, capacityRatio));
+        AtomicInteger phase = new AtomicInteger(WARMUP);
+        Replay[] replays = new Replay[threads];
+        List<Thread> replayThreads = new ArrayList<>();
+        for (int x = 0; x < threads; ++x) {
+            Replay replay = new Replay(x * (TRACE_LENGTH / threads));
+            replays[x] = replay;
+            replayThreads.add(new Thread(() -> replay.run(cache, phase), "Replay " + (x + 1)));
+        }
+        replayThreads.forEach(Thread::start);
+
+        Thread.sleep(WARMUP_MILLIS);
+        phase.set(MEASURE);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        phase.set(STOP);
+        long elapsed = System.nanoTime() - start;
+        for (Thread thread : replayThreads) {
+            thread.join();
+        }
+
+        long hits = 0;
+        long misses = 0;
+        Histogram gets = new Histogram();
+        Histogram puts = new Histogram();
+        for (Replay replay : replays) {
+            hits += replay.hits;
+            misses += replay.misses;
+            gets.add(replay.gets);
+            puts.add(replay.puts);
+        }
+        return new CacheResult(cacheType, getConfiguration(capacityRatio),
+                hits / (double) Math.max(1, hits + misses), (hits + misses) * 1e9 / elapsed,
+                new TimingResult(gets, 0, 1), new TimingResult(puts, 0, 1));
+    }
+
+    private static String formatPercent(double percent) {
+        return percent == Math.rint(percent) ? String.valueOf((long) percent) : String.valueOf(percent);
+    }
+
+    /**
+     * The counts and times of one thread
+     */
+    private class Replay {
+
+        private final Histogram gets = new Histogram();
+        private final Histogram puts = new Histogram();
+        private int position;
+        private long hits;
+        private long misses;
+
+        Replay(int position) {
+            this.position = position;
+        }
+
+        void run(Map<String, String> cache, AtomicInteger phase) {
+            long overhead = TimingEngine.getTimerOverhead();
+            int current;
+            while ((current = phase.get()) < STOP) {
+                String key = trace[position];
+                position = (position + 1) & (TRACE_LENGTH - 1);
+                long start = System.nanoTime();
+                String value = cache.get(key);
+                long got = System.nanoTime();
+                if (value == null) {
+                    cache.put(key, key);
+                    long put = System.nanoTime();
+                    if (current == MEASURE) {
+                        ++misses;
+                        gets.record(Math.max(0, got - start - overhead) * 1000);
+                        puts.record(Math.max(0, put - got - overhead) * 1000);
+                    }
+                } else if (current == MEASURE) {
+                    ++hits;
+                    gets.record(Math.max(0, got - start - overhead) * 1000);
+                }
+            }
+        }
+    }
+}
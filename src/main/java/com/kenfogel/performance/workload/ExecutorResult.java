@@ -0,0 +1,68 @@
+package com.kenfogel.performance.workload;
+
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * The throughput, task latency and pinning of one structure when it is
+ * shared by the tasks of one kind of executor
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ExecutorResult {
+
+    private final String name;
+    private final String executor;
+    private final double operationsPerSecond;
+    private final TimingResult latency;
+    private final long pinnedEvents;
+    private final long pinnedNanos;
+
+    ExecutorResult(String name, String executor, double operationsPerSecond, TimingResult latency,
+            long pinnedEvents, long pinnedNanos) {
+        this.name = name;
+        this.executor = executor;
+        this.operationsPerSecond = operationsPerSecond;
+        this.latency = latency;
+        this.pinnedEvents = pinnedEvents;
+        this.pinnedNanos = pinnedNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the executor and the number of tasks, such as virtual 10000
+     */
+    public String getExecutor() {
+        return executor;
+    }
+
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * @return the time from the submission of each task to its end
+     */
+    public TimingResult getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of times a virtual thread parked while it was
+     * pinned to its carrier
+     */
+    public long getPinnedEvents() {
+        return pinnedEvents;
+    }
+
+    /**
+     * @return the total time that virtual threads were parked while pinned
+     */
+    public long getPinnedNanos() {
+        return pinnedNanos;
+    }
+}
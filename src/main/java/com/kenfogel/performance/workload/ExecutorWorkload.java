@@ -0,0 +1,240 @@
+package com.kenfogel.performance.workload;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import com.kenfogel.performance.corpus.KeyWorkload;
+import com.kenfogel.performance.timing.Histogram;
+import com.kenfogel.performance.timing.TimingResult;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Runs the key workload of MapWorkloadTests_jmh as many small tasks, the
+ * way a server runs request handlers, on a pool of PLATFORM_THREADS
+ * platform threads or on a virtual thread per task, with every task
+ * sharing one structure.
+ *
+ * Each task makes OPERATIONS_PER_TASK lookups. On a map a hit is a get and
+ * a miss is a computeIfAbsent whose loader parks for the load time, like a
+ * cache in front of a slow backend. On a BlockingQueue each lookup is a put
+ * and a take through a queue of QUEUE_CAPACITY elements, after parking for
+ * the load time on a miss.
+ *
+ * The loader of a synchronizedMap runs inside its monitor and the loader
+ * of a ConcurrentHashMap inside the lock of a bin, both synchronized, so a
+ * virtual thread that parks there stays pinned to its carrier and the
+ * other virtual threads have fewer carriers to run on. The queues use
+ * ReentrantLock and never pin. Every park of a pinned virtual thread is
+ * counted from the jdk.VirtualThreadPinned events of a JFR recording.
+ *
+ * The latency of a task is from its submission to its end, so it includes
+ * the time it waited for a thread.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class ExecutorWorkload {
+
+    public final static int PLATFORM_THREADS = 200;
+    public final static int OPERATIONS_PER_TASK = 16;
+    public final static int QUEUE_CAPACITY = 64;
+    public final static long DEFAULT_LOAD_MICROS = 100;
+    public final static List<String> EXECUTORS = List.of("platform", "virtual");
+    public final static List<String> STRUCTURES = List.of("ConcurrentHashMap", "SynchronizedHashMap",
+            "SynchronizedTreeMap", "ArrayBlockingQueue", "LinkedBlockingQueue");
+
+    private final static String DISTRIBUTION = "zipf-0.8";
+    private final static double MISS_RATIO = 0.1;
+    private final static int LOOKUPS = 1 << 20;
+    private final static long MEASURE_NANOS = 1_000_000_000L;
+    private final static String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * What a task does with one key
+     */
+    public interface Operation {
+
+        void apply(String key) throws InterruptedException;
+    }
+
+    private final String[] keys;
+    private final Set<String> keySet;
+    private final String[] lookups;
+    private final int tasks;
+    private final long loadNanos;
+
+    /**
+     * @param size the number of keys in the map
+     * @param tasks the number of tasks in a batch
+     * @param loadMicros how long a miss parks, 0 for no load
+     */
+    public ExecutorWorkload(int size, int tasks, long loadMicros) {
+        KeyWorkload workload = new KeyWorkload(size, DISTRIBUTION, MISS_RATIO, 0);
+        keys = workload.getKeys();
+        keySet = Set.copyOf(Arrays.asList(keys));
+        lookups = workload.lookups(LOOKUPS);
+        this.tasks = tasks;
+        loadNanos = loadMicros * 1000;
+    }
+
+    /**
+     * @param executor platform or virtual
+     * @return a pool of PLATFORM_THREADS threads or an executor that
+     * starts a virtual thread for each task
+     */
+    public static ExecutorService createExecutor(String executor) {
+        return switch (executor) {
+            case "platform" ->
+                Executors.newFixedThreadPool(PLATFORM_THREADS);
+            case "virtual" ->
+                Executors.newVirtualThreadPerTaskExecutor();
+            default ->
+                throw new IllegalArgumentException("Unknown executor " + executor);
+        };
+    }
+
+    /**
+     * A new structure, loaded with every key if it is a map, and what a
+     * task does with it for each key
+     *
+     * @param structure one of STRUCTURES
+     * @return the operation
+     */
+    public Operation createOperation(String structure) {
+        return switch (structure) {
+            case "ConcurrentHashMap" ->
+                cacheAside(new ConcurrentHashMap<>());
+            case "SynchronizedHashMap" ->
+                cacheAside(Collections.synchronizedMap(new HashMap<>()));
+            case "SynchronizedTreeMap" ->
+                cacheAside(Collections.synchronizedMap(new TreeMap<>()));
+            case "ArrayBlockingQueue" ->
+                handOff(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+            case "LinkedBlockingQueue" ->
+                handOff(new LinkedBlockingQueue<>(QUEUE_CAPACITY));
+            default ->
+                throw new IllegalArgumentException("Unknown structure " + structure);
+        };
+    }
+
+    /**
+     * Submit every task of a batch and wait for all of them to end
+     *
+     * @param executor
+     * @param operation
+     * @param latencies the time from submission to end of each task in
+     * nanoseconds, one element for each task
+     * @return the number of operations
+     * @throws InterruptedException
+     */
+    public int runBatch(ExecutorService executor, Operation operation, long[] latencies) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int task = 0; task < tasks; ++task) {
+            int index = task;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    int first = index * OPERATIONS_PER_TASK;
+                    for (int x = 0; x < OPERATIONS_PER_TASK; ++x) {
+                        operation.apply(lookups[(first + x) & (LOOKUPS - 1)]);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[index] = System.nanoTime() - submitted;
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return tasks * OPERATIONS_PER_TASK;
+    }
+
+    /**
+     * Run one batch to warm up and then batches on a new structure each
+     * time until the time budget is spent, recording the pinned parks
+     *
+     * @param executorType platform or virtual
+     * @param structure one of STRUCTURES
+     * @return the throughput, task latency and pinning
+     * @throws InterruptedException
+     */
+    public ExecutorResult run(String executorType, String structure) throws InterruptedException {
+        long[] latencies = new long[tasks];
+        Histogram histogram = new Histogram();
+        AtomicLong pinnedEvents = new AtomicLong();
+        AtomicLong pinnedNanos = new AtomicLong();
+        long operations = 0;
+        long elapsed = 0;
+        try (ExecutorService executor = createExecutor(executorType);
+                RecordingStream recording = new RecordingStream()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO);
+            recording.onEvent(PINNED_EVENT, event -> {
+                pinnedEvents.incrementAndGet();
+                pinnedNanos.addAndGet(event.getDuration().toNanos());
+            });
+            runBatch(executor, createOperation(structure), latencies);
+            recording.startAsync();
+            do {
+                Operation operation = createOperation(structure);
+                long start = System.nanoTime();
+                operations += runBatch(executor, operation, latencies);
+                elapsed += System.nanoTime() - start;
+                for (long latency : latencies) {
+                    histogram.record(latency * 1000);
+                }
+            } while (elapsed < MEASURE_NANOS);
+            recording.stop();
+        }
+        return new ExecutorResult(structure, executorType + " " + tasks, operations * 1e9 / elapsed,
+                new TimingResult(histogram, 0, 1), pinnedEvents.get(), pinnedNanos.get());
+    }
+
+    private Operation cacheAside(Map<String, String> map) {
+        for (String key : keys) {
+            map.put(key, key);
+        }
+        Function<String, String> loader = key -> {
+            load();
+            return key;
+        };
+        return key -> {
+            if (map.get(key) == null) {
+                map.computeIfAbsent(key, loader);
+            }
+        };
+    }
+
+    private Operation handOff(BlockingQueue<String> queue) {
+        return key -> {
+            if (!keySet.contains(key)) {
+                load();
+            }
+            queue.put(key);
+            queue.take();
+        };
+    }
+
+    private void load() {
+        if (loadNanos > 0) {
+            LockSupport.parkNanos(loadNanos);
+        }
+    }
+}
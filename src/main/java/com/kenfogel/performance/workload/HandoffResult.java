@@ -0,0 +1,53 @@
+package com.kenfogel.performance.workload;
+
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * The sustained rate and the hand-off latency of one queue in one producer
+ * and consumer configuration
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class HandoffResult {
+
+    private final String name;
+    private final String configuration;
+    private final double handoffsPerSecond;
+    private final TimingResult latency;
+
+    HandoffResult(String name, String configuration, double handoffsPerSecond, TimingResult latency) {
+        this.name = name;
+        this.configuration = configuration;
+        this.handoffsPerSecond = handoffsPerSecond;
+        this.latency = latency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the threads and the way they take elements, such as 3P1C
+     * drainTo 64
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the elements taken by all of the consumers each second
+     */
+    public double getHandoffsPerSecond() {
+        return handoffsPerSecond;
+    }
+
+    /**
+     * @return the time from the offer of each element to its consumer
+     * receiving it
+     */
+    public TimingResult getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,266 @@
+package com.kenfogel.performance.workload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kenfogel.performance.collections.MpscRingQueue;
+import com.kenfogel.performance.collections.SpscRingQueue;
+import com.kenfogel.performance.timing.Histogram;
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * Passes elements from producer threads to consumer threads through a queue
+ * and measures how many are handed off each second and how long each one
+ * waits. Every element is the System.nanoTime of its offer, the consumer
+ * that receives it records the difference from its own clock.
+ *
+ * A consumer either polls one element at a time or, with a batch size,
+ * takes up to that many with drainTo and reads the clock once for all of
+ * them. A producer that finds the queue full and a consumer that finds it
+ * empty yield and try again, no thread ever blocks.
+ *
+ * The unbounded queues would grow without limit whenever the producers
+ * are faster, so every queue is held to about capacity elements in flight:
+ * the threads add their counts to two shared totals every PUBLISH_EVERY
+ * elements and a producer waits while the difference is above the
+ * capacity.
+ *
+ * A run warms up, measures for the time budget and then stops the
+ * producers and lets the consumers empty the queue.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class HandoffWorkload {
+
+    public final static int DEFAULT_CAPACITY = 1024;
+    public final static int DEFAULT_BATCH = 64;
+    public final static List<String> QUEUE_TYPES = List.of("ArrayBlockingQueue", "LinkedBlockingQueue",
+            "ConcurrentLinkedQueue", "LinkedTransferQueue", "SpscRingQueue", "MpscRingQueue");
+    private final static long WARMUP_MILLIS = 200;
+    private final static long MEASURE_MILLIS = 1000;
+    private final static int PUBLISH_EVERY = 64;
+
+    private final static int WARMUP = 0;
+    private final static int MEASURE = 1;
+    private final static int STOP = 2;
+    private final static int DRAIN = 3;
+
+    private final int producers;
+    private final int consumers;
+    private final int batch;
+    private final int capacity;
+
+    /**
+     * @param producers the number of producer threads
+     * @param consumers the number of consumer threads
+     * @param batch 0 to poll one element at a time, otherwise the most
+     * elements for each drainTo
+     * @param capacity the most elements in flight
+     */
+    public HandoffWorkload(int producers, int consumers, int batch, int capacity) {
+        if (producers < 1 || consumers < 1) {
+            throw new IllegalArgumentException("There must be at least one producer and one consumer");
+        }
+        this.producers = producers;
+        this.consumers = consumers;
+        this.batch = batch;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the threads and the way they take elements, such as 3P1C
+     * drainTo 64
+     */
+    public String getConfiguration() {
+        return producers + "P" + consumers + "C " + (batch == 0 ? "poll" : "drainTo " + batch);
+    }
+
+    /**
+     * A queue of one of the types compared by the hand-off benchmarks
+     *
+     * @param queueType one of QUEUE_TYPES
+     * @param capacity the bound of the queues that have one
+     * @return an empty queue
+     */
+    public static <E> Queue<E> createQueue(String queueType, int capacity) {
+        return switch (queueType) {
+            case "ArrayBlockingQueue" ->
+                new ArrayBlockingQueue<>(capacity);
+            case "LinkedBlockingQueue" ->
+                new LinkedBlockingQueue<>(capacity);
+            case "ConcurrentLinkedQueue" ->
+                new ConcurrentLinkedQueue<>();
+            case "LinkedTransferQueue" ->
+                new LinkedTransferQueue<>();
+            case "SpscRingQueue" ->
+                new SpscRingQueue<>(capacity);
+            case "MpscRingQueue" ->
+                new MpscRingQueue<>(capacity);
+            default ->
+                throw new IllegalArgumentException("Unknown queue type " + queueType);
+        };
+    }
+
+    /**
+     * @param queueType
+     * @param producers
+     * @param consumers
+     * @return false if the queue is not safe with that many threads on
+     * either side
+     */
+    public static boolean isSupported(String queueType, int producers, int consumers) {
+        return switch (queueType) {
+            case "SpscRingQueue" ->
+                producers == 1 && consumers == 1;
+            case "MpscRingQueue" ->
+                consumers == 1;
+            default ->
+                true;
+        };
+    }
+
+    /**
+     * Move up to maxElements from a queue to a collection with the drainTo
+     * of the queue, ConcurrentLinkedQueue has none so it is polled
+     *
+     * @param queue
+     * @param collection
+     * @param maxElements
+     * @return the number of elements moved
+     */
+    public static <E> int drain(Queue<E> queue, Collection<? super E> collection, int maxElements) {
+        if (queue instanceof BlockingQueue<E> blockingQueue) {
+            return blockingQueue.drainTo(collection, maxElements);
+        }
+        if (queue instanceof SpscRingQueue<E> ringQueue) {
+            return ringQueue.drainTo(collection, maxElements);
+        }
+        if (queue instanceof MpscRingQueue<E> ringQueue) {
+            return ringQueue.drainTo(collection, maxElements);
+        }
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = queue.poll()) != null) {
+            collection.add(element);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Hand elements off through the queue with the threads of this
+     * configuration
+     *
+     * @param name
+     * @param queue an empty queue
+     * @return the rate and the latency of the hand-offs
+     * @throws InterruptedException
+     */
+    public HandoffResult run(String name, Queue<Long> queue) throws InterruptedException {
+        AtomicInteger phase = new AtomicInteger(WARMUP);
+        AtomicLong offered = new AtomicLong();
+        AtomicLong taken = new AtomicLong();
+        Histogram[] histograms = new Histogram[consumers];
+        List<Thread> producerThreads = new ArrayList<>();
+        List<Thread> consumerThreads = new ArrayList<>();
+        for (int x = 0; x < producers; ++x) {
+            producerThreads.add(new Thread(() -> produce(queue, phase, offered, taken), "Producer " + (x + 1)));
+        }
+        for (int x = 0; x < consumers; ++x) {
+            Histogram histogram = new Histogram();
+            histograms[x] = histogram;
+            consumerThreads.add(new Thread(() -> consume(queue, phase, taken, histogram), "Consumer " + (x + 1)));
+        }
+        consumerThreads.forEach(Thread::start);
+        producerThreads.forEach(Thread::start);
+
+        Thread.sleep(WARMUP_MILLIS);
+        phase.set(MEASURE);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        phase.set(STOP);
+        long elapsed = System.nanoTime() - start;
+        for (Thread thread : producerThreads) {
+            thread.join();
+        }
+        phase.set(DRAIN);
+        for (Thread thread : consumerThreads) {
+            thread.join();
+        }
+
+        Histogram histogram = new Histogram();
+        for (Histogram each : histograms) {
+            histogram.add(each);
+        }
+        return new HandoffResult(name, getConfiguration(), histogram.getCount() * 1e9 / elapsed,
+                new TimingResult(histogram, 0, 1));
+    }
+
+    private void produce(Queue<Long> queue, AtomicInteger phase, AtomicLong offered, AtomicLong taken) {
+        int pending = 0;
+        while (phase.get() < STOP) {
+            if (pending == PUBLISH_EVERY) {
+                offered.addAndGet(pending);
+                pending = 0;
+                while (offered.get() - taken.get() > capacity && phase.get() < STOP) {
+                    Thread.yield();
+                }
+            }
+            if (queue.offer(System.nanoTime())) {
+                ++pending;
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void consume(Queue<Long> queue, AtomicInteger phase, AtomicLong taken, Histogram histogram) {
+        List<Long> received = new ArrayList<>(Math.max(1, batch));
+        long overhead = TimingEngine.getTimerOverhead();
+        int pending = 0;
+        while (true) {
+            int current = phase.get();
+            int count;
+            if (batch == 0) {
+                Long stamp = queue.poll();
+                count = stamp == null ? 0 : 1;
+                if (stamp != null && current == MEASURE) {
+                    histogram.record(Math.max(0, System.nanoTime() - stamp - overhead) * 1000);
+                }
+            } else {
+                count = drain(queue, received, batch);
+                if (count > 0 && current == MEASURE) {
+                    long now = System.nanoTime();
+                    for (Long stamp : received) {
+                        histogram.record(Math.max(0, now - stamp - overhead) * 1000);
+                    }
+                }
+                received.clear();
+            }
+            if (count == 0) {
+                if (current == DRAIN) {
+                    return;
+                }
+                Thread.yield();
+                continue;
+            }
+            pending += count;
+            if (pending >= PUBLISH_EVERY) {
+                taken.addAndGet(pending);
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.kenfogel.performance.workload;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+import com.kenfogel.performance.corpus.WordCorpus;
+import com.kenfogel.performance.corpus.ZipfSampler;
+import com.kenfogel.performance.timing.Histogram;
+import com.kenfogel.performance.timing.TimingEngine;
+import com.kenfogel.performance.timing.TimingResult;
+import com.kenfogel.performance.workload.OperationMix.Operation;
+
+/**
+ * Replays a mix of operations, such as 80% get, 15% put and 5% remove,
+ * against any Map or Deque. The keys are the words of the WordCorpus of
+ * the given size, the same words that MapTests loads, and the structure
+ * starts with all of them in it. Keys are picked uniformly or, with an
+ * exponent above 0, from a Zipf distribution.
+ *
+ * The operations and keys are generated once so that replaying them costs
+ * nothing but the operations. A run warms up, then replays the sequence
+ * until the time budget is spent to find the sustained throughput, then
+ * replays it once more timing every operation on its own for the latency
+ * distribution. The cost of reading the timer is subtracted.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class MixedWorkload {
+
+    public final static int DEFAULT_LENGTH = 1 << 16;
+    private final static long WARMUP_NANOS = 200_000_000L;
+    private final static long MEASURE_NANOS = 1_000_000_000L;
+
+    private final OperationMix mix;
+    private final String[] words;
+    private final Operation[] operations;
+    private final String[] keys;
+
+    /**
+     * @param mix
+     * @param size the number of words in the structure at the start
+     * @param zipfExponent 0 for uniform keys
+     * @param length the number of operations in the sequence
+     */
+    public MixedWorkload(OperationMix mix, int size, double zipfExponent, int length) {
+        this.mix = mix;
+        words = WordCorpus.getInstance(size).copyWords();
+        operations = mix.sequence(length, WordCorpus.DEFAULT_SEED);
+        ZipfSampler sampler = new ZipfSampler(size, zipfExponent, WordCorpus.DEFAULT_SEED);
+        keys = new String[length];
+        for (int x = 0; x < length; ++x) {
+            keys[x] = words[sampler.nextIndex()];
+        }
+    }
+
+    /**
+     * @return the mix that is replayed
+     */
+    public OperationMix getMix() {
+        return mix;
+    }
+
+    /**
+     * @return the number of operations in one replay
+     */
+    public int getLength() {
+        return operations.length;
+    }
+
+    /**
+     * Put every word in the map
+     *
+     * @param map
+     */
+    public void load(Map<String, String> map) {
+        for (String word : words) {
+            map.put(word, word);
+        }
+    }
+
+    /**
+     * Add every word to the end of the deque
+     *
+     * @param deque
+     */
+    public void load(Deque<String> deque) {
+        for (String word : words) {
+            deque.offerLast(word);
+        }
+    }
+
+    /**
+     * Perform every operation of the sequence once
+     *
+     * @param map
+     * @return the number of operations that found what they looked for
+     */
+    public int replay(Map<String, String> map) {
+        int found = 0;
+        for (int x = 0; x < operations.length; ++x) {
+            if (apply(map, operations[x], keys[x])) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Perform every operation of the sequence once
+     *
+     * @param deque
+     * @return the number of operations that found what they looked for
+     */
+    public int replay(Deque<String> deque) {
+        int found = 0;
+        for (int x = 0; x < operations.length; ++x) {
+            if (apply(deque, operations[x], keys[x])) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Load the map then measure its throughput and latency
+     *
+     * @param name
+     * @param map an empty map
+     * @return the result
+     */
+    public WorkloadResult run(String name, Map<String, String> map) {
+        if (!mix.isMapMix()) {
+            throw new IllegalArgumentException(mix + " is not a Map mix");
+        }
+        load(map);
+        return measure(name, () -> replay(map), x -> apply(map, operations[x], keys[x]));
+    }
+
+    /**
+     * Load the deque then measure its throughput and latency
+     *
+     * @param name
+     * @param deque an empty deque
+     * @return the result
+     */
+    public WorkloadResult run(String name, Deque<String> deque) {
+        if (mix.isMapMix()) {
+            throw new IllegalArgumentException(mix + " is not a Deque mix");
+        }
+        load(deque);
+        return measure(name, () -> replay(deque), x -> apply(deque, operations[x], keys[x]));
+    }
+
+    /**
+     * Warm up, replay for the time budget and then time each operation of
+     * one more replay
+     *
+     * @param name
+     * @param replay performs the whole sequence
+     * @param operation performs the operation at an index of the sequence
+     */
+    private WorkloadResult measure(String name, IntSupplier replay, IntPredicate operation) {
+        long found = 0;
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        do {
+            found += replay.getAsInt();
+        } while (System.nanoTime() < warmupEnd);
+
+        long replays = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            found += replay.getAsInt();
+            ++replays;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+
+        Histogram histogram = new Histogram();
+        for (int x = 0; x < operations.length; ++x) {
+            long operationStart = System.nanoTime();
+            boolean hit = operation.test(x);
+            long nanos = System.nanoTime() - operationStart - TimingEngine.getTimerOverhead();
+            histogram.record(Math.max(0, nanos) * 1000);
+            found += hit ? 1 : 0;
+        }
+        return new WorkloadResult(name, mix, replays * operations.length * 1e9 / elapsed,
+                new TimingResult(histogram, 0, 1), found);
+    }
+
+    private static boolean apply(Map<String, String> map, Operation operation, String key) {
+        return switch (operation) {
+            case GET ->
+                map.get(key) != null;
+            case PUT ->
+                map.put(key, key) != null;
+            case REMOVE ->
+                map.remove(key) != null;
+            case CONTAINS ->
+                map.containsKey(key);
+            default ->
+                throw new IllegalStateException(operation + " is not a Map operation");
+        };
+    }
+
+    private static boolean apply(Deque<String> deque, Operation operation, String key) {
+        return switch (operation) {
+            case OFFER_FIRST ->
+                deque.offerFirst(key);
+            case OFFER_LAST ->
+                deque.offerLast(key);
+            case POLL_FIRST ->
+                deque.pollFirst() != null;
+            case POLL_LAST ->
+                deque.pollLast() != null;
+            case PEEK_FIRST ->
+                deque.peekFirst() != null;
+            case PEEK_LAST ->
+                deque.peekLast() != null;
+            default ->
+                throw new IllegalStateException(operation + " is not a Deque operation");
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.kenfogel.performance.workload;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The proportion of each kind of operation in a workload, written as
+ * get=80/put=15/remove=5 for a map or offer=50/poll=50 for a queue. The
+ * parts may also be separated by commas. A mix is for either a Map or a
+ * Deque, not both.
+ *
+ * The map operations are get, put, remove and contains. The deque
+ * operations are offerFirst, offerLast, pollFirst, pollLast, peekFirst and
+ * peekLast, with offer, poll and peek as in Queue and push and pop as in a
+ * stack.
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class OperationMix {
+
+    public enum Operation {
+        GET(true), PUT(true), REMOVE(true), CONTAINS(true),
+        OFFER_FIRST(false), OFFER_LAST(false), POLL_FIRST(false),
+        POLL_LAST(false), PEEK_FIRST(false), PEEK_LAST(false);
+
+        private final boolean mapOperation;
+
+        Operation(boolean mapOperation) {
+            this.mapOperation = mapOperation;
+        }
+    }
+
+    private final String spec;
+    private final Map<Operation, Integer> weights;
+    private final boolean mapMix;
+
+    private OperationMix(String spec, Map<Operation, Integer> weights, boolean mapMix) {
+        this.spec = spec;
+        this.weights = weights;
+        this.mapMix = mapMix;
+    }
+
+    /**
+     * @param spec such as get=80/put=15/remove=5
+     * @return the mix
+     */
+    public static OperationMix parse(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split("[/,]")) {
+            String[] nameWeight = part.trim().split("=");
+            if (nameWeight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but found " + part);
+            }
+            int weight = Integer.parseInt(nameWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in " + spec);
+            }
+            weights.merge(operation(nameWeight[0].trim()), weight, Integer::sum);
+        }
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (total == 0) {
+            throw new IllegalArgumentException("The weights of " + spec + " add up to 0");
+        }
+        boolean mapMix = weights.keySet().iterator().next().mapOperation;
+        for (Operation operation : weights.keySet()) {
+            if (operation.mapOperation != mapMix) {
+                throw new IllegalArgumentException(spec + " mixes Map and Deque operations");
+            }
+        }
+        return new OperationMix(spec, weights, mapMix);
+    }
+
+    /**
+     * @return true for a Map mix, false for a Deque mix
+     */
+    public boolean isMapMix() {
+        return mapMix;
+    }
+
+    /**
+     * A shuffled sequence with each operation in exactly its proportion,
+     * rounded down, so replaying it over and over neither grows nor
+     * shrinks a structure more than the mix itself does
+     *
+     * @param length
+     * @param seed
+     * @return the operations in the order they are replayed
+     */
+    public Operation[] sequence(int length, long seed) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        List<Operation> operations = new ArrayList<>(length);
+        weights.forEach((operation, weight) -> {
+            long count = (long) length * weight / total;
+            for (long x = 0; x < count; ++x) {
+                operations.add(operation);
+            }
+        });
+        // Fill the rounding gap with the most common operation
+        Operation most = weights.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
+        while (operations.size() < length) {
+            operations.add(most);
+        }
+        Operation[] sequence = operations.toArray(new Operation[0]);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int x = sequence.length - 1; x > 0; --x) {
+            int y = random.nextInt(x + 1);
+            Operation swap = sequence[x];
+            sequence[x] = sequence[y];
+            sequence[y] = swap;
+        }
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static Operation operation(String name) {
+        return switch (name) {
+            case "get" ->
+                Operation.GET;
+            case "put" ->
+                Operation.PUT;
+            case "remove" ->
+                Operation.REMOVE;
+            case "contains", "containsKey" ->
+                Operation.CONTAINS;
+            case "offerFirst", "push" ->
+                Operation.OFFER_FIRST;
+            case "offerLast", "offer" ->
+                Operation.OFFER_LAST;
+            case "pollFirst", "poll", "pop" ->
+                Operation.POLL_FIRST;
+            case "pollLast" ->
+                Operation.POLL_LAST;
+            case "peekFirst", "peek" ->
+                Operation.PEEK_FIRST;
+            case "peekLast" ->
+                Operation.PEEK_LAST;
+            default ->
+                throw new IllegalArgumentException("Unknown operation " + name);
+        };
+    }
+}
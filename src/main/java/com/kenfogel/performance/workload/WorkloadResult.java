@@ -0,0 +1,55 @@
+package com.kenfogel.performance.workload;
+
+import com.kenfogel.performance.timing.TimingResult;
+
+/**
+ * The sustained throughput and the latency distribution of one structure
+ * under one operation mix
+ *
+ * @author Ken Fogel
+ * @version 6.0
+ *
+ */
+public class WorkloadResult {
+
+    private final String name;
+    private final OperationMix mix;
+    private final double operationsPerSecond;
+    private final TimingResult latency;
+    private final long found;
+
+    WorkloadResult(String name, OperationMix mix, double operationsPerSecond, TimingResult latency, long found) {
+        this.name = name;
+        this.mix = mix;
+        this.operationsPerSecond = operationsPerSecond;
+        this.latency = latency;
+        this.found = found;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OperationMix getMix() {
+        return mix;
+    }
+
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    /**
+     * @return the time of each operation, timed one at a time
+     */
+    public TimingResult getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of operations that found what they looked for,
+     * keeps the work from being optimized away
+     */
+    public long getFound() {
+        return found;
+    }
+}